@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.admin.dao.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * 运营看板预聚合实体（按小时/天分桶）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("t_dashboard_rollup")
+public class DashboardRollupDO {
+
+    /**
+     * ID
+     */
+    @TableId(type = IdType.ASSIGN_ID)
+    private Long id;
+
+    /**
+     * 粒度 (hour, day)
+     */
+    private String bucketType;
+
+    /**
+     * 桶起始时间
+     */
+    private Date bucketStart;
+
+    /**
+     * 新增用户数
+     */
+    private Long newUsers;
+
+    /**
+     * 新建会话数
+     */
+    private Long sessions;
+
+    /**
+     * 消息数
+     */
+    private Long messages;
+
+    /**
+     * 助手回复数
+     */
+    private Long assistantMessages;
+
+    /**
+     * 未检索到知识的回复数
+     */
+    private Long noDocMessages;
+
+    /**
+     * 活跃用户数（小时桶为精确值，日桶为草图估计值）
+     */
+    private Long activeUsers;
+
+    /**
+     * 活跃用户去重草图（HyperLogLog）
+     */
+    private byte[] activeUserSketch;
+
+    /**
+     * 成功链路数
+     */
+    private Long traceSuccess;
+
+    /**
+     * 失败链路数
+     */
+    private Long traceError;
+
+    /**
+     * 耗时样本数（成功链路）
+     */
+    private Long latencyCount;
+
+    /**
+     * 耗时总和（毫秒）
+     */
+    private Long latencySumMs;
+
+    /**
+     * 慢请求数
+     */
+    private Long slowCount;
+
+    /**
+     * 耗时分位数草图
+     */
+    private byte[] latencySketch;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private Date createTime;
+
+    /**
+     * 修改时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private Date updateTime;
+}
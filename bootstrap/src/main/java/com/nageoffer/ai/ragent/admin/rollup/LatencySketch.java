@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.admin.rollup;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 可合并的耗时分位数草图
+ * <p>
+ * 按对数等比分桶（相对误差 1%）记录样本个数，桶数只与取值范围有关，与样本量无关；
+ * 多个桶的草图按桶下标逐个累加即可合并，合并结果与直接对全部样本建草图完全一致
+ */
+public final class LatencySketch {
+
+    private static final double RELATIVE_ACCURACY = 0.01D;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final byte VERSION = 1;
+
+    private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+    private long count;
+
+    /**
+     * 记录一个耗时样本（毫秒），非正数忽略
+     */
+    public void add(long valueMs) {
+        if (valueMs <= 0) {
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(valueMs) / LOG_GAMMA);
+        buckets.merge(index, 1L, Long::sum);
+        count++;
+    }
+
+    public void merge(LatencySketch other) {
+        if (other == null) {
+            return;
+        }
+        other.buckets.forEach((index, n) -> buckets.merge(index, n, Long::sum));
+        count += other.count;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * 分位数估计，与“排序后取第 ceil(n * q) 个样本”的口径一致
+     *
+     * @param quantile 分位数（0~1）
+     * @return 估计值（毫秒），无样本时返回 0
+     */
+    public long quantile(double quantile) {
+        if (count == 0) {
+            return 0L;
+        }
+        double q = Math.min(1D, Math.max(0D, quantile));
+        long rank = Math.max(1L, (long) Math.ceil(count * q));
+        long seen = 0L;
+        int index = buckets.lastKey();
+        for (Map.Entry<Integer, Long> entry : buckets.entrySet()) {
+            seen += entry.getValue();
+            if (seen >= rank) {
+                index = entry.getKey();
+                break;
+            }
+        }
+        // 取桶区间 (γ^(i-1), γ^i] 的相对误差中点
+        return Math.round(2 * Math.pow(GAMMA, index) / (GAMMA + 1));
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + Integer.BYTES + buckets.size() * (Integer.BYTES + Long.BYTES));
+        buffer.put(VERSION);
+        buffer.putInt(buckets.size());
+        buckets.forEach((index, n) -> {
+            buffer.putInt(index);
+            buffer.putLong(n);
+        });
+        return buffer.array();
+    }
+
+    public static LatencySketch fromBytes(byte[] bytes) {
+        LatencySketch sketch = new LatencySketch();
+        if (bytes == null || bytes.length < 1 + Integer.BYTES || bytes[0] != VERSION) {
+            return sketch;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+        int size = buffer.getInt();
+        for (int i = 0; i < size && buffer.remaining() >= Integer.BYTES + Long.BYTES; i++) {
+            int index = buffer.getInt();
+            long n = buffer.getLong();
+            sketch.buckets.merge(index, n, Long::sum);
+            sketch.count += n;
+        }
+        return sketch;
+    }
+}
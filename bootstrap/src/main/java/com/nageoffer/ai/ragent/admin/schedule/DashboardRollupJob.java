@@ -0,0 +1,360 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.admin.schedule;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.nageoffer.ai.ragent.admin.dao.entity.DashboardRollupDO;
+import com.nageoffer.ai.ragent.admin.dao.mapper.DashboardRollupMapper;
+import com.nageoffer.ai.ragent.admin.enums.RollupBucketType;
+import com.nageoffer.ai.ragent.admin.rollup.DistinctCountSketch;
+import com.nageoffer.ai.ragent.admin.rollup.LatencySketch;
+import com.nageoffer.ai.ragent.rag.config.DashboardRollupProperties;
+import com.nageoffer.ai.ragent.rag.dao.entity.ConversationDO;
+import com.nageoffer.ai.ragent.rag.dao.entity.ConversationMessageDO;
+import com.nageoffer.ai.ragent.rag.dao.entity.RagTraceRunDO;
+import com.nageoffer.ai.ragent.rag.dao.mapper.ConversationMapper;
+import com.nageoffer.ai.ragent.rag.dao.mapper.ConversationMessageMapper;
+import com.nageoffer.ai.ragent.rag.dao.mapper.RagTraceRunMapper;
+import com.nageoffer.ai.ragent.user.dao.entity.UserDO;
+import com.nageoffer.ai.ragent.user.dao.mapper.UserMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 运营看板预聚合任务
+ * <p>
+ * 以小时桶的最大起始时间作为水位线，每次从水位线往前回看若干小时开始，逐小时重算聚合行并写回，
+ * 再把受影响日期的小时桶合并成天桶。重算是幂等的：同一个桶无论算几次结果都一样，
+ * 因此迟到的异步链路写入、RUNNING 状态的链路后续完成，都会在回看窗口内被修正。
+ * 首次上线时水位线为空，从源表最早的数据开始按批补齐历史。
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DashboardRollupJob {
+
+    private static final String LOCK_KEY = "ragent:dashboard:rollup:lock";
+    private static final long LOCK_LEASE_MINUTES = 10;
+    private static final String STATUS_SUCCESS = "SUCCESS";
+    private static final String STATUS_ERROR = "ERROR";
+    private static final String ROLE_ASSISTANT = "assistant";
+    private static final String NO_DOC_REPLY = "未检索到与问题相关的文档内容。";
+
+    private final DashboardRollupMapper rollupMapper;
+    private final UserMapper userMapper;
+    private final ConversationMapper conversationMapper;
+    private final ConversationMessageMapper messageMapper;
+    private final RagTraceRunMapper traceRunMapper;
+    private final RedissonClient redissonClient;
+    private final DashboardRollupProperties properties;
+
+    @Scheduled(fixedDelayString = "${rag.dashboard.rollup.scan-delay-ms:60000}")
+    public void rollup() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        boolean locked;
+        try {
+            locked = lock.tryLock(0, LOCK_LEASE_MINUTES, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!locked) {
+            return;
+        }
+        try {
+            advance();
+        } catch (Exception e) {
+            log.error("看板预聚合执行失败", e);
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void advance() {
+        ZoneId zoneId = ZoneId.systemDefault();
+        LocalDateTime currentHour = LocalDateTime.now(zoneId).truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime from = resolveStartHour(currentHour, zoneId);
+        if (from == null) {
+            return;
+        }
+        LocalDateTime endExclusive = from.plusHours(resolveHoursPerRun());
+        if (endExclusive.isAfter(currentHour.plusHours(1))) {
+            endExclusive = currentHour.plusHours(1);
+        }
+
+        TreeSet<LocalDate> touchedDays = new TreeSet<>();
+        for (LocalDateTime hour = from; hour.isBefore(endExclusive); hour = hour.plusHours(1)) {
+            upsert(buildHourRollup(hour, zoneId));
+            touchedDays.add(hour.toLocalDate());
+        }
+        for (LocalDate day : touchedDays) {
+            upsert(buildDayRollup(day, zoneId));
+        }
+        log.debug("看板预聚合完成: from={}, to={}, days={}", from, endExclusive, touchedDays.size());
+    }
+
+    /**
+     * 单次聚合的小时数至少为回看小时数 + 2：回看窗口覆盖到水位线所在小时后，还要再推进一小时，
+     * 否则每次执行都在同一窗口内重算，水位线永远停在原地
+     */
+    private int resolveHoursPerRun() {
+        int lookbackHours = Math.max(0, properties.getLookbackHours());
+        int configured = properties.getBackfillHoursPerRun();
+        int minimum = lookbackHours + 2;
+        if (configured < minimum) {
+            log.warn("backfill-hours-per-run={} 不大于 lookback-hours+1，按 {} 执行，否则水位线无法推进", configured, minimum);
+            return minimum;
+        }
+        return configured;
+    }
+
+    private LocalDateTime resolveStartHour(LocalDateTime currentHour, ZoneId zoneId) {
+        DashboardRollupDO latest = rollupMapper.selectOne(Wrappers.lambdaQuery(DashboardRollupDO.class)
+                .select(DashboardRollupDO::getBucketStart)
+                .eq(DashboardRollupDO::getBucketType, RollupBucketType.HOUR.getCode())
+                .orderByDesc(DashboardRollupDO::getBucketStart)
+                .last("LIMIT 1"));
+        if (latest != null && latest.getBucketStart() != null) {
+            LocalDateTime watermark = toLocalDateTime(latest.getBucketStart(), zoneId);
+            LocalDateTime from = watermark.minusHours(Math.max(0, properties.getLookbackHours()));
+            return from.isAfter(currentHour) ? currentHour : from;
+        }
+
+        Date earliest = earliestSourceTime();
+        if (earliest == null) {
+            return currentHour;
+        }
+        LocalDateTime from = toLocalDateTime(earliest, zoneId).truncatedTo(ChronoUnit.HOURS);
+        return from.isAfter(currentHour) ? currentHour : from;
+    }
+
+    private Date earliestSourceTime() {
+        UserDO user = userMapper.selectOne(Wrappers.lambdaQuery(UserDO.class)
+                .select(UserDO::getCreateTime)
+                .orderByAsc(UserDO::getCreateTime)
+                .last("LIMIT 1"));
+        ConversationDO conversation = conversationMapper.selectOne(Wrappers.lambdaQuery(ConversationDO.class)
+                .select(ConversationDO::getCreateTime)
+                .orderByAsc(ConversationDO::getCreateTime)
+                .last("LIMIT 1"));
+        ConversationMessageDO message = messageMapper.selectOne(Wrappers.lambdaQuery(ConversationMessageDO.class)
+                .select(ConversationMessageDO::getCreateTime)
+                .orderByAsc(ConversationMessageDO::getCreateTime)
+                .last("LIMIT 1"));
+        RagTraceRunDO traceRun = traceRunMapper.selectOne(Wrappers.lambdaQuery(RagTraceRunDO.class)
+                .select(RagTraceRunDO::getStartTime)
+                .orderByAsc(RagTraceRunDO::getStartTime)
+                .last("LIMIT 1"));
+        return Stream.of(
+                        user == null ? null : user.getCreateTime(),
+                        conversation == null ? null : conversation.getCreateTime(),
+                        message == null ? null : message.getCreateTime(),
+                        traceRun == null ? null : traceRun.getStartTime())
+                .filter(Objects::nonNull)
+                .min(Date::compareTo)
+                .orElse(null);
+    }
+
+    private DashboardRollupDO buildHourRollup(LocalDateTime hour, ZoneId zoneId) {
+        Date start = toDate(hour, zoneId);
+        Date end = toDate(hour.plusHours(1), zoneId);
+
+        long newUsers = userMapper.selectCount(Wrappers.lambdaQuery(UserDO.class)
+                .ge(UserDO::getCreateTime, start)
+                .lt(UserDO::getCreateTime, end));
+        long sessions = conversationMapper.selectCount(Wrappers.lambdaQuery(ConversationDO.class)
+                .ge(ConversationDO::getCreateTime, start)
+                .lt(ConversationDO::getCreateTime, end));
+        long messages = messageMapper.selectCount(Wrappers.lambdaQuery(ConversationMessageDO.class)
+                .ge(ConversationMessageDO::getCreateTime, start)
+                .lt(ConversationMessageDO::getCreateTime, end));
+        long assistantMessages = messageMapper.selectCount(Wrappers.lambdaQuery(ConversationMessageDO.class)
+                .ge(ConversationMessageDO::getCreateTime, start)
+                .lt(ConversationMessageDO::getCreateTime, end)
+                .eq(ConversationMessageDO::getRole, ROLE_ASSISTANT));
+        long noDocMessages = messageMapper.selectCount(Wrappers.lambdaQuery(ConversationMessageDO.class)
+                .ge(ConversationMessageDO::getCreateTime, start)
+                .lt(ConversationMessageDO::getCreateTime, end)
+                .eq(ConversationMessageDO::getRole, ROLE_ASSISTANT)
+                .eq(ConversationMessageDO::getContent, NO_DOC_REPLY));
+
+        List<Object> userIds = messageMapper.selectObjs(Wrappers.<ConversationMessageDO>query()
+                .select("distinct user_id")
+                .ge("create_time", start)
+                .lt("create_time", end));
+        DistinctCountSketch activeUserSketch = new DistinctCountSketch();
+        long activeUsers = 0;
+        if (userIds != null) {
+            for (Object userId : userIds) {
+                if (userId != null) {
+                    activeUserSketch.add(String.valueOf(userId));
+                    activeUsers++;
+                }
+            }
+        }
+
+        long traceSuccess = traceRunMapper.selectCount(Wrappers.lambdaQuery(RagTraceRunDO.class)
+                .ge(RagTraceRunDO::getStartTime, start)
+                .lt(RagTraceRunDO::getStartTime, end)
+                .eq(RagTraceRunDO::getStatus, STATUS_SUCCESS));
+        long traceError = traceRunMapper.selectCount(Wrappers.lambdaQuery(RagTraceRunDO.class)
+                .ge(RagTraceRunDO::getStartTime, start)
+                .lt(RagTraceRunDO::getStartTime, end)
+                .eq(RagTraceRunDO::getStatus, STATUS_ERROR));
+
+        List<Object> durations = traceRunMapper.selectObjs(Wrappers.lambdaQuery(RagTraceRunDO.class)
+                .select(RagTraceRunDO::getDurationMs)
+                .ge(RagTraceRunDO::getStartTime, start)
+                .lt(RagTraceRunDO::getStartTime, end)
+                .eq(RagTraceRunDO::getStatus, STATUS_SUCCESS)
+                .gt(RagTraceRunDO::getDurationMs, 0));
+        LatencySketch latencySketch = new LatencySketch();
+        long latencySum = 0;
+        long slowCount = 0;
+        if (durations != null) {
+            for (Object value : durations) {
+                if (value instanceof Number number && number.longValue() > 0) {
+                    long duration = number.longValue();
+                    latencySketch.add(duration);
+                    latencySum += duration;
+                    if (duration > properties.getSlowLatencyMs()) {
+                        slowCount++;
+                    }
+                }
+            }
+        }
+
+        return DashboardRollupDO.builder()
+                .bucketType(RollupBucketType.HOUR.getCode())
+                .bucketStart(start)
+                .newUsers(newUsers)
+                .sessions(sessions)
+                .messages(messages)
+                .assistantMessages(assistantMessages)
+                .noDocMessages(noDocMessages)
+                .activeUsers(activeUsers)
+                .activeUserSketch(activeUserSketch.toBytes())
+                .traceSuccess(traceSuccess)
+                .traceError(traceError)
+                .latencyCount(latencySketch.count())
+                .latencySumMs(latencySum)
+                .slowCount(slowCount)
+                .latencySketch(latencySketch.toBytes())
+                .build();
+    }
+
+    private DashboardRollupDO buildDayRollup(LocalDate day, ZoneId zoneId) {
+        List<DashboardRollupDO> hours = rollupMapper.selectList(Wrappers.lambdaQuery(DashboardRollupDO.class)
+                .eq(DashboardRollupDO::getBucketType, RollupBucketType.HOUR.getCode())
+                .ge(DashboardRollupDO::getBucketStart, toDate(day.atStartOfDay(), zoneId))
+                .lt(DashboardRollupDO::getBucketStart, toDate(day.plusDays(1).atStartOfDay(), zoneId)));
+
+        DashboardRollupDO result = DashboardRollupDO.builder()
+                .bucketType(RollupBucketType.DAY.getCode())
+                .bucketStart(toDate(day.atStartOfDay(), zoneId))
+                .newUsers(0L)
+                .sessions(0L)
+                .messages(0L)
+                .assistantMessages(0L)
+                .noDocMessages(0L)
+                .traceSuccess(0L)
+                .traceError(0L)
+                .latencyCount(0L)
+                .latencySumMs(0L)
+                .slowCount(0L)
+                .build();
+        DistinctCountSketch activeUserSketch = new DistinctCountSketch();
+        LatencySketch latencySketch = new LatencySketch();
+        for (DashboardRollupDO hour : hours) {
+            result.setNewUsers(result.getNewUsers() + nullToZero(hour.getNewUsers()));
+            result.setSessions(result.getSessions() + nullToZero(hour.getSessions()));
+            result.setMessages(result.getMessages() + nullToZero(hour.getMessages()));
+            result.setAssistantMessages(result.getAssistantMessages() + nullToZero(hour.getAssistantMessages()));
+            result.setNoDocMessages(result.getNoDocMessages() + nullToZero(hour.getNoDocMessages()));
+            result.setTraceSuccess(result.getTraceSuccess() + nullToZero(hour.getTraceSuccess()));
+            result.setTraceError(result.getTraceError() + nullToZero(hour.getTraceError()));
+            result.setLatencyCount(result.getLatencyCount() + nullToZero(hour.getLatencyCount()));
+            result.setLatencySumMs(result.getLatencySumMs() + nullToZero(hour.getLatencySumMs()));
+            result.setSlowCount(result.getSlowCount() + nullToZero(hour.getSlowCount()));
+            activeUserSketch.merge(DistinctCountSketch.fromBytes(hour.getActiveUserSketch()));
+            latencySketch.merge(LatencySketch.fromBytes(hour.getLatencySketch()));
+        }
+        result.setActiveUsers(activeUserSketch.estimate());
+        result.setActiveUserSketch(activeUserSketch.toBytes());
+        result.setLatencySketch(latencySketch.toBytes());
+        return result;
+    }
+
+    private void upsert(DashboardRollupDO rollup) {
+        DashboardRollupDO existing = selectBucket(rollup.getBucketType(), rollup.getBucketStart());
+        if (existing == null) {
+            try {
+                rollupMapper.insert(rollup);
+                return;
+            } catch (DuplicateKeyException e) {
+                existing = selectBucket(rollup.getBucketType(), rollup.getBucketStart());
+                if (existing == null) {
+                    throw e;
+                }
+            }
+        }
+        rollup.setId(existing.getId());
+        rollupMapper.updateById(rollup);
+    }
+
+    private DashboardRollupDO selectBucket(String bucketType, Date bucketStart) {
+        return rollupMapper.selectOne(Wrappers.lambdaQuery(DashboardRollupDO.class)
+                .select(DashboardRollupDO::getId)
+                .eq(DashboardRollupDO::getBucketType, bucketType)
+                .eq(DashboardRollupDO::getBucketStart, bucketStart));
+    }
+
+    private long nullToZero(Long value) {
+        return value == null ? 0L : value;
+    }
+
+    private Date toDate(LocalDateTime time, ZoneId zoneId) {
+        return Date.from(time.atZone(zoneId).toInstant());
+    }
+
+    private LocalDateTime toLocalDateTime(Date date, ZoneId zoneId) {
+        return date.toInstant().atZone(zoneId).toLocalDateTime();
+    }
+}
@@ -26,24 +26,21 @@ import com.nageoffer.ai.ragent.admin.controller.vo.DashboardPerformanceVO;
 import com.nageoffer.ai.ragent.admin.controller.vo.DashboardTrendPointVO;
 import com.nageoffer.ai.ragent.admin.controller.vo.DashboardTrendSeriesVO;
 import com.nageoffer.ai.ragent.admin.controller.vo.DashboardTrendsVO;
+import com.nageoffer.ai.ragent.admin.dao.entity.DashboardRollupDO;
+import com.nageoffer.ai.ragent.admin.dao.mapper.DashboardRollupMapper;
+import com.nageoffer.ai.ragent.admin.enums.RollupBucketType;
+import com.nageoffer.ai.ragent.admin.rollup.DistinctCountSketch;
+import com.nageoffer.ai.ragent.admin.rollup.LatencySketch;
 import com.nageoffer.ai.ragent.admin.service.DashboardService;
-import com.nageoffer.ai.ragent.rag.dao.entity.ConversationDO;
-import com.nageoffer.ai.ragent.rag.dao.entity.ConversationMessageDO;
-import com.nageoffer.ai.ragent.rag.dao.entity.RagTraceRunDO;
-import com.nageoffer.ai.ragent.rag.dao.mapper.ConversationMapper;
-import com.nageoffer.ai.ragent.rag.dao.mapper.ConversationMessageMapper;
-import com.nageoffer.ai.ragent.rag.dao.mapper.RagTraceRunMapper;
 import com.nageoffer.ai.ragent.user.dao.entity.UserDO;
 import com.nageoffer.ai.ragent.user.dao.mapper.UserMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -51,42 +48,48 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.function.Function;
+
+/**
+ * 运营看板服务
+ * <p>
+ * 所有指标均读取 {@code t_dashboard_rollup} 中由 {@link com.nageoffer.ai.ragent.admin.schedule.DashboardRollupJob}
+ * 维护的小时/天预聚合行，单次查询的行数只与窗口内的桶数有关，与历史数据量无关。
+ * 窗口按整桶对齐：7 天以内按小时桶（含当前小时），更长的窗口按天桶（含今天）
+ * </p>
+ */
 @Service
 @RequiredArgsConstructor
 public class DashboardServiceImpl implements DashboardService {
 
-    private static final String STATUS_SUCCESS = "SUCCESS";
-    private static final String STATUS_ERROR = "ERROR";
-    private static final String ROLE_ASSISTANT = "assistant";
-    private static final String NO_DOC_REPLY = "未检索到与问题相关的文档内容。";
     private static final String GRANULARITY_DAY = "day";
     private static final String GRANULARITY_HOUR = "hour";
-    private static final long SLOW_LATENCY_THRESHOLD_MS = 20000L;
-    private static final DateTimeFormatter HOUR_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final long HOUR_BUCKET_MAX_WINDOW_HOURS = 7 * 24L;
+    private static final double P95 = 0.95D;
 
     private final UserMapper userMapper;
-    private final ConversationMapper conversationMapper;
-    private final ConversationMessageMapper messageMapper;
-    private final RagTraceRunMapper traceRunMapper;
+    private final DashboardRollupMapper rollupMapper;
 
     @Override
     public DashboardOverviewVO loadOverview(String window) {
         WindowRange range = resolveWindowRange(window, Duration.ofHours(24));
+        RollupAggregate current = aggregate(listRollups(range.bucketType, range.start, range.end));
+        RollupAggregate previous = aggregate(listRollups(range.bucketType, range.prevStart, range.prevEnd));
 
         long totalUsers = userMapper.selectCount(Wrappers.lambdaQuery(UserDO.class));
-        long usersInWindow = countUsers(range.start, range.end);
+        long usersInWindow = current.newUsers;
 
-        long totalSessions = conversationMapper.selectCount(Wrappers.lambdaQuery(ConversationDO.class));
-        long sessionsInWindow = countConversations(range.start, range.end);
-        long sessionsPrevWindow = countConversations(range.prevStart, range.prevEnd);
+        Map<String, Object> totals = sumDayRollups();
+        long totalSessions = toLong(totals.get("sessions"));
+        long sessionsInWindow = current.sessions;
+        long sessionsPrevWindow = previous.sessions;
 
-        long totalMessages = messageMapper.selectCount(Wrappers.lambdaQuery(ConversationMessageDO.class));
-        long messagesInWindow = countMessages(range.start, range.end);
-        long messagesPrevWindow = countMessages(range.prevStart, range.prevEnd);
+        long totalMessages = toLong(totals.get("messages"));
+        long messagesInWindow = current.messages;
+        long messagesPrevWindow = previous.messages;
 
-        long activeUsers = countActiveUsers(range.start, range.end);
-        long activeUsersPrev = countActiveUsers(range.prevStart, range.prevEnd);
+        long activeUsers = current.activeUsers();
+        long activeUsersPrev = previous.activeUsers();
 
         DashboardOverviewGroupVO group = DashboardOverviewGroupVO.builder()
                 .totalUsers(buildKpi(totalUsers, usersInWindow, null))
@@ -108,21 +111,21 @@ public class DashboardServiceImpl implements DashboardService {
     @Override
     public DashboardPerformanceVO loadPerformance(String window) {
         WindowRange range = resolveWindowRange(window, Duration.ofHours(24));
-        List<Long> durations = listDurations(range.start, range.end);
-        long avgLatency = average(durations);
-        long p95Latency = percentile(durations);
+        RollupAggregate current = aggregate(listRollups(range.bucketType, range.start, range.end));
+        long avgLatency = current.latencyCount == 0 ? 0L : Math.round(current.latencySumMs / (double) current.latencyCount);
+        long p95Latency = current.latencySketch.quantile(P95);
 
-        long success = countTraceRuns(range.start, range.end, STATUS_SUCCESS);
-        long error = countTraceRuns(range.start, range.end, STATUS_ERROR);
+        long success = current.traceSuccess;
+        long error = current.traceError;
         long total = success + error;
-        long assistantCount = countAssistantMessages(range.start, range.end);
-        long noDocCount = countNoDocMessages(range.start, range.end);
-        long slowCount = durations.stream().filter(duration -> duration > SLOW_LATENCY_THRESHOLD_MS).count();
+        long assistantCount = current.assistantMessages;
+        long noDocCount = current.noDocMessages;
+        long slowCount = current.slowCount;
 
         double successRate = total == 0 ? 0.0 : round1((success * 100.0) / total);
         double errorRate = total == 0 ? 0.0 : round1((error * 100.0) / total);
         double noDocRate = assistantCount == 0 ? 0.0 : round1((noDocCount * 100.0) / assistantCount);
-        double slowRate = durations.isEmpty() ? 0.0 : round1((slowCount * 100.0) / durations.size());
+        double slowRate = current.latencyCount == 0 ? 0.0 : round1((slowCount * 100.0) / current.latencyCount);
 
         return DashboardPerformanceVO.builder()
                 .window(range.windowLabel)
@@ -145,40 +148,44 @@ public class DashboardServiceImpl implements DashboardService {
         List<DashboardTrendSeriesVO> series = new ArrayList<>();
 
         if (GRANULARITY_HOUR.equals(resolvedGranularity)) {
-            LocalDateTime endHourExclusive = toLocalDateTime(range.end, zoneId)
+            LocalDateTime endHourExclusive = LocalDateTime.now(zoneId)
                     .truncatedTo(ChronoUnit.HOURS)
                     .plusHours(1);
             LocalDateTime startHour = endHourExclusive.minusHours(Math.max(1, windowDuration.toHours()));
+            Map<LocalDateTime, DashboardRollupDO> rows = new HashMap<>();
+            for (DashboardRollupDO row : listRollups(RollupBucketType.HOUR, toDate(startHour, zoneId), toDate(endHourExclusive, zoneId))) {
+                rows.put(toLocalDateTime(row.getBucketStart(), zoneId), row);
+            }
 
             if ("sessions".equals(normalizedMetric)) {
-                Map<LocalDateTime, Long> counts = countConversationsByHour(startHour, endHourExclusive, zoneId);
+                Map<LocalDateTime, Long> counts = mapLong(rows, DashboardRollupDO::getSessions);
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("会话数")
                         .data(buildPointsByHour(startHour, endHourExclusive, zoneId, counts))
                         .build());
             } else if ("messages".equals(normalizedMetric)) {
-                Map<LocalDateTime, Long> counts = countMessagesByHour(startHour, endHourExclusive, zoneId);
+                Map<LocalDateTime, Long> counts = mapLong(rows, DashboardRollupDO::getMessages);
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("消息数")
                         .data(buildPointsByHour(startHour, endHourExclusive, zoneId, counts))
                         .build());
             } else if ("activeusers".equals(normalizedMetric)) {
-                Map<LocalDateTime, Long> counts = countActiveUsersByHour(startHour, endHourExclusive, zoneId);
+                Map<LocalDateTime, Long> counts = mapLong(rows, DashboardRollupDO::getActiveUsers);
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("活跃用户")
                         .data(buildPointsByHour(startHour, endHourExclusive, zoneId, counts))
                         .build());
             } else if ("avglatency".equals(normalizedMetric)) {
-                Map<LocalDateTime, Double> averages = averageLatencyByHour(startHour, endHourExclusive, zoneId);
+                Map<LocalDateTime, Double> averages = mapAverageLatency(rows);
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("平均响应时间")
                         .data(buildPointsDoubleByHour(startHour, endHourExclusive, zoneId, averages))
                         .build());
             } else if ("quality".equals(normalizedMetric)) {
-                Map<LocalDateTime, Long> successMap = countTraceRunsByHour(startHour, endHourExclusive, zoneId, STATUS_SUCCESS);
-                Map<LocalDateTime, Long> errorMap = countTraceRunsByHour(startHour, endHourExclusive, zoneId, STATUS_ERROR);
-                Map<LocalDateTime, Long> assistantCountMap = countAssistantMessagesByHour(startHour, endHourExclusive, zoneId);
-                Map<LocalDateTime, Long> noDocCountMap = countNoDocMessagesByHour(startHour, endHourExclusive, zoneId);
+                Map<LocalDateTime, Long> successMap = mapLong(rows, DashboardRollupDO::getTraceSuccess);
+                Map<LocalDateTime, Long> errorMap = mapLong(rows, DashboardRollupDO::getTraceError);
+                Map<LocalDateTime, Long> assistantCountMap = mapLong(rows, DashboardRollupDO::getAssistantMessages);
+                Map<LocalDateTime, Long> noDocCountMap = mapLong(rows, DashboardRollupDO::getNoDocMessages);
                 Map<LocalDateTime, Double> errorRate = new HashMap<>();
                 Map<LocalDateTime, Double> noDocRate = new HashMap<>();
                 for (LocalDateTime hour = startHour; hour.isBefore(endHourExclusive); hour = hour.plusHours(1)) {
@@ -201,38 +208,42 @@ public class DashboardServiceImpl implements DashboardService {
                         .build());
             }
         } else {
-            LocalDate startDay = toLocalDate(range.start, zoneId);
-            LocalDate endExclusiveDay = toLocalDate(range.end, zoneId).plusDays(1);
+            LocalDate endExclusiveDay = LocalDate.now(zoneId).plusDays(1);
+            LocalDate startDay = endExclusiveDay.minusDays(Math.max(1, (windowDuration.toHours() + 23) / 24) + 1);
+            Map<LocalDate, DashboardRollupDO> rows = new HashMap<>();
+            for (DashboardRollupDO row : listRollups(RollupBucketType.DAY, toDate(startDay, zoneId), toDate(endExclusiveDay, zoneId))) {
+                rows.put(toLocalDate(row.getBucketStart(), zoneId), row);
+            }
 
             if ("sessions".equals(normalizedMetric)) {
-                Map<LocalDate, Long> counts = countConversationsByDay(startDay, endExclusiveDay, zoneId);
+                Map<LocalDate, Long> counts = mapLong(rows, DashboardRollupDO::getSessions);
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("会话数")
                         .data(buildPoints(startDay, endExclusiveDay, zoneId, counts))
                         .build());
             } else if ("messages".equals(normalizedMetric)) {
-                Map<LocalDate, Long> counts = countMessagesByDay(startDay, endExclusiveDay, zoneId);
+                Map<LocalDate, Long> counts = mapLong(rows, DashboardRollupDO::getMessages);
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("消息数")
                         .data(buildPoints(startDay, endExclusiveDay, zoneId, counts))
                         .build());
             } else if ("activeusers".equals(normalizedMetric)) {
-                Map<LocalDate, Long> counts = countActiveUsersByDay(startDay, endExclusiveDay, zoneId);
+                Map<LocalDate, Long> counts = mapLong(rows, DashboardRollupDO::getActiveUsers);
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("活跃用户")
                         .data(buildPoints(startDay, endExclusiveDay, zoneId, counts))
                         .build());
             } else if ("avglatency".equals(normalizedMetric)) {
-                Map<LocalDate, Double> averages = averageLatencyByDay(startDay, endExclusiveDay, zoneId);
+                Map<LocalDate, Double> averages = mapAverageLatency(rows);
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("平均响应时间")
                         .data(buildPointsDouble(startDay, endExclusiveDay, zoneId, averages))
                         .build());
             } else if ("quality".equals(normalizedMetric)) {
-                Map<LocalDate, Long> successMap = countTraceRunsByDay(startDay, endExclusiveDay, zoneId, STATUS_SUCCESS);
-                Map<LocalDate, Long> errorMap = countTraceRunsByDay(startDay, endExclusiveDay, zoneId, STATUS_ERROR);
-                Map<LocalDate, Long> assistantCountMap = countAssistantMessagesByDay(startDay, endExclusiveDay, zoneId);
-                Map<LocalDate, Long> noDocCountMap = countNoDocMessagesByDay(startDay, endExclusiveDay, zoneId);
+                Map<LocalDate, Long> successMap = mapLong(rows, DashboardRollupDO::getTraceSuccess);
+                Map<LocalDate, Long> errorMap = mapLong(rows, DashboardRollupDO::getTraceError);
+                Map<LocalDate, Long> assistantCountMap = mapLong(rows, DashboardRollupDO::getAssistantMessages);
+                Map<LocalDate, Long> noDocCountMap = mapLong(rows, DashboardRollupDO::getNoDocMessages);
                 Map<LocalDate, Double> errorRate = new HashMap<>();
                 Map<LocalDate, Double> noDocRate = new HashMap<>();
                 for (LocalDate day = startDay; day.isBefore(endExclusiveDay); day = day.plusDays(1)) {
@@ -264,89 +275,59 @@ public class DashboardServiceImpl implements DashboardService {
                 .build();
     }
 
-    private long countUsers(Date start, Date end) {
-        return userMapper.selectCount(Wrappers.lambdaQuery(UserDO.class)
-                .ge(UserDO::getCreateTime, start)
-                .lt(UserDO::getCreateTime, end));
-    }
-
-    private long countConversations(Date start, Date end) {
-        return conversationMapper.selectCount(Wrappers.lambdaQuery(ConversationDO.class)
-                .ge(ConversationDO::getCreateTime, start)
-                .lt(ConversationDO::getCreateTime, end));
-    }
-
-    private long countMessages(Date start, Date end) {
-        return messageMapper.selectCount(Wrappers.lambdaQuery(ConversationMessageDO.class)
-                .ge(ConversationMessageDO::getCreateTime, start)
-                .lt(ConversationMessageDO::getCreateTime, end));
+    private List<DashboardRollupDO> listRollups(RollupBucketType bucketType, Date start, Date end) {
+        return rollupMapper.selectList(Wrappers.lambdaQuery(DashboardRollupDO.class)
+                .eq(DashboardRollupDO::getBucketType, bucketType.getCode())
+                .ge(DashboardRollupDO::getBucketStart, start)
+                .lt(DashboardRollupDO::getBucketStart, end));
     }
 
-    private long countActiveUsers(Date start, Date end) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.select("count(distinct user_id) as cnt")
-                .ge("create_time", start)
-                .lt("create_time", end);
-        return extractCount(messageMapper.selectMaps(wrapper));
+    private Map<String, Object> sumDayRollups() {
+        QueryWrapper<DashboardRollupDO> wrapper = new QueryWrapper<>();
+        wrapper.select("sum(sessions) as sessions", "sum(messages) as messages")
+                .eq("bucket_type", RollupBucketType.DAY.getCode());
+        List<Map<String, Object>> maps = rollupMapper.selectMaps(wrapper);
+        if (maps == null || maps.isEmpty() || maps.get(0) == null) {
+            return Collections.emptyMap();
+        }
+        return maps.get(0);
     }
 
-    private long countTraceRuns(Date start, Date end, String status) {
-        QueryWrapper<RagTraceRunDO> wrapper = new QueryWrapper<>();
-        wrapper.ge("start_time", start).lt("start_time", end);
-        if (status != null) {
-            wrapper.eq("status", status);
+    private RollupAggregate aggregate(List<DashboardRollupDO> rows) {
+        RollupAggregate aggregate = new RollupAggregate();
+        if (rows != null) {
+            rows.forEach(aggregate::add);
         }
-        return traceRunMapper.selectCount(wrapper);
+        return aggregate;
     }
 
-    private long countAssistantMessages(Date start, Date end) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.ge("create_time", start)
-                .lt("create_time", end)
-                .eq("role", ROLE_ASSISTANT);
-        return messageMapper.selectCount(wrapper);
+    private <K> Map<K, Long> mapLong(Map<K, DashboardRollupDO> rows, Function<DashboardRollupDO, Long> getter) {
+        Map<K, Long> result = new HashMap<>();
+        rows.forEach((key, row) -> result.put(key, toLong(getter.apply(row))));
+        return result;
     }
 
-    private long countNoDocMessages(Date start, Date end) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.ge("create_time", start)
-                .lt("create_time", end)
-                .eq("role", ROLE_ASSISTANT)
-                .eq("content", NO_DOC_REPLY);
-        return messageMapper.selectCount(wrapper);
+    private <K> Map<K, Double> mapAverageLatency(Map<K, DashboardRollupDO> rows) {
+        Map<K, Double> result = new HashMap<>();
+        rows.forEach((key, row) -> {
+            long count = toLong(row.getLatencyCount());
+            result.put(key, count == 0 ? 0.0 : round1(toLong(row.getLatencySumMs()) / (double) count));
+        });
+        return result;
     }
 
-    private List<Long> listDurations(Date start, Date end) {
-        QueryWrapper<RagTraceRunDO> wrapper = new QueryWrapper<>();
-        wrapper.select("duration_ms")
-                .ge("start_time", start)
-                .lt("start_time", end)
-                .eq("status", STATUS_SUCCESS);
-        List<Object> results = traceRunMapper.selectObjs(wrapper);
-        if (results == null || results.isEmpty()) {
-            return Collections.emptyList();
-        }
-        List<Long> durations = new ArrayList<>();
-        for (Object value : results) {
-            if (value instanceof Number number) {
-                long duration = number.longValue();
-                if (duration > 0) {
-                    durations.add(duration);
-                }
-            }
+    private static long toLong(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
         }
-        return durations;
-    }
-
-    private long extractCount(List<Map<String, Object>> maps) {
-        if (maps == null || maps.isEmpty()) {
+        if (value == null) {
             return 0L;
         }
-        Object value = maps.get(0).get("cnt");
-        if (value instanceof Number number) {
-            return number.longValue();
+        try {
+            return Long.parseLong(String.valueOf(value));
+        } catch (NumberFormatException ex) {
+            return 0L;
         }
-        return 0L;
     }
 
     private Double calcPct(long current, long prev) {
@@ -364,213 +345,6 @@ public class DashboardServiceImpl implements DashboardService {
                 .build();
     }
 
-    private Map<LocalDate, Long> countConversationsByDay(LocalDate start, LocalDate endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationDO> wrapper = new QueryWrapper<>();
-        wrapper.select("date_format(create_time,'%Y-%m-%d') as d", "count(*) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .groupBy("d");
-        return mapLongResults(conversationMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDate, Long> countMessagesByDay(LocalDate start, LocalDate endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.select("date_format(create_time,'%Y-%m-%d') as d", "count(*) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .groupBy("d");
-        return mapLongResults(messageMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDate, Long> countAssistantMessagesByDay(LocalDate start, LocalDate endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.select("date_format(create_time,'%Y-%m-%d') as d", "count(*) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .eq("role", ROLE_ASSISTANT)
-                .groupBy("d");
-        return mapLongResults(messageMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDate, Long> countNoDocMessagesByDay(LocalDate start, LocalDate endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.select("date_format(create_time,'%Y-%m-%d') as d", "count(*) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .eq("role", ROLE_ASSISTANT)
-                .eq("content", NO_DOC_REPLY)
-                .groupBy("d");
-        return mapLongResults(messageMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDate, Long> countActiveUsersByDay(LocalDate start, LocalDate endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.select("date_format(create_time,'%Y-%m-%d') as d", "count(distinct user_id) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .groupBy("d");
-        return mapLongResults(messageMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDate, Double> averageLatencyByDay(LocalDate start, LocalDate endExclusive, ZoneId zoneId) {
-        QueryWrapper<RagTraceRunDO> wrapper = new QueryWrapper<>();
-        wrapper.select("date_format(start_time,'%Y-%m-%d') as d", "avg(duration_ms) as avg")
-                .ge("start_time", toDate(start, zoneId))
-                .lt("start_time", toDate(endExclusive, zoneId))
-                .eq("status", STATUS_SUCCESS)
-                .groupBy("d");
-        List<Map<String, Object>> maps = traceRunMapper.selectMaps(wrapper);
-        Map<LocalDate, Double> result = new HashMap<>();
-        if (maps == null) {
-            return result;
-        }
-        for (Map<String, Object> row : maps) {
-            LocalDate date = parseLocalDate(row.get("d"));
-            if (date == null) {
-                continue;
-            }
-            Object value = row.get("avg");
-            double avg = value instanceof Number number ? number.doubleValue() : 0.0;
-            result.put(date, round1(avg));
-        }
-        return result;
-    }
-
-    private Map<LocalDate, Long> countTraceRunsByDay(LocalDate start, LocalDate endExclusive, ZoneId zoneId, String status) {
-        QueryWrapper<RagTraceRunDO> wrapper = new QueryWrapper<>();
-        wrapper.select("date_format(start_time,'%Y-%m-%d') as d", "count(*) as cnt")
-                .ge("start_time", toDate(start, zoneId))
-                .lt("start_time", toDate(endExclusive, zoneId));
-        if (status != null) {
-            wrapper.eq("status", status);
-        }
-        wrapper.groupBy("d");
-        return mapLongResults(traceRunMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDateTime, Long> countConversationsByHour(LocalDateTime start, LocalDateTime endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationDO> wrapper = new QueryWrapper<>();
-        wrapper.select("date_format(create_time,'%Y-%m-%d %H:00:00') as h", "count(*) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .groupBy("h");
-        return mapLongResultsByHour(conversationMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDateTime, Long> countMessagesByHour(LocalDateTime start, LocalDateTime endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.select("date_format(create_time,'%Y-%m-%d %H:00:00') as h", "count(*) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .groupBy("h");
-        return mapLongResultsByHour(messageMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDateTime, Long> countAssistantMessagesByHour(LocalDateTime start, LocalDateTime endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.select("date_format(create_time,'%Y-%m-%d %H:00:00') as h", "count(*) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .eq("role", ROLE_ASSISTANT)
-                .groupBy("h");
-        return mapLongResultsByHour(messageMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDateTime, Long> countNoDocMessagesByHour(LocalDateTime start, LocalDateTime endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.select("date_format(create_time,'%Y-%m-%d %H:00:00') as h", "count(*) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .eq("role", ROLE_ASSISTANT)
-                .eq("content", NO_DOC_REPLY)
-                .groupBy("h");
-        return mapLongResultsByHour(messageMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDateTime, Long> countActiveUsersByHour(LocalDateTime start, LocalDateTime endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.select("date_format(create_time,'%Y-%m-%d %H:00:00') as h", "count(distinct user_id) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .groupBy("h");
-        return mapLongResultsByHour(messageMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDateTime, Double> averageLatencyByHour(LocalDateTime start, LocalDateTime endExclusive, ZoneId zoneId) {
-        QueryWrapper<RagTraceRunDO> wrapper = new QueryWrapper<>();
-        wrapper.select("date_format(start_time,'%Y-%m-%d %H:00:00') as h", "avg(duration_ms) as avg")
-                .ge("start_time", toDate(start, zoneId))
-                .lt("start_time", toDate(endExclusive, zoneId))
-                .eq("status", STATUS_SUCCESS)
-                .groupBy("h");
-        return mapDoubleResultsByHour(traceRunMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDateTime, Long> countTraceRunsByHour(LocalDateTime start, LocalDateTime endExclusive, ZoneId zoneId, String status) {
-        QueryWrapper<RagTraceRunDO> wrapper = new QueryWrapper<>();
-        wrapper.select("date_format(start_time,'%Y-%m-%d %H:00:00') as h", "count(*) as cnt")
-                .ge("start_time", toDate(start, zoneId))
-                .lt("start_time", toDate(endExclusive, zoneId));
-        if (status != null) {
-            wrapper.eq("status", status);
-        }
-        wrapper.groupBy("h");
-        return mapLongResultsByHour(traceRunMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDate, Long> mapLongResults(List<Map<String, Object>> maps) {
-        Map<LocalDate, Long> result = new HashMap<>();
-        if (maps == null) {
-            return result;
-        }
-        for (Map<String, Object> row : maps) {
-            LocalDate date = parseLocalDate(row.get("d"));
-            if (date == null) {
-                continue;
-            }
-            Long value = toLongValue(row.get("cnt"));
-            if (value != null) {
-                result.put(date, value);
-            }
-        }
-        return result;
-    }
-
-    private Map<LocalDateTime, Long> mapLongResultsByHour(List<Map<String, Object>> maps) {
-        Map<LocalDateTime, Long> result = new HashMap<>();
-        if (maps == null) {
-            return result;
-        }
-        for (Map<String, Object> row : maps) {
-            LocalDateTime dateTime = parseLocalDateTime(row.get("h"));
-            if (dateTime == null) {
-                continue;
-            }
-            Long value = toLongValue(row.get("cnt"));
-            if (value != null) {
-                result.put(dateTime, value);
-            }
-        }
-        return result;
-    }
-
-    private Map<LocalDateTime, Double> mapDoubleResultsByHour(List<Map<String, Object>> maps) {
-        Map<LocalDateTime, Double> result = new HashMap<>();
-        if (maps == null) {
-            return result;
-        }
-        for (Map<String, Object> row : maps) {
-            LocalDateTime dateTime = parseLocalDateTime(row.get("h"));
-            if (dateTime == null) {
-                continue;
-            }
-            Object value = row.get("avg");
-            double avg = value instanceof Number number ? number.doubleValue() : 0.0;
-            result.put(dateTime, round1(avg));
-        }
-        return result;
-    }
-
     private List<DashboardTrendPointVO> buildPoints(LocalDate start, LocalDate endExclusive, ZoneId zoneId, Map<LocalDate, Long> values) {
         List<DashboardTrendPointVO> points = new ArrayList<>();
         LocalDate cursor = start;
@@ -635,60 +409,10 @@ public class DashboardServiceImpl implements DashboardService {
         return points;
     }
 
-    private long average(List<Long> values) {
-        if (values == null || values.isEmpty()) {
-            return 0L;
-        }
-        long sum = 0L;
-        for (Long value : values) {
-            sum += value;
-        }
-        return Math.round(sum / (double) values.size());
-    }
-
-    private long percentile(List<Long> values) {
-        if (values == null || values.isEmpty()) {
-            return 0L;
-        }
-        List<Long> sorted = new ArrayList<>(values);
-        sorted.sort(Long::compareTo);
-        int index = (int) Math.ceil(sorted.size() * 0.95) - 1;
-        index = Math.max(0, Math.min(index, sorted.size() - 1));
-        return sorted.get(index);
-    }
-
     private double round1(double value) {
         return Math.round(value * 10.0) / 10.0;
     }
 
-    private LocalDate parseLocalDate(Object value) {
-        if (value == null) {
-            return null;
-        }
-        return LocalDate.parse(String.valueOf(value));
-    }
-
-    private LocalDateTime parseLocalDateTime(Object value) {
-        if (value == null) {
-            return null;
-        }
-        return LocalDateTime.parse(String.valueOf(value), HOUR_FORMATTER);
-    }
-
-    private Long toLongValue(Object value) {
-        if (value instanceof Number number) {
-            return number.longValue();
-        }
-        if (value == null) {
-            return null;
-        }
-        try {
-            return Long.parseLong(String.valueOf(value));
-        } catch (NumberFormatException ex) {
-            return null;
-        }
-    }
-
     private Date toDate(LocalDate date, ZoneId zoneId) {
         return Date.from(date.atStartOfDay(zoneId).toInstant());
     }
@@ -707,11 +431,20 @@ public class DashboardServiceImpl implements DashboardService {
 
     private WindowRange resolveWindowRange(String window, Duration fallback) {
         Duration duration = parseWindow(window, fallback);
-        Instant now = Instant.now();
-        Instant start = now.minus(duration);
-        Instant prevStart = start.minus(duration);
-        return new WindowRange(Date.from(start), Date.from(now), Date.from(prevStart), Date.from(start),
-                window == null ? formatDuration(fallback) : window, "prev_" + (window == null ? formatDuration(fallback) : window));
+        ZoneId zoneId = ZoneId.systemDefault();
+        String windowLabel = window == null ? formatDuration(fallback) : window;
+        if (duration.toHours() <= HOUR_BUCKET_MAX_WINDOW_HOURS) {
+            long hours = Math.max(1, duration.toHours());
+            LocalDateTime end = LocalDateTime.now(zoneId).truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            LocalDateTime start = end.minusHours(hours);
+            return new WindowRange(RollupBucketType.HOUR, toDate(start, zoneId), toDate(end, zoneId),
+                    toDate(start.minusHours(hours), zoneId), toDate(start, zoneId), windowLabel, "prev_" + windowLabel);
+        }
+        long days = Math.max(1, (duration.toHours() + 23) / 24);
+        LocalDate end = LocalDate.now(zoneId).plusDays(1);
+        LocalDate start = end.minusDays(days);
+        return new WindowRange(RollupBucketType.DAY, toDate(start, zoneId), toDate(end, zoneId),
+                toDate(start.minusDays(days), zoneId), toDate(start, zoneId), windowLabel, "prev_" + windowLabel);
     }
 
     private Duration parseWindow(String window, Duration fallback) {
@@ -757,6 +490,7 @@ public class DashboardServiceImpl implements DashboardService {
     }
 
     private static class WindowRange {
+        private final RollupBucketType bucketType;
         private final Date start;
         private final Date end;
         private final Date prevStart;
@@ -764,7 +498,9 @@ public class DashboardServiceImpl implements DashboardService {
         private final String windowLabel;
         private final String compareLabel;
 
-        WindowRange(Date start, Date end, Date prevStart, Date prevEnd, String windowLabel, String compareLabel) {
+        WindowRange(RollupBucketType bucketType, Date start, Date end, Date prevStart, Date prevEnd,
+                    String windowLabel, String compareLabel) {
+            this.bucketType = bucketType;
             this.start = start;
             this.end = end;
             this.prevStart = prevStart;
@@ -773,4 +509,51 @@ public class DashboardServiceImpl implements DashboardService {
             this.compareLabel = compareLabel;
         }
     }
+
+    /**
+     * 窗口内聚合行的累加结果，计数直接求和，去重用户与耗时分位数通过草图合并
+     */
+    private static class RollupAggregate {
+        private long newUsers;
+        private long sessions;
+        private long messages;
+        private long assistantMessages;
+        private long noDocMessages;
+        private long traceSuccess;
+        private long traceError;
+        private long latencyCount;
+        private long latencySumMs;
+        private long slowCount;
+        private int buckets;
+        private long singleBucketActiveUsers;
+        private final DistinctCountSketch activeUserSketch = new DistinctCountSketch();
+        private final LatencySketch latencySketch = new LatencySketch();
+
+        void add(DashboardRollupDO row) {
+            newUsers += toLong(row.getNewUsers());
+            sessions += toLong(row.getSessions());
+            messages += toLong(row.getMessages());
+            assistantMessages += toLong(row.getAssistantMessages());
+            noDocMessages += toLong(row.getNoDocMessages());
+            traceSuccess += toLong(row.getTraceSuccess());
+            traceError += toLong(row.getTraceError());
+            latencyCount += toLong(row.getLatencyCount());
+            latencySumMs += toLong(row.getLatencySumMs());
+            slowCount += toLong(row.getSlowCount());
+            singleBucketActiveUsers = toLong(row.getActiveUsers());
+            buckets++;
+            activeUserSketch.merge(DistinctCountSketch.fromBytes(row.getActiveUserSketch()));
+            latencySketch.merge(LatencySketch.fromBytes(row.getLatencySketch()));
+        }
+
+        /**
+         * 单个桶直接用桶内记录的去重数，多个桶跨桶去重只能依赖草图估计
+         */
+        long activeUsers() {
+            if (buckets == 0) {
+                return 0L;
+            }
+            return buckets == 1 ? singleBucketActiveUsers : activeUserSketch.estimate();
+        }
+    }
 }
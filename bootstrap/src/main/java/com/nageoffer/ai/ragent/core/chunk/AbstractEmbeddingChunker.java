@@ -19,6 +19,7 @@ package com.nageoffer.ai.ragent.core.chunk;
 
 import com.nageoffer.ai.ragent.framework.exception.ClientException;
 import com.nageoffer.ai.ragent.infra.embedding.EmbeddingClient;
+import com.nageoffer.ai.ragent.infra.embedding.EmbeddingVectorCache;
 import com.nageoffer.ai.ragent.infra.model.ModelSelector;
 import com.nageoffer.ai.ragent.infra.model.ModelTarget;
 import org.springframework.util.StringUtils;
@@ -30,7 +31,7 @@ import java.util.stream.Collectors;
 
 /**
  * 具有 Embedding 感知的分块模板类
- * 子类仅负责文本切分；Embedding 向量的生成由模板方法统一处理
+ * 子类仅负责文本切分；Embedding 向量的生成由模板方法统一处理，内容未变化的分块直接复用向量缓存
  */
 public abstract class AbstractEmbeddingChunker implements ChunkingStrategy {
 
@@ -38,9 +39,13 @@ public abstract class AbstractEmbeddingChunker implements ChunkingStrategy {
 
     private final ModelSelector modelSelector;
     private final Map<String, EmbeddingClient> embeddingClientsByProvider;
+    private final EmbeddingVectorCache embeddingCache;
 
-    protected AbstractEmbeddingChunker(ModelSelector modelSelector, List<EmbeddingClient> embeddingClients) {
+    protected AbstractEmbeddingChunker(ModelSelector modelSelector,
+                                       List<EmbeddingClient> embeddingClients,
+                                       EmbeddingVectorCache embeddingCache) {
         this.modelSelector = modelSelector;
+        this.embeddingCache = embeddingCache;
         this.embeddingClientsByProvider = embeddingClients.stream()
                 .collect(Collectors.toMap(EmbeddingClient::provider, Function.identity()));
     }
@@ -51,18 +56,23 @@ public abstract class AbstractEmbeddingChunker implements ChunkingStrategy {
         if (chunks == null || chunks.isEmpty()) {
             return List.of();
         }
-        if (chunks.stream().allMatch(chunk -> chunk.getEmbedding() != null && chunk.getEmbedding().length > 0)) {
+        if (chunks.stream().allMatch(AbstractEmbeddingChunker::hasEmbedding)) {
             return chunks;
         }
-        ModelTarget target = resolveEmbeddingTarget(config);
-        List<List<Float>> vectors = embedBatch(chunks, target);
-        applyEmbeddings(chunks, vectors);
+        embed(chunks, resolveEmbeddingTarget(config));
         return chunks;
     }
 
+    @Override
+    public final List<VectorChunk> split(String text, ChunkingOptions config) {
+        List<VectorChunk> chunks = doChunk(text, config);
+        return chunks == null ? List.of() : chunks;
+    }
+
     protected abstract List<VectorChunk> doChunk(String text, ChunkingOptions config);
 
-    protected ModelTarget resolveEmbeddingTarget(ChunkingOptions config) {
+    @Override
+    public ModelTarget resolveEmbeddingTarget(ChunkingOptions config) {
         String modelId = config == null ? null : config.getMetadata(EMBEDDING_MODEL_KEY, null);
         List<ModelTarget> targets = modelSelector.selectEmbeddingCandidates();
         if (targets == null || targets.isEmpty()) {
@@ -77,7 +87,22 @@ public abstract class AbstractEmbeddingChunker implements ChunkingStrategy {
                 .orElseThrow(() -> new ClientException("Embedding model not matched: " + modelId));
     }
 
-    private List<List<Float>> embedBatch(List<VectorChunk> chunks, ModelTarget target) {
+    @Override
+    public final void embed(List<VectorChunk> chunks, ModelTarget target) {
+        List<VectorChunk> pending = chunks.stream()
+                .filter(chunk -> !hasEmbedding(chunk))
+                .toList();
+        if (pending.isEmpty()) {
+            return;
+        }
+        applyEmbeddings(pending, embedBatch(pending, target));
+    }
+
+    private static boolean hasEmbedding(VectorChunk chunk) {
+        return chunk.getEmbedding() != null && chunk.getEmbedding().length > 0;
+    }
+
+    private List<float[]> embedBatch(List<VectorChunk> chunks, ModelTarget target) {
         EmbeddingClient client = embeddingClientsByProvider.get(target.candidate().getProvider());
         if (client == null) {
             throw new ClientException("Embedding client not found: " + target.candidate().getProvider());
@@ -85,22 +110,18 @@ public abstract class AbstractEmbeddingChunker implements ChunkingStrategy {
         List<String> texts = chunks.stream()
                 .map(chunk -> chunk.getContent() == null ? "" : chunk.getContent())
                 .toList();
-        return client.embedBatch(texts, target);
+        return embeddingCache.getAll(target, texts, pending -> client.embedVectorBatch(pending, target));
     }
 
-    private void applyEmbeddings(List<VectorChunk> chunks, List<List<Float>> vectors) {
+    private void applyEmbeddings(List<VectorChunk> chunks, List<float[]> vectors) {
         if (vectors == null || vectors.size() != chunks.size()) {
             throw new ClientException("Embedding result size mismatch");
         }
         for (int i = 0; i < chunks.size(); i++) {
-            List<Float> row = vectors.get(i);
-            if (row == null) {
+            float[] vec = vectors.get(i);
+            if (vec == null) {
                 throw new ClientException("Embedding result missing, index: " + i);
             }
-            float[] vec = new float[row.size()];
-            for (int j = 0; j < row.size(); j++) {
-                vec[j] = row.get(j);
-            }
             chunks.get(i).setEmbedding(vec);
         }
     }
@@ -17,6 +17,8 @@
 
 package com.nageoffer.ai.ragent.core.chunk;
 
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+
 import java.util.List;
 
 /**
@@ -40,4 +42,35 @@ public interface ChunkingStrategy {
      * @return 分块后的结果列表
      */
     List<VectorChunk> chunk(String text, ChunkingOptions config);
+
+    /**
+     * 仅对文本进行切分，不生成向量
+     * <p>
+     * 用于增量刷新等需要先比对分块内容、再决定哪些分块需要向量化的场景
+     *
+     * @param text   待分块的原始文本内容
+     * @param config 分块配置参数
+     * @return 分块后的结果列表（不含向量）
+     */
+    default List<VectorChunk> split(String text, ChunkingOptions config) {
+        return chunk(text, config);
+    }
+
+    /**
+     * 解析分块向量化使用的模型目标，与 {@link #chunk} 的选择规则一致
+     *
+     * @param config 分块配置参数
+     * @return 向量化模型目标
+     */
+    ModelTarget resolveEmbeddingTarget(ChunkingOptions config);
+
+    /**
+     * 使用指定模型为已切分的分块生成向量，已有向量的分块跳过
+     * <p>
+     * 用于 {@link #split} 之后按微批向量化的场景，调用方解析一次模型目标后逐批传入，保证同一文档的向量来自同一模型
+     *
+     * @param chunks 已切分的分块，向量原地写入
+     * @param target 向量化模型目标
+     */
+    void embed(List<VectorChunk> chunks, ModelTarget target);
 }
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.core.chunk;
+
+import cn.hutool.core.util.IdUtil;
+import com.nageoffer.ai.ragent.core.parser.TextCleanupUtil;
+import org.springframework.util.StringUtils;
+
+import java.io.Writer;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 流式分块写入器
+ * <p>
+ * 作为解析器的文本输出端，按窗口缓冲解析出的文本，窗口写满后在段落（或行）边界切出一段，
+ * 交给分块策略切分并回调下游，已处理的文本随即释放，整份文档的文本不会在内存中拼接。
+ * 各窗口产出的分块按文档内顺序连续编号；窗口边界处的分块不跨窗口合并，也不计算跨窗口重叠
+ */
+public class StreamingChunkWriter extends Writer {
+
+    private final ChunkingStrategy strategy;
+    private final ChunkingOptions options;
+    private final int windowChars;
+    private final Consumer<List<VectorChunk>> chunkConsumer;
+    private final StringBuilder buffer;
+
+    private int nextIndex;
+    private long charCount;
+    private long splitNanos;
+    private boolean closed;
+
+    /**
+     * @param strategy      分块策略，窗口内文本通过 {@link ChunkingStrategy#split} 切分
+     * @param options       分块配置
+     * @param windowChars   窗口大小（字符数），应远大于单个分块的大小
+     * @param chunkConsumer 每个窗口切分完成后的回调，分块已按文档内顺序编号
+     */
+    public StreamingChunkWriter(ChunkingStrategy strategy,
+                                ChunkingOptions options,
+                                int windowChars,
+                                Consumer<List<VectorChunk>> chunkConsumer) {
+        this.strategy = strategy;
+        this.options = options;
+        this.windowChars = Math.max(windowChars, 1024);
+        this.chunkConsumer = chunkConsumer;
+        this.buffer = new StringBuilder(this.windowChars + 8192);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        ensureOpen();
+        buffer.append(cbuf, off, len);
+        charCount += len;
+        while (buffer.length() >= windowChars) {
+            emit(findCut());
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        ensureOpen();
+        buffer.append(str, off, off + len);
+        charCount += len;
+        while (buffer.length() >= windowChars) {
+            emit(findCut());
+        }
+    }
+
+    /**
+     * 不输出未满的窗口，避免在段落中间切断
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * 处理剩余文本，写入器关闭后不可再写
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (!buffer.isEmpty()) {
+            emit(buffer.length());
+        }
+    }
+
+    /**
+     * 已产出的分块数
+     */
+    public int getChunkCount() {
+        return nextIndex;
+    }
+
+    /**
+     * 已写入的字符数
+     */
+    public long getCharCount() {
+        return charCount;
+    }
+
+    /**
+     * 分块策略切分累计耗时（毫秒），不含下游回调耗时
+     */
+    public long getSplitMillis() {
+        return splitNanos / 1_000_000;
+    }
+
+    /**
+     * 在窗口后半段寻找切分点：优先段落边界，其次行边界，都没有时按窗口大小硬切
+     */
+    private int findCut() {
+        int from = windowChars / 2;
+        int paragraph = buffer.lastIndexOf("\n\n", windowChars);
+        if (paragraph >= from) {
+            return paragraph + 2;
+        }
+        int line = buffer.lastIndexOf("\n", windowChars);
+        if (line >= from) {
+            return line + 1;
+        }
+        return windowChars;
+    }
+
+    private void emit(int cut) {
+        String segment = TextCleanupUtil.cleanup(buffer.substring(0, cut));
+        buffer.delete(0, cut);
+        if (!StringUtils.hasText(segment)) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<VectorChunk> chunks = strategy.split(segment, options);
+        splitNanos += System.nanoTime() - start;
+        if (chunks == null || chunks.isEmpty()) {
+            return;
+        }
+        for (VectorChunk chunk : chunks) {
+            chunk.setIndex(nextIndex++);
+            if (!StringUtils.hasText(chunk.getChunkId())) {
+                chunk.setChunkId(IdUtil.getSnowflakeNextIdStr());
+            }
+        }
+        try {
+            chunkConsumer.accept(chunks);
+        } catch (RuntimeException e) {
+            // 下游失败后不再处理剩余文本，避免 close 时继续回调
+            closed = true;
+            buffer.setLength(0);
+            throw e;
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("StreamingChunkWriter already closed");
+        }
+    }
+}
@@ -23,6 +23,7 @@ import com.nageoffer.ai.ragent.core.chunk.ChunkingMode;
 import com.nageoffer.ai.ragent.core.chunk.ChunkingOptions;
 import com.nageoffer.ai.ragent.core.chunk.VectorChunk;
 import com.nageoffer.ai.ragent.infra.embedding.EmbeddingClient;
+import com.nageoffer.ai.ragent.infra.embedding.EmbeddingVectorCache;
 import com.nageoffer.ai.ragent.infra.model.ModelSelector;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -43,8 +44,10 @@ import java.util.List;
 @Component
 public class FixedSizeTextChunker extends AbstractEmbeddingChunker {
 
-    public FixedSizeTextChunker(ModelSelector modelSelector, List<EmbeddingClient> embeddingClients) {
-        super(modelSelector, embeddingClients);
+    public FixedSizeTextChunker(ModelSelector modelSelector,
+                                List<EmbeddingClient> embeddingClients,
+                                EmbeddingVectorCache embeddingCache) {
+        super(modelSelector, embeddingClients, embeddingCache);
     }
 
     @Override
@@ -23,6 +23,7 @@ import com.nageoffer.ai.ragent.core.chunk.ChunkingOptions;
 import com.nageoffer.ai.ragent.core.chunk.ChunkingMode;
 import com.nageoffer.ai.ragent.core.chunk.VectorChunk;
 import com.nageoffer.ai.ragent.infra.embedding.EmbeddingClient;
+import com.nageoffer.ai.ragent.infra.embedding.EmbeddingVectorCache;
 import com.nageoffer.ai.ragent.infra.model.ModelSelector;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -37,8 +38,10 @@ import java.util.List;
 @Component
 public class SentenceChunker extends AbstractEmbeddingChunker {
 
-    public SentenceChunker(ModelSelector modelSelector, List<EmbeddingClient> embeddingClients) {
-        super(modelSelector, embeddingClients);
+    public SentenceChunker(ModelSelector modelSelector,
+                           List<EmbeddingClient> embeddingClients,
+                           EmbeddingVectorCache embeddingCache) {
+        super(modelSelector, embeddingClients, embeddingCache);
     }
 
     @Override
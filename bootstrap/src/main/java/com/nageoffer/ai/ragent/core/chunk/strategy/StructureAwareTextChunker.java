@@ -24,6 +24,7 @@ import com.nageoffer.ai.ragent.core.chunk.ChunkingMode;
 import com.nageoffer.ai.ragent.core.chunk.ChunkingOptions;
 import com.nageoffer.ai.ragent.core.chunk.VectorChunk;
 import com.nageoffer.ai.ragent.infra.embedding.EmbeddingClient;
+import com.nageoffer.ai.ragent.infra.embedding.EmbeddingVectorCache;
 import com.nageoffer.ai.ragent.infra.model.ModelSelector;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -45,8 +46,10 @@ import java.util.regex.Pattern;
 @Component
 public class StructureAwareTextChunker extends AbstractEmbeddingChunker {
 
-    public StructureAwareTextChunker(ModelSelector modelSelector, List<EmbeddingClient> embeddingClients) {
-        super(modelSelector, embeddingClients);
+    public StructureAwareTextChunker(ModelSelector modelSelector,
+                                     List<EmbeddingClient> embeddingClients,
+                                     EmbeddingVectorCache embeddingCache) {
+        super(modelSelector, embeddingClients, embeddingCache);
     }
 
     // ----------- 可调参数（字符预算） -----------
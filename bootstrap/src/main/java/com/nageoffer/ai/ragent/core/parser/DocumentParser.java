@@ -17,7 +17,10 @@
 
 package com.nageoffer.ai.ragent.core.parser;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.Map;
 
 /**
@@ -47,6 +50,42 @@ public interface DocumentParser {
         throw new UnsupportedOperationException("parse(byte[], String, Map) not implemented");
     }
 
+    /**
+     * 解析文档内容（从输入流），调用方负责关闭输入流
+     * <p>
+     * 默认实现读取全部字节后委托给 {@link #parse(byte[], String, Map)}，支持流式解析的实现应覆盖此方法
+     *
+     * @param stream   文档输入流
+     * @param mimeType 文档的 MIME 类型（可选）
+     * @param fileName 文件名（可选，用于辅助类型识别）
+     * @param options  解析选项（可选）
+     * @return 解析结果
+     */
+    default ParseResult parse(InputStream stream, String mimeType, String fileName, Map<String, Object> options) {
+        try {
+            return parse(stream.readAllBytes(), mimeType, options);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 流式提取文本，解析出的文本边产生边写入 sink，不在内存中拼接完整文本
+     * <p>
+     * 写入 sink 的是未经清理的原始文本，下游按分段自行清理；默认实现退化为 {@link #extractText}
+     *
+     * @param stream   文档输入流（调用方负责关闭）
+     * @param fileName 文件名（用于推断类型）
+     * @param sink     文本输出
+     */
+    default void extractText(InputStream stream, String fileName, Writer sink) {
+        try {
+            sink.write(extractText(stream, fileName));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * 解析文档内容（从输入流）
      *
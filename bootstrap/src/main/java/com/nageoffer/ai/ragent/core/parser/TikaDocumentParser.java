@@ -17,13 +17,24 @@
 
 package com.nageoffer.ai.ragent.core.parser;
 
+import com.nageoffer.ai.ragent.framework.errorcode.BaseErrorCode;
 import com.nageoffer.ai.ragent.framework.exception.ServiceException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.tika.Tika;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.Map;
 
 /**
@@ -31,6 +42,8 @@ import java.util.Map;
  * <p>
  * 支持多种文档格式：PDF、Word、Excel、PPT、HTML、XML 等
  * 使用 Apache Tika 库进行文档解析和文本提取
+ * <p>
+ * 解析基于 SAX 事件流，文本边解析边写出，不受 {@link Tika#parseToString} 默认 10 万字符截断的限制
  */
 @Slf4j
 @Component
@@ -48,31 +61,121 @@ public class TikaDocumentParser implements DocumentParser {
         if (content == null || content.length == 0) {
             return ParseResult.ofText("");
         }
+        return parse(new ByteArrayInputStream(content), mimeType, null, options);
+    }
 
-        try (ByteArrayInputStream is = new ByteArrayInputStream(content)) {
-            String text = TIKA.parseToString(is);
-            String cleaned = TextCleanupUtil.cleanup(text);
-            return ParseResult.ofText(cleaned);
+    @Override
+    public ParseResult parse(InputStream stream, String mimeType, String fileName, Map<String, Object> options) {
+        StringWriter writer = new StringWriter();
+        try {
+            doParse(stream, mimeType, fileName, writer);
         } catch (Exception e) {
             log.error("Tika 解析失败，MIME 类型: {}", mimeType, e);
-            throw new ServiceException("文档解析失败: " + e.getMessage());
+            throw new ServiceException("文档解析失败: " + e.getMessage(), e, BaseErrorCode.SERVICE_ERROR);
         }
+        return ParseResult.ofText(TextCleanupUtil.cleanup(writer.toString()));
     }
 
     @Override
     public String extractText(InputStream stream, String fileName) {
+        StringWriter writer = new StringWriter();
+        extractText(stream, fileName, writer);
+        return TextCleanupUtil.cleanup(writer.toString());
+    }
+
+    /**
+     * 流式提取文本
+     * <p>
+     * sink 写入失败（如下游分块、向量化异常）时原样抛出 sink 的异常，Tika 对其的包装被剥离；
+     * 只有文档本身解析失败才包装为 {@link ServiceException}，并保留原始异常
+     */
+    @Override
+    public void extractText(InputStream stream, String fileName, Writer sink) {
+        FailureRecordingWriter recorder = new FailureRecordingWriter(sink);
         try {
-            String text = TIKA.parseToString(stream);
-            return TextCleanupUtil.cleanup(text);
+            doParse(stream, null, fileName, recorder);
         } catch (Exception e) {
+            Exception sinkFailure = recorder.failure;
+            if (sinkFailure instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (sinkFailure instanceof IOException io) {
+                throw new UncheckedIOException(io);
+            }
             log.error("从文件中提取文本内容失败: {}", fileName, e);
-            throw new ServiceException("解析文件失败: " + fileName);
+            throw new ServiceException("解析文件失败: " + fileName, e, BaseErrorCode.SERVICE_ERROR);
         }
     }
 
+    private void doParse(InputStream stream, String mimeType, String fileName, Writer sink) throws Exception {
+        Metadata metadata = new Metadata();
+        if (StringUtils.hasText(fileName)) {
+            metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, fileName);
+        }
+        if (StringUtils.hasText(mimeType)) {
+            metadata.set(Metadata.CONTENT_TYPE, mimeType);
+        }
+        Parser parser = TIKA.getParser();
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, parser);
+        parser.parse(stream, new BodyContentHandler(sink), metadata, context);
+    }
+
     @Override
     public boolean supports(String mimeType) {
         // Tika 支持大部分常见文档格式
         return mimeType != null && !mimeType.startsWith("text/markdown");
     }
+
+    /**
+     * 记录 sink 抛出的第一个异常，用于区分解析失败与写入失败
+     */
+    private static final class FailureRecordingWriter extends Writer {
+
+        private final Writer delegate;
+        private Exception failure;
+
+        private FailureRecordingWriter(Writer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            try {
+                delegate.write(cbuf, off, len);
+            } catch (IOException | RuntimeException e) {
+                throw record(e);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            try {
+                delegate.write(str, off, len);
+            } catch (IOException | RuntimeException e) {
+                throw record(e);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            try {
+                delegate.flush();
+            } catch (IOException | RuntimeException e) {
+                throw record(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        private <E extends Exception> E record(E e) {
+            if (failure == null) {
+                failure = e;
+            }
+            return e;
+        }
+    }
 }
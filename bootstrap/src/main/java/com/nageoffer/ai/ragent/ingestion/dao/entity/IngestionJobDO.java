@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.ingestion.dao.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableLogic;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * 摄取作业队列实体类
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("t_ingestion_job")
+public class IngestionJobDO {
+
+    /**
+     * 主键 ID
+     */
+    @TableId(type = IdType.ASSIGN_ID)
+    private Long id;
+
+    /**
+     * 作业类型 (ingestion_task, knowledge_chunk)
+     */
+    private String jobType;
+
+    /**
+     * 业务 ID（摄取任务 ID 或文档 ID）
+     */
+    private Long bizId;
+
+    /**
+     * 知识库 ID
+     */
+    private Long kbId;
+
+    /**
+     * 租户（提交人）
+     */
+    private String tenant;
+
+    /**
+     * 作业状态 (pending, running, completed, failed)
+     */
+    private String status;
+
+    /**
+     * 已领取次数
+     */
+    private Integer attempts;
+
+    /**
+     * 最大领取次数
+     */
+    private Integer maxAttempts;
+
+    /**
+     * 执行参数 JSON
+     */
+    private String payloadJson;
+
+    /**
+     * 最早可领取时间
+     */
+    private Date availableAt;
+
+    /**
+     * 租约持有者
+     */
+    private String lockOwner;
+
+    /**
+     * 租约到期时间
+     */
+    private Date lockUntil;
+
+    /**
+     * 最近一次错误信息
+     */
+    private String errorMessage;
+
+    /**
+     * 最近一次开始时间
+     */
+    private Date startedAt;
+
+    /**
+     * 完成时间
+     */
+    private Date completedAt;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private Date createTime;
+
+    /**
+     * 修改时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private Date updateTime;
+
+    /**
+     * 删除标记 (0: 未删除, 1: 已删除)
+     */
+    @TableLogic
+    private Integer deleted;
+}
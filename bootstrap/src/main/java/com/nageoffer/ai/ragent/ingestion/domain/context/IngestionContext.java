@@ -19,6 +19,7 @@ package com.nageoffer.ai.ragent.ingestion.domain.context;
 
 import com.nageoffer.ai.ragent.core.chunk.VectorChunk;
 import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionStatus;
+import com.nageoffer.ai.ragent.ingestion.util.SpooledContent;
 import com.nageoffer.ai.ragent.rag.core.vector.VectorSpaceId;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -54,9 +55,14 @@ public class IngestionContext {
     private DocumentSource source;
 
     /**
-     * 文档的原始字节数据
+     * 文档的原始内容（超过内存阈值时溢写到临时文件，由引擎在执行结束后关闭）
      */
-    private byte[] rawBytes;
+    private SpooledContent rawContent;
+
+    /**
+     * 是否推迟向量化：流水线模式下由引擎设置，分块节点只切分，向量化由独立阶段按微批完成
+     */
+    private boolean deferEmbedding;
 
     /**
      * 文档的MIME类型
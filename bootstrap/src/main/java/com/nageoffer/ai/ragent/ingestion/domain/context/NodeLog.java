@@ -66,6 +66,16 @@ public class NodeLog {
      */
     private String error;
 
+    /**
+     * 节点处理的分块数（流水线模式下的分块级阶段填写）
+     */
+    private Integer chunkCount;
+
+    /**
+     * 阶段吞吐（分块/秒），按阶段首批开始到末批结束的墙钟时间计算
+     */
+    private Double chunksPerSecond;
+
     /**
      * 节点的输出数据
      * 存储节点处理后产生的结构化数据
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.ingestion.domain.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 摄取作业类型枚举
+ * 作业队列中的每类作业由一个 {@link com.nageoffer.ai.ragent.ingestion.queue.IngestionJobHandler} 执行
+ */
+@Getter
+@RequiredArgsConstructor
+public enum IngestionJobType {
+
+    /**
+     * 摄取任务 - 按流水线执行一次数据摄取
+     */
+    INGESTION_TASK("ingestion_task"),
+
+    /**
+     * 知识库文档分块 - 对知识库文档执行分块与向量化
+     */
+    KNOWLEDGE_CHUNK("knowledge_chunk");
+
+    /**
+     * 类型值（小写 snake_case）
+     */
+    private final String value;
+}
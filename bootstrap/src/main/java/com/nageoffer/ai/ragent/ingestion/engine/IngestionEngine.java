@@ -21,11 +21,14 @@ import cn.hutool.core.util.StrUtil;
 import com.nageoffer.ai.ragent.framework.exception.ClientException;
 import com.nageoffer.ai.ragent.ingestion.domain.context.IngestionContext;
 import com.nageoffer.ai.ragent.ingestion.domain.context.NodeLog;
+import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionNodeType;
 import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionStatus;
 import com.nageoffer.ai.ragent.ingestion.domain.pipeline.NodeConfig;
 import com.nageoffer.ai.ragent.ingestion.domain.pipeline.PipelineDefinition;
 import com.nageoffer.ai.ragent.ingestion.domain.result.NodeResult;
+import com.nageoffer.ai.ragent.ingestion.node.ChunkBatchNode;
 import com.nageoffer.ai.ragent.ingestion.node.IngestionNode;
+import com.nageoffer.ai.ragent.rag.config.IngestionPipelineProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -35,6 +38,9 @@ import java.util.stream.Collectors;
 
 /**
  * 流水线执行引擎 - 基于节点连线的链式执行
+ * <p>
+ * 文档级节点（获取、解析、增强、分块）按顺序执行；若分块节点之后全部是分块级节点，
+ * 则交给 {@link PipelinedChunkExecutor} 按微批分阶段并发执行
  */
 @Slf4j
 @Component
@@ -43,15 +49,21 @@ public class IngestionEngine {
     private final Map<String, IngestionNode> nodeMap;
     private final ConditionEvaluator conditionEvaluator;
     private final NodeOutputExtractor outputExtractor;
+    private final PipelinedChunkExecutor pipelinedChunkExecutor;
+    private final IngestionPipelineProperties pipelineProperties;
 
     public IngestionEngine(
             List<IngestionNode> nodes,
             ConditionEvaluator conditionEvaluator,
-            NodeOutputExtractor outputExtractor) {
+            NodeOutputExtractor outputExtractor,
+            PipelinedChunkExecutor pipelinedChunkExecutor,
+            IngestionPipelineProperties pipelineProperties) {
         this.nodeMap = nodes.stream()
                 .collect(Collectors.toMap(IngestionNode::getNodeType, n -> n));
         this.conditionEvaluator = conditionEvaluator;
         this.outputExtractor = outputExtractor;
+        this.pipelinedChunkExecutor = pipelinedChunkExecutor;
+        this.pipelineProperties = pipelineProperties;
     }
 
     /**
@@ -77,8 +89,14 @@ public class IngestionEngine {
 
         log.info("流水线从节点开始执行: {}", startNodeId);
 
-        // 从起始节点开始链式执行
-        executeChain(startNodeId, nodeConfigMap, context);
+        // 从起始节点开始链式执行，结束后释放原始内容（可能占用临时文件）
+        try {
+            executeChain(startNodeId, nodeConfigMap, context);
+        } finally {
+            if (context.getRawContent() != null) {
+                context.getRawContent().close();
+            }
+        }
 
         if (context.getStatus() == IngestionStatus.RUNNING) {
             context.setStatus(IngestionStatus.COMPLETED);
@@ -176,6 +194,11 @@ public class IngestionEngine {
                 break;
             }
 
+            boolean pipelined = isPipelineEntry(config, nodeConfigMap);
+            if (pipelined) {
+                context.setDeferEmbedding(true);
+            }
+
             log.info("开始执行节点: {}", currentNodeId);
             NodeResult result = executeNode(context, config);
 
@@ -192,6 +215,12 @@ public class IngestionEngine {
                 break;
             }
 
+            // 分块为空时无需向量化，剩余节点仍按顺序执行，保持原有的空分块校验
+            if (pipelined && context.getChunks() != null && !context.getChunks().isEmpty()) {
+                executedCount += executeChunkStages(config, nodeConfigMap, context);
+                break;
+            }
+
             // 移动到下一个节点
             currentNodeId = config.getNextNodeId();
         }
@@ -199,6 +228,115 @@ public class IngestionEngine {
         log.info("流水线执行完成，共执行 {} 个节点", executedCount);
     }
 
+    /**
+     * 分块节点之后的节点是否全部为分块级节点，满足时分块之后的部分按流水线执行
+     */
+    private boolean isPipelineEntry(NodeConfig config, Map<String, NodeConfig> nodeConfigMap) {
+        if (!pipelineProperties.isEnabled()
+                || !IngestionNodeType.CHUNKER.getValue().equalsIgnoreCase(config.getNodeType())
+                || !StringUtils.hasText(config.getNextNodeId())) {
+            return false;
+        }
+        String nextId = config.getNextNodeId();
+        while (StringUtils.hasText(nextId)) {
+            NodeConfig next = nodeConfigMap.get(nextId);
+            if (next == null || !(nodeMap.get(next.getNodeType()) instanceof ChunkBatchNode)) {
+                return false;
+            }
+            nextId = next.getNextNodeId();
+        }
+        return true;
+    }
+
+    /**
+     * 以流水线方式执行分块节点之后的分块级节点
+     * <p>
+     * 节点条件在流水线开始前统一求值（此时分块已生成、尚未增强），向量化阶段的统计合并到分块节点的日志中
+     *
+     * @return 参与执行的节点数
+     */
+    private int executeChunkStages(NodeConfig chunkerConfig, Map<String, NodeConfig> nodeConfigMap, IngestionContext context) {
+        NodeLog chunkerLog = context.getLogs().get(context.getLogs().size() - 1);
+        List<NodeConfig> tail = new ArrayList<>();
+        String nextId = chunkerConfig.getNextNodeId();
+        while (StringUtils.hasText(nextId)) {
+            NodeConfig next = nodeConfigMap.get(nextId);
+            tail.add(next);
+            nextId = next.getNextNodeId();
+        }
+
+        Set<String> skipped = new HashSet<>();
+        List<PipelinedChunkExecutor.StageNode> stageNodes = new ArrayList<>();
+        for (NodeConfig each : tail) {
+            if (each.getCondition() != null && !each.getCondition().isNull()
+                    && !conditionEvaluator.evaluate(context, each.getCondition())) {
+                skipped.add(each.getNodeId());
+                continue;
+            }
+            stageNodes.add(new PipelinedChunkExecutor.StageNode(each, (ChunkBatchNode) nodeMap.get(each.getNodeType())));
+        }
+
+        log.info("分块级节点按流水线执行: chunks={}, stages={}", context.getChunks().size(), stageNodes.size());
+        PipelinedChunkExecutor.PipelineResult result = pipelinedChunkExecutor.execute(context, chunkerConfig, stageNodes);
+        Map<String, PipelinedChunkExecutor.StageReport> reports = new HashMap<>();
+        for (PipelinedChunkExecutor.StageReport report : result.stages()) {
+            if (report.isEmbedding()) {
+                chunkerLog.setDurationMs(chunkerLog.getDurationMs() + report.wallMs());
+                chunkerLog.setChunkCount(report.chunkCount());
+                chunkerLog.setChunksPerSecond(report.chunksPerSecond());
+                chunkerLog.setMessage(chunkerLog.getMessage() + "，" + describe("向量化", report));
+                if (report.error() != null) {
+                    chunkerLog.setSuccess(false);
+                    chunkerLog.setError(report.error().getMessage());
+                }
+            } else {
+                reports.put(report.nodeId(), report);
+            }
+        }
+
+        for (NodeConfig each : tail) {
+            if (skipped.contains(each.getNodeId())) {
+                context.getLogs().add(NodeLog.builder()
+                        .nodeId(each.getNodeId())
+                        .nodeType(each.getNodeType())
+                        .message(NodeResult.skip("条件未满足").getMessage())
+                        .durationMs(0)
+                        .success(true)
+                        .output(outputExtractor.extract(context, each))
+                        .build());
+                continue;
+            }
+            PipelinedChunkExecutor.StageReport report = reports.get(each.getNodeId());
+            if (report == null) {
+                continue;
+            }
+            context.getLogs().add(NodeLog.builder()
+                    .nodeId(each.getNodeId())
+                    .nodeType(each.getNodeType())
+                    .message(describe(each.getNodeType(), report))
+                    .durationMs(report.wallMs())
+                    .success(report.error() == null)
+                    .error(report.error() == null ? null : report.error().getMessage())
+                    .chunkCount(report.chunkCount())
+                    .chunksPerSecond(report.chunksPerSecond())
+                    .output(outputExtractor.extract(context, each))
+                    .build());
+            log.info("节点 {} 流水线阶段完成: {}", each.getNodeId(), describe(each.getNodeType(), report));
+        }
+
+        if (!result.isSuccess()) {
+            context.setStatus(IngestionStatus.FAILED);
+            context.setError(result.error());
+            log.error("流水线分块级阶段执行失败: {}", result.error().getMessage());
+        }
+        return tail.size();
+    }
+
+    private String describe(String stage, PipelinedChunkExecutor.StageReport report) {
+        return String.format("%s 处理 %d 个分块（%d 批），吞吐 %.1f chunks/s，累计处理耗时 %dms",
+                stage, report.chunkCount(), report.batchCount(), report.chunksPerSecond(), report.busyMs());
+    }
+
     /**
      * 执行单个节点
      */
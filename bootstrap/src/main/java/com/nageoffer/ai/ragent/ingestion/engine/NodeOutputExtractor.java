@@ -21,9 +21,9 @@ import com.nageoffer.ai.ragent.ingestion.domain.context.DocumentSource;
 import com.nageoffer.ai.ragent.ingestion.domain.context.IngestionContext;
 import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionNodeType;
 import com.nageoffer.ai.ragent.ingestion.domain.pipeline.NodeConfig;
+import com.nageoffer.ai.ragent.ingestion.util.SpooledContent;
 import org.springframework.stereotype.Component;
 
-import java.util.Base64;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -63,10 +63,10 @@ public class NodeOutputExtractor {
             output.put("source", sourceView);
         }
         output.put("mimeType", context.getMimeType());
-        byte[] raw = context.getRawBytes();
+        SpooledContent raw = context.getRawContent();
         if (raw != null) {
-            output.put("rawBytesLength", raw.length);
-            output.put("rawBytesBase64", Base64.getEncoder().encodeToString(raw));
+            output.put("rawBytesLength", raw.size());
+            output.put("spilledToDisk", raw.isSpilled());
         }
         return output;
     }
@@ -0,0 +1,387 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.ingestion.engine;
+
+import cn.hutool.core.collection.CollUtil;
+import com.nageoffer.ai.ragent.core.chunk.VectorChunk;
+import com.nageoffer.ai.ragent.framework.exception.ServiceException;
+import com.nageoffer.ai.ragent.ingestion.domain.context.IngestionContext;
+import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionNodeType;
+import com.nageoffer.ai.ragent.ingestion.domain.pipeline.NodeConfig;
+import com.nageoffer.ai.ragent.ingestion.domain.result.NodeResult;
+import com.nageoffer.ai.ragent.ingestion.node.ChunkBatchNode;
+import com.nageoffer.ai.ragent.ingestion.node.ChunkerNode;
+import com.nageoffer.ai.ragent.rag.config.IngestionPipelineProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 分块级阶段的流水线执行器
+ * <p>
+ * 分块完成后，分块被切成微批依次流经 向量化 → 分块增强 → 索引 等阶段。
+ * 每个阶段在自己的线程池中并发处理微批，批次在阶段之间通过各阶段的待处理队列交接，工作线程从不阻塞等待：
+ * 下游积压（排队 + 处理中）达到“并行度 + 队列容量”后，上游不再启动新批次，下游每完成一批再唤醒上游，形成背压。
+ * 同一线程池被多个阶段或多次执行共用时也不会因互相等待而死锁。
+ * 任一批次失败后，尚未开始的批次直接丢弃，已写入外部系统的结果由节点的补偿逻辑撤销
+ */
+@Slf4j
+@Component
+public class PipelinedChunkExecutor {
+
+    private static final String EMBEDDING_STAGE = "embedding";
+
+    private final IngestionPipelineProperties properties;
+    private final ChunkerNode chunkerNode;
+    private final Executor embeddingExecutor;
+    private final Executor enricherExecutor;
+    private final Executor indexerExecutor;
+
+    public PipelinedChunkExecutor(IngestionPipelineProperties properties,
+                                  ChunkerNode chunkerNode,
+                                  @Qualifier("ingestionEmbeddingExecutor") Executor embeddingExecutor,
+                                  @Qualifier("ingestionEnricherExecutor") Executor enricherExecutor,
+                                  @Qualifier("ingestionIndexerExecutor") Executor indexerExecutor) {
+        this.properties = properties;
+        this.chunkerNode = chunkerNode;
+        this.embeddingExecutor = embeddingExecutor;
+        this.enricherExecutor = enricherExecutor;
+        this.indexerExecutor = indexerExecutor;
+    }
+
+    /**
+     * 执行分块级阶段
+     *
+     * @param context       摄取上下文，分块取自 {@link IngestionContext#getChunks()}，各阶段原地修改分块
+     * @param chunkerConfig 分块节点配置，向量化阶段使用其模型配置，统计也归属于分块节点
+     * @param nodes         按链路顺序排列的分块级节点
+     * @return 执行结果，包含各阶段统计（向量化阶段在最前）
+     */
+    public PipelineResult execute(IngestionContext context, NodeConfig chunkerConfig, List<StageNode> nodes) {
+        List<VectorChunk> chunks = context.getChunks() == null ? List.of() : context.getChunks();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Function<List<VectorChunk>, NodeResult> embedder;
+        try {
+            embedder = chunkerNode.batchEmbedder(chunkerConfig);
+        } catch (Exception e) {
+            return new PipelineResult(e, List.of());
+        }
+
+        List<Stage> stages = new ArrayList<>(nodes.size() + 1);
+        int queueCapacity = properties.getQueueCapacity();
+        stages.add(new Stage(EMBEDDING_STAGE, chunkerConfig.getNodeId(), chunkerConfig.getNodeType(),
+                embeddingExecutor, properties.getEmbeddingParallelism(), queueCapacity, embedder, failure));
+        for (StageNode each : nodes) {
+            NodeResult prepared = each.node().prepare(context, each.config());
+            if (!prepared.isSuccess()) {
+                Throwable error = prepared.getError() != null
+                        ? prepared.getError()
+                        : new ServiceException("节点准备失败: " + each.config().getNodeId());
+                return new PipelineResult(error, List.of());
+            }
+            stages.add(new Stage(each.config().getNodeType(), each.config().getNodeId(), each.config().getNodeType(),
+                    resolveExecutor(each.config().getNodeType()), resolveParallelism(each.config().getNodeType()),
+                    queueCapacity, batch -> each.node().executeBatch(context, each.config(), batch), failure));
+        }
+
+        List<List<VectorChunk>> batches = CollUtil.split(chunks, Math.max(1, properties.getBatchSize()));
+        CountDownLatch done = new CountDownLatch(batches.size());
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            stage.previous = i > 0 ? stages.get(i - 1) : null;
+            stage.next = i < stages.size() - 1 ? stages.get(i + 1) : null;
+            stage.pipeline = stages;
+            stage.done = done;
+        }
+
+        // 分块已全部在内存中，批次直接进入首阶段的待处理队列，由背压控制实际启动的数量
+        Stage first = stages.get(0);
+        for (List<VectorChunk> batch : batches) {
+            first.offer(batch);
+        }
+
+        // 等待所有在途批次结束后再补偿，避免补偿与写入并发
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+                first.abort(e);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        Throwable error = failure.get();
+        if (error != null) {
+            for (int i = nodes.size() - 1; i >= 0; i--) {
+                StageNode each = nodes.get(i);
+                try {
+                    each.node().compensate(context, each.config(), stages.get(i + 1).processedChunks());
+                } catch (Exception ex) {
+                    log.warn("节点补偿失败: nodeId={}", each.config().getNodeId(), ex);
+                }
+            }
+        }
+        return new PipelineResult(error, stages.stream().map(Stage::report).toList());
+    }
+
+    private Executor resolveExecutor(String nodeType) {
+        return IngestionNodeType.ENRICHER.getValue().equalsIgnoreCase(nodeType) ? enricherExecutor : indexerExecutor;
+    }
+
+    private int resolveParallelism(String nodeType) {
+        return IngestionNodeType.ENRICHER.getValue().equalsIgnoreCase(nodeType)
+                ? properties.getEnricherParallelism()
+                : properties.getIndexerParallelism();
+    }
+
+    /**
+     * 参与流水线的分块级节点
+     */
+    public record StageNode(NodeConfig config, ChunkBatchNode node) {
+    }
+
+    /**
+     * 流水线执行结果
+     *
+     * @param error  首个失败原因，成功时为 null
+     * @param stages 各阶段统计
+     */
+    public record PipelineResult(Throwable error, List<StageReport> stages) {
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    /**
+     * 阶段统计
+     *
+     * @param stage           阶段名（向量化阶段为 embedding，其余为节点类型）
+     * @param nodeId          所属节点ID
+     * @param chunkCount      成功处理的分块数
+     * @param batchCount      成功处理的批次数
+     * @param wallMs          首批开始到末批结束的墙钟耗时
+     * @param busyMs          各批处理耗时之和，大于 wallMs 说明批次在并发执行
+     * @param chunksPerSecond 按墙钟耗时计算的吞吐
+     * @param error           本阶段的失败原因
+     */
+    public record StageReport(String stage,
+                              String nodeId,
+                              int chunkCount,
+                              int batchCount,
+                              long wallMs,
+                              long busyMs,
+                              double chunksPerSecond,
+                              Throwable error) {
+
+        public boolean isEmbedding() {
+            return EMBEDDING_STAGE.equals(stage);
+        }
+    }
+
+    private static final class Stage {
+
+        private final String name;
+        private final String nodeId;
+        private final String nodeType;
+        private final Executor executor;
+        private final int parallelism;
+        private final int capacity;
+        private final Function<List<VectorChunk>, NodeResult> handler;
+        private final AtomicReference<Throwable> failure;
+        private final Deque<List<VectorChunk>> inbox = new ArrayDeque<>();
+        private final AtomicInteger backlog = new AtomicInteger();
+        private final List<VectorChunk> processed = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicLong chunkCount = new AtomicLong();
+        private final AtomicLong batchCount = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong lastEnd = new AtomicLong();
+        private volatile Throwable error;
+        private int running;
+        private Stage previous;
+        private Stage next;
+        private List<Stage> pipeline;
+        private CountDownLatch done;
+
+        private Stage(String name, String nodeId, String nodeType, Executor executor, int parallelism,
+                      int queueCapacity, Function<List<VectorChunk>, NodeResult> handler, AtomicReference<Throwable> failure) {
+            this.name = name;
+            this.nodeId = nodeId;
+            this.nodeType = nodeType;
+            this.executor = executor;
+            this.handler = handler;
+            this.failure = failure;
+            this.parallelism = Math.max(1, parallelism);
+            this.capacity = this.parallelism + Math.max(0, queueCapacity);
+        }
+
+        /**
+         * 接收一批分块，只入队不等待
+         */
+        private void offer(List<VectorChunk> batch) {
+            synchronized (this) {
+                inbox.addLast(batch);
+                backlog.incrementAndGet();
+            }
+            dispatch();
+        }
+
+        /**
+         * 在并行度与下游积压允许的范围内启动排队的批次；失败后清空队列
+         */
+        private void dispatch() {
+            while (true) {
+                List<VectorChunk> batch;
+                synchronized (this) {
+                    if (failure.get() != null) {
+                        discardQueued();
+                        return;
+                    }
+                    if (inbox.isEmpty() || running >= parallelism || (next != null && next.backlog.get() >= next.capacity)) {
+                        return;
+                    }
+                    batch = inbox.pollFirst();
+                    running++;
+                }
+                try {
+                    executor.execute(() -> run(batch));
+                } catch (RejectedExecutionException e) {
+                    finish(false);
+                    fail(e);
+                    return;
+                }
+            }
+        }
+
+        private void run(List<VectorChunk> batch) {
+            boolean forwarded = false;
+            try {
+                if (failure.get() != null) {
+                    return;
+                }
+                long start = System.nanoTime();
+                firstStart.accumulateAndGet(start, Math::min);
+                NodeResult result = handler.apply(batch);
+                long end = System.nanoTime();
+                if (!result.isSuccess()) {
+                    fail(result.getError() != null
+                            ? result.getError()
+                            : new ServiceException("阶段执行失败: " + nodeId + "(" + nodeType + ")"));
+                    return;
+                }
+                busyNanos.addAndGet(end - start);
+                lastEnd.accumulateAndGet(end, Math::max);
+                chunkCount.addAndGet(batch.size());
+                batchCount.incrementAndGet();
+                processed.addAll(batch);
+                if (next != null) {
+                    next.offer(batch);
+                    forwarded = true;
+                }
+            } catch (Throwable t) {
+                fail(t);
+            } finally {
+                finish(forwarded);
+                // 本阶段腾出并行度，同时下游积压减少，上游可以继续启动
+                dispatch();
+                if (previous != null) {
+                    previous.dispatch();
+                }
+            }
+        }
+
+        private void finish(boolean forwarded) {
+            synchronized (this) {
+                running--;
+            }
+            backlog.decrementAndGet();
+            if (!forwarded) {
+                done.countDown();
+            }
+        }
+
+        private void discardQueued() {
+            int discarded = inbox.size();
+            inbox.clear();
+            backlog.addAndGet(-discarded);
+            for (int i = 0; i < discarded; i++) {
+                done.countDown();
+            }
+        }
+
+        private void fail(Throwable t) {
+            if (error == null) {
+                error = t;
+            }
+            if (failure.compareAndSet(null, t)) {
+                log.error("摄取流水线阶段失败: stage={}, nodeId={}", name, nodeId, t);
+            }
+            discardAll();
+        }
+
+        /**
+         * 非阶段原因（如等待线程被中断）终止整条流水线
+         */
+        private void abort(Throwable t) {
+            failure.compareAndSet(null, t);
+            discardAll();
+        }
+
+        private void discardAll() {
+            // 各阶段排队中的批次不再启动
+            for (Stage stage : pipeline) {
+                stage.dispatch();
+            }
+        }
+
+        private List<VectorChunk> processedChunks() {
+            synchronized (processed) {
+                return new ArrayList<>(processed);
+            }
+        }
+
+        private StageReport report() {
+            long start = firstStart.get();
+            long wallNanos = start == Long.MAX_VALUE ? 0 : Math.max(0, lastEnd.get() - start);
+            long chunks = chunkCount.get();
+            double throughput = wallNanos <= 0 ? 0D : chunks * 1_000_000_000D / wallNanos;
+            return new StageReport(name, nodeId, (int) chunks, (int) batchCount.get(),
+                    wallNanos / 1_000_000, busyNanos.get() / 1_000_000, throughput, error);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.ingestion.node;
+
+import com.nageoffer.ai.ragent.core.chunk.VectorChunk;
+import com.nageoffer.ai.ragent.ingestion.domain.context.IngestionContext;
+import com.nageoffer.ai.ragent.ingestion.domain.pipeline.NodeConfig;
+import com.nageoffer.ai.ragent.ingestion.domain.result.NodeResult;
+
+import java.util.List;
+
+/**
+ * 分块级节点接口
+ * 节点逻辑只依赖单个分块（或一批分块），流水线模式下由引擎把分块切成微批，
+ * 在节点所属阶段的线程池中并发执行，上下游阶段同时推进
+ */
+public interface ChunkBatchNode extends IngestionNode {
+
+    /**
+     * 流水线开始前的准备工作（如确保向量空间存在），每次执行只调用一次
+     *
+     * @param context 摄取上下文
+     * @param config  当前节点的配置信息
+     * @return 准备结果，失败时流水线不再继续
+     */
+    default NodeResult prepare(IngestionContext context, NodeConfig config) {
+        return NodeResult.ok();
+    }
+
+    /**
+     * 处理一批分块，可能被多个线程并发调用，实现不应依赖批次之间的顺序
+     *
+     * @param context 摄取上下文（只读共享）
+     * @param config  当前节点的配置信息
+     * @param batch   本批分块
+     * @return 本批处理结果
+     */
+    NodeResult executeBatch(IngestionContext context, NodeConfig config, List<VectorChunk> batch);
+
+    /**
+     * 流水线失败后的补偿，撤销本节点已产生的外部副作用
+     *
+     * @param context   摄取上下文
+     * @param config    当前节点的配置信息
+     * @param processed 本节点已成功处理的分块
+     */
+    default void compensate(IngestionContext context, NodeConfig config, List<VectorChunk> processed) {
+    }
+}
@@ -24,6 +24,7 @@ import com.nageoffer.ai.ragent.core.chunk.ChunkingStrategyFactory;
 import com.nageoffer.ai.ragent.core.chunk.VectorChunk;
 import com.nageoffer.ai.ragent.core.chunk.ChunkingStrategy;
 import com.nageoffer.ai.ragent.framework.exception.ClientException;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
 import com.nageoffer.ai.ragent.ingestion.domain.context.IngestionContext;
 import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionNodeType;
 import com.nageoffer.ai.ragent.ingestion.domain.pipeline.NodeConfig;
@@ -34,6 +35,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -65,13 +67,31 @@ public class ChunkerNode implements IngestionNode {
         }
 
         ChunkingOptions chunkConfig = convertToChunkConfig(settings);
-        List<VectorChunk> results = chunker.chunk(text, chunkConfig);
+        // 流水线模式下向量化由独立阶段按微批并发完成，这里只做切分
+        List<VectorChunk> results = context.isDeferEmbedding()
+                ? chunker.split(text, chunkConfig)
+                : chunker.chunk(text, chunkConfig);
         List<VectorChunk> chunks = convertToVectorChunks(results);
 
         context.setChunks(chunks);
         return NodeResult.ok("已分块 " + chunks.size() + " 段");
     }
 
+    /**
+     * 流水线模式下的向量化阶段处理函数
+     * <p>
+     * 按分块节点配置解析一次模型目标，各微批都用该目标向量化，与非流水线模式 {@link ChunkingStrategy#chunk} 选用的模型一致
+     */
+    public Function<List<VectorChunk>, NodeResult> batchEmbedder(NodeConfig config) {
+        ChunkerSettings settings = parseSettings(config.getSettings());
+        ChunkingStrategy chunker = chunkingStrategyFactory.requireStrategy(settings.getStrategy());
+        ModelTarget target = chunker.resolveEmbeddingTarget(convertToChunkConfig(settings));
+        return batch -> {
+            chunker.embed(batch, target);
+            return NodeResult.ok();
+        };
+    }
+
     private ChunkingOptions convertToChunkConfig(ChunkerSettings settings) {
         return ChunkingOptions.builder()
                 .chunkSize(settings.getChunkSize())
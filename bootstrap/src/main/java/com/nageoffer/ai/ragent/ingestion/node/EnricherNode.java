@@ -49,7 +49,7 @@ import java.util.stream.Collectors;
  * 该节点通过调用大模型对文档分片进行信息提取或补充，如提取关键词、生成摘要、补充元数据等
  */
 @Component
-public class EnricherNode implements IngestionNode {
+public class EnricherNode implements ChunkBatchNode {
 
     private final ObjectMapper objectMapper;
     private final ModelSelector modelSelector;
@@ -79,6 +79,21 @@ public class EnricherNode implements IngestionNode {
         if (settings.getTasks() == null || settings.getTasks().isEmpty()) {
             return NodeResult.ok("No enricher tasks configured");
         }
+        enrich(context, settings, chunks);
+        return NodeResult.ok("Enricher completed");
+    }
+
+    @Override
+    public NodeResult executeBatch(IngestionContext context, NodeConfig config, List<VectorChunk> batch) {
+        EnricherSettings settings = parseSettings(config.getSettings());
+        if (settings.getTasks() == null || settings.getTasks().isEmpty() || batch == null || batch.isEmpty()) {
+            return NodeResult.ok();
+        }
+        enrich(context, settings, batch);
+        return NodeResult.ok();
+    }
+
+    private void enrich(IngestionContext context, EnricherSettings settings, List<VectorChunk> chunks) {
         boolean attachMetadata = settings.getAttachDocumentMetadata() == null || settings.getAttachDocumentMetadata();
         for (VectorChunk chunk : chunks) {
             if (chunk == null || !StringUtils.hasText(chunk.getContent())) {
@@ -109,7 +124,6 @@ public class EnricherNode implements IngestionNode {
                 applyResult(chunk, type, response);
             }
         }
-        return NodeResult.ok("Enricher completed");
     }
 
     private EnricherSettings parseSettings(JsonNode node) {
@@ -58,10 +58,10 @@ public class FetcherNode implements IngestionNode {
 
     @Override
     public NodeResult execute(IngestionContext context, NodeConfig config) {
-        if (context.getRawBytes() != null && context.getRawBytes().length > 0) {
+        if (context.getRawContent() != null && !context.getRawContent().isEmpty()) {
             if (!StringUtils.hasText(context.getMimeType())) {
                 String fileName = context.getSource() == null ? null : context.getSource().getFileName();
-                context.setMimeType(MimeTypeDetector.detect(context.getRawBytes(), fileName));
+                context.setMimeType(MimeTypeDetector.detect(context.getRawContent(), fileName));
             }
             return NodeResult.ok("已跳过获取器：原始字节已存在");
         }
@@ -77,13 +77,13 @@ public class FetcherNode implements IngestionNode {
         }
 
         FetchResult result = fetcher.fetch(source);
-        context.setRawBytes(result.content());
+        context.setRawContent(result.content());
         if (StringUtils.hasText(result.mimeType())) {
             context.setMimeType(result.mimeType());
         }
         if (StringUtils.hasText(result.fileName())) {
             source.setFileName(result.fileName());
         }
-        return NodeResult.ok("已获取 " + (result.content() == null ? 0 : result.content().length) + " 字节");
+        return NodeResult.ok("已获取 " + (result.content() == null ? 0 : result.content().size()) + " 字节");
     }
 }
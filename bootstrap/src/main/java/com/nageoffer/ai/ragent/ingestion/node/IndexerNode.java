@@ -36,6 +36,7 @@ import com.nageoffer.ai.ragent.ingestion.domain.settings.IndexerSettings;
 import com.nageoffer.ai.ragent.rag.core.vector.VectorSpaceId;
 import com.nageoffer.ai.ragent.rag.core.vector.VectorSpaceSpec;
 import com.nageoffer.ai.ragent.rag.core.vector.VectorStoreAdmin;
+import com.nageoffer.ai.ragent.rag.core.vector.VectorStoreService;
 import io.milvus.v2.client.MilvusClientV2;
 import io.milvus.v2.service.vector.request.InsertReq;
 import io.milvus.v2.service.vector.response.InsertResp;
@@ -54,22 +55,25 @@ import java.util.Map;
  */
 @Slf4j
 @Component
-public class IndexerNode implements IngestionNode {
+public class IndexerNode implements ChunkBatchNode {
 
     private static final Gson GSON = new Gson();
 
     private final ObjectMapper objectMapper;
     private final VectorStoreAdmin vectorStoreAdmin;
     private final MilvusClientV2 milvusClient;
+    private final VectorStoreService vectorStoreService;
     private final RAGDefaultProperties ragDefaultProperties;
 
     public IndexerNode(ObjectMapper objectMapper,
                        VectorStoreAdmin vectorStoreAdmin,
                        MilvusClientV2 milvusClient,
+                       VectorStoreService vectorStoreService,
                        RAGDefaultProperties ragDefaultProperties) {
         this.objectMapper = objectMapper;
         this.vectorStoreAdmin = vectorStoreAdmin;
         this.milvusClient = milvusClient;
+        this.vectorStoreService = vectorStoreService;
         this.ragDefaultProperties = ragDefaultProperties;
     }
 
@@ -90,6 +94,44 @@ public class IndexerNode implements IngestionNode {
             return NodeResult.fail(new ClientException("索引器需要指定集合名称"));
         }
 
+        ensureVectorSpace(collectionName);
+        return index(context, settings, collectionName, chunks);
+    }
+
+    @Override
+    public NodeResult prepare(IngestionContext context, NodeConfig config) {
+        String collectionName = resolveCollectionName(context);
+        if (!StringUtils.hasText(collectionName)) {
+            return NodeResult.fail(new ClientException("索引器需要指定集合名称"));
+        }
+        ensureVectorSpace(collectionName);
+        return NodeResult.ok();
+    }
+
+    @Override
+    public NodeResult executeBatch(IngestionContext context, NodeConfig config, List<VectorChunk> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return NodeResult.ok();
+        }
+        return index(context, parseSettings(config.getSettings()), resolveCollectionName(context), batch);
+    }
+
+    /**
+     * 流水线失败时按分块ID删除本次已写入的向量，避免残留半份文档
+     */
+    @Override
+    public void compensate(IngestionContext context, NodeConfig config, List<VectorChunk> processed) {
+        if (processed == null || processed.isEmpty()) {
+            return;
+        }
+        String collectionName = resolveCollectionName(context);
+        long deleted = vectorStoreService.deleteChunksByIds(
+                VectorSpaceId.builder().logicalName(collectionName).build(),
+                processed.stream().map(VectorChunk::getChunkId).toList());
+        log.info("流水线失败，已回滚写入的向量，集合={}，行数={}", collectionName, deleted);
+    }
+
+    private NodeResult index(IngestionContext context, IndexerSettings settings, String collectionName, List<VectorChunk> chunks) {
         int expectedDim = resolveDimension(chunks);
         if (expectedDim <= 0) {
             return NodeResult.fail(new ClientException("未配置向量维度"));
@@ -101,7 +143,6 @@ public class IndexerNode implements IngestionNode {
             return NodeResult.fail(ex);
         }
 
-        ensureVectorSpace(collectionName);
         List<JsonObject> rows = buildRows(context, chunks, vectorArray, settings.getMetadataFields());
         insertRows(collectionName, rows);
         return NodeResult.ok("已写入 " + rows.size() + " 个分块到集合 " + collectionName);
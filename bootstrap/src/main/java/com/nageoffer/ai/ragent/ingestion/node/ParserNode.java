@@ -20,6 +20,7 @@ package com.nageoffer.ai.ragent.ingestion.node;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nageoffer.ai.ragent.framework.exception.ClientException;
+import com.nageoffer.ai.ragent.framework.exception.ServiceException;
 import com.nageoffer.ai.ragent.ingestion.domain.context.IngestionContext;
 import com.nageoffer.ai.ragent.ingestion.domain.context.StructuredDocument;
 import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionNodeType;
@@ -34,6 +35,8 @@ import com.nageoffer.ai.ragent.core.parser.ParserType;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -60,14 +63,14 @@ public class ParserNode implements IngestionNode {
 
     @Override
     public NodeResult execute(IngestionContext context, NodeConfig config) {
-        if (context.getRawBytes() == null || context.getRawBytes().length == 0) {
+        if (context.getRawContent() == null || context.getRawContent().isEmpty()) {
             return NodeResult.fail(new ClientException("解析器缺少原始字节"));
         }
 
         String mimeType = context.getMimeType();
         if (!StringUtils.hasText(mimeType)) {
             String fileName = context.getSource() == null ? null : context.getSource().getFileName();
-            mimeType = MimeTypeDetector.detect(context.getRawBytes(), fileName);
+            mimeType = MimeTypeDetector.detect(context.getRawContent(), fileName);
             context.setMimeType(mimeType);
         }
 
@@ -84,7 +87,12 @@ public class ParserNode implements IngestionNode {
         }
 
         Map<String, Object> options = rule == null ? Collections.emptyMap() : rule.getOptions();
-        ParseResult result = parser.parse(context.getRawBytes(), mimeType, options);
+        ParseResult result;
+        try (InputStream in = context.getRawContent().openStream()) {
+            result = parser.parse(in, mimeType, fileName, options);
+        } catch (IOException e) {
+            return NodeResult.fail(new ServiceException("读取原始内容失败: " + e.getMessage()));
+        }
         context.setRawText(result.text());
 
         // 将 ParseResult 转换为 StructuredDocument
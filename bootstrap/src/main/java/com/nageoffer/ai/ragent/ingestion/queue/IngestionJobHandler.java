@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.ingestion.queue;
+
+import com.nageoffer.ai.ragent.ingestion.dao.entity.IngestionJobDO;
+import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionJobType;
+
+/**
+ * 摄取作业处理器
+ * 每种作业类型对应一个处理器，由 {@link IngestionJobWorker} 领取作业后在工作线程中调用
+ */
+public interface IngestionJobHandler {
+
+    /**
+     * 处理的作业类型
+     */
+    IngestionJobType jobType();
+
+    /**
+     * 执行作业
+     * <p>
+     * 业务上的失败（如流水线节点失败）应由处理器自行记录并正常返回；
+     * 抛出异常表示本次执行未完成，作业按重试策略重新排队
+     *
+     * @param job 已领取的作业
+     */
+    void handle(IngestionJobDO job);
+
+    /**
+     * 作业超过最大领取次数被放弃时回调，用于把业务状态标记为失败
+     *
+     * @param job    被放弃的作业
+     * @param reason 放弃原因
+     */
+    default void onAbandoned(IngestionJobDO job, String reason) {
+    }
+
+    /**
+     * 作业进入终态（完成、失败或放弃）后回调，用于清理作业专属的资源（如暂存的上传文件）
+     * <p>
+     * 仅在本实例成功写入终态时调用，租约已被其他实例接管时不会调用
+     *
+     * @param job 已结束的作业
+     */
+    default void onFinished(IngestionJobDO job) {
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.ingestion.queue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nageoffer.ai.ragent.framework.context.UserContext;
+import com.nageoffer.ai.ragent.framework.exception.ServiceException;
+import com.nageoffer.ai.ragent.ingestion.dao.entity.IngestionJobDO;
+import com.nageoffer.ai.ragent.ingestion.dao.mapper.IngestionJobMapper;
+import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionJobType;
+import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionStatus;
+import com.nageoffer.ai.ragent.rag.config.IngestionQueueProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 摄取作业队列
+ * <p>
+ * 作业写入 t_ingestion_job 后即持久化，服务重启不会丢失；入队与业务数据写入处于同一事务时，
+ * 事务回滚作业也随之撤销。作业的领取与执行见 {@link IngestionJobWorker}
+ * <p>
+ * 执行参数可能包含文档来源的访问凭证，配置密钥后以 AES-GCM 加密保存，避免明文落库
+ */
+@Service
+@RequiredArgsConstructor
+public class IngestionJobQueue {
+
+    private static final String SYSTEM_USER = "system";
+    private static final String ENCRYPTED_PREFIX = "enc:v1:";
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private final IngestionJobMapper jobMapper;
+    private final IngestionQueueProperties properties;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 是否启用异步作业队列
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 是否配置了作业参数加密密钥
+     */
+    public boolean canProtectPayload() {
+        return StringUtils.hasText(properties.getPayloadSecret());
+    }
+
+    /**
+     * 提交作业，租户取当前登录用户
+     *
+     * @param jobType 作业类型
+     * @param bizId   业务 ID
+     * @param kbId    知识库 ID（可为空，为空时不参与知识库并发限制）
+     * @param payload 执行参数，序列化为 JSON 保存（可为空）
+     * @return 作业 ID
+     */
+    public Long enqueue(IngestionJobType jobType, Long bizId, Long kbId, Object payload) {
+        String tenant = UserContext.getUsername();
+        IngestionJobDO job = IngestionJobDO.builder()
+                .jobType(jobType.getValue())
+                .bizId(bizId)
+                .kbId(kbId)
+                .tenant(StringUtils.hasText(tenant) ? tenant : SYSTEM_USER)
+                .status(IngestionStatus.PENDING.getValue())
+                .attempts(0)
+                .maxAttempts(Math.max(1, properties.getMaxAttempts()))
+                .payloadJson(writeJson(payload))
+                .availableAt(new Date())
+                .build();
+        jobMapper.insert(job);
+        return job.getId();
+    }
+
+    /**
+     * 读取作业执行参数
+     */
+    public <T> T readPayload(IngestionJobDO job, Class<T> type) {
+        if (job == null || !StringUtils.hasText(job.getPayloadJson())) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(decrypt(job.getPayloadJson()), type);
+        } catch (JsonProcessingException e) {
+            throw new ServiceException("作业参数解析失败: " + e.getMessage());
+        }
+    }
+
+    private String writeJson(Object payload) {
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return encrypt(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new ServiceException("作业参数序列化失败: " + e.getMessage());
+        }
+    }
+
+    private String encrypt(String json) {
+        if (!canProtectPayload()) {
+            return json;
+        }
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            secureRandom.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey(), new GCMParameterSpec(TAG_BITS, iv));
+            byte[] encrypted = cipher.doFinal(json.getBytes(StandardCharsets.UTF_8));
+            byte[] combined = ByteBuffer.allocate(iv.length + encrypted.length).put(iv).put(encrypted).array();
+            return ENCRYPTED_PREFIX + Base64.getEncoder().encodeToString(combined);
+        } catch (Exception e) {
+            throw new ServiceException("作业参数加密失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 解密作业参数，未加密的参数（未配置密钥时写入）原样返回
+     */
+    private String decrypt(String stored) {
+        if (!stored.startsWith(ENCRYPTED_PREFIX)) {
+            return stored;
+        }
+        if (!canProtectPayload()) {
+            throw new ServiceException("作业参数已加密，但未配置 rag.ingestion.queue.payload-secret");
+        }
+        try {
+            byte[] combined = Base64.getDecoder().decode(stored.substring(ENCRYPTED_PREFIX.length()));
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, secretKey(), new GCMParameterSpec(TAG_BITS, combined, 0, IV_LENGTH));
+            byte[] plain = cipher.doFinal(combined, IV_LENGTH, combined.length - IV_LENGTH);
+            return new String(plain, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new ServiceException("作业参数解密失败: " + e.getMessage());
+        }
+    }
+
+    private SecretKeySpec secretKey() throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(properties.getPayloadSecret().getBytes(StandardCharsets.UTF_8));
+        return new SecretKeySpec(digest, "AES");
+    }
+}
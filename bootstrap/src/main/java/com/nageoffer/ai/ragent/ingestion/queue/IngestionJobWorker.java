@@ -0,0 +1,474 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.ingestion.queue;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.nageoffer.ai.ragent.framework.context.LoginUser;
+import com.nageoffer.ai.ragent.framework.context.UserContext;
+import com.nageoffer.ai.ragent.ingestion.dao.entity.IngestionJobDO;
+import com.nageoffer.ai.ragent.ingestion.dao.mapper.IngestionJobMapper;
+import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionStatus;
+import com.nageoffer.ai.ragent.rag.config.IngestionQueueProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 摄取作业执行器
+ * <p>
+ * 定时扫描 t_ingestion_job，以条件更新的方式领取作业并持有租约，执行期间由心跳续约；
+ * 实例宕机后租约到期，作业会被其他实例重新领取，超过最大领取次数则标记失败
+ * </p>
+ *
+ * <p>并发控制：</p>
+ * <ul>
+ *   <li>本实例同时执行的作业数不超过 workerThreads</li>
+ *   <li>查询候选作业时排除已达上限的知识库、租户，候选作业按知识库轮转，避免单个知识库占满执行槽位</li>
+ *   <li>领取后再次核对：若 ID 更小（更早提交）的运行中作业已达上限，则释放本次领取，保证多实例下限制依然成立</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class IngestionJobWorker {
+
+    private static final int ERROR_MAX_LENGTH = 1000;
+
+    private final IngestionJobMapper jobMapper;
+    private final IngestionQueueProperties properties;
+    private final Executor ingestionJobExecutor;
+    private final Map<String, IngestionJobHandler> handlers;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final String instanceId = resolveInstanceId();
+
+    public IngestionJobWorker(IngestionJobMapper jobMapper,
+                              IngestionQueueProperties properties,
+                              @Qualifier("ingestionJobExecutor") Executor ingestionJobExecutor,
+                              List<IngestionJobHandler> handlers) {
+        this.jobMapper = jobMapper;
+        this.properties = properties;
+        this.ingestionJobExecutor = ingestionJobExecutor;
+        this.handlers = handlers.stream()
+                .collect(Collectors.toMap(handler -> handler.jobType().getValue(), Function.identity()));
+    }
+
+    @Scheduled(fixedDelayString = "${rag.ingestion.queue.scan-delay-ms:2000}")
+    public void scan() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        int freeSlots = Math.max(1, properties.getWorkerThreads()) - inFlight.size();
+        if (freeSlots <= 0) {
+            return;
+        }
+
+        Date now = new Date();
+        Map<Long, Integer> runningByKb = countRunningByKb(now);
+        Map<String, Integer> runningByTenant = countRunningByTenant(now);
+        // 已达上限的知识库、租户在 SQL 中排除后再取 LIMIT，避免其积压作业占满候选窗口饿死其他知识库
+        List<Long> saturatedKbs = saturated(runningByKb, properties.getMaxRunningPerKb());
+        List<String> saturatedTenants = saturated(runningByTenant, properties.getMaxRunningPerTenant());
+        List<IngestionJobDO> candidates = jobMapper.selectList(
+                new LambdaQueryWrapper<IngestionJobDO>()
+                        .and(wrapper -> wrapper
+                                .nested(pending -> pending
+                                        .eq(IngestionJobDO::getStatus, IngestionStatus.PENDING.getValue())
+                                        .le(IngestionJobDO::getAvailableAt, now))
+                                .or()
+                                .nested(expired -> expired
+                                        .eq(IngestionJobDO::getStatus, IngestionStatus.RUNNING.getValue())
+                                        .lt(IngestionJobDO::getLockUntil, now)))
+                        .and(!saturatedKbs.isEmpty(), wrapper -> wrapper
+                                .isNull(IngestionJobDO::getKbId)
+                                .or()
+                                .notIn(IngestionJobDO::getKbId, saturatedKbs))
+                        .and(!saturatedTenants.isEmpty(), wrapper -> wrapper
+                                .isNull(IngestionJobDO::getTenant)
+                                .or()
+                                .notIn(IngestionJobDO::getTenant, saturatedTenants))
+                        .orderByAsc(IngestionJobDO::getCreateTime)
+                        .last("LIMIT " + Math.max(freeSlots * 4, 20))
+        );
+        if (candidates == null || candidates.isEmpty()) {
+            return;
+        }
+
+        for (IngestionJobDO job : roundRobinByKb(candidates)) {
+            if (freeSlots <= 0) {
+                break;
+            }
+            if (job.getAttempts() != null && job.getMaxAttempts() != null
+                    && job.getAttempts() >= job.getMaxAttempts()) {
+                abandon(job, now);
+                continue;
+            }
+            if (reachedKbLimit(runningByKb.getOrDefault(job.getKbId(), 0), job)
+                    || reachedTenantLimit(runningByTenant.getOrDefault(job.getTenant(), 0), job)) {
+                continue;
+            }
+            if (!tryClaim(job, now)) {
+                continue;
+            }
+            if (exceedsLimitAfterClaim(job)) {
+                releaseClaim(job);
+                continue;
+            }
+            runningByKb.merge(job.getKbId(), 1, Integer::sum);
+            runningByTenant.merge(job.getTenant(), 1, Integer::sum);
+            if (dispatch(job)) {
+                freeSlots--;
+            }
+        }
+    }
+
+    /**
+     * 为本实例执行中的作业续约，租约丢失说明作业已被其他实例接管，本实例的结果不会再写回
+     */
+    @Scheduled(fixedDelayString = "${rag.ingestion.queue.heartbeat-ms:60000}")
+    public void heartbeat() {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(inFlight);
+        UpdateWrapper<IngestionJobDO> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.in("id", ids)
+                .eq("status", IngestionStatus.RUNNING.getValue())
+                .eq("lock_owner", instanceId);
+        IngestionJobDO update = new IngestionJobDO();
+        update.setLockUntil(leaseUntil());
+        int renewed = jobMapper.update(update, updateWrapper);
+        if (renewed < ids.size()) {
+            log.warn("摄取作业续约数少于执行中作业数，部分作业可能已结束或被其他实例接管, inFlight={}, renewed={}",
+                    ids.size(), renewed);
+        }
+    }
+
+    private boolean dispatch(IngestionJobDO job) {
+        IngestionJobHandler handler = handlers.get(job.getJobType());
+        if (handler == null) {
+            finishFailed(job, "未知的作业类型: " + job.getJobType());
+            return false;
+        }
+        inFlight.add(job.getId());
+        try {
+            ingestionJobExecutor.execute(() -> run(job, handler));
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(job.getId());
+            log.warn("摄取作业线程池已满，释放作业等待下次领取, jobId={}", job.getId());
+            releaseClaim(job);
+            return false;
+        }
+    }
+
+    private void run(IngestionJobDO job, IngestionJobHandler handler) {
+        UserContext.set(LoginUser.builder().username(job.getTenant()).build());
+        try {
+            handler.handle(job);
+            if (complete(job)) {
+                notifyFinished(handler, job);
+            }
+        } catch (Exception e) {
+            log.error("摄取作业执行失败, jobId={}, type={}, bizId={}, attempts={}",
+                    job.getId(), job.getJobType(), job.getBizId(), job.getAttempts(), e);
+            retryOrFail(job, handler, e.getMessage());
+        } finally {
+            UserContext.clear();
+            inFlight.remove(job.getId());
+        }
+    }
+
+    private boolean tryClaim(IngestionJobDO job, Date now) {
+        UpdateWrapper<IngestionJobDO> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.eq("id", job.getId())
+                .eq("status", job.getStatus())
+                .eq("attempts", job.getAttempts())
+                .and(wrapper -> wrapper.eq("status", IngestionStatus.PENDING.getValue())
+                        .or().lt("lock_until", now))
+                .setSql("attempts = attempts + 1");
+        IngestionJobDO update = new IngestionJobDO();
+        update.setStatus(IngestionStatus.RUNNING.getValue());
+        update.setLockOwner(instanceId);
+        update.setLockUntil(leaseUntil());
+        update.setStartedAt(now);
+        if (jobMapper.update(update, updateWrapper) == 0) {
+            return false;
+        }
+        job.setStatus(IngestionStatus.RUNNING.getValue());
+        job.setAttempts(job.getAttempts() == null ? 1 : job.getAttempts() + 1);
+        job.setLockOwner(instanceId);
+        return true;
+    }
+
+    /**
+     * 撤销领取：作业回到待领取状态，且不计入领取次数
+     */
+    private void releaseClaim(IngestionJobDO job) {
+        UpdateWrapper<IngestionJobDO> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.eq("id", job.getId())
+                .eq("lock_owner", instanceId)
+                .set("lock_owner", null)
+                .set("lock_until", null)
+                .setSql("attempts = attempts - 1");
+        IngestionJobDO update = new IngestionJobDO();
+        update.setStatus(IngestionStatus.PENDING.getValue());
+        jobMapper.update(update, updateWrapper);
+    }
+
+    private boolean complete(IngestionJobDO job) {
+        UpdateWrapper<IngestionJobDO> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.eq("id", job.getId())
+                .eq("lock_owner", instanceId)
+                .set("lock_owner", null)
+                .set("lock_until", null)
+                .set("payload_json", null)
+                .set("error_message", null);
+        IngestionJobDO update = new IngestionJobDO();
+        update.setStatus(IngestionStatus.COMPLETED.getValue());
+        update.setCompletedAt(new Date());
+        if (jobMapper.update(update, updateWrapper) == 0) {
+            log.warn("摄取作业完成时租约已丢失, jobId={}", job.getId());
+            return false;
+        }
+        return true;
+    }
+
+    private void retryOrFail(IngestionJobDO job, IngestionJobHandler handler, String error) {
+        int attempts = job.getAttempts() == null ? 1 : job.getAttempts();
+        int maxAttempts = job.getMaxAttempts() == null ? 1 : job.getMaxAttempts();
+        if (attempts >= maxAttempts) {
+            if (finishFailed(job, error)) {
+                notifyAbandoned(handler, job, error);
+                notifyFinished(handler, job);
+            }
+            return;
+        }
+        long backoffMillis = Math.max(0, properties.getRetryBackoffSeconds()) * 1000 * attempts;
+        UpdateWrapper<IngestionJobDO> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.eq("id", job.getId())
+                .eq("lock_owner", instanceId)
+                .set("lock_owner", null)
+                .set("lock_until", null);
+        IngestionJobDO update = new IngestionJobDO();
+        update.setStatus(IngestionStatus.PENDING.getValue());
+        update.setAvailableAt(new Date(System.currentTimeMillis() + backoffMillis));
+        update.setErrorMessage(truncate(error));
+        jobMapper.update(update, updateWrapper);
+    }
+
+    private boolean finishFailed(IngestionJobDO job, String error) {
+        UpdateWrapper<IngestionJobDO> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.eq("id", job.getId())
+                .eq("lock_owner", instanceId)
+                .set("lock_owner", null)
+                .set("lock_until", null)
+                .set("payload_json", null);
+        IngestionJobDO update = new IngestionJobDO();
+        update.setStatus(IngestionStatus.FAILED.getValue());
+        update.setErrorMessage(truncate(error));
+        update.setCompletedAt(new Date());
+        return jobMapper.update(update, updateWrapper) > 0;
+    }
+
+    /**
+     * 放弃已超过最大领取次数的作业（通常是执行实例多次宕机导致租约到期）
+     */
+    private void abandon(IngestionJobDO job, Date now) {
+        String reason = "超过最大领取次数(" + job.getMaxAttempts() + ")，作业已放弃";
+        UpdateWrapper<IngestionJobDO> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.eq("id", job.getId())
+                .eq("status", job.getStatus())
+                .eq("attempts", job.getAttempts())
+                .and(wrapper -> wrapper.eq("status", IngestionStatus.PENDING.getValue())
+                        .or().lt("lock_until", now))
+                .set("lock_owner", null)
+                .set("lock_until", null)
+                .set("payload_json", null);
+        IngestionJobDO update = new IngestionJobDO();
+        update.setStatus(IngestionStatus.FAILED.getValue());
+        update.setErrorMessage(StringUtils.hasText(job.getErrorMessage())
+                ? truncate(reason + ": " + job.getErrorMessage())
+                : reason);
+        update.setCompletedAt(now);
+        if (jobMapper.update(update, updateWrapper) == 0) {
+            return;
+        }
+        log.warn("摄取作业已放弃, jobId={}, type={}, bizId={}", job.getId(), job.getJobType(), job.getBizId());
+        IngestionJobHandler handler = handlers.get(job.getJobType());
+        if (handler != null) {
+            UserContext.set(LoginUser.builder().username(job.getTenant()).build());
+            try {
+                notifyAbandoned(handler, job, reason);
+                notifyFinished(handler, job);
+            } finally {
+                UserContext.clear();
+            }
+        }
+    }
+
+    private void notifyAbandoned(IngestionJobHandler handler, IngestionJobDO job, String reason) {
+        try {
+            handler.onAbandoned(job, reason);
+        } catch (Exception e) {
+            log.error("摄取作业放弃回调失败, jobId={}", job.getId(), e);
+        }
+    }
+
+    private void notifyFinished(IngestionJobHandler handler, IngestionJobDO job) {
+        try {
+            handler.onFinished(job);
+        } catch (Exception e) {
+            log.error("摄取作业结束回调失败, jobId={}", job.getId(), e);
+        }
+    }
+
+    private boolean exceedsLimitAfterClaim(IngestionJobDO job) {
+        Date now = new Date();
+        if (job.getKbId() != null) {
+            long earlier = jobMapper.selectCount(runningBefore(job, now).eq(IngestionJobDO::getKbId, job.getKbId()));
+            if (reachedKbLimit((int) earlier, job)) {
+                return true;
+            }
+        }
+        if (StringUtils.hasText(job.getTenant())) {
+            long earlier = jobMapper.selectCount(runningBefore(job, now).eq(IngestionJobDO::getTenant, job.getTenant()));
+            return reachedTenantLimit((int) earlier, job);
+        }
+        return false;
+    }
+
+    private LambdaQueryWrapper<IngestionJobDO> runningBefore(IngestionJobDO job, Date now) {
+        return new LambdaQueryWrapper<IngestionJobDO>()
+                .eq(IngestionJobDO::getStatus, IngestionStatus.RUNNING.getValue())
+                .ge(IngestionJobDO::getLockUntil, now)
+                .lt(IngestionJobDO::getId, job.getId());
+    }
+
+    private boolean reachedKbLimit(int running, IngestionJobDO job) {
+        int limit = properties.getMaxRunningPerKb();
+        return job.getKbId() != null && limit > 0 && running >= limit;
+    }
+
+    private boolean reachedTenantLimit(int running, IngestionJobDO job) {
+        int limit = properties.getMaxRunningPerTenant();
+        return StringUtils.hasText(job.getTenant()) && limit > 0 && running >= limit;
+    }
+
+    private <K> List<K> saturated(Map<K, Integer> running, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        return running.entrySet().stream()
+                .filter(entry -> entry.getValue() >= limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private Map<Long, Integer> countRunningByKb(Date now) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Map<String, Object> row : selectRunningCounts("kb_id", now)) {
+            if (row.get("group_key") instanceof Number kbId && row.get("running_count") instanceof Number count) {
+                counts.put(kbId.longValue(), count.intValue());
+            }
+        }
+        return counts;
+    }
+
+    private Map<String, Integer> countRunningByTenant(Date now) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Map<String, Object> row : selectRunningCounts("tenant", now)) {
+            if (row.get("group_key") != null && row.get("running_count") instanceof Number count) {
+                counts.put(String.valueOf(row.get("group_key")), count.intValue());
+            }
+        }
+        return counts;
+    }
+
+    private List<Map<String, Object>> selectRunningCounts(String column, Date now) {
+        QueryWrapper<IngestionJobDO> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select(column + " AS group_key", "COUNT(*) AS running_count")
+                .eq("status", IngestionStatus.RUNNING.getValue())
+                .ge("lock_until", now)
+                .groupBy(column);
+        return jobMapper.selectMaps(queryWrapper);
+    }
+
+    /**
+     * 按知识库轮转排列候选作业，每个知识库内保持提交顺序
+     */
+    private List<IngestionJobDO> roundRobinByKb(List<IngestionJobDO> candidates) {
+        Map<Long, Deque<IngestionJobDO>> byKb = new LinkedHashMap<>();
+        for (IngestionJobDO job : candidates) {
+            byKb.computeIfAbsent(job.getKbId(), key -> new ArrayDeque<>()).add(job);
+        }
+        List<IngestionJobDO> ordered = new ArrayList<>(candidates.size());
+        while (!byKb.isEmpty()) {
+            Iterator<Deque<IngestionJobDO>> iterator = byKb.values().iterator();
+            while (iterator.hasNext()) {
+                Deque<IngestionJobDO> queue = iterator.next();
+                ordered.add(queue.poll());
+                if (queue.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+        }
+        return ordered;
+    }
+
+    private Date leaseUntil() {
+        return new Date(System.currentTimeMillis() + Math.max(properties.getLeaseSeconds(), 60) * 1000);
+    }
+
+    private String truncate(String value) {
+        if (value == null || value.length() <= ERROR_MAX_LENGTH) {
+            return value;
+        }
+        return value.substring(0, ERROR_MAX_LENGTH);
+    }
+
+    private String resolveInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return "ingest-worker-" + host + "-" + UUID.randomUUID();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.ingestion.queue;
+
+import com.nageoffer.ai.ragent.ingestion.dao.entity.IngestionJobDO;
+import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionJobType;
+import com.nageoffer.ai.ragent.ingestion.service.impl.IngestionTaskServiceImpl;
+import com.nageoffer.ai.ragent.rag.service.FileStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * 摄取任务作业处理器
+ * 执行通过任务接口提交的摄取任务，流水线执行结果记录在任务本身
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IngestionTaskJobHandler implements IngestionJobHandler {
+
+    private final IngestionTaskServiceImpl ingestionTaskService;
+    private final IngestionJobQueue ingestionJobQueue;
+    private final FileStorageService fileStorageService;
+
+    @Override
+    public IngestionJobType jobType() {
+        return IngestionJobType.INGESTION_TASK;
+    }
+
+    @Override
+    public void handle(IngestionJobDO job) {
+        IngestionTaskJobPayload payload = ingestionJobQueue.readPayload(job, IngestionTaskJobPayload.class);
+        ingestionTaskService.runQueuedTask(job.getBizId(), payload);
+    }
+
+    @Override
+    public void onAbandoned(IngestionJobDO job, String reason) {
+        ingestionTaskService.markTaskFailed(job.getBizId(), reason);
+    }
+
+    @Override
+    public void onFinished(IngestionJobDO job) {
+        IngestionTaskJobPayload payload = ingestionJobQueue.readPayload(job, IngestionTaskJobPayload.class);
+        if (payload == null || !StringUtils.hasText(payload.getStagedFileUrl())) {
+            return;
+        }
+        try {
+            fileStorageService.deleteByUrl(payload.getStagedFileUrl());
+        } catch (Exception e) {
+            log.warn("删除摄取暂存文件失败, jobId={}, url={}", job.getId(), payload.getStagedFileUrl(), e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.ingestion.queue;
+
+import com.nageoffer.ai.ragent.ingestion.domain.context.DocumentSource;
+import com.nageoffer.ai.ragent.rag.core.vector.VectorSpaceId;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 摄取任务作业参数
+ * 参数随作业加密保存（见 {@link IngestionJobQueue}），作业结束后清除
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestionTaskJobPayload {
+
+    /**
+     * 文档来源
+     */
+    private DocumentSource source;
+
+    /**
+     * 目标向量空间（可为空，为空时使用流水线索引节点配置）
+     */
+    private VectorSpaceId vectorSpaceId;
+
+    /**
+     * 异步上传时暂存的文件地址，作业结束后删除（可为空）
+     */
+    private String stagedFileUrl;
+}
@@ -34,9 +34,11 @@ import com.nageoffer.ai.ragent.ingestion.dao.mapper.IngestionTaskMapper;
 import com.nageoffer.ai.ragent.ingestion.dao.mapper.IngestionTaskNodeMapper;
 import com.nageoffer.ai.ragent.framework.context.UserContext;
 import com.nageoffer.ai.ragent.framework.exception.ClientException;
+import com.nageoffer.ai.ragent.framework.exception.ServiceException;
 import com.nageoffer.ai.ragent.ingestion.domain.context.DocumentSource;
 import com.nageoffer.ai.ragent.ingestion.domain.context.IngestionContext;
 import com.nageoffer.ai.ragent.ingestion.domain.context.NodeLog;
+import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionJobType;
 import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionNodeType;
 import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionStatus;
 import com.nageoffer.ai.ragent.ingestion.domain.enums.SourceType;
@@ -44,13 +46,22 @@ import com.nageoffer.ai.ragent.ingestion.domain.pipeline.NodeConfig;
 import com.nageoffer.ai.ragent.ingestion.domain.pipeline.PipelineDefinition;
 import com.nageoffer.ai.ragent.ingestion.domain.result.IngestionResult;
 import com.nageoffer.ai.ragent.ingestion.engine.IngestionEngine;
+import com.nageoffer.ai.ragent.ingestion.queue.IngestionJobQueue;
+import com.nageoffer.ai.ragent.ingestion.queue.IngestionTaskJobPayload;
 import com.nageoffer.ai.ragent.ingestion.util.MimeTypeDetector;
+import com.nageoffer.ai.ragent.ingestion.util.SpooledContent;
+import com.nageoffer.ai.ragent.rag.config.IngestionQueueProperties;
 import com.nageoffer.ai.ragent.rag.core.vector.VectorSpaceId;
+import com.nageoffer.ai.ragent.rag.dto.StoredFileDTO;
+import com.nageoffer.ai.ragent.rag.service.FileStorageService;
 import com.nageoffer.ai.ragent.ingestion.service.IngestionPipelineService;
 import com.nageoffer.ai.ragent.ingestion.service.IngestionTaskService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -66,6 +77,7 @@ import java.util.Set;
 /**
  * 数据摄入任务服务实现
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class IngestionTaskServiceImpl implements IngestionTaskService {
@@ -75,12 +87,18 @@ public class IngestionTaskServiceImpl implements IngestionTaskService {
     private final IngestionTaskMapper taskMapper;
     private final IngestionTaskNodeMapper taskNodeMapper;
     private final ObjectMapper objectMapper;
+    private final IngestionJobQueue ingestionJobQueue;
+    private final IngestionQueueProperties ingestionQueueProperties;
+    private final FileStorageService fileStorageService;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public IngestionResult execute(IngestionTaskCreateRequest request) {
         Assert.notNull(request, () -> new ClientException("请求不能为空"));
         DocumentSource source = toSource(request.getSource());
+        if (ingestionJobQueue.isEnabled()) {
+            return submit(request.getPipelineId(), source, request.getVectorSpaceId(), null);
+        }
         return executeInternal(request.getPipelineId(), source, null, null, request.getVectorSpaceId());
     }
 
@@ -88,21 +106,27 @@ public class IngestionTaskServiceImpl implements IngestionTaskService {
     @Transactional(rollbackFor = Exception.class)
     public IngestionResult upload(String pipelineId, MultipartFile file) {
         Assert.notNull(file, () -> new ClientException("文件不能为空"));
+        if (ingestionJobQueue.isEnabled()) {
+            return submitUpload(pipelineId, file);
+        }
+        SpooledContent content;
         try {
-            byte[] bytes = file.getBytes();
+            content = SpooledContent.spool(file.getInputStream(), -1);
+        } catch (Exception e) {
+            throw new ClientException("读取上传文件失败: " + e.getMessage());
+        }
+        try (content) {
             String fileName = file.getOriginalFilename();
             if (!StringUtils.hasText(fileName)) {
                 fileName = "upload.bin";
             }
-            String mimeType = MimeTypeDetector.detect(bytes, fileName);
+            String mimeType = MimeTypeDetector.detect(content, fileName);
             DocumentSource source = DocumentSource.builder()
                     .type(SourceType.FILE)
                     .location(fileName)
                     .fileName(fileName)
                     .build();
-            return executeInternal(pipelineId, source, bytes, mimeType, null);
-        } catch (Exception e) {
-            throw new ClientException("读取上传文件失败: " + e.getMessage());
+            return executeInternal(pipelineId, source, content, mimeType, null);
         }
     }
 
@@ -138,32 +162,141 @@ public class IngestionTaskServiceImpl implements IngestionTaskService {
         return nodes.stream().map(this::toNodeVO).toList();
     }
 
+    /**
+     * 执行作业队列中的摄取任务
+     * <p>
+     * 流水线的执行结果（包括失败）记录在任务上；抛出异常时作业按重试策略重新排队
+     *
+     * @param taskId  任务 ID
+     * @param payload 作业参数
+     */
+    public void runQueuedTask(Long taskId, IngestionTaskJobPayload payload) {
+        IngestionTaskDO task = taskMapper.selectById(taskId);
+        if (task == null) {
+            log.warn("摄取作业对应的任务不存在或已删除，跳过: taskId={}", taskId);
+            return;
+        }
+        if (IngestionStatus.COMPLETED.getValue().equals(task.getStatus())
+                || IngestionStatus.FAILED.getValue().equals(task.getStatus())) {
+            log.warn("摄取任务已结束，跳过重复执行: taskId={}, status={}", taskId, task.getStatus());
+            return;
+        }
+        Assert.notNull(payload, () -> new ServiceException("摄取作业参数缺失"));
+        Assert.notNull(payload.getSource(), () -> new ServiceException("摄取作业缺少文档来源"));
+
+        String pipelineId = String.valueOf(task.getPipelineId());
+        PipelineDefinition pipeline = pipelineService.getDefinition(pipelineId);
+
+        task.setStatus(IngestionStatus.RUNNING.getValue());
+        task.setStartedAt(new Date());
+        task.setUpdatedBy(UserContext.getUsername());
+        taskMapper.updateById(task);
+
+        runTask(task, pipeline, payload.getSource(), null, null, payload.getVectorSpaceId());
+    }
+
+    /**
+     * 作业被放弃时将任务标记为失败
+     */
+    public void markTaskFailed(Long taskId, String reason) {
+        IngestionTaskDO update = new IngestionTaskDO();
+        update.setId(taskId);
+        update.setStatus(IngestionStatus.FAILED.getValue());
+        update.setErrorMessage(reason);
+        update.setCompletedAt(new Date());
+        update.setUpdatedBy(UserContext.getUsername());
+        taskMapper.updateById(update);
+    }
+
+    private IngestionResult submit(String pipelineId, DocumentSource source, VectorSpaceId vectorSpaceId, String stagedFileUrl) {
+        String resolvedPipelineId = resolvePipelineId(pipelineId);
+        // 提前校验流水线，避免无效任务进入队列
+        pipelineService.getDefinition(resolvedPipelineId);
+        if (source.getCredentials() != null && !source.getCredentials().isEmpty() && !ingestionJobQueue.canProtectPayload()) {
+            throw new ClientException("异步提交携带访问凭证的任务需配置作业参数密钥 rag.ingestion.queue.payload-secret");
+        }
+
+        IngestionTaskDO task = createTask(resolvedPipelineId, source, IngestionStatus.PENDING);
+        IngestionTaskJobPayload payload = IngestionTaskJobPayload.builder()
+                .source(source)
+                .vectorSpaceId(vectorSpaceId)
+                .stagedFileUrl(stagedFileUrl)
+                .build();
+        ingestionJobQueue.enqueue(IngestionJobType.INGESTION_TASK, task.getId(), null, payload);
+        return IngestionResult.builder()
+                .taskId(String.valueOf(task.getId()))
+                .pipelineId(resolvedPipelineId)
+                .status(IngestionStatus.PENDING)
+                .chunkCount(0)
+                .message("任务已提交")
+                .build();
+    }
+
+    /**
+     * 上传文件先写入暂存桶，作业执行时由文件抓取器按 s3 地址读取，作业结束后删除；提交事务回滚时立即删除
+     */
+    private IngestionResult submitUpload(String pipelineId, MultipartFile file) {
+        String fileName = file.getOriginalFilename();
+        if (!StringUtils.hasText(fileName)) {
+            fileName = "upload.bin";
+        }
+        String bucket = ingestionQueueProperties.getUploadBucket();
+        fileStorageService.ensureBucket(bucket);
+        StoredFileDTO stored = fileStorageService.upload(bucket, file);
+        DocumentSource source = DocumentSource.builder()
+                .type(SourceType.FILE)
+                .location(stored.getUrl())
+                .fileName(fileName)
+                .build();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    fileStorageService.deleteByUrl(stored.getUrl());
+                }
+            }
+        });
+        return submit(pipelineId, source, null, stored.getUrl());
+    }
+
     private IngestionResult executeInternal(String pipelineId,
                                             DocumentSource source,
-                                            byte[] rawBytes,
+                                            SpooledContent rawContent,
                                             String mimeType,
                                             VectorSpaceId vectorSpaceId) {
         String resolvedPipelineId = resolvePipelineId(pipelineId);
         PipelineDefinition pipeline = pipelineService.getDefinition(resolvedPipelineId);
+        IngestionTaskDO task = createTask(resolvedPipelineId, source, IngestionStatus.RUNNING);
+        return runTask(task, pipeline, source, rawContent, mimeType, vectorSpaceId);
+    }
 
+    private IngestionTaskDO createTask(String pipelineId, DocumentSource source, IngestionStatus status) {
         IngestionTaskDO task = IngestionTaskDO.builder()
-                .pipelineId(Long.parseLong(resolvedPipelineId))
+                .pipelineId(Long.parseLong(pipelineId))
                 .sourceType(source.getType() == null ? null : source.getType().getValue())
                 .sourceLocation(source.getLocation())
                 .sourceFileName(source.getFileName())
-                .status(IngestionStatus.RUNNING.getValue())
+                .status(status.getValue())
                 .chunkCount(0)
-                .startedAt(new Date())
+                .startedAt(IngestionStatus.RUNNING == status ? new Date() : null)
                 .createdBy(UserContext.getUsername())
                 .updatedBy(UserContext.getUsername())
                 .build();
         taskMapper.insert(task);
+        return task;
+    }
 
+    private IngestionResult runTask(IngestionTaskDO task,
+                                    PipelineDefinition pipeline,
+                                    DocumentSource source,
+                                    SpooledContent rawContent,
+                                    String mimeType,
+                                    VectorSpaceId vectorSpaceId) {
         IngestionContext context = IngestionContext.builder()
                 .taskId(String.valueOf(task.getId()))
-                .pipelineId(resolvedPipelineId)
+                .pipelineId(String.valueOf(task.getPipelineId()))
                 .source(source)
-                .rawBytes(rawBytes)
+                .rawContent(rawContent)
                 .mimeType(mimeType)
                 .vectorSpaceId(vectorSpaceId)
                 .logs(new ArrayList<>())
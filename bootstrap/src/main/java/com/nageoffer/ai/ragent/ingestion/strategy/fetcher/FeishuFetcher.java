@@ -24,6 +24,7 @@ import com.nageoffer.ai.ragent.ingestion.domain.context.DocumentSource;
 import com.nageoffer.ai.ragent.ingestion.domain.enums.SourceType;
 import com.nageoffer.ai.ragent.ingestion.util.HttpClientHelper;
 import com.nageoffer.ai.ragent.ingestion.util.MimeTypeDetector;
+import com.nageoffer.ai.ragent.ingestion.util.SpooledContent;
 import lombok.RequiredArgsConstructor;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
@@ -77,10 +78,10 @@ public class FeishuFetcher implements DocumentFetcher {
                 content = new String(resp.body(), StandardCharsets.UTF_8);
             }
             String fileName = StringUtils.hasText(source.getFileName()) ? source.getFileName() : docToken + ".txt";
-            return new FetchResult(content.getBytes(StandardCharsets.UTF_8), "text/plain", fileName);
+            return new FetchResult(SpooledContent.of(content.getBytes(StandardCharsets.UTF_8)), "text/plain", fileName);
         }
 
-        HttpClientHelper.HttpFetchResponse resp = httpClientHelper.get(location, headers);
+        HttpClientHelper.HttpDownloadResponse resp = httpClientHelper.download(location, headers, -1);
         String fileName = StringUtils.hasText(source.getFileName()) ? source.getFileName() : resp.fileName();
         String contentType = resp.contentType();
         if (!StringUtils.hasText(contentType)) {
@@ -17,12 +17,14 @@
 
 package com.nageoffer.ai.ragent.ingestion.strategy.fetcher;
 
+import com.nageoffer.ai.ragent.ingestion.util.SpooledContent;
+
 /**
  * 抓取结果实体类
  *
- * @param content  抓取到的内容字节数组
+ * @param content  抓取到的内容（小文件在内存中，大文件溢写到临时文件，使用完毕需关闭）
  * @param mimeType 内容的 MIME 类型
  * @param fileName 文件名称
  */
-public record FetchResult(byte[] content, String mimeType, String fileName) {
+public record FetchResult(SpooledContent content, String mimeType, String fileName) {
 }
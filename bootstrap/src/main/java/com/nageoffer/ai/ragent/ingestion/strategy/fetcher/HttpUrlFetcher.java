@@ -52,7 +52,7 @@ public class HttpUrlFetcher implements DocumentFetcher {
         }
 
         Map<String, String> headers = buildHeaders(source.getCredentials());
-        HttpClientHelper.HttpFetchResponse resp = httpClientHelper.get(location, headers);
+        HttpClientHelper.HttpDownloadResponse resp = httpClientHelper.download(location, headers, -1);
         String fileName = StringUtils.hasText(source.getFileName()) ? source.getFileName() : resp.fileName();
         String contentType = normalizeContentType(resp.contentType());
         if (!StringUtils.hasText(contentType)) {
@@ -21,12 +21,12 @@ import com.nageoffer.ai.ragent.framework.exception.ServiceException;
 import com.nageoffer.ai.ragent.ingestion.domain.context.DocumentSource;
 import com.nageoffer.ai.ragent.ingestion.domain.enums.SourceType;
 import com.nageoffer.ai.ragent.ingestion.util.MimeTypeDetector;
+import com.nageoffer.ai.ragent.ingestion.util.SpooledContent;
 import com.nageoffer.ai.ragent.rag.service.FileStorageService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import java.io.InputStream;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -54,12 +54,10 @@ public class LocalFileFetcher implements DocumentFetcher {
             throw new ServiceException("文件路径不能为空");
         }
         try {
-            byte[] bytes;
+            SpooledContent content;
             String fileName = source.getFileName();
             if (location.startsWith("s3://")) {
-                try (InputStream is = fileStorageService.openStream(location)) {
-                    bytes = is.readAllBytes();
-                }
+                content = SpooledContent.spool(fileStorageService.openStream(location), -1);
                 if (!StringUtils.hasText(fileName)) {
                     fileName = extractFileName(location);
                 }
@@ -67,13 +65,13 @@ public class LocalFileFetcher implements DocumentFetcher {
                 Path path = location.startsWith("file://")
                         ? Path.of(URI.create(location))
                         : Path.of(location);
-                bytes = Files.readAllBytes(path);
+                content = SpooledContent.spool(Files.newInputStream(path), -1);
                 if (!StringUtils.hasText(fileName) && path.getFileName() != null) {
                     fileName = path.getFileName().toString();
                 }
             }
-            String mimeType = MimeTypeDetector.detect(bytes, fileName);
-            return new FetchResult(bytes, mimeType, fileName);
+            String mimeType = MimeTypeDetector.detect(content, fileName);
+            return new FetchResult(content, mimeType, fileName);
         } catch (Exception e) {
             throw new ServiceException("读取文件失败: " + e.getMessage());
         }
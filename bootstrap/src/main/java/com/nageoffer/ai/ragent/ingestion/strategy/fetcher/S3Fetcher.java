@@ -21,13 +21,12 @@ import com.nageoffer.ai.ragent.framework.exception.ServiceException;
 import com.nageoffer.ai.ragent.ingestion.domain.context.DocumentSource;
 import com.nageoffer.ai.ragent.ingestion.domain.enums.SourceType;
 import com.nageoffer.ai.ragent.ingestion.util.MimeTypeDetector;
+import com.nageoffer.ai.ragent.ingestion.util.SpooledContent;
 import com.nageoffer.ai.ragent.rag.service.FileStorageService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import java.io.InputStream;
-
 /**
  * S3对象存储文档提取器
  * 支持从S3兼容的对象存储（如RustFS）中获取文档，示例路径：s3://biz/5fb28010e16c4083ab07ca41f29804b0.md
@@ -55,18 +54,15 @@ public class S3Fetcher implements DocumentFetcher {
         }
 
         try {
-            byte[] bytes;
-            try (InputStream is = fileStorageService.openStream(location)) {
-                bytes = is.readAllBytes();
-            }
+            SpooledContent content = SpooledContent.spool(fileStorageService.openStream(location), -1);
 
             String fileName = source.getFileName();
             if (!StringUtils.hasText(fileName)) {
                 fileName = extractFileName(location);
             }
 
-            String mimeType = MimeTypeDetector.detect(bytes, fileName);
-            return new FetchResult(bytes, mimeType, fileName);
+            String mimeType = MimeTypeDetector.detect(content, fileName);
+            return new FetchResult(content, mimeType, fileName);
         } catch (Exception e) {
             throw new ServiceException("从S3读取文件失败: " + location + ", 错误: " + e.getMessage());
         }
@@ -24,9 +24,7 @@ import okhttp3.Request;
 import okhttp3.Response;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
@@ -41,14 +39,35 @@ public class HttpClientHelper {
     private final OkHttpClient client;
 
     public HttpFetchResponse get(String url, Map<String, String> headers) {
-        return doGet(url, headers, -1);
-    }
-
-    public HttpFetchResponse getWithLimit(String url, Map<String, String> headers, long maxBytes) {
-        return doGet(url, headers, maxBytes);
+        Request.Builder builder = new Request.Builder().url(url);
+        if (headers != null) {
+            headers.forEach(builder::addHeader);
+        }
+        try (Response response = client.newCall(builder.get().build()).execute()) {
+            if (!response.isSuccessful()) {
+                String body = response.body() != null ? response.body().string() : "";
+                throw new ServiceException("网络请求失败: " + response.code() + " " + body);
+            }
+            String contentType = response.header("Content-Type");
+            String disposition = response.header("Content-Disposition");
+            String fileName = resolveFileName(disposition, url);
+            String etag = response.header("ETag");
+            String lastModified = response.header("Last-Modified");
+            Long contentLength = parseContentLength(response.header("Content-Length"));
+            byte[] bytes = response.body() == null ? new byte[0] : response.body().bytes();
+            return new HttpFetchResponse(bytes, contentType, fileName, etag, lastModified, contentLength);
+        } catch (IOException e) {
+            throw new ServiceException("网络请求失败: " + e.getMessage());
+        }
     }
 
-    private HttpFetchResponse doGet(String url, Map<String, String> headers, long maxBytes) {
+    /**
+     * 流式下载远程文件：响应体边读边写入 {@link SpooledContent}（超过内存阈值时溢写临时文件），
+     * 不在堆内存中保留完整文件。调用方负责关闭返回结果中的 body
+     *
+     * @param maxBytes 最大允许字节数，小于等于 0 表示不限制
+     */
+    public HttpDownloadResponse download(String url, Map<String, String> headers, long maxBytes) {
         Request.Builder builder = new Request.Builder().url(url);
         if (headers != null) {
             headers.forEach(builder::addHeader);
@@ -68,15 +87,10 @@ public class HttpClientHelper {
                 throw new ServiceException("文件大小超过限制: " + maxBytes + " bytes");
             }
 
-            byte[] bytes;
-            if (response.body() == null) {
-                bytes = new byte[0];
-            } else if (maxBytes > 0) {
-                bytes = readWithLimit(response.body().byteStream(), maxBytes);
-            } else {
-                bytes = response.body().bytes();
-            }
-            return new HttpFetchResponse(bytes, contentType, fileName, etag, lastModified, contentLength);
+            SpooledContent body = response.body() == null
+                    ? SpooledContent.of(new byte[0])
+                    : SpooledContent.spool(response.body().byteStream(), maxBytes);
+            return new HttpDownloadResponse(body, contentType, fileName, etag, lastModified, contentLength);
         } catch (IOException e) {
             throw new ServiceException("网络请求失败: " + e.getMessage());
         }
@@ -149,22 +163,6 @@ public class HttpClientHelper {
         }
     }
 
-    private byte[] readWithLimit(InputStream inputStream, long maxBytes) throws IOException {
-        try (InputStream in = inputStream; ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            byte[] buffer = new byte[8192];
-            long total = 0;
-            int len;
-            while ((len = in.read(buffer)) != -1) {
-                total += len;
-                if (maxBytes > 0 && total > maxBytes) {
-                    throw new ServiceException("文件大小超过限制: " + maxBytes + " bytes");
-                }
-                out.write(buffer, 0, len);
-            }
-            return out.toByteArray();
-        }
-    }
-
     public record HttpFetchResponse(byte[] body,
                                     String contentType,
                                     String fileName,
@@ -173,6 +171,14 @@ public class HttpClientHelper {
                                     Long contentLength) {
     }
 
+    public record HttpDownloadResponse(SpooledContent body,
+                                       String contentType,
+                                       String fileName,
+                                       String etag,
+                                       String lastModified,
+                                       Long contentLength) {
+    }
+
     public record HttpHeadResponse(String etag, String lastModified, String contentType, Long contentLength,
                                    String fileName) {
     }
@@ -19,6 +19,9 @@ package com.nageoffer.ai.ragent.ingestion.util;
 
 import org.apache.tika.Tika;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * MimeType 探测器，用于识别文件或字节数组的媒体类型
  */
@@ -38,4 +41,18 @@ public final class MimeTypeDetector {
         }
         return TIKA.detect(bytes, fileName);
     }
+
+    /**
+     * 基于流式内容探测媒体类型，仅读取文件头部，不加载完整内容
+     */
+    public static String detect(SpooledContent content, String fileName) {
+        if (content == null || content.isEmpty()) {
+            return null;
+        }
+        try (InputStream in = content.openStream()) {
+            return TIKA.detect(in, fileName);
+        } catch (IOException e) {
+            return null;
+        }
+    }
 }
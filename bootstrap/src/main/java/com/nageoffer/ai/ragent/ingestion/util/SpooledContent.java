@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.ingestion.util;
+
+import com.nageoffer.ai.ragent.framework.exception.ServiceException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 可溢写到临时文件的文档内容
+ * <p>
+ * 不超过内存阈值的内容保留在内存中，超过阈值后整体写入临时文件，读取时按需打开输入流，
+ * 避免摄取链路上整份文件以 byte[] 形式常驻堆内存。使用完毕后需调用 {@link #close()} 删除临时文件
+ */
+@Slf4j
+public final class SpooledContent implements Closeable {
+
+    /**
+     * 默认内存阈值：1MB
+     */
+    public static final int DEFAULT_MEMORY_THRESHOLD = 1 << 20;
+
+    private static final String TEMP_PREFIX = "ragent-spool-";
+
+    private final byte[] bytes;
+    private final Path file;
+    private final long size;
+
+    private SpooledContent(byte[] bytes, Path file, long size) {
+        this.bytes = bytes;
+        this.file = file;
+        this.size = size;
+    }
+
+    /**
+     * 包装内存中的字节数组
+     */
+    public static SpooledContent of(byte[] bytes) {
+        byte[] content = bytes == null ? new byte[0] : bytes;
+        return new SpooledContent(content, null, content.length);
+    }
+
+    /**
+     * 读取输入流并按默认阈值决定保存在内存或临时文件，读取完成后关闭输入流
+     *
+     * @param inputStream 输入流
+     * @param maxBytes    最大允许字节数，小于等于 0 表示不限制
+     */
+    public static SpooledContent spool(InputStream inputStream, long maxBytes) throws IOException {
+        return spool(inputStream, maxBytes, DEFAULT_MEMORY_THRESHOLD);
+    }
+
+    /**
+     * 读取输入流并按指定阈值决定保存在内存或临时文件，读取完成后关闭输入流
+     *
+     * @param inputStream     输入流
+     * @param maxBytes        最大允许字节数，小于等于 0 表示不限制
+     * @param memoryThreshold 内存阈值（字节）
+     */
+    public static SpooledContent spool(InputStream inputStream, long maxBytes, int memoryThreshold) throws IOException {
+        try (InputStream in = inputStream) {
+            ByteArrayOutputStream memory = new ByteArrayOutputStream(Math.min(memoryThreshold, 64 * 1024));
+            byte[] buffer = new byte[8192];
+            long total = 0;
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                total += len;
+                checkLimit(total, maxBytes);
+                if (total > memoryThreshold) {
+                    return spillToFile(in, memory, buffer, len, total, maxBytes);
+                }
+                memory.write(buffer, 0, len);
+            }
+            return new SpooledContent(memory.toByteArray(), null, total);
+        }
+    }
+
+    private static SpooledContent spillToFile(InputStream in,
+                                              ByteArrayOutputStream memory,
+                                              byte[] buffer,
+                                              int pending,
+                                              long total,
+                                              long maxBytes) throws IOException {
+        Path file = Files.createTempFile(TEMP_PREFIX, ".tmp");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            memory.writeTo(out);
+            out.write(buffer, 0, pending);
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                total += len;
+                checkLimit(total, maxBytes);
+                out.write(buffer, 0, len);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new SpooledContent(null, file, total);
+    }
+
+    private static void checkLimit(long total, long maxBytes) {
+        if (maxBytes > 0 && total > maxBytes) {
+            throw new ServiceException("文件大小超过限制: " + maxBytes + " bytes");
+        }
+    }
+
+    /**
+     * 打开一个新的输入流，可多次调用
+     */
+    public InputStream openStream() throws IOException {
+        if (bytes != null) {
+            return new ByteArrayInputStream(bytes);
+        }
+        return new BufferedInputStream(Files.newInputStream(file));
+    }
+
+    /**
+     * 内容字节数
+     */
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 内容是否已溢写到临时文件
+     */
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+    /**
+     * 读取全部内容为字节数组，仅用于确实需要完整字节的小文件场景
+     */
+    public byte[] toByteArray() throws IOException {
+        if (bytes != null) {
+            return bytes;
+        }
+        return Files.readAllBytes(file);
+    }
+
+    @Override
+    public void close() {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除临时文件失败: {}", file, e);
+        }
+    }
+}
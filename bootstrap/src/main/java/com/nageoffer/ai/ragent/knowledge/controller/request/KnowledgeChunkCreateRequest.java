@@ -39,4 +39,9 @@ public class KnowledgeChunkCreateRequest {
      * 分块 ID
      */
     private String chunkId;
+
+    /**
+     * 是否启用，为空时启用；重新分块时新一代分片先以禁用状态写入，切换时统一启用
+     */
+    private Boolean enabled;
 }
@@ -0,0 +1,30 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.knowledge.event;
+
+/**
+ * 知识库内容变更事件
+ * <p>
+ * 每次文档级操作（分块、增量刷新、启用禁用、删除、分片增删改）完成后发布一次，
+ * 依赖知识库内容的组件（如语义答案缓存）监听后自行失效，存储层无需感知上层缓存
+ *
+ * @param kbId  知识库 ID
+ * @param docId 文档 ID
+ */
+public record KnowledgeBaseChangedEvent(String kbId, String docId) {
+}
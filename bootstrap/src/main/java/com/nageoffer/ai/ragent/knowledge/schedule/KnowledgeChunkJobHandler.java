@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.knowledge.schedule;
+
+import com.nageoffer.ai.ragent.ingestion.dao.entity.IngestionJobDO;
+import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionJobType;
+import com.nageoffer.ai.ragent.ingestion.queue.IngestionJobHandler;
+import com.nageoffer.ai.ragent.knowledge.dao.entity.KnowledgeDocumentDO;
+import com.nageoffer.ai.ragent.knowledge.dao.mapper.KnowledgeDocumentMapper;
+import com.nageoffer.ai.ragent.knowledge.service.impl.KnowledgeDocumentServiceImpl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 知识库文档分块作业处理器
+ * 执行 startChunk 提交的分块作业，分块失败由分块流程自行记录日志并标记文档失败
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KnowledgeChunkJobHandler implements IngestionJobHandler {
+
+    private final KnowledgeDocumentMapper docMapper;
+    private final KnowledgeDocumentServiceImpl documentService;
+
+    @Override
+    public IngestionJobType jobType() {
+        return IngestionJobType.KNOWLEDGE_CHUNK;
+    }
+
+    @Override
+    public void handle(IngestionJobDO job) {
+        KnowledgeDocumentDO documentDO = docMapper.selectById(job.getBizId());
+        if (documentDO == null) {
+            log.warn("分块作业对应的文档不存在或已删除，跳过: docId={}", job.getBizId());
+            return;
+        }
+        documentService.chunkDocument(documentDO);
+    }
+
+    @Override
+    public void onAbandoned(IngestionJobDO job, String reason) {
+        log.warn("分块作业已放弃，标记文档失败: docId={}, reason={}", job.getBizId(), reason);
+        documentService.markChunkFailed(job.getBizId());
+    }
+}
@@ -38,6 +38,7 @@ import com.nageoffer.ai.ragent.knowledge.service.impl.KnowledgeDocumentServiceIm
 import com.nageoffer.ai.ragent.rag.dto.StoredFileDTO;
 import com.nageoffer.ai.ragent.rag.service.FileStorageService;
 import com.nageoffer.ai.ragent.ingestion.util.HttpClientHelper;
+import com.nageoffer.ai.ragent.ingestion.util.SpooledContent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -48,6 +49,7 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
+import java.io.InputStream;
 import java.net.InetAddress;
 import java.security.MessageDigest;
 import java.util.Date;
@@ -68,7 +70,7 @@ import java.util.concurrent.RejectedExecutionException;
  * <ul>
  *   <li>定期扫描待执行的定时任务</li>
  *   <li>检查远程文件是否发生变化（基于ETag、Last-Modified、内容哈希）</li>
- *   <li>下载更新的远程文件并重新进行文档分块处理</li>
+ *   <li>下载更新的远程文件并重新进行文档分块处理（默认按内容哈希增量刷新，仅为变化的分块生成向量）</li>
  *   <li>记录任务执行历史和状态</li>
  *   <li>支持分布式环境下的任务锁定机制</li>
  * </ul>
@@ -98,6 +100,8 @@ public class KnowledgeDocumentScheduleJob {
     private int batchSize;
     @Value("${rag.knowledge.schedule.max-file-size-bytes:104857600}")
     private long maxFileSizeBytes;
+    @Value("${rag.knowledge.schedule.incremental-refresh:true}")
+    private boolean incrementalRefresh;
 
     private final String instanceId = resolveInstanceId();
 
@@ -195,8 +199,9 @@ public class KnowledgeDocumentScheduleJob {
                 .build();
         execMapper.insert(exec);
 
+        RemoteFetchResult fetchResult = null;
         try {
-            RemoteFetchResult fetchResult = fetchRemoteIfChanged(document, schedule);
+            fetchResult = fetchRemoteIfChanged(document, schedule);
             if (!fetchResult.changed()) {
                 markScheduleSkipped(schedule, exec.getId(), startTime, nextRunTime, fetchResult);
                 return;
@@ -208,23 +213,33 @@ public class KnowledgeDocumentScheduleJob {
                 throw new ClientException("知识库不存在");
             }
 
-            StoredFileDTO stored = fileStorageService.upload(
-                    kbDO.getCollectionName(),
-                    fetchResult.body(),
-                    fetchResult.fileName(),
-                    fetchResult.contentType()
-            );
+            StoredFileDTO stored;
+            try (InputStream is = fetchResult.body().openStream()) {
+                stored = fileStorageService.upload(
+                        kbDO.getCollectionName(),
+                        is,
+                        fetchResult.body().size(),
+                        fetchResult.fileName(),
+                        fetchResult.contentType()
+                );
+            }
 
+            // 增量刷新保留现有分片，由分片服务按内容哈希比对；全量刷新先清空分片再重新分块
+            boolean incremental = incrementalRefresh && documentService.supportsIncrementalRefresh(document);
             TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
             txTemplate.executeWithoutResult(status -> {
-                knowledgeChunkService.deleteByDocId(String.valueOf(document.getId()));
+                if (!incremental) {
+                    knowledgeChunkService.deleteByDocId(String.valueOf(document.getId()));
+                }
                 KnowledgeDocumentDO update = new KnowledgeDocumentDO();
                 update.setId(document.getId());
                 update.setDocName(stored.getOriginalFilename());
                 update.setFileUrl(stored.getUrl());
                 update.setFileType(stored.getDetectedType());
                 update.setFileSize(stored.getSize());
-                update.setChunkCount(0);
+                if (!incremental) {
+                    update.setChunkCount(0);
+                }
                 update.setStatus(DocumentStatus.RUNNING.getCode());
                 update.setUpdatedBy(SYSTEM_USER);
                 documentMapper.updateById(update);
@@ -234,13 +249,19 @@ public class KnowledgeDocumentScheduleJob {
             document.setFileUrl(stored.getUrl());
             document.setFileType(stored.getDetectedType());
             document.setFileSize(stored.getSize());
-            document.setChunkCount(0);
+            if (!incremental) {
+                document.setChunkCount(0);
+            }
             document.setStatus(DocumentStatus.RUNNING.getCode());
 
             renewLock(scheduleId);
             UserContext.set(LoginUser.builder().username(SYSTEM_USER).build());
             try {
-                documentService.chunkDocument(document);
+                if (incremental) {
+                    documentService.refreshChunksIncrementally(document);
+                } else {
+                    documentService.chunkDocument(document);
+                }
             } finally {
                 UserContext.clear();
             }
@@ -257,6 +278,9 @@ public class KnowledgeDocumentScheduleJob {
                     scheduleId, document.getId(), document.getKbId(), e);
             markScheduleFailed(schedule, exec.getId(), startTime, nextRunTime, e.getMessage());
         } finally {
+            if (fetchResult != null && fetchResult.body() != null) {
+                fetchResult.body().close();
+            }
             releaseLock(scheduleId);
         }
     }
@@ -288,15 +312,16 @@ public class KnowledgeDocumentScheduleJob {
             }
         }
 
-        HttpClientHelper.HttpFetchResponse fetchResponse = maxFileSizeBytes > 0
-                ? httpClientHelper.getWithLimit(url, Map.of(), maxFileSizeBytes)
-                : httpClientHelper.get(url, Map.of());
-        byte[] body = fetchResponse.body() == null ? new byte[0] : fetchResponse.body();
-        if (body.length == 0) {
+        // 边下载边落盘（小文件留在内存），哈希按流计算，不持有整份文件的字节数组
+        HttpClientHelper.HttpDownloadResponse fetchResponse = httpClientHelper.download(url, Map.of(), maxFileSizeBytes);
+        SpooledContent body = fetchResponse.body();
+        if (body.isEmpty()) {
+            body.close();
             throw new ClientException("远程文件内容为空");
         }
         String hash = sha256Hex(body);
         if (StringUtils.hasText(hash) && hash.equals(trim(schedule.getLastContentHash()))) {
+            body.close();
             String etag = StringUtils.hasText(fetchResponse.etag())
                     ? trim(fetchResponse.etag())
                     : (headResponse == null ? null : trim(headResponse.etag()));
@@ -467,13 +492,18 @@ public class KnowledgeDocumentScheduleJob {
         return "kb-schedule-" + host + "-" + UUID.randomUUID();
     }
 
-    private String sha256Hex(byte[] content) {
+    private String sha256Hex(SpooledContent content) {
         if (content == null) {
             return null;
         }
-        try {
+        try (InputStream is = content.openStream()) {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(content);
+            byte[] buffer = new byte[8192];
+            int len;
+            while ((len = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, len);
+            }
+            byte[] hash = digest.digest();
             StringBuilder hex = new StringBuilder(hash.length * 2);
             for (byte b : hash) {
                 String value = Integer.toHexString(0xff & b);
@@ -504,7 +534,7 @@ public class KnowledgeDocumentScheduleJob {
     }
 
     private record RemoteFetchResult(boolean changed,
-                                     byte[] body,
+                                     SpooledContent body,
                                      String contentType,
                                      String fileName,
                                      String contentHash,
@@ -515,7 +545,7 @@ public class KnowledgeDocumentScheduleJob {
             return new RemoteFetchResult(false, null, null, null, contentHash, etag, lastModified, message);
         }
 
-        static RemoteFetchResult changed(byte[] body,
+        static RemoteFetchResult changed(SpooledContent body,
                                          String contentType,
                                          String fileName,
                                          String contentHash,
@@ -18,12 +18,14 @@
 package com.nageoffer.ai.ragent.knowledge.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.nageoffer.ai.ragent.core.chunk.VectorChunk;
 import com.nageoffer.ai.ragent.knowledge.controller.request.KnowledgeChunkBatchRequest;
 import com.nageoffer.ai.ragent.knowledge.controller.request.KnowledgeChunkCreateRequest;
 import com.nageoffer.ai.ragent.knowledge.controller.request.KnowledgeChunkPageRequest;
 import com.nageoffer.ai.ragent.knowledge.controller.request.KnowledgeChunkUpdateRequest;
 import com.nageoffer.ai.ragent.knowledge.controller.vo.KnowledgeChunkVO;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -146,4 +148,97 @@ public interface KnowledgeChunkService {
      * @param docId 文档 ID
      */
     void deleteByDocId(String docId);
+
+    /**
+     * 查询指定文档的所有分片 ID
+     *
+     * @param docId 文档 ID
+     * @return 分片 ID 列表
+     */
+    List<Long> listIdsByDocId(String docId);
+
+    /**
+     * 查询指定文档已启用（已写入向量库）的分片 ID
+     *
+     * @param docId 文档 ID
+     * @return 分片 ID 列表
+     */
+    List<Long> listEnabledIdsByDocId(String docId);
+
+    /**
+     * 按主键查询指定文档的分片
+     *
+     * @param docId    文档 ID
+     * @param chunkIds 分片 ID 集合
+     * @return 分片列表，按序号升序
+     */
+    List<KnowledgeChunkVO> listByIds(String docId, Collection<Long> chunkIds);
+
+    /**
+     * 按主键删除指定文档的分片（不处理向量库）
+     *
+     * @param docId    文档 ID
+     * @param chunkIds 分片 ID 集合
+     */
+    void deleteByIds(String docId, Collection<Long> chunkIds);
+
+    /**
+     * 按主键分批为指定文档的分片生成向量并写入向量库，内容未变化的分片直接命中向量缓存
+     *
+     * @param docId    文档 ID
+     * @param chunkIds 分片 ID 集合
+     */
+    void indexByIds(String docId, Collection<Long> chunkIds);
+
+    /**
+     * 开启按内容哈希的流式增量同步
+     * <p>
+     * 重新切分的分片按窗口交给会话，与现有分片按内容哈希匹配：未变化的分片保留原记录与向量（仅修正序号），
+     * 新增或内容变化的分片随窗口向量化并以禁用状态写入，不参与检索；提交时在同一事务中删除不再出现的分片并启用新增分片，
+     * 提交后写入新增分片的向量、按主键删除旧向量，向量主键与分片 ID 不一致时改为重建整个文档的向量
+     *
+     * @param docId 文档 ID
+     * @return 同步会话，调用方负责提交或丢弃
+     */
+    ChunkSyncSession openSync(String docId);
+
+    /**
+     * 增量同步会话，非线程安全，按窗口顺序调用
+     */
+    interface ChunkSyncSession {
+
+        /**
+         * 比对一个窗口的分片，新增分片向量化后以禁用状态写入
+         *
+         * @param window 重新切分后的分片（无需携带向量）
+         */
+        void accept(List<VectorChunk> window);
+
+        /**
+         * 提交同步，向量库更新失败时抛出异常，由调用方回退为全量重建
+         *
+         * @return 同步结果统计
+         */
+        ChunkSyncResult commit();
+
+        /**
+         * 丢弃本次写入的新增分片，现有分片不受影响
+         */
+        void discard();
+    }
+
+    /**
+     * 增量同步结果
+     *
+     * @param unchanged 内容未变化、保留原向量的分片数
+     * @param added     新增并写入向量的分片数
+     * @param removed   删除的分片数
+     * @param reordered 仅序号变化的分片数
+     */
+    record ChunkSyncResult(int unchanged, int added, int removed, int reordered) {
+
+        public int total() {
+            return unchanged + added;
+        }
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.knowledge.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.nageoffer.ai.ragent.infra.embedding.EmbeddingCacheStore;
+import com.nageoffer.ai.ragent.knowledge.dao.entity.EmbeddingCacheDO;
+import com.nageoffer.ai.ragent.knowledge.dao.mapper.EmbeddingCacheMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于 MySQL 的向量缓存持久化实现
+ * <p>
+ * 向量以 float32 小端序写入 BLOB 字段，(model_id, content_hash) 唯一索引保证并发写入幂等
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmbeddingCacheStoreImpl implements EmbeddingCacheStore {
+
+    private static final int QUERY_BATCH_SIZE = 500;
+
+    private final EmbeddingCacheMapper embeddingCacheMapper;
+
+    @Override
+    public Map<String, float[]> loadAll(String modelId, Collection<String> contentHashes) {
+        if (CollUtil.isEmpty(contentHashes)) {
+            return Map.of();
+        }
+        Map<String, float[]> result = new HashMap<>(contentHashes.size() * 2);
+        for (List<String> batch : CollUtil.split(contentHashes, QUERY_BATCH_SIZE)) {
+            List<EmbeddingCacheDO> rows = embeddingCacheMapper.selectList(
+                    Wrappers.lambdaQuery(EmbeddingCacheDO.class)
+                            .select(EmbeddingCacheDO::getContentHash, EmbeddingCacheDO::getEmbedding)
+                            .eq(EmbeddingCacheDO::getModelId, modelId)
+                            .in(EmbeddingCacheDO::getContentHash, batch)
+            );
+            for (EmbeddingCacheDO row : rows) {
+                if (row.getEmbedding() != null) {
+                    result.put(row.getContentHash(), decode(row.getEmbedding()));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void saveAll(String modelId, Map<String, float[]> vectors) {
+        if (CollUtil.isEmpty(vectors)) {
+            return;
+        }
+        List<EmbeddingCacheDO> rows = new ArrayList<>(vectors.size());
+        vectors.forEach((hash, vector) -> rows.add(EmbeddingCacheDO.builder()
+                .modelId(modelId)
+                .contentHash(hash)
+                .dimension(vector.length)
+                .embedding(encode(vector))
+                .build()));
+        try {
+            embeddingCacheMapper.insert(rows);
+        } catch (Exception e) {
+            // 批量写入失败（通常是其他节点并发写入了相同内容），逐条写入并忽略已存在的键
+            for (EmbeddingCacheDO row : rows) {
+                row.setId(null);
+                try {
+                    embeddingCacheMapper.insert(row);
+                } catch (DuplicateKeyException ignored) {
+                    log.debug("向量缓存已存在, modelId={}, hash={}", modelId, row.getContentHash());
+                }
+            }
+        }
+    }
+
+    private static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    private static float[] decode(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+}
@@ -38,24 +38,35 @@ import com.nageoffer.ai.ragent.knowledge.dao.entity.KnowledgeDocumentDO;
 import com.nageoffer.ai.ragent.knowledge.dao.mapper.KnowledgeBaseMapper;
 import com.nageoffer.ai.ragent.knowledge.dao.mapper.KnowledgeChunkMapper;
 import com.nageoffer.ai.ragent.knowledge.dao.mapper.KnowledgeDocumentMapper;
+import com.nageoffer.ai.ragent.knowledge.event.KnowledgeBaseChangedEvent;
 import com.nageoffer.ai.ragent.framework.context.UserContext;
 import com.nageoffer.ai.ragent.framework.exception.ClientException;
 import com.nageoffer.ai.ragent.framework.exception.ServiceException;
 import com.nageoffer.ai.ragent.infra.embedding.EmbeddingService;
 import com.nageoffer.ai.ragent.infra.token.TokenCounterService;
+import com.nageoffer.ai.ragent.rag.core.retrieve.keyword.KeywordIndexService;
 import com.nageoffer.ai.ragent.rag.core.vector.VectorStoreService;
 import com.nageoffer.ai.ragent.knowledge.service.KnowledgeChunkService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -66,12 +77,22 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
 
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    /**
+     * 分批写入向量库时每批的分片数
+     */
+    private static final int INDEX_BATCH_SIZE = 256;
+
     private final KnowledgeChunkMapper chunkMapper;
     private final KnowledgeDocumentMapper documentMapper;
     private final KnowledgeBaseMapper knowledgeBaseMapper;
     private final EmbeddingService embeddingService;
     private final TokenCounterService tokenCounterService;
     private final VectorStoreService vectorStoreService;
+    private final KeywordIndexService keywordIndexService;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Boolean existsByDocId(String docId) {
@@ -146,6 +167,8 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
 
         // 同步写入 Milvus
         syncChunkToMilvus(String.valueOf(documentDO.getKbId()), docId, chunkDO, embeddingModel);
+        keywordIndexService.upsert(List.of(chunkDO));
+        publishKnowledgeChanged(documentDO.getKbId(), docId);
 
         return BeanUtil.toBean(chunkDO, KnowledgeChunkVO.class);
     }
@@ -207,7 +230,7 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
                     .contentHash(calculateHash(content))
                     .charCount(content.length())
                     .tokenCount(resolveTokenCount(content))
-                    .enabled(1)
+                    .enabled(Boolean.FALSE.equals(request.getEnabled()) ? 0 : 1)
                     .createdBy(username)
                     .build();
             chunkDOList.add(chunkDO);
@@ -215,6 +238,7 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
 
         // 批量写入数据库，向量索引由上层统一处理以避免重复计算
         chunkMapper.insert(chunkDOList);
+        keywordIndexService.upsert(chunkDOList);
 
         if (writeVector) {
             String kbIdStr = String.valueOf(documentDO.getKbId());
@@ -229,6 +253,7 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
                 attachEmbeddings(vectorChunks, embeddingModel);
                 vectorStoreService.indexDocumentChunks(kbIdStr, docId, vectorChunks);
             }
+            publishKnowledgeChanged(kbId, docId);
         }
     }
 
@@ -257,6 +282,7 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
         chunkDO.setUpdatedBy(UserContext.getUsername());
 
         chunkMapper.updateById(chunkDO);
+        keywordIndexService.upsert(List.of(chunkDO));
 
         String kbId = String.valueOf(documentDO.getKbId());
         log.info("更新 Chunk 成功, kbId={}, docId={}, chunkId={}", kbId, docId, chunkId);
@@ -269,9 +295,10 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
                         .chunkId(chunkId)
                         .content(newContent)
                         .index(chunkDO.getChunkIndex())
-                        .embedding(toArray(embedContent(newContent, embeddingModel)))
+                        .embedding(embedContent(newContent, embeddingModel))
                         .build()
         );
+        publishKnowledgeChanged(documentDO.getKbId(), docId);
     }
 
     @Override
@@ -285,11 +312,13 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
         Assert.isTrue(chunkDO.getDocId().equals(Long.parseLong(docId)), () -> new ClientException("Chunk 不属于该文档"));
 
         chunkMapper.deleteById(chunkId);
+        keywordIndexService.remove(List.of(chunkDO.getId()));
 
         String kbId = String.valueOf(documentDO.getKbId());
         log.info("删除 Chunk 成功, kbId={}, docId={}, chunkId={}", kbId, docId, chunkId);
 
         deleteChunkFromMilvus(kbId, chunkId);
+        publishKnowledgeChanged(documentDO.getKbId(), docId);
     }
 
     @Override
@@ -312,6 +341,7 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
         chunkDO.setEnabled(enabledValue);
         chunkDO.setUpdatedBy(UserContext.getUsername());
         chunkMapper.updateById(chunkDO);
+        keywordIndexService.upsert(List.of(chunkDO));
 
         String kbId = String.valueOf(documentDO.getKbId());
         log.info("{}Chunk 成功, kbId={}, docId={}, chunkId={}", enabled ? "启用" : "禁用", kbId, docId, chunkId);
@@ -321,6 +351,7 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
         } else {
             deleteChunkFromMilvus(kbId, chunkId);
         }
+        publishKnowledgeChanged(documentDO.getKbId(), docId);
     }
 
     @Override
@@ -338,7 +369,8 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void rebuildByDocId(String docId) {
-        doRebuildByDocId(docId);
+        KnowledgeDocumentDO documentDO = doRebuildByDocId(docId);
+        publishKnowledgeChanged(documentDO.getKbId(), docId);
     }
 
     @Override
@@ -354,6 +386,7 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
                         .set(KnowledgeChunkDO::getEnabled, enabledValue)
                         .set(KnowledgeChunkDO::getUpdatedBy, UserContext.getUsername())
         );
+        keywordIndexService.refreshDocument(Long.parseLong(docId));
 
         String kbId = String.valueOf(documentDO.getKbId());
         log.info("根据文档ID更新所有Chunk启用状态, kbId={}, docId={}, enabled={}", kbId, docId, enabled);
@@ -382,9 +415,99 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
             return;
         }
         chunkMapper.delete(new LambdaQueryWrapper<KnowledgeChunkDO>().eq(KnowledgeChunkDO::getDocId, docId));
+        keywordIndexService.refreshDocument(Long.parseLong(docId));
+    }
+
+    @Override
+    public List<Long> listIdsByDocId(String docId) {
+        return chunkMapper.selectList(
+                        new LambdaQueryWrapper<KnowledgeChunkDO>()
+                                .select(KnowledgeChunkDO::getId)
+                                .eq(KnowledgeChunkDO::getDocId, docId)
+                ).stream()
+                .map(KnowledgeChunkDO::getId)
+                .toList();
+    }
+
+    @Override
+    public List<Long> listEnabledIdsByDocId(String docId) {
+        return chunkMapper.selectList(
+                        new LambdaQueryWrapper<KnowledgeChunkDO>()
+                                .select(KnowledgeChunkDO::getId)
+                                .eq(KnowledgeChunkDO::getDocId, docId)
+                                .eq(KnowledgeChunkDO::getEnabled, 1)
+                ).stream()
+                .map(KnowledgeChunkDO::getId)
+                .toList();
+    }
+
+    @Override
+    public List<KnowledgeChunkVO> listByIds(String docId, Collection<Long> chunkIds) {
+        if (CollUtil.isEmpty(chunkIds)) {
+            return List.of();
+        }
+        return chunkMapper.selectList(
+                        Wrappers.lambdaQuery(KnowledgeChunkDO.class)
+                                .eq(KnowledgeChunkDO::getDocId, docId)
+                                .in(KnowledgeChunkDO::getId, chunkIds)
+                                .orderByAsc(KnowledgeChunkDO::getChunkIndex)
+                ).stream()
+                .map(each -> BeanUtil.toBean(each, KnowledgeChunkVO.class))
+                .toList();
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void deleteByIds(String docId, Collection<Long> chunkIds) {
+        if (CollUtil.isEmpty(chunkIds)) {
+            return;
+        }
+        for (List<Long> batch : CollUtil.split(chunkIds, DELETE_BATCH_SIZE)) {
+            chunkMapper.delete(
+                    new LambdaQueryWrapper<KnowledgeChunkDO>()
+                            .eq(KnowledgeChunkDO::getDocId, docId)
+                            .in(KnowledgeChunkDO::getId, batch)
+            );
+        }
+        keywordIndexService.remove(chunkIds);
     }
 
-    private void doRebuildByDocId(String docId) {
+    @Override
+    public ChunkSyncSession openSync(String docId) {
+        KnowledgeDocumentDO documentDO = documentMapper.selectById(docId);
+        Assert.notNull(documentDO, () -> new ClientException("文档不存在"));
+        return new ContentHashSyncSession(documentDO);
+    }
+
+    @Override
+    public void indexByIds(String docId, Collection<Long> chunkIds) {
+        if (CollUtil.isEmpty(chunkIds)) {
+            return;
+        }
+        KnowledgeDocumentDO documentDO = documentMapper.selectById(docId);
+        Assert.notNull(documentDO, () -> new ClientException("文档不存在"));
+        String kbId = String.valueOf(documentDO.getKbId());
+        String embeddingModel = resolveEmbeddingModel(documentDO.getKbId());
+        for (List<Long> batch : CollUtil.split(chunkIds, INDEX_BATCH_SIZE)) {
+            List<VectorChunk> chunks = listByIds(docId, batch).stream()
+                    .map(each -> VectorChunk.builder()
+                            .chunkId(each.getId())
+                            .index(each.getChunkIndex())
+                            .content(each.getContent())
+                            .build())
+                    .collect(Collectors.toList());
+            if (chunks.isEmpty()) {
+                continue;
+            }
+            attachEmbeddings(chunks, embeddingModel);
+            vectorStoreService.indexDocumentChunks(kbId, docId, chunks);
+        }
+    }
+
+    /**
+     * 重建文档向量，返回所属文档供调用方发布变更事件
+     */
+    private KnowledgeDocumentDO doRebuildByDocId(String docId) {
         KnowledgeDocumentDO documentDO = documentMapper.selectById(docId);
         Assert.notNull(documentDO, () -> new ClientException("文档不存在"));
 
@@ -404,7 +527,7 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
 
         if (enabledChunks.isEmpty()) {
             log.warn("文档下没有启用的 Chunk，跳过向量重建, kbId={}, docId={}", kbId, docId);
-            return;
+            return documentDO;
         }
 
         // 3. 重新向量化并重建索引
@@ -413,7 +536,7 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
                         each -> VectorChunk.builder()
                                 .content(each.getContent())
                                 .index(each.getChunkIndex())
-                                .chunkId(IdUtil.getSnowflakeNextIdStr())
+                                .chunkId(String.valueOf(each.getId()))
                                 .build()
                 )
                 .collect(Collectors.toList());
@@ -423,6 +546,7 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
         vectorStoreService.indexDocumentChunks(kbId, docId, chunks);
 
         log.info("重建文档向量成功, kbId={}, docId={}, chunkCount={}", kbId, docId, enabledChunks.size());
+        return documentDO;
     }
 
     // ==================== 私有方法 ====================
@@ -465,6 +589,8 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
             }
         }
 
+        keywordIndexService.upsert(chunks);
+
         String kbId = String.valueOf(documentDO.getKbId());
         log.info("批量{}Chunk 成功, kbId={}, docId={}, count={}", enabled ? "启用" : "禁用", kbId, docId, needUpdateIds.size());
 
@@ -475,6 +601,7 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
                 deleteChunkFromMilvus(kbId, String.valueOf(chunkId));
             }
         }
+        publishKnowledgeChanged(documentDO.getKbId(), docId);
     }
 
     /**
@@ -489,12 +616,18 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
         }
     }
 
+    /**
+     * 发布知识库变更事件，每次对外的分片操作只发布一次；文档级流程（分块、增量刷新）由文档服务统一发布
+     */
+    private void publishKnowledgeChanged(Long kbId, String docId) {
+        eventPublisher.publishEvent(new KnowledgeBaseChangedEvent(String.valueOf(kbId), docId));
+    }
+
     /**
      * 将单个 chunk 同步到 Milvus
      */
     private void syncChunkToMilvus(String kbId, String docId, KnowledgeChunkDO chunkDO, String embeddingModel) {
-        List<Float> embedding = embedContent(chunkDO.getContent(), embeddingModel);
-        float[] vector = toArray(embedding);
+        float[] vector = embedContent(chunkDO.getContent(), embeddingModel);
 
         VectorChunk chunk = VectorChunk.builder()
                 .index(chunkDO.getChunkIndex())
@@ -534,41 +667,29 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
         }
     }
 
-    /**
-     * List<Float> 转 float[]
-     */
-    private static float[] toArray(List<Float> list) {
-        float[] arr = new float[list.size()];
-        for (int i = 0; i < list.size(); i++) {
-            arr[i] = list.get(i);
-        }
-        return arr;
-    }
-
     private void attachEmbeddings(List<VectorChunk> chunks, String embeddingModel) {
         if (CollUtil.isEmpty(chunks)) {
             return;
         }
         List<String> texts = chunks.stream().map(VectorChunk::getContent).toList();
-        List<List<Float>> vectors = embedBatch(texts, embeddingModel);
+        List<float[]> vectors = embedBatch(texts, embeddingModel);
         if (vectors == null || vectors.size() != chunks.size()) {
             throw new ServiceException("向量结果数量不匹配");
         }
         for (int i = 0; i < chunks.size(); i++) {
-            chunks.get(i).setEmbedding(toArray(vectors.get(i)));
+            chunks.get(i).setEmbedding(vectors.get(i));
         }
     }
 
-    private List<Float> embedContent(String content, String embeddingModel) {
-        return StrUtil.isBlank(embeddingModel)
-                ? embeddingService.embed(content)
-                : embeddingService.embed(content, embeddingModel);
+    private float[] embedContent(String content, String embeddingModel) {
+        // 走批量接口以复用持久化向量缓存，内容未变化时无需重新调用模型
+        return embedBatch(List.of(content), embeddingModel).get(0);
     }
 
-    private List<List<Float>> embedBatch(List<String> texts, String embeddingModel) {
+    private List<float[]> embedBatch(List<String> texts, String embeddingModel) {
         return StrUtil.isBlank(embeddingModel)
-                ? embeddingService.embedBatch(texts)
-                : embeddingService.embedBatch(texts, embeddingModel);
+                ? embeddingService.embedVectorBatch(texts)
+                : embeddingService.embedVectorBatch(texts, embeddingModel);
     }
 
     private String resolveEmbeddingModel(Long kbId) {
@@ -605,4 +726,159 @@ public class KnowledgeChunkServiceImpl implements KnowledgeChunkService {
             chunkMapper.updateById(update);
         }
     }
+
+    /**
+     * 按内容哈希的流式增量同步会话
+     * <p>
+     * 现有分片只加载主键、序号、哈希与启用状态；新增分片随窗口向量化后以禁用状态落库并释放向量，只保留主键
+     */
+    private final class ContentHashSyncSession implements ChunkSyncSession {
+
+        private final String docId;
+        private final String kbId;
+        private final String embeddingModel;
+        private final Map<String, Deque<KnowledgeChunkDO>> existingByHash;
+        private final List<KnowledgeChunkDO> reordered = new ArrayList<>();
+        private final List<Long> addedIds = new ArrayList<>();
+        private int unchanged;
+        private int position;
+
+        private ContentHashSyncSession(KnowledgeDocumentDO documentDO) {
+            this.docId = String.valueOf(documentDO.getId());
+            this.kbId = String.valueOf(documentDO.getKbId());
+            this.embeddingModel = resolveEmbeddingModel(documentDO.getKbId());
+            this.existingByHash = loadExistingByHash(docId);
+        }
+
+        @Override
+        public void accept(List<VectorChunk> window) {
+            // 新分片逐个匹配：命中则保留原记录（同一内容可能出现多次，按序号先后依次匹配），未命中则作为新增分片
+            List<VectorChunk> added = new ArrayList<>();
+            for (VectorChunk chunk : window) {
+                if (StrUtil.isBlank(chunk.getContent())) {
+                    continue;
+                }
+                int index = position++;
+                Deque<KnowledgeChunkDO> candidates = existingByHash.get(calculateHash(chunk.getContent()));
+                KnowledgeChunkDO matched = candidates == null ? null : candidates.pollFirst();
+                if (matched != null) {
+                    unchanged++;
+                    if (!Objects.equals(matched.getChunkIndex(), index)) {
+                        reordered.add(KnowledgeChunkDO.builder().id(matched.getId()).chunkIndex(index).build());
+                    }
+                    continue;
+                }
+                chunk.setIndex(index);
+                chunk.setChunkId(IdUtil.getSnowflakeNextIdStr());
+                added.add(chunk);
+            }
+            if (added.isEmpty()) {
+                return;
+            }
+
+            // 先向量化再落库（内容曾出现过的分片直接命中向量缓存），向量进入缓存后释放
+            attachEmbeddings(added, embeddingModel);
+            List<KnowledgeChunkCreateRequest> requests = new ArrayList<>(added.size());
+            for (VectorChunk chunk : added) {
+                chunk.setEmbedding(null);
+                addedIds.add(Long.parseLong(chunk.getChunkId()));
+                KnowledgeChunkCreateRequest req = new KnowledgeChunkCreateRequest();
+                req.setChunkId(chunk.getChunkId());
+                req.setIndex(chunk.getIndex());
+                req.setContent(chunk.getContent());
+                req.setEnabled(false);
+                requests.add(req);
+            }
+            batchCreate(docId, requests, false);
+        }
+
+        @Override
+        public ChunkSyncResult commit() {
+            List<KnowledgeChunkDO> removed = existingByHash.values().stream()
+                    .flatMap(Collection::stream)
+                    .toList();
+            List<Long> removedIds = removed.stream().map(KnowledgeChunkDO::getId).toList();
+
+            // 1. 数据库切换：删除消失的分片、修正序号、启用新增分片
+            TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
+            txTemplate.executeWithoutResult(status -> {
+                for (List<Long> batch : CollUtil.split(removedIds, DELETE_BATCH_SIZE)) {
+                    chunkMapper.deleteByIds(batch);
+                }
+                if (!reordered.isEmpty()) {
+                    chunkMapper.updateById(reordered);
+                }
+                for (List<Long> batch : CollUtil.split(addedIds, DELETE_BATCH_SIZE)) {
+                    chunkMapper.update(
+                            Wrappers.lambdaUpdate(KnowledgeChunkDO.class)
+                                    .eq(KnowledgeChunkDO::getDocId, docId)
+                                    .in(KnowledgeChunkDO::getId, batch)
+                                    .set(KnowledgeChunkDO::getEnabled, 1)
+                    );
+                }
+                keywordIndexService.refreshDocument(Long.parseLong(docId));
+            });
+
+            // 2. 向量库变更在提交后执行：先写入新增分片，再按主键删除旧向量，失败时抛出异常，由调用方回退为全量重建
+            indexByIds(docId, addedIds);
+            List<String> removedVectorIds = removed.stream()
+                    .filter(each -> Objects.equals(each.getEnabled(), 1))
+                    .map(each -> String.valueOf(each.getId()))
+                    .toList();
+            long deleted = vectorStoreService.deleteChunksByIds(kbId, docId, removedVectorIds);
+            if (deleted < removedVectorIds.size()) {
+                // 早期全量重建写入的向量主键与分片 ID 不一致，无法按主键增量维护，改为按数据库分片重建整个文档
+                log.warn("文档向量主键与分片 ID 不一致，改为全量重建向量, kbId={}, docId={}, expected={}, deleted={}",
+                        kbId, docId, removedVectorIds.size(), deleted);
+                doRebuildByDocId(docId);
+            }
+
+            ChunkSyncResult result = new ChunkSyncResult(unchanged, addedIds.size(), removed.size(), reordered.size());
+            log.info("文档分片增量同步完成, kbId={}, docId={}, unchanged={}, added={}, removed={}, reordered={}",
+                    kbId, docId, result.unchanged(), result.added(), result.removed(), result.reordered());
+            return result;
+        }
+
+        @Override
+        public void discard() {
+            try {
+                deleteByIds(docId, addedIds);
+            } catch (Exception e) {
+                log.warn("清理增量同步写入的分片失败, docId={}", docId, e);
+            }
+        }
+    }
+
+    /**
+     * 现有分片按内容哈希分组，只加载比对所需的列；缺少哈希的历史分片按批补读正文计算
+     */
+    private Map<String, Deque<KnowledgeChunkDO>> loadExistingByHash(String docId) {
+        List<KnowledgeChunkDO> existing = chunkMapper.selectList(
+                new LambdaQueryWrapper<KnowledgeChunkDO>()
+                        .select(KnowledgeChunkDO::getId, KnowledgeChunkDO::getChunkIndex,
+                                KnowledgeChunkDO::getContentHash, KnowledgeChunkDO::getEnabled)
+                        .eq(KnowledgeChunkDO::getDocId, docId)
+                        .orderByAsc(KnowledgeChunkDO::getChunkIndex)
+        );
+        List<Long> missingHashIds = existing.stream()
+                .filter(each -> StrUtil.isBlank(each.getContentHash()))
+                .map(KnowledgeChunkDO::getId)
+                .toList();
+        Map<Long, String> computedHashes = new HashMap<>();
+        for (List<Long> batch : CollUtil.split(missingHashIds, DELETE_BATCH_SIZE)) {
+            chunkMapper.selectList(
+                    new LambdaQueryWrapper<KnowledgeChunkDO>()
+                            .select(KnowledgeChunkDO::getId, KnowledgeChunkDO::getContent)
+                            .in(KnowledgeChunkDO::getId, batch)
+            ).forEach(each -> computedHashes.put(each.getId(), calculateHash(each.getContent())));
+        }
+        Map<String, Deque<KnowledgeChunkDO>> existingByHash = new HashMap<>();
+        for (KnowledgeChunkDO each : existing) {
+            String hash = StrUtil.isNotBlank(each.getContentHash()) ? each.getContentHash() : computedHashes.get(each.getId());
+            if (hash != null) {
+                existingByHash.computeIfAbsent(hash, k -> new ArrayDeque<>()).add(each);
+            }
+        }
+        return existingByHash;
+    }
 }
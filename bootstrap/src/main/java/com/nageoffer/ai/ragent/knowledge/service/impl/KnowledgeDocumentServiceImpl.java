@@ -37,6 +37,7 @@ import com.nageoffer.ai.ragent.core.chunk.ChunkingOptions;
 import com.nageoffer.ai.ragent.core.chunk.ChunkingStrategyFactory;
 import com.nageoffer.ai.ragent.core.chunk.VectorChunk;
 import com.nageoffer.ai.ragent.core.chunk.ChunkingStrategy;
+import com.nageoffer.ai.ragent.core.chunk.StreamingChunkWriter;
 import com.nageoffer.ai.ragent.knowledge.dao.entity.KnowledgeBaseDO;
 import com.nageoffer.ai.ragent.knowledge.dao.entity.KnowledgeDocumentDO;
 import com.nageoffer.ai.ragent.knowledge.dao.entity.KnowledgeDocumentChunkLogDO;
@@ -45,6 +46,7 @@ import com.nageoffer.ai.ragent.knowledge.dao.mapper.KnowledgeDocumentMapper;
 import com.nageoffer.ai.ragent.knowledge.dao.mapper.KnowledgeDocumentChunkLogMapper;
 import com.nageoffer.ai.ragent.rag.dto.StoredFileDTO;
 import com.nageoffer.ai.ragent.knowledge.enums.DocumentStatus;
+import com.nageoffer.ai.ragent.knowledge.event.KnowledgeBaseChangedEvent;
 import com.nageoffer.ai.ragent.knowledge.enums.ProcessMode;
 import com.nageoffer.ai.ragent.knowledge.enums.SourceType;
 import com.nageoffer.ai.ragent.framework.context.UserContext;
@@ -60,18 +62,22 @@ import com.nageoffer.ai.ragent.knowledge.service.KnowledgeDocumentService;
 import com.nageoffer.ai.ragent.knowledge.service.KnowledgeDocumentScheduleService;
 import com.nageoffer.ai.ragent.knowledge.schedule.CronScheduleHelper;
 import com.nageoffer.ai.ragent.ingestion.util.HttpClientHelper;
+import com.nageoffer.ai.ragent.ingestion.util.SpooledContent;
 import com.nageoffer.ai.ragent.ingestion.service.IngestionPipelineService;
 import com.nageoffer.ai.ragent.ingestion.engine.IngestionEngine;
 import com.nageoffer.ai.ragent.ingestion.dao.entity.IngestionPipelineDO;
 import com.nageoffer.ai.ragent.ingestion.dao.mapper.IngestionPipelineMapper;
 import com.nageoffer.ai.ragent.ingestion.domain.context.IngestionContext;
 import com.nageoffer.ai.ragent.ingestion.domain.pipeline.PipelineDefinition;
+import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionJobType;
+import com.nageoffer.ai.ragent.ingestion.queue.IngestionJobQueue;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
@@ -80,7 +86,9 @@ import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
@@ -91,6 +99,8 @@ import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
@@ -116,6 +126,8 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
     @Qualifier("knowledgeChunkExecutor")
     private final Executor knowledgeChunkExecutor;
     private final PlatformTransactionManager transactionManager;
+    private final IngestionJobQueue ingestionJobQueue;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${kb.chunk.semantic.targetChars:1400}")
     private int targetChars;
@@ -125,6 +137,9 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
     private int minChars;
     @Value("${kb.chunk.semantic.overlapChars:0}")
     private int overlapChars;
+    @Value("${kb.chunk.stream-window-chars:65536}")
+    private int streamWindowChars;
+
     @Value("${rag.knowledge.schedule.min-interval-seconds:60}")
     private long scheduleMinIntervalSeconds;
 
@@ -235,8 +250,10 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
                 Assert.notNull(documentDO, () -> new ClientException("文档不存在"));
                 Assert.isTrue(!DocumentStatus.RUNNING.getCode().equals(documentDO.getStatus()), () -> new ClientException("文档分块进行中"));
 
-                // 允许重复分块：如果已经分块过，先删除历史分块记录
-                boolean alreadyChunked = knowledgeChunkService.existsByDocId(docId);
+                // 允许重复分块：Pipeline 模式由管道直接写入向量，需先删除历史分块；
+                // 分块策略模式在新分块写入成功后替换历史分块，失败时保留原有内容
+                boolean alreadyChunked = ProcessMode.PIPELINE == normalizeProcessMode(documentDO.getProcessMode())
+                        && knowledgeChunkService.existsByDocId(docId);
                 if (alreadyChunked) {
                     log.info("文档已存在分块记录，将删除历史分块并重新分块: docId={}", docId);
                     // 删除数据库中的历史分块记录
@@ -248,6 +265,11 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
 
                 scheduleService.upsertSchedule(documentDO);
                 patchStatus(documentDO);
+                if (ingestionJobQueue.isEnabled()) {
+                    // 作业与文档状态同事务写入，由作业执行器按知识库、租户并发限制领取执行
+                    ingestionJobQueue.enqueue(IngestionJobType.KNOWLEDGE_CHUNK, documentDO.getId(), documentDO.getKbId(), null);
+                    return;
+                }
                 try {
                     knowledgeChunkExecutor.execute(() -> runChunkTask(documentDO));
                 } catch (RejectedExecutionException e) {
@@ -266,6 +288,15 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
     }
 
     private void runChunkTask(KnowledgeDocumentDO documentDO) {
+        try {
+            doRunChunkTask(documentDO);
+        } finally {
+            // 失败时分片与向量也可能已部分变更，整次分块结束后统一通知一次
+            publishKnowledgeChanged(documentDO);
+        }
+    }
+
+    private void doRunChunkTask(KnowledgeDocumentDO documentDO) {
         String docId = String.valueOf(documentDO.getId());
         ProcessMode processMode = normalizeProcessMode(documentDO.getProcessMode());
 
@@ -285,21 +316,18 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
         long chunkDuration = 0;
         long embeddingDuration = 0;
 
+        if (ProcessMode.PIPELINE != processMode) {
+            runChunkStrategyTask(documentDO, chunkLog, totalStartTime);
+            return;
+        }
+
         List<VectorChunk> chunkResults;
 
         try {
-            if (ProcessMode.PIPELINE == processMode) {
-                // 使用Pipeline模式处理
-                long start = System.currentTimeMillis();
-                chunkResults = runPipelineProcess(documentDO);
-                chunkDuration = System.currentTimeMillis() - start;
-            } else {
-                // 使用分块策略模式处理（默认）
-                ChunkProcessResult result = runChunkProcess(documentDO);
-                extractDuration = result.getExtractDuration();
-                chunkDuration = result.getChunkDuration();
-                chunkResults = result.getChunks();
-            }
+            // 使用Pipeline模式处理
+            long start = System.currentTimeMillis();
+            chunkResults = runPipelineProcess(documentDO);
+            chunkDuration = System.currentTimeMillis() - start;
 
             if (chunkResults == null) {
                 // 处理失败
@@ -331,15 +359,6 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
                 docMapper.updateById(update);
             });
 
-            // 向量化：仅分块模式由知识库服务写入，Pipeline 模式依赖管道自身的 indexer
-            if (ProcessMode.PIPELINE != processMode) {
-                String kbId = String.valueOf(documentDO.getKbId());
-                long embeddingStart = System.currentTimeMillis();
-                vectorStoreService.deleteDocumentVectors(kbId, docId);
-                vectorStoreService.indexDocumentChunks(kbId, docId, chunkResults);
-                embeddingDuration = System.currentTimeMillis() - embeddingStart;
-            }
-
             long totalDuration = System.currentTimeMillis() - totalStartTime;
 
             // 更新日志为成功
@@ -355,6 +374,87 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
         }
     }
 
+    /**
+     * 分块策略模式：新一代分片按窗口向量化后以禁用状态落库，与旧分片并存期间不参与检索；
+     * 全部成功后在同一事务中删除旧分片并启用新分片，提交后写入新向量并清理旧向量。
+     * 失败时仅清理本次写入的分片，此前已索引的内容保持可检索
+     */
+    private void runChunkStrategyTask(KnowledgeDocumentDO documentDO, KnowledgeDocumentChunkLogDO chunkLog,
+                                      long totalStartTime) {
+        String docId = String.valueOf(documentDO.getId());
+        String kbId = String.valueOf(documentDO.getKbId());
+        List<Long> previousChunkIds = knowledgeChunkService.listIdsByDocId(docId);
+        List<Long> previousVectorIds = knowledgeChunkService.listEnabledIdsByDocId(docId);
+
+        ChunkProcessResult result = runChunkProcess(documentDO, null);
+        if (result.isFailed()) {
+            updateChunkLog(chunkLog.getId(), "failed", 0, result.getExtractDuration(), result.getChunkDuration(),
+                    result.getEmbeddingDuration(), System.currentTimeMillis() - totalStartTime, "分块处理失败");
+            return;
+        }
+
+        List<String> chunkIds = result.getChunkIds();
+        try {
+            TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
+            txTemplate.executeWithoutResult(status -> {
+                knowledgeChunkService.deleteByIds(docId, previousChunkIds);
+                knowledgeChunkService.updateEnabledByDocId(docId, true);
+
+                KnowledgeDocumentDO update = new KnowledgeDocumentDO();
+                update.setId(documentDO.getId());
+                update.setChunkCount(chunkIds.size());
+                update.setStatus(DocumentStatus.SUCCESS.getCode());
+                update.setUpdatedBy(UserContext.getUsername());
+                docMapper.updateById(update);
+            });
+        } catch (Exception e) {
+            log.error("文件分块失败：docId={}", docId, e);
+            discardChunkGeneration(documentDO, chunkIds);
+            markChunkFailed(documentDO.getId());
+            updateChunkLog(chunkLog.getId(), "failed", 0, result.getExtractDuration(), result.getChunkDuration(),
+                    result.getEmbeddingDuration(), System.currentTimeMillis() - totalStartTime, e.getMessage());
+            return;
+        }
+
+        // 向量已在分块阶段生成，切换后写入向量库时命中向量缓存，不再调用模型
+        long indexStart = System.currentTimeMillis();
+        boolean rebuilt = false;
+        try {
+            knowledgeChunkService.indexByIds(docId, chunkIds.stream().map(Long::parseLong).toList());
+        } catch (Exception e) {
+            log.error("写入文档新向量失败，改为按分片重建文档向量：docId={}", docId, e);
+            try {
+                knowledgeChunkService.rebuildByDocId(docId);
+                rebuilt = true;
+            } catch (Exception ex) {
+                log.error("重建文档向量失败：docId={}", docId, ex);
+                markChunkFailed(documentDO.getId());
+                updateChunkLog(chunkLog.getId(), "failed", chunkIds.size(), result.getExtractDuration(),
+                        result.getChunkDuration(), result.getEmbeddingDuration(),
+                        System.currentTimeMillis() - totalStartTime, ex.getMessage());
+                return;
+            }
+        }
+        long embeddingDuration = result.getEmbeddingDuration() + System.currentTimeMillis() - indexStart;
+
+        // 按主键分批清理旧向量（重建已清理全部旧向量时跳过）；主键与分片 ID 不一致的历史向量无法按主键命中，改为重建整个文档的向量
+        try {
+            List<String> staleVectorIds = rebuilt
+                    ? List.of()
+                    : previousVectorIds.stream().map(String::valueOf).toList();
+            long deleted = vectorStoreService.deleteChunksByIds(kbId, docId, staleVectorIds);
+            if (deleted < staleVectorIds.size()) {
+                log.warn("文档旧向量主键与分片 ID 不一致，改为重建文档向量：docId={}, expected={}, deleted={}",
+                        docId, staleVectorIds.size(), deleted);
+                knowledgeChunkService.rebuildByDocId(docId);
+            }
+        } catch (Exception e) {
+            log.warn("清理文档旧向量失败，旧向量将在下次重建时清理：docId={}", docId, e);
+        }
+        updateChunkLog(chunkLog.getId(), "success", chunkIds.size(), result.getExtractDuration(),
+                result.getChunkDuration(), embeddingDuration, System.currentTimeMillis() - totalStartTime, null);
+    }
+
     private void updateChunkLog(Long logId, String status, int chunkCount, long extractDuration,
                                 long chunkDuration, long embeddingDuration, long totalDuration,
                                 String errorMessage) {
@@ -373,51 +473,125 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
 
     /**
      * 使用分块策略处理文档
+     * <p>
+     * 文件流经 Tika 解析后直接写入 {@link StreamingChunkWriter}，按窗口切分，不在内存中拼接全文。
+     * 全量分块时每个窗口的分块立即向量化（结果进入向量缓存）并以禁用状态落库，随后释放，只保留分块 ID；
+     * 新写入的分片不参与检索，由调用方在成功后切换并写入向量库。增量刷新时窗口交给同步会话按内容哈希比对
+     *
+     * @param syncSession 增量同步会话；为空时写入新一代分片
      */
-    private ChunkProcessResult runChunkProcess(KnowledgeDocumentDO documentDO) {
+    private ChunkProcessResult runChunkProcess(KnowledgeDocumentDO documentDO,
+                                               KnowledgeChunkService.ChunkSyncSession syncSession) {
         String docId = String.valueOf(documentDO.getId());
         ChunkingMode chunkingMode = resolveChunkingMode(documentDO.getChunkStrategy());
         String embeddingModel = resolveEmbeddingModel(documentDO.getKbId());
         ChunkingOptions config = buildChunkingOptions(chunkingMode, documentDO, embeddingModel);
-        long extractStart = System.currentTimeMillis();
-        long chunkStart = 0;
-        long extractDuration = 0;
-        long chunkDuration = 0;
-
-        try (InputStream is = fileStorageService.openStream(documentDO.getFileUrl())) {
-            String text = parserSelector.select(ParserType.TIKA.getType()).extractText(is, documentDO.getDocName());
-            extractDuration = System.currentTimeMillis() - extractStart;
-            ChunkingStrategy chunkingStrategy = chunkingStrategyFactory.requireStrategy(chunkingMode);
-            chunkStart = System.currentTimeMillis();
-            List<VectorChunk> chunks = chunkingStrategy.chunk(text, config);
-            chunkDuration = System.currentTimeMillis() - chunkStart;
-            return new ChunkProcessResult(chunks, extractDuration, chunkDuration);
-        } catch (Exception e) {
-            if (extractStart > 0 && extractDuration == 0) {
-                extractDuration = System.currentTimeMillis() - extractStart;
+        ChunkingStrategy chunkingStrategy = chunkingStrategyFactory.requireStrategy(chunkingMode);
+
+        List<String> chunkIds = new ArrayList<>();
+        AtomicLong embeddingDuration = new AtomicLong();
+        Consumer<List<VectorChunk>> windowConsumer = window -> {
+            long embeddingStart = System.currentTimeMillis();
+            if (syncSession != null) {
+                syncSession.accept(window);
+            } else {
+                // 先记录 ID，写入中途失败时也能按 ID 清理
+                window.forEach(chunk -> chunkIds.add(chunk.getChunkId()));
+                embedWindow(window, embeddingModel);
+                knowledgeChunkService.batchCreate(docId, toCreateRequests(window, false));
             }
-            if (chunkStart > 0 && chunkDuration == 0) {
-                chunkDuration = System.currentTimeMillis() - chunkStart;
+            embeddingDuration.addAndGet(System.currentTimeMillis() - embeddingStart);
+        };
+
+        long start = System.currentTimeMillis();
+        StreamingChunkWriter writer = new StreamingChunkWriter(chunkingStrategy, config, streamWindowChars, windowConsumer);
+        try {
+            try (InputStream is = fileStorageService.openStream(documentDO.getFileUrl()); writer) {
+                parserSelector.select(ParserType.TIKA.getType()).extractText(is, documentDO.getDocName(), writer);
             }
+            long chunkDuration = writer.getSplitMillis();
+            long extractDuration = Math.max(0, System.currentTimeMillis() - start - chunkDuration - embeddingDuration.get());
+            return new ChunkProcessResult(false, chunkIds, extractDuration, chunkDuration, embeddingDuration.get());
+        } catch (Exception e) {
+            long chunkDuration = writer.getSplitMillis();
+            long extractDuration = Math.max(0, System.currentTimeMillis() - start - chunkDuration - embeddingDuration.get());
             log.error("文件分块失败：docId={}", docId, e);
+            if (syncSession != null) {
+                syncSession.discard();
+            } else {
+                discardChunkGeneration(documentDO, chunkIds);
+            }
             markChunkFailed(documentDO.getId());
-            return new ChunkProcessResult(null, extractDuration, chunkDuration);
+            return new ChunkProcessResult(true, chunkIds, extractDuration, chunkDuration, embeddingDuration.get());
+        }
+    }
+
+    private List<KnowledgeChunkCreateRequest> toCreateRequests(List<VectorChunk> window, boolean enabled) {
+        return window.stream()
+                .map(chunk -> {
+                    KnowledgeChunkCreateRequest req = new KnowledgeChunkCreateRequest();
+                    req.setChunkId(chunk.getChunkId());
+                    req.setIndex(chunk.getIndex());
+                    req.setContent(chunk.getContent());
+                    req.setEnabled(enabled);
+                    return req;
+                })
+                .toList();
+    }
+
+    /**
+     * 向量化一个窗口的分块，向量进入向量缓存后即释放；模型调用失败时在切换前失败，旧分片不受影响
+     */
+    private void embedWindow(List<VectorChunk> window, String embeddingModel) {
+        List<String> texts = window.stream()
+                .map(chunk -> chunk.getContent() == null ? "" : chunk.getContent())
+                .toList();
+        List<float[]> vectors = embedBatch(texts, embeddingModel);
+        if (vectors == null || vectors.size() != window.size()) {
+            throw new ServiceException("向量化结果数量与分块数量不一致");
+        }
+    }
+
+    /**
+     * 丢弃本次分块写入的分片，按主键清理；新一代分片切换前不写入向量库，不影响此前已索引的内容
+     */
+    private void discardChunkGeneration(KnowledgeDocumentDO documentDO, List<String> chunkIds) {
+        if (chunkIds.isEmpty()) {
+            return;
+        }
+        String docId = String.valueOf(documentDO.getId());
+        try {
+            knowledgeChunkService.deleteByIds(docId, chunkIds.stream().map(Long::parseLong).toList());
+        } catch (Exception ex) {
+            log.warn("清理本次分块写入的分片失败：docId={}", docId, ex);
         }
     }
 
     private static class ChunkProcessResult {
-        private final List<VectorChunk> chunks;
+        private final boolean failed;
+        private final List<String> chunkIds;
         private final long extractDuration;
         private final long chunkDuration;
+        private final long embeddingDuration;
 
-        private ChunkProcessResult(List<VectorChunk> chunks, long extractDuration, long chunkDuration) {
-            this.chunks = chunks;
+        private ChunkProcessResult(boolean failed, List<String> chunkIds, long extractDuration,
+                                   long chunkDuration, long embeddingDuration) {
+            this.failed = failed;
+            this.chunkIds = chunkIds;
             this.extractDuration = extractDuration;
             this.chunkDuration = chunkDuration;
+            this.embeddingDuration = embeddingDuration;
         }
 
-        private List<VectorChunk> getChunks() {
-            return chunks;
+        private boolean isFailed() {
+            return failed;
+        }
+
+        /**
+         * 已写入的分块 ID（仅全量分块时）
+         */
+        private List<String> getChunkIds() {
+            return chunkIds;
         }
 
         private long getExtractDuration() {
@@ -427,6 +601,10 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
         private long getChunkDuration() {
             return chunkDuration;
         }
+
+        private long getEmbeddingDuration() {
+            return embeddingDuration;
+        }
     }
 
     /**
@@ -454,17 +632,14 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
             // 获取Pipeline定义
             PipelineDefinition pipelineDef = ingestionPipelineService.getDefinition(String.valueOf(pipelineId));
 
-            // 读取文件内容
-            byte[] fileBytes;
-            try (InputStream is = fileStorageService.openStream(documentDO.getFileUrl())) {
-                fileBytes = is.readAllBytes();
-            }
+            // 读取文件内容，大文件溢写到临时文件，由引擎执行结束后释放
+            SpooledContent fileContent = SpooledContent.spool(fileStorageService.openStream(documentDO.getFileUrl()), -1);
 
             // 构建IngestionContext，传递CollectionName
             IngestionContext context = IngestionContext.builder()
                     .taskId(docId)
                     .pipelineId(String.valueOf(pipelineId))
-                    .rawBytes(fileBytes)
+                    .rawContent(fileContent)
                     .mimeType(documentDO.getFileType())
                     .vectorSpaceId(VectorSpaceId.builder()
                             .logicalName(kbDO.getCollectionName())
@@ -503,7 +678,82 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
         runChunkTask(documentDO);
     }
 
-    private void markChunkFailed(Long docId) {
+    /**
+     * 文档是否支持增量刷新：仅分块策略模式且已存在分片时可按内容哈希比对，Pipeline 模式由管道自身写入向量
+     */
+    public boolean supportsIncrementalRefresh(KnowledgeDocumentDO documentDO) {
+        return documentDO != null
+                && ProcessMode.PIPELINE != normalizeProcessMode(documentDO.getProcessMode())
+                && Boolean.TRUE.equals(knowledgeChunkService.existsByDocId(String.valueOf(documentDO.getId())));
+    }
+
+    /**
+     * 增量刷新文档分块
+     * <p>
+     * 文档经 {@link StreamingChunkWriter} 按窗口解析切分，每个窗口交给同步会话与现有分片按内容哈希比对，
+     * 不在内存中保留全部分块；仅为新增或变化的分片生成向量，消失的分片按主键删除。
+     * 提交失败时回退为全量重建，全量重建成功后替换全部分片与向量，不会残留孤立向量
+     */
+    public void refreshChunksIncrementally(KnowledgeDocumentDO documentDO) {
+        if (documentDO == null) {
+            return;
+        }
+        String docId = String.valueOf(documentDO.getId());
+        KnowledgeDocumentChunkLogDO chunkLog = KnowledgeDocumentChunkLogDO.builder()
+                .docId(documentDO.getId())
+                .status("running")
+                .processMode(ProcessMode.CHUNK.getValue())
+                .chunkStrategy(documentDO.getChunkStrategy())
+                .startTime(new Date())
+                .build();
+        chunkLogMapper.insert(chunkLog);
+
+        long totalStartTime = System.currentTimeMillis();
+        KnowledgeChunkService.ChunkSyncSession syncSession = knowledgeChunkService.openSync(docId);
+        ChunkProcessResult result = runChunkProcess(documentDO, syncSession);
+        if (result.isFailed()) {
+            updateChunkLog(chunkLog.getId(), "failed", 0, result.getExtractDuration(), result.getChunkDuration(),
+                    result.getEmbeddingDuration(), System.currentTimeMillis() - totalStartTime, "分块处理失败");
+            return;
+        }
+
+        long embeddingStart = System.currentTimeMillis();
+        try {
+            KnowledgeChunkService.ChunkSyncResult syncResult = syncSession.commit();
+            long embeddingDuration = result.getEmbeddingDuration() + System.currentTimeMillis() - embeddingStart;
+
+            KnowledgeDocumentDO update = new KnowledgeDocumentDO();
+            update.setId(documentDO.getId());
+            update.setChunkCount(syncResult.total());
+            update.setStatus(DocumentStatus.SUCCESS.getCode());
+            update.setUpdatedBy(UserContext.getUsername());
+            docMapper.updateById(update);
+
+            updateChunkLog(chunkLog.getId(), "success", syncResult.total(), result.getExtractDuration(),
+                    result.getChunkDuration(), embeddingDuration, System.currentTimeMillis() - totalStartTime, null);
+            publishKnowledgeChanged(documentDO);
+        } catch (Exception e) {
+            log.warn("文档增量刷新失败，回退为全量重建：docId={}", docId, e);
+            updateChunkLog(chunkLog.getId(), "failed", 0, result.getExtractDuration(), result.getChunkDuration(),
+                    result.getEmbeddingDuration() + System.currentTimeMillis() - embeddingStart,
+                    System.currentTimeMillis() - totalStartTime, "增量刷新失败，已回退全量重建: " + e.getMessage());
+            // 全量重建成功后才替换现有分片
+            runChunkTask(documentDO);
+        }
+    }
+
+    /**
+     * 发布知识库变更事件，每次文档级操作只发布一次，事务内发布时由监听方在提交后处理
+     */
+    private void publishKnowledgeChanged(KnowledgeDocumentDO documentDO) {
+        eventPublisher.publishEvent(new KnowledgeBaseChangedEvent(
+                String.valueOf(documentDO.getKbId()), String.valueOf(documentDO.getId())));
+    }
+
+    /**
+     * 标记文档分块失败（使用独立事务）
+     */
+    public void markChunkFailed(Long docId) {
         TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
         txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
         txTemplate.executeWithoutResult(status -> {
@@ -526,6 +776,7 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
         docMapper.deleteById(documentDO);
 
         vectorStoreService.deleteDocumentVectors(String.valueOf(documentDO.getKbId()), docId);
+        publishKnowledgeChanged(documentDO);
     }
 
     @Override
@@ -634,19 +885,26 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
             // 启用文档时，根据文档分块记录重建向量索引
             String embeddingModel = resolveEmbeddingModel(documentDO.getKbId());
             List<KnowledgeChunkVO> chunks = knowledgeChunkService.listByDocId(docId);
-            List<VectorChunk> vectorChunks = chunks.parallelStream().map(each -> {
-                        List<Float> embed = embedContent(each.getContent(), embeddingModel);
-                        return VectorChunk.builder()
-                                .chunkId(each.getId())
-                                .content(each.getContent())
-                                .embedding(toArray(embed))
-                                .build();
-                    })
-                    .toList();
+            List<float[]> vectors = chunks.isEmpty()
+                    ? List.of()
+                    : embedBatch(chunks.stream().map(KnowledgeChunkVO::getContent).toList(), embeddingModel);
+            if (vectors.size() != chunks.size()) {
+                throw new ServiceException("向量结果数量不匹配");
+            }
+            List<VectorChunk> vectorChunks = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                KnowledgeChunkVO each = chunks.get(i);
+                vectorChunks.add(VectorChunk.builder()
+                        .chunkId(each.getId())
+                        .content(each.getContent())
+                        .embedding(vectors.get(i))
+                        .build());
+            }
             if (CollUtil.isNotEmpty(vectorChunks)) {
                 vectorStoreService.indexDocumentChunks(String.valueOf(documentDO.getKbId()), docId, vectorChunks);
             }
         }
+        publishKnowledgeChanged(documentDO);
     }
 
     @Override
@@ -712,11 +970,14 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
         return kbDO != null ? kbDO.getEmbeddingModel() : null;
     }
 
-    private List<Float> embedContent(String content, String embeddingModel) {
+    /**
+     * 批量向量化，内容未变化的分块直接命中向量缓存
+     */
+    private List<float[]> embedBatch(List<String> texts, String embeddingModel) {
         if (!StringUtils.hasText(embeddingModel)) {
-            return embeddingService.embed(content);
+            return embeddingService.embedVectorBatch(texts);
         }
-        return embeddingService.embed(content, embeddingModel);
+        return embeddingService.embedVectorBatch(texts, embeddingModel);
     }
 
     private void patchStatus(KnowledgeDocumentDO doc) {
@@ -753,9 +1014,13 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
             return fileStorageService.upload(bucketName, file);
         }
 
-        HttpClientHelper.HttpFetchResponse response = httpClientHelper.get(sourceLocation, Map.of());
+        HttpClientHelper.HttpDownloadResponse response = httpClientHelper.download(sourceLocation, Map.of(), -1);
         String fileName = StringUtils.hasText(response.fileName()) ? response.fileName() : "remote-file";
-        return fileStorageService.upload(bucketName, response.body(), fileName, response.contentType());
+        try (SpooledContent body = response.body(); InputStream is = body.openStream()) {
+            return fileStorageService.upload(bucketName, is, body.size(), fileName, response.contentType());
+        } catch (IOException e) {
+            throw new ServiceException("读取远程文件失败: " + e.getMessage());
+        }
     }
 
     private ChunkingMode resolveChunkingMode(String mode) {
@@ -878,12 +1143,4 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
         }
         return defaultValue;
     }
-
-    private static float[] toArray(List<Float> list) {
-        float[] arr = new float[list.size()];
-        for (int i = 0; i < list.size(); i++) {
-            arr[i] = list.get(i);
-        }
-        return arr;
-    }
 }
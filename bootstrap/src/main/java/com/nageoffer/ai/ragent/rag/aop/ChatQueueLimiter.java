@@ -33,12 +33,8 @@ import com.nageoffer.ai.ragent.rag.core.memory.ConversationMemoryService;
 import com.nageoffer.ai.ragent.rag.service.ConversationGroupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RAtomicLong;
-import org.redisson.api.RPermitExpirableSemaphore;
 import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
-import org.redisson.api.RScoredSortedSet;
-import org.redisson.api.RTopic;
 import org.redisson.client.codec.StringCodec;
 import org.springframework.stereotype.Component;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -49,18 +45,29 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import jakarta.annotation.PreDestroy;
 import jakarta.annotation.PostConstruct;
 
-import java.util.Objects;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * SSE 全局并发限流与排队处理
+ * <p>
+ * 分布式公平队列：Redis 中维护排队 ZSET（按入队序号排序）与许可 ZSET（按过期时间排序），
+ * 入队、claim 与归还许可各自只需一次 Lua 调用；
+ * 每个节点在本地按入队序号维护等待者列表，收到许可释放通知时只唤醒本地队头的若干等待者去 claim，
+ * 不再为每个等待请求定时轮询 Redis。通知丢失或许可过期时，由每个节点一个的兜底定时器唤醒本地队头
  */
 @Slf4j
 @Component
@@ -69,11 +76,18 @@ public class ChatQueueLimiter {
 
     private static final String REJECT_MESSAGE = "系统繁忙，请稍后再试";
     private static final String RESPONSE_TYPE = "response";
-    private static final String SEMAPHORE_NAME = "rag:global:chat";
-    private static final String QUEUE_KEY = "rag:global:chat:queue";
-    private static final String QUEUE_SEQ_KEY = "rag:global:chat:queue:seq";
+    /**
+     * 使用 hash tag 保证 Lua 涉及的 Key 落在同一个槽位
+     */
+    private static final String QUEUE_KEY = "rag:{global:chat}:queue";
+    private static final String LEASE_KEY = "rag:{global:chat}:leases";
+    private static final String QUEUE_SEQ_KEY = "rag:{global:chat}:queue:seq";
     private static final String NOTIFY_TOPIC = "rag:global:chat:queue:notify";
     private static final String CLAIM_LUA_PATH = "lua/queue_claim_atomic.lua";
+    private static final String RELEASE_LUA_PATH = "lua/queue_release.lua";
+
+    private static final long CLAIMED = 1L;
+    private static final long NOT_IN_QUEUE = -1L;
 
     private final RedissonClient redissonClient;
     private final RAGRateLimitProperties rateLimitProperties;
@@ -82,7 +96,8 @@ public class ChatQueueLimiter {
     private final MemoryProperties memoryProperties;
     @Qualifier("chatEntryExecutor")
     private final Executor chatEntryExecutor;
-    private final String claimLua = loadLuaScript();
+    private final String claimLua = loadLuaScript(CLAIM_LUA_PATH);
+    private final String releaseLua = loadLuaScript(RELEASE_LUA_PATH);
     private final ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(
             1,
             r -> {
@@ -92,19 +107,34 @@ public class ChatQueueLimiter {
                 return thread;
             }
     );
+
+    /**
+     * 本节点等待者，按全局入队序号排序
+     */
+    private final ConcurrentSkipListMap<Long, Waiter> waiters = new ConcurrentSkipListMap<>();
+    private final AtomicBoolean waking = new AtomicBoolean(false);
+    private final AtomicInteger pendingWakeups = new AtomicInteger();
+
+    private final AtomicLong claimCalls = new AtomicLong();
+    private final AtomicLong releaseCalls = new AtomicLong();
+    private final AtomicLong acquiredCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+
     private volatile int notifyListenerId = -1;
-    private volatile PollNotifier pollNotifier;
 
     @PostConstruct
     public void subscribeQueueNotify() {
-        pollNotifier = new PollNotifier();
-        pollNotifier.startCleanup();
-        RTopic topic = redissonClient.getTopic(NOTIFY_TOPIC);
-        notifyListenerId = topic.addListener(String.class, (channel, msg) -> {
-            if (pollNotifier != null) {
-                pollNotifier.fire();
+        notifyListenerId = redissonClient.getTopic(NOTIFY_TOPIC, StringCodec.INSTANCE)
+                .addListener(String.class, (channel, msg) -> requestWakeup(parseAvailable(msg)));
+        // 兜底：通知丢失或许可过期（无释放通知）时，定期唤醒本地队头
+        int intervalMs = Math.max(50, Objects.requireNonNullElse(rateLimitProperties.getGlobalPollIntervalMs(), 200));
+        scheduler.scheduleWithFixedDelay(() -> {
+            if (!waiters.isEmpty()) {
+                requestWakeup(1);
             }
-        });
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
     }
 
     public void enqueue(String question, String conversationId, SseEmitter emitter, Runnable onAcquire) {
@@ -114,169 +144,232 @@ public class ChatQueueLimiter {
         }
 
         String userId = resolveUserId();
-        AtomicBoolean cancelled = new AtomicBoolean(false);
-        AtomicReference<String> permitRef = new AtomicReference<>();
-        String requestId = IdUtil.getSnowflakeNextIdStr();
-        RScoredSortedSet<String> queue = redissonClient.getScoredSortedSet(QUEUE_KEY, StringCodec.INSTANCE);
-        long seq = nextQueueSeq();
-        queue.add(seq, requestId);
-        Runnable releaseOnce = () -> {
-            cancelled.set(true);
-            queue.remove(requestId);
-            String permitId = permitRef.getAndSet(null);
-            if (permitId != null) {
-                redissonClient.getPermitExpirableSemaphore(SEMAPHORE_NAME)
-                        .release(permitId);
-                publishQueueNotify();
-            }
-        };
-
-        emitter.onCompletion(releaseOnce);
-        emitter.onTimeout(releaseOnce);
-        emitter.onError(e -> releaseOnce.run());
-
-        if (tryAcquireIfReady(queue, requestId, permitRef, cancelled, onAcquire)) {
+        Waiter waiter = new Waiter(IdUtil.getSnowflakeNextIdStr(), question, conversationId, userId, emitter, onAcquire);
+
+        emitter.onCompletion(waiter::release);
+        emitter.onTimeout(waiter::release);
+        emitter.onError(e -> waiter.release());
+
+        // 入队与首次 claim 合并为一次 Lua 调用，无竞争时直接获得许可
+        long[] result = claim(waiter.requestId, true);
+        waiter.seq = result[1];
+        if (waiter.cancelled.get()) {
+            // 入队期间连接已关闭，此前的归还可能早于入队执行，这里再归还一次
+            releaseScript(waiter.requestId);
             return;
         }
+        if (result[0] == CLAIMED) {
+            onClaimed(waiter);
+            return;
+        }
+
+        waiters.put(waiter.seq, waiter);
+        long maxWaitMs = TimeUnit.SECONDS.toMillis(rateLimitProperties.getGlobalMaxWaitSeconds());
+        waiter.timeoutFuture = scheduler.schedule(waiter::expire, maxWaitMs, TimeUnit.MILLISECONDS);
+        if (waiter.cancelled.get()) {
+            // 注册期间连接已关闭
+            waiters.remove(waiter.seq, waiter);
+        }
+    }
 
-        scheduleQueuePoll(queue, requestId, permitRef, cancelled, question, conversationId, userId, emitter, onAcquire);
+    /**
+     * 当前排队指标
+     */
+    public QueueStats stats() {
+        long acquired = acquiredCount.get();
+        return new QueueStats(
+                waiters.size(),
+                acquired,
+                rejectedCount.get(),
+                acquired == 0 ? 0L : totalWaitMillis.get() / acquired,
+                maxWaitMillis.get(),
+                claimCalls.get(),
+                releaseCalls.get()
+        );
     }
 
-    private void scheduleQueuePoll(RScoredSortedSet<String> queue,
-                                   String requestId,
-                                   AtomicReference<String> permitRef,
-                                   AtomicBoolean cancelled,
-                                   String question,
-                                   String conversationId,
-                                   String userId,
-                                   SseEmitter emitter,
-                                   Runnable onAcquire) {
-        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(rateLimitProperties.getGlobalMaxWaitSeconds());
-        int intervalMs = Math.max(50, Objects.requireNonNullElse(rateLimitProperties.getGlobalPollIntervalMs(), 200));
-        PollNotifier notifier = pollNotifier;
-        ScheduledFuture<?>[] futureRef = new ScheduledFuture<?>[1];
+    /**
+     * 全局排队长度（Redis 排队 ZSET 大小），读取失败时返回 -1
+     */
+    public long globalQueueDepth() {
+        return sizeOf(QUEUE_KEY);
+    }
+
+    /**
+     * 全局已发放的许可数（含尚未清理的过期许可），读取失败时返回 -1
+     */
+    public long globalLeaseCount() {
+        return sizeOf(LEASE_KEY);
+    }
 
-        Runnable poller = () -> {
-            if (cancelled.get()) {
-                if (notifier != null) {
-                    notifier.unregister(requestId);
+    private long sizeOf(String key) {
+        try {
+            return redissonClient.getScoredSortedSet(key, StringCodec.INSTANCE).size();
+        } catch (Exception ex) {
+            log.debug("读取排队集合大小失败，key：{}", key, ex);
+            return -1L;
+        }
+    }
+
+    /**
+     * 请求唤醒本地队头等待者；唤醒任务串行执行，执行期间到达的请求合并为一次
+     */
+    private void requestWakeup(int count) {
+        pendingWakeups.accumulateAndGet(Math.max(1, count), Math::max);
+        if (!waking.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduler.execute(this::drainWakeups);
+        } catch (RejectedExecutionException ex) {
+            waking.set(false);
+        }
+    }
+
+    private void drainWakeups() {
+        do {
+            try {
+                int count = pendingWakeups.getAndSet(0);
+                if (count > 0) {
+                    wakeHeads(count);
                 }
-                cancelFuture(futureRef[0]);
-                return;
+            } catch (Exception ex) {
+                log.warn("唤醒排队请求失败", ex);
+            } finally {
+                waking.set(false);
             }
-            if (System.currentTimeMillis() > deadline) {
-                queue.remove(requestId);
-                publishQueueNotify();
-                if (notifier != null) {
-                    notifier.unregister(requestId);
-                }
-                cancelFuture(futureRef[0]);
-                if (!cancelled.get()) {
-                    RejectedContext rejectedContext = recordRejectedConversation(question, conversationId, userId);
-                    sendRejectEvents(emitter, rejectedContext);
-                }
-                return;
+        } while (pendingWakeups.get() > 0 && waking.compareAndSet(false, true));
+    }
+
+    /**
+     * 依次唤醒本地队头等待者，claim 成功的数量达到 count 或遇到第一个不在队头窗口内的等待者即停止
+     */
+    private void wakeHeads(int count) {
+        int claimed = 0;
+        List<Waiter> heads = new ArrayList<>(Math.min(count, waiters.size()));
+        for (Map.Entry<Long, Waiter> entry : waiters.entrySet()) {
+            if (heads.size() >= count) {
+                break;
+            }
+            heads.add(entry.getValue());
+        }
+        for (Waiter waiter : heads) {
+            if (waiter.cancelled.get()) {
+                waiters.remove(waiter.seq, waiter);
+                continue;
+            }
+            long[] result = claim(waiter.requestId, false);
+            if (result[0] == CLAIMED) {
+                waiters.remove(waiter.seq, waiter);
+                onClaimed(waiter);
+                claimed++;
+                continue;
             }
-            if (tryAcquireIfReady(queue, requestId, permitRef, cancelled, onAcquire)) {
-                if (notifier != null) {
-                    notifier.unregister(requestId);
+            if (result[0] == NOT_IN_QUEUE && !waiter.cancelled.get()) {
+                // 队列记录丢失（如 Redis 数据被清理），重新入队
+                waiters.remove(waiter.seq, waiter);
+                long[] requeue = claim(waiter.requestId, true);
+                waiter.seq = requeue[1];
+                if (waiter.cancelled.get()) {
+                    releaseScript(waiter.requestId);
+                    continue;
                 }
-                cancelFuture(futureRef[0]);
+                if (requeue[0] == CLAIMED) {
+                    onClaimed(waiter);
+                    claimed++;
+                } else {
+                    waiters.put(waiter.seq, waiter);
+                }
+                continue;
             }
-        };
-
-        futureRef[0] = scheduler.scheduleAtFixedRate(poller, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
-        if (notifier != null) {
-            notifier.register(requestId, poller);
+            // 本地队头不在全局队头窗口内，后面的等待者更不可能获得许可
+            break;
+        }
+        if (claimed > 0 && log.isDebugEnabled()) {
+            log.debug("唤醒排队请求，获得许可数：{}，本地剩余排队数：{}", claimed, waiters.size());
         }
     }
 
-    private boolean tryAcquireIfReady(RScoredSortedSet<String> queue,
-                                      String requestId,
-                                      AtomicReference<String> permitRef,
-                                      AtomicBoolean cancelled,
-                                      Runnable onAcquire) {
-        if (cancelled.get()) {
-            return false;
-        }
-        int availablePermits = availablePermits();
-        if (availablePermits <= 0) {
-            return false;
-        }
-        ClaimResult claimResult = claimIfReady(queue, requestId, availablePermits);
-        if (!claimResult.claimed) {
-            return false;
-        }
-        String permitId = tryAcquirePermit();
-        if (permitId == null) {
-            long newSeq = nextQueueSeq();
-            queue.add(newSeq, requestId);
-            publishQueueNotify();
-            return false;
-        }
-        permitRef.set(permitId);
-        if (cancelled.get()) {
-            releasePermit(permitId, permitRef);
-            return false;
-        }
-        publishQueueNotify();
+    private void onClaimed(Waiter waiter) {
+        if (!waiter.claimed.compareAndSet(false, true)) {
+            return;
+        }
+        waiter.cancelTimeout();
+        if (waiter.cancelled.get()) {
+            // claim 与连接关闭并发，归还许可
+            waiter.releaseInRedis();
+            return;
+        }
+        long waited = System.currentTimeMillis() - waiter.enqueueTime;
+        acquiredCount.incrementAndGet();
+        totalWaitMillis.addAndGet(waited);
+        maxWaitMillis.accumulateAndGet(waited, Math::max);
         try {
-            chatEntryExecutor.execute(() -> runOnAcquire(onAcquire));
+            chatEntryExecutor.execute(() -> runOnAcquire(waiter.onAcquire));
         } catch (RuntimeException ex) {
-            releasePermit(permitId, permitRef);
-            if (!cancelled.get()) {
-                long newSeq = nextQueueSeq();
-                queue.add(newSeq, requestId);
-                publishQueueNotify();
+            log.warn("排队后提交任务失败，已释放许可并重新入队", ex);
+            waiter.claimed.set(false);
+            releaseScript(waiter.requestId);
+            if (!waiter.cancelled.get()) {
+                long[] requeue = claim(waiter.requestId, true);
+                waiter.seq = requeue[1];
+                waiters.put(waiter.seq, waiter);
+                long remainingMs = Math.max(0L, TimeUnit.SECONDS.toMillis(rateLimitProperties.getGlobalMaxWaitSeconds()) - waited);
+                waiter.timeoutFuture = scheduler.schedule(waiter::expire, remainingMs, TimeUnit.MILLISECONDS);
             }
-            log.warn("排队后提交任务失败，已释放 permit 并重新入队", ex);
-            return false;
-        }
-        return true;
-    }
-
-    private String tryAcquirePermit() {
-        RPermitExpirableSemaphore semaphore = redissonClient.getPermitExpirableSemaphore(
-                SEMAPHORE_NAME
-        );
-        semaphore.trySetPermits(rateLimitProperties.getGlobalMaxConcurrent());
-        try {
-            return semaphore.tryAcquire(0, rateLimitProperties.getGlobalLeaseSeconds(), TimeUnit.SECONDS);
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
-            return null;
         }
     }
 
-    private int availablePermits() {
-        RPermitExpirableSemaphore semaphore = redissonClient.getPermitExpirableSemaphore(
-                SEMAPHORE_NAME
-        );
-        semaphore.trySetPermits(rateLimitProperties.getGlobalMaxConcurrent());
-        return semaphore.availablePermits();
-    }
-
-    private ClaimResult claimIfReady(RScoredSortedSet<String> queue, String requestId, int availablePermits) {
+    /**
+     * 入队（可选）并尝试 claim 许可
+     *
+     * @return {状态, 入队序号}
+     */
+    private long[] claim(String requestId, boolean enqueue) {
+        claimCalls.incrementAndGet();
         RScript script = redissonClient.getScript(StringCodec.INSTANCE);
         List<Object> result = script.eval(
                 RScript.Mode.READ_WRITE,
                 claimLua,
                 RScript.ReturnType.LIST,
-                List.of(queue.getName()),
+                List.of(QUEUE_KEY, LEASE_KEY, QUEUE_SEQ_KEY),
                 requestId,
-                String.valueOf(availablePermits)
+                String.valueOf(rateLimitProperties.getGlobalMaxConcurrent()),
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(TimeUnit.SECONDS.toMillis(rateLimitProperties.getGlobalLeaseSeconds())),
+                enqueue ? "1" : "0"
         );
-        if (result == null || result.isEmpty()) {
-            return ClaimResult.notClaimed();
+        if (result == null || result.size() < 2) {
+            return new long[]{0L, 0L};
         }
-        Object ok = result.get(0);
-        long okValue = parseLong(ok);
-        if (okValue != 1L || result.size() < 2) {
-            return ClaimResult.notClaimed();
+        return new long[]{parseLong(result.get(0)), parseLong(result.get(1))};
+    }
+
+    /**
+     * 离开队列并归还许可，必要时由脚本广播唤醒通知
+     */
+    private void releaseScript(String requestId) {
+        releaseCalls.incrementAndGet();
+        try {
+            redissonClient.getScript(StringCodec.INSTANCE).eval(
+                    RScript.Mode.READ_WRITE,
+                    releaseLua,
+                    RScript.ReturnType.INTEGER,
+                    List.of(QUEUE_KEY, LEASE_KEY),
+                    requestId,
+                    String.valueOf(rateLimitProperties.getGlobalMaxConcurrent()),
+                    String.valueOf(System.currentTimeMillis()),
+                    NOTIFY_TOPIC
+            );
+        } catch (Exception ex) {
+            // 归还失败时许可会在租期到期后自动回收
+            log.warn("归还排队许可失败，requestId：{}", requestId, ex);
         }
-        Object scoreObj = result.get(1);
-        double score = scoreObj == null ? System.currentTimeMillis() : Double.parseDouble(scoreObj.toString());
-        return new ClaimResult(true, score);
+    }
+
+    private int parseAvailable(String msg) {
+        long value = parseLong(msg);
+        return value <= 0 ? 1 : (int) Math.min(Integer.MAX_VALUE, value);
     }
 
     private long parseLong(Object value) {
@@ -293,21 +386,6 @@ public class ChatQueueLimiter {
         return 0L;
     }
 
-    private long nextQueueSeq() {
-        RAtomicLong seq = redissonClient.getAtomicLong(QUEUE_SEQ_KEY);
-        return seq.incrementAndGet();
-    }
-
-    private void cancelFuture(ScheduledFuture<?> future) {
-        if (future != null && !future.isCancelled()) {
-            future.cancel(false);
-        }
-    }
-
-    private void publishQueueNotify() {
-        redissonClient.getTopic(NOTIFY_TOPIC).publish("permit_released");
-    }
-
     private RejectedContext recordRejectedConversation(String question, String conversationId, String userId) {
         if (StrUtil.isBlank(question)) {
             return null;
@@ -373,26 +451,98 @@ public class ChatQueueLimiter {
     private record RejectedContext(String conversationId, String taskId, Long messageId, String title) {
     }
 
-    private record ClaimResult(boolean claimed, double score) {
-        static ClaimResult notClaimed() {
-            return new ClaimResult(false, 0D);
-        }
+    /**
+     * 排队指标
+     *
+     * @param localWaiting   本节点当前排队数
+     * @param acquired       排队后获得许可的请求数
+     * @param rejected       等待超时被拒绝的请求数
+     * @param avgWaitMillis  获得许可的平均等待时间（毫秒）
+     * @param maxWaitMillis  获得许可的最大等待时间（毫秒）
+     * @param claimCalls     claim 脚本调用次数
+     * @param releaseCalls   release 脚本调用次数
+     */
+    public record QueueStats(int localWaiting,
+                             long acquired,
+                             long rejected,
+                             long avgWaitMillis,
+                             long maxWaitMillis,
+                             long claimCalls,
+                             long releaseCalls) {
     }
 
-    private void releasePermit(String permitId, AtomicReference<String> permitRef) {
-        if (permitRef.compareAndSet(permitId, null)) {
-            redissonClient.getPermitExpirableSemaphore(SEMAPHORE_NAME)
-                    .release(permitId);
-            publishQueueNotify();
+    /**
+     * 单个排队请求
+     */
+    private final class Waiter {
+
+        private final String requestId;
+        private final String question;
+        private final String conversationId;
+        private final String userId;
+        private final SseEmitter emitter;
+        private final Runnable onAcquire;
+        private final long enqueueTime = System.currentTimeMillis();
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private volatile long seq;
+        private volatile ScheduledFuture<?> timeoutFuture;
+
+        private Waiter(String requestId, String question, String conversationId, String userId,
+                       SseEmitter emitter, Runnable onAcquire) {
+            this.requestId = requestId;
+            this.question = question;
+            this.conversationId = conversationId;
+            this.userId = userId;
+            this.emitter = emitter;
+            this.onAcquire = onAcquire;
+        }
+
+        /**
+         * 连接结束（完成、超时或异常）：离开本地队列并归还 Redis 中的排队记录与许可
+         */
+        private void release() {
+            cancelled.set(true);
+            cancelTimeout();
+            waiters.remove(seq, this);
+            releaseInRedis();
+        }
+
+        private void releaseInRedis() {
+            if (released.compareAndSet(false, true)) {
+                releaseScript(requestId);
+            }
+        }
+
+        /**
+         * 等待超时：离开队列并向客户端发送拒绝事件
+         */
+        private void expire() {
+            if (claimed.get() || !cancelled.compareAndSet(false, true)) {
+                return;
+            }
+            waiters.remove(seq, this);
+            releaseInRedis();
+            rejectedCount.incrementAndGet();
+            RejectedContext rejectedContext = recordRejectedConversation(question, conversationId, userId);
+            sendRejectEvents(emitter, rejectedContext);
+        }
+
+        private void cancelTimeout() {
+            ScheduledFuture<?> future = timeoutFuture;
+            if (future != null) {
+                future.cancel(false);
+            }
         }
     }
 
-    private String loadLuaScript() {
+    private String loadLuaScript(String path) {
         try {
-            ClassPathResource resource = new ClassPathResource(CLAIM_LUA_PATH);
-            return StreamUtils.copyToString(resource.getInputStream(), java.nio.charset.StandardCharsets.UTF_8);
+            ClassPathResource resource = new ClassPathResource(path);
+            return StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
         } catch (Exception ex) {
-            throw new IllegalStateException("Failed to load lua script: " + CLAIM_LUA_PATH, ex);
+            throw new IllegalStateException("Failed to load lua script: " + path, ex);
         }
     }
 
@@ -419,16 +569,9 @@ public class ChatQueueLimiter {
     @PreDestroy
     public void shutdown() {
         if (notifyListenerId != -1) {
-            redissonClient.getTopic(NOTIFY_TOPIC).removeListener(notifyListenerId);
+            redissonClient.getTopic(NOTIFY_TOPIC, StringCodec.INSTANCE).removeListener(notifyListenerId);
         }
         scheduler.shutdown();
-        awaitSchedulerShutdown();
-        if (pollNotifier != null) {
-            pollNotifier.shutdown();
-        }
-    }
-
-    private void awaitSchedulerShutdown() {
         try {
             if (!scheduler.awaitTermination(3, TimeUnit.SECONDS)) {
                 scheduler.shutdownNow();
@@ -437,88 +580,6 @@ public class ChatQueueLimiter {
             scheduler.shutdownNow();
             Thread.currentThread().interrupt();
         }
-    }
-
-    private static final class PollNotifier {
-        private final ScheduledExecutorService notifyExecutor = new ScheduledThreadPoolExecutor(
-                1,
-                r -> {
-                    Thread thread = new Thread(r);
-                    thread.setName("chat_queue_notify");
-                    thread.setDaemon(true);
-                    return thread;
-                }
-        );
-        private final java.util.concurrent.ConcurrentHashMap<String, PollerEntry> pollers = new java.util.concurrent.ConcurrentHashMap<>();
-        private final java.util.concurrent.atomic.AtomicBoolean firing = new java.util.concurrent.atomic.AtomicBoolean(false);
-        private final ScheduledExecutorService cleanupExecutor = new ScheduledThreadPoolExecutor(
-                1,
-                r -> {
-                    Thread thread = new Thread(r);
-                    thread.setName("chat_queue_cleanup");
-                    thread.setDaemon(true);
-                    return thread;
-                }
-        );
-
-        private record PollerEntry(Runnable poller, long registerTime) {
-        }
-
-        void register(String requestId, Runnable poller) {
-            pollers.put(requestId, new PollerEntry(poller, System.currentTimeMillis()));
-        }
-
-        void unregister(String requestId) {
-            pollers.remove(requestId);
-        }
-
-        private final java.util.concurrent.atomic.AtomicInteger pendingNotifications = new java.util.concurrent.atomic.AtomicInteger(0);
-
-        void fire() {
-            pendingNotifications.incrementAndGet();
-            if (!firing.compareAndSet(false, true)) {
-                return;
-            }
-            notifyExecutor.execute(() -> {
-                do {
-                    pendingNotifications.set(0);
-                    try {
-                        for (PollerEntry entry : pollers.values()) {
-                            entry.poller().run();
-                        }
-                    } finally {
-                        firing.set(false);
-                    }
-                } while (pendingNotifications.get() > 0 && firing.compareAndSet(false, true));
-            });
-        }
-
-        void shutdown() {
-            cleanupExecutor.shutdown();
-            notifyExecutor.shutdown();
-            awaitExecutorShutdown(cleanupExecutor);
-            awaitExecutorShutdown(notifyExecutor);
-            pollers.clear();
-        }
-
-        private void awaitExecutorShutdown(ScheduledExecutorService executor) {
-            try {
-                if (!executor.awaitTermination(2, TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
-                }
-            } catch (InterruptedException ex) {
-                executor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
-
-        private void startCleanup() {
-            cleanupExecutor.scheduleAtFixedRate(() -> {
-                long now = System.currentTimeMillis();
-                pollers.entrySet().removeIf(entry ->
-                        now - entry.getValue().registerTime() > TimeUnit.MINUTES.toMillis(5)
-                );
-            }, 1, 1, TimeUnit.MINUTES);
-        }
+        waiters.clear();
     }
 }
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.aop;
+
+import cn.hutool.core.util.StrUtil;
+import com.nageoffer.ai.ragent.framework.trace.RagTraceNode;
+import com.nageoffer.ai.ragent.rag.core.metrics.RagMetrics;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * RAG 链路节点耗时指标切面
+ * <p>
+ * 复用 {@link RagTraceNode} 标注的节点，与 Trace 开关无关，始终记录；
+ * 位于 Trace 切面内层，耗时不包含 Trace 落库
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@RequiredArgsConstructor
+public class RagStageMetricsAspect {
+
+    private final RagMetrics ragMetrics;
+
+    @Around("@annotation(traceNode)")
+    public Object aroundNode(ProceedingJoinPoint joinPoint, RagTraceNode traceNode) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        String stage = StrUtil.blankToDefault(traceNode.name(), signature.getMethod().getName());
+        String type = StrUtil.blankToDefault(traceNode.type(), "METHOD");
+        long startNanos = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = joinPoint.proceed();
+            success = true;
+            return result;
+        } finally {
+            ragMetrics.recordStage(stage, type, System.nanoTime() - startNanos, success);
+        }
+    }
+}
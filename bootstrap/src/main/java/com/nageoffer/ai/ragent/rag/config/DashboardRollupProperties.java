@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 运营看板预聚合配置
+ * <p>
+ * 后台任务按水位线把消息、会话、链路数据汇总为小时/天粒度的聚合行，看板只读取聚合表
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rag.dashboard.rollup")
+public class DashboardRollupProperties {
+
+    /**
+     * 是否启用预聚合任务
+     */
+    private boolean enabled = true;
+
+    /**
+     * 聚合任务执行间隔（毫秒）
+     */
+    private long scanDelayMs = 60000;
+
+    /**
+     * 每次回看重算的小时数，用于吸收异步写入和链路状态更新带来的迟到数据
+     */
+    private int lookbackHours = 2;
+
+    /**
+     * 单次执行最多聚合的小时数，首次上线补历史数据时分批推进
+     * 必须大于 lookbackHours + 1，否则水位线无法前进；配置过小时按 lookbackHours + 2 执行
+     */
+    private int backfillHoursPerRun = 72;
+
+    /**
+     * 慢请求阈值（毫秒）
+     */
+    private long slowLatencyMs = 20000;
+}
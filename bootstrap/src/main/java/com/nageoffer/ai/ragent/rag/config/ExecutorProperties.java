@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 业务线程池执行模式配置
+ * <p>
+ * 业务线程池的任务几乎都是阻塞 I/O（模型 HTTP 调用、Milvus、JDBC），虚拟线程模式下每个任务一个虚拟线程，
+ * 按用途用信号量限制并发；运行与等待的任务总数仍以“并发上限 + 队列容量”为界，
+ * 超出后原 CallerRunsPolicy 的用途阻塞调用方，原 AbortPolicy 的用途直接拒绝
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rag.executor")
+public class ExecutorProperties {
+
+    /**
+     * 执行模式，虚拟线程模式需要 JDK 21 及以上运行时，低版本自动回退为平台线程池
+     */
+    private Mode mode = Mode.PLATFORM;
+
+    /**
+     * 虚拟线程模式下各用途的并发上限，键为线程池 Bean 名称（如 modelStreamExecutor）；
+     * 未配置时沿用平台线程池的最大线程数
+     */
+    private Map<String, Integer> virtualMaxConcurrency = new HashMap<>();
+
+    public enum Mode {
+
+        /**
+         * 固定大小的平台线程池
+         */
+        PLATFORM,
+
+        /**
+         * 虚拟线程 + 按用途的并发信号量
+         */
+        VIRTUAL
+    }
+}
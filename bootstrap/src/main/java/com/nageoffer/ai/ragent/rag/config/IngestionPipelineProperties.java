@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 数据摄取流水线并行执行配置
+ * <p>
+ * 分块之后的分块级节点（向量化、分块增强、索引）按微批在各自的线程池中并发执行，
+ * 阶段之间通过有界队列衔接，下游处理不过来时上游暂停启动新批次
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rag.ingestion.pipeline")
+public class IngestionPipelineProperties {
+
+    /**
+     * 是否启用分阶段流水线执行，关闭后按节点顺序串行执行
+     */
+    private boolean enabled = true;
+
+    /**
+     * 微批大小（每批分块数）
+     */
+    private int batchSize = 32;
+
+    /**
+     * 每个阶段单次执行允许排队的微批数，超过后上游暂停启动新批次
+     */
+    private int queueCapacity = 8;
+
+    /**
+     * 向量化阶段并行度
+     */
+    private int embeddingParallelism = 4;
+
+    /**
+     * 分块增强阶段并行度（每个分块一次大模型调用，通常是最慢的阶段）
+     */
+    private int enricherParallelism = 8;
+
+    /**
+     * 索引阶段并行度
+     */
+    private int indexerParallelism = 2;
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 摄取作业队列配置
+ * <p>
+ * 摄取任务与知识库文档分块以作业形式持久化到数据库，各实例按租约领取执行，并按知识库、租户限制并发
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rag.ingestion.queue")
+public class IngestionQueueProperties {
+
+    /**
+     * 是否启用异步作业队列，关闭后摄取任务在请求线程同步执行、文档分块提交到本地线程池
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本实例同时执行的作业数
+     */
+    private int workerThreads = 4;
+
+    /**
+     * 扫描待领取作业的间隔（毫秒）
+     */
+    private long scanDelayMs = 2000;
+
+    /**
+     * 租约时长（秒），持有者宕机后租约到期由其他实例重新领取
+     */
+    private long leaseSeconds = 300;
+
+    /**
+     * 心跳续约间隔（毫秒），应明显小于租约时长
+     */
+    private long heartbeatMs = 60000;
+
+    /**
+     * 每个作业最大领取次数，超过后标记失败
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * 失败重试的退避基数（秒），第 N 次重试等待 N 倍
+     */
+    private long retryBackoffSeconds = 30;
+
+    /**
+     * 单个知识库同时运行的作业上限（全局）
+     */
+    private int maxRunningPerKb = 2;
+
+    /**
+     * 单个租户同时运行的作业上限（全局）
+     */
+    private int maxRunningPerTenant = 4;
+
+    /**
+     * 异步上传的文件暂存桶
+     */
+    private String uploadBucket = "ingestion-upload";
+
+    /**
+     * 作业参数加密密钥，配置后 payload_json 以 AES-GCM 加密保存；
+     * 未配置时不允许异步提交携带访问凭证的任务
+     */
+    private String payloadSecret;
+}
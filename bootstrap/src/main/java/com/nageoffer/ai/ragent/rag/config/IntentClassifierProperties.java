@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 意图识别配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rag.intent")
+public class IntentClassifierProperties {
+
+    /**
+     * 向量相似度预分类配置
+     */
+    private Embedding embedding = new Embedding();
+
+    @Data
+    public static class Embedding {
+
+        /**
+         * 是否启用向量预分类
+         * 启用后先按问题与叶子节点（描述 + 示例问题）的余弦相似度打分，结果明确时跳过 LLM 调用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 直接采纳向量结果所需的最低分，达到该分数的节点全部作为识别结果返回
+         */
+        private double acceptScore = 0.75;
+
+        /**
+         * 入选节点最低分与未入选节点最高分之间的最小分差，低于该值视为歧义，回退 LLM 识别
+         */
+        private double minMargin = 0.08;
+    }
+}
@@ -49,6 +49,30 @@ public class MemoryProperties {
      */
     private Integer ttlMinutes = 60;
 
+    /**
+     * 是否启用热会话缓存（进程内 + Redis），关闭后每轮直接读写 MySQL
+     */
+    private Boolean cacheEnabled = true;
+
+    /**
+     * 进程内缓存的最大会话数
+     */
+    @Min(1)
+    private Integer localCacheMaxSize = 2000;
+
+    /**
+     * 消息写回间隔（毫秒）
+     */
+    @Min(50)
+    private Integer writeBehindIntervalMs = 500;
+
+    /**
+     * 单批写回的最大消息数
+     */
+    @Min(1)
+    private Integer writeBehindBatchSize = 200;
+
+
     /**
      * 是否启用对话记忆压缩
      */
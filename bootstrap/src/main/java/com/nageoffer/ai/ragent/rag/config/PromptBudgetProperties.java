@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prompt Token 预算配置
+ * <p>
+ * 组装 Prompt 时按模型的 Token 预算取舍知识库片段、MCP 数据与历史对话，价值低的内容优先裁剪
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rag.prompt-budget")
+public class PromptBudgetProperties {
+
+    /**
+     * 是否启用 Token 预算裁剪
+     */
+    private boolean enabled = true;
+
+    /**
+     * 默认输入 Token 预算，chat 模型未配置 prompt-token-budget 时使用
+     */
+    private int defaultTokenBudget = 24000;
+
+    /**
+     * MCP 实时数据的取舍优先级
+     */
+    private double mcpPriority = 1.0;
+
+    /**
+     * 最相关知识库片段的取舍优先级；片段按重排名次线性递减，与检索打分方式（重排分数、RRF 融合分数）无关
+     */
+    private double kbPriority = 1.0;
+
+    /**
+     * 最近一轮历史对话的取舍优先级
+     */
+    private double historyPriority = 0.6;
+
+    /**
+     * 历史对话优先级按轮次衰减的系数，越早的对话价值越低
+     */
+    private double historyDecay = 0.7;
+
+    /**
+     * 证据内容裁剪后至少保留的 Token 数
+     */
+    private int minEvidenceTokens = 128;
+}
@@ -53,7 +53,9 @@ public class RAGRateLimitProperties {
     private Integer globalLeaseSeconds;
 
     /**
-     * 排队轮询间隔（毫秒）
+     * 兜底唤醒间隔（毫秒）
+     * <p>
+     * 排队请求由许可释放通知驱动唤醒；通知丢失或许可过期时，每个节点按该间隔唤醒一次本地队头
      */
     @Value("${rag.rate-limit.global.poll-interval-ms:200}")
     private Integer globalPollIntervalMs;
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.config;
+
+import com.alibaba.ttl.threadpool.TtlExecutors;
+import com.nageoffer.ai.ragent.rag.aop.ChatQueueLimiter;
+import com.nageoffer.ai.ragent.rag.service.impl.RagTraceRecordServiceImpl;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * 监控指标注册配置
+ * <p>
+ * 指标通过 Actuator 的 {@code /actuator/prometheus} 端点暴露
+ */
+@Configuration
+public class RagMetricsConfig {
+
+    /**
+     * 业务线程池饱和度指标（executor.active、executor.queued、executor.pool.max 等），以 Bean 名称作为 name 标签
+     * <p>
+     * 线程池 Bean 均经过 TTL 包装，注册前先解包出原始 {@link ThreadPoolExecutor}；
+     * 虚拟线程模式下以同名指标暴露运行中、等待中的任务数与并发上限
+     */
+    @Bean
+    public MeterBinder ragExecutorMetrics(Map<String, Executor> executors) {
+        return registry -> executors.forEach((beanName, executor) -> {
+            Executor unwrapped = TtlExecutors.unwrap(executor);
+            if (unwrapped instanceof ThreadPoolExecutor pool) {
+                new ExecutorServiceMetrics(pool, beanName, Tags.empty()).bindTo(registry);
+            } else if (unwrapped instanceof VirtualThreadExecutor virtual) {
+                bindVirtualExecutor(registry, beanName, virtual);
+            }
+        });
+    }
+
+    /**
+     * SSE 全局排队指标
+     */
+    @Bean
+    public MeterBinder chatQueueMetrics(ChatQueueLimiter limiter) {
+        return registry -> {
+            Gauge.builder("ragent.chat.queue.waiting", limiter, l -> l.stats().localWaiting())
+                    .description("本节点排队等待的请求数")
+                    .register(registry);
+            Gauge.builder("ragent.chat.queue.global.depth", limiter, l -> orNaN(l, ChatQueueLimiter::globalQueueDepth))
+                    .description("全局排队长度")
+                    .register(registry);
+            Gauge.builder("ragent.chat.queue.global.leases", limiter, l -> orNaN(l, ChatQueueLimiter::globalLeaseCount))
+                    .description("全局已发放的并发许可数")
+                    .register(registry);
+            FunctionCounter.builder("ragent.chat.queue.acquired", limiter, l -> l.stats().acquired())
+                    .description("排队后获得许可的请求数")
+                    .register(registry);
+            FunctionCounter.builder("ragent.chat.queue.rejected", limiter, l -> l.stats().rejected())
+                    .description("等待超时被拒绝的请求数")
+                    .register(registry);
+            TimeGauge.builder("ragent.chat.queue.wait.avg", limiter, TimeUnit.MILLISECONDS, l -> l.stats().avgWaitMillis())
+                    .description("获得许可的平均等待时间")
+                    .register(registry);
+            TimeGauge.builder("ragent.chat.queue.wait.max", limiter, TimeUnit.MILLISECONDS, l -> l.stats().maxWaitMillis())
+                    .description("获得许可的最大等待时间")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * RAG Trace 异步落库指标
+     */
+    @Bean
+    public MeterBinder ragTraceMetrics(RagTraceRecordServiceImpl traceRecordService) {
+        return registry -> {
+            Gauge.builder("ragent.trace.buffer.size", traceRecordService, RagTraceRecordServiceImpl::getBufferedEvents)
+                    .description("缓冲区中待落库的 Trace 事件数")
+                    .register(registry);
+            FunctionCounter.builder("ragent.trace.events.dropped", traceRecordService, RagTraceRecordServiceImpl::getDroppedEvents)
+                    .description("缓冲区满被丢弃的 Trace 事件数")
+                    .register(registry);
+            FunctionCounter.builder("ragent.trace.events.failed", traceRecordService, RagTraceRecordServiceImpl::getFailedEvents)
+                    .description("落库失败的 Trace 事件数")
+                    .register(registry);
+            FunctionCounter.builder("ragent.trace.events.written", traceRecordService, RagTraceRecordServiceImpl::getWrittenEvents)
+                    .description("已落库的 Trace 事件数")
+                    .register(registry);
+        };
+    }
+
+    private static void bindVirtualExecutor(MeterRegistry registry, String beanName, VirtualThreadExecutor executor) {
+        Tags tags = Tags.of("name", beanName);
+        Gauge.builder("executor.active", executor, VirtualThreadExecutor::activeCount)
+                .tags(tags)
+                .description("运行中的任务数")
+                .register(registry);
+        Gauge.builder("executor.queued", executor, VirtualThreadExecutor::queuedCount)
+                .tags(tags)
+                .description("等待并发许可的任务数")
+                .register(registry);
+        Gauge.builder("executor.pool.max", executor, VirtualThreadExecutor::maxConcurrency)
+                .tags(tags)
+                .description("并发上限")
+                .register(registry);
+        FunctionCounter.builder("executor.completed", executor, VirtualThreadExecutor::completedTaskCount)
+                .tags(tags)
+                .description("已完成的任务数")
+                .register(registry);
+    }
+
+    private static double orNaN(ChatQueueLimiter limiter, ToLongFunction<ChatQueueLimiter> reader) {
+        long value = reader.applyAsLong(limiter);
+        return value < 0 ? Double.NaN : value;
+    }
+}
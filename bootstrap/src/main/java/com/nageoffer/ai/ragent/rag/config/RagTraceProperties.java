@@ -38,4 +38,28 @@ public class RagTraceProperties {
      * 错误信息最大长度，防止落库过大
      */
     private int maxErrorLength = 1000;
+
+    /**
+     * 异步批量落库配置
+     */
+    private AsyncWrite asyncWrite = new AsyncWrite();
+
+    @Data
+    public static class AsyncWrite {
+
+        /**
+         * 事件缓冲区容量，满时丢弃新事件
+         */
+        private int bufferCapacity = 8192;
+
+        /**
+         * 单批次最大事件数，缓冲区积压达到该值时立即触发落库
+         */
+        private int batchSize = 500;
+
+        /**
+         * 定时落库间隔（毫秒）
+         */
+        private long flushIntervalMs = 200L;
+    }
 }
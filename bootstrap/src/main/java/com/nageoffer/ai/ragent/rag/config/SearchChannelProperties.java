@@ -34,6 +34,78 @@ public class SearchChannelProperties {
      */
     private Channels channels = new Channels();
 
+    /**
+     * 多 collection 扇出检索配置
+     */
+    private FanOut fanOut = new FanOut();
+
+    /**
+     * 重排配置
+     */
+    private Rerank rerank = new Rerank();
+
+    /**
+     * 推测检索配置
+     */
+    private Speculative speculative = new Speculative();
+
+    @Data
+    public static class Speculative {
+
+        /**
+         * 是否启用推测检索
+         * 启用后在改写、意图识别等 LLM 调用的同时，先用归一化后的原问题计算查询向量并执行全局向量检索，
+         * 改写结果与原问题足够接近时直接复用，否则丢弃
+         */
+        private boolean enabled = false;
+
+        /**
+         * 文本相似度阈值，子问题与原问题的相似度不低于该值时复用查询向量和全局检索结果
+         */
+        private double textSimilarityThreshold = 0.85;
+
+        /**
+         * 向量相似度阈值，文本不够接近时按两者查询向量的余弦相似度判断是否复用全局检索结果
+         */
+        private double vectorSimilarityThreshold = 0.92;
+
+        /**
+         * 等待推测结果的最长时间（毫秒），超时后按正常流程检索
+         */
+        private long awaitTimeoutMs = 3000;
+    }
+
+    @Data
+    public static class Rerank {
+
+        /**
+         * 是否启用本地重排层
+         * 启用后先按查询向量相似度与字面重合度对候选打分，只把前 remoteTopM 个送入远程 Rerank 模型；
+         * 远程模型不可用时直接使用本地排序结果
+         */
+        private boolean localEnabled = true;
+
+        /**
+         * 本地打分中向量相似度的权重，其余为字面重合度权重
+         */
+        private double vectorWeight = 0.8;
+
+        /**
+         * 送入远程 Rerank 模型的候选数上限，不小于最终 TopK
+         */
+        private int remoteTopM = 20;
+    }
+
+    @Data
+    public static class FanOut {
+
+        /**
+         * 单节点同时在途的向量检索请求上限
+         * 小于等于 0 时按内部检索线程池最大线程数计算
+         */
+        private int maxInFlight = 0;
+    }
+
     @Data
     public static class Channels {
 
@@ -46,6 +118,50 @@ public class SearchChannelProperties {
          * 意图定向检索配置
          */
         private IntentDirected intentDirected = new IntentDirected();
+
+        /**
+         * 关键词检索配置
+         */
+        private Keyword keyword = new Keyword();
+    }
+
+    @Data
+    public static class Keyword {
+
+        /**
+         * 是否启用
+         */
+        private boolean enabled = true;
+
+        /**
+         * TopK 倍数
+         */
+        private int topKMultiplier = 2;
+
+        /**
+         * BM25 词频饱和参数
+         */
+        private double k1 = 1.2;
+
+        /**
+         * BM25 文档长度归一化参数
+         */
+        private double b = 0.75;
+
+        /**
+         * RRF 融合平滑常数，关键词通道与向量通道的得分不可直接比较，按各自排名融合
+         */
+        private int rrfK = 60;
+
+        /**
+         * 索引与数据库的同步间隔（毫秒），用于吸收其他实例上的 Chunk 变更
+         */
+        private long refreshMs = 60000;
+
+        /**
+         * 单节点最多索引的 Chunk 数，超过后不构建索引、通道自动关闭
+         */
+        private int maxIndexedChunks = 200000;
     }
 
     @Data
@@ -67,6 +183,12 @@ public class SearchChannelProperties {
          * 全局检索时召回更多候选，后续通过 Rerank 筛选
          */
         private int topKMultiplier = 3;
+
+        /**
+         * 通道时延预算（毫秒）
+         * 超过预算仍未返回的 collection 结果将被忽略，小于等于 0 表示不限制
+         */
+        private long latencyBudgetMs = 3000;
     }
 
     @Data
@@ -87,5 +209,11 @@ public class SearchChannelProperties {
          * TopK 倍数
          */
         private int topKMultiplier = 2;
+
+        /**
+         * 通道时延预算（毫秒）
+         * 超过预算仍未返回的意图检索结果将被忽略，小于等于 0 表示不限制
+         */
+        private long latencyBudgetMs = 3000;
     }
 }
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 语义答案缓存配置
+ * <p>
+ * 以改写后问题的向量为键缓存完整回答，相似问题命中后直接回放答案，跳过检索与大模型生成
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rag.semantic-cache")
+public class SemanticCacheProperties {
+
+    /**
+     * 是否启用语义答案缓存
+     */
+    private boolean enabled = false;
+
+    /**
+     * 命中所需的最低余弦相似度
+     */
+    private double similarityThreshold = 0.95;
+
+    /**
+     * 缓存过期时间（分钟）
+     */
+    private int ttlMinutes = 60;
+
+    /**
+     * 最大缓存条目数，超出后按 LRU 淘汰
+     */
+    private int maxEntries = 1000;
+}
@@ -19,6 +19,7 @@ package com.nageoffer.ai.ragent.rag.config;
 
 import cn.hutool.core.thread.ThreadFactoryBuilder;
 import com.alibaba.ttl.threadpool.TtlExecutors;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -31,7 +32,11 @@ import java.util.concurrent.LinkedBlockingQueue;
 /**
  * 线程池执行器配置类
  * 为系统中不同的业务场景配置独立的线程池，提高并发处理能力
+ * <p>
+ * {@code rag.executor.mode=virtual} 时各线程池改为按用途限流的虚拟线程执行器，
+ * 并发上限沿用线程池最大线程数（可按 Bean 名称覆盖），TTL 上下文传递方式不变
  */
+@Slf4j
 @Configuration
 public class ThreadPoolExecutorConfig {
 
@@ -40,6 +45,19 @@ public class ThreadPoolExecutorConfig {
      */
     public static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
 
+    private final ExecutorProperties executorProperties;
+    private final boolean virtualThreads;
+
+    public ThreadPoolExecutorConfig(ExecutorProperties executorProperties) {
+        this.executorProperties = executorProperties;
+        boolean virtual = executorProperties.getMode() == ExecutorProperties.Mode.VIRTUAL;
+        if (virtual && !VirtualThreadExecutor.isSupported()) {
+            log.warn("当前运行时不支持虚拟线程（需要 JDK 21+），业务线程池回退为平台线程模式");
+            virtual = false;
+        }
+        this.virtualThreads = virtual;
+    }
+
     /**
      * MCP批处理线程池
      */
@@ -56,7 +74,7 @@ public class ThreadPoolExecutorConfig {
                         .build(),
                 new ThreadPoolExecutor.CallerRunsPolicy()
         );
-        return TtlExecutors.getTtlExecutor(executor);
+        return decorate("mcpBatchThreadPoolExecutor", executor);
     }
 
     /**
@@ -75,7 +93,7 @@ public class ThreadPoolExecutorConfig {
                         .build(),
                 new ThreadPoolExecutor.CallerRunsPolicy()
         );
-        return TtlExecutors.getTtlExecutor(executor);
+        return decorate("ragContextThreadPoolExecutor", executor);
     }
 
     /**
@@ -94,7 +112,7 @@ public class ThreadPoolExecutorConfig {
                         .build(),
                 new ThreadPoolExecutor.CallerRunsPolicy()
         );
-        return TtlExecutors.getTtlExecutor(executor);
+        return decorate("ragRetrievalThreadPoolExecutor", executor);
     }
 
     /**
@@ -113,7 +131,28 @@ public class ThreadPoolExecutorConfig {
                         .build(),
                 new ThreadPoolExecutor.CallerRunsPolicy()
         );
-        return TtlExecutors.getTtlExecutor(executor);
+        return decorate("ragInnerRetrievalThreadPoolExecutor", executor);
+    }
+
+    /**
+     * 推测检索线程池
+     * <p>
+     * 推测检索只是提前量，不与正常检索争抢资源：队列满时直接拒绝，请求回退到常规检索流程
+     */
+    @Bean
+    public Executor ragSpeculativeThreadPoolExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                Math.max(2, CPU_COUNT >> 1),
+                Math.max(4, CPU_COUNT),
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(50),
+                ThreadFactoryBuilder.create()
+                        .setNamePrefix("rag_speculative_executor_")
+                        .build(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        return decorate("ragSpeculativeThreadPoolExecutor", executor);
     }
 
     /**
@@ -132,7 +171,7 @@ public class ThreadPoolExecutorConfig {
                         .build(),
                 new ThreadPoolExecutor.CallerRunsPolicy()
         );
-        return TtlExecutors.getTtlExecutor(executor);
+        return decorate("intentClassifyThreadPoolExecutor", executor);
     }
 
     /**
@@ -151,7 +190,26 @@ public class ThreadPoolExecutorConfig {
                         .build(),
                 new ThreadPoolExecutor.CallerRunsPolicy()
         );
-        return TtlExecutors.getTtlExecutor(executor);
+        return decorate("memorySummaryThreadPoolExecutor", executor);
+    }
+
+    /**
+     * 对话记忆加载线程池（摘要与历史并行加载）
+     */
+    @Bean
+    public Executor memoryLoadThreadPoolExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                2,
+                Math.max(4, CPU_COUNT),
+                60,
+                TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                ThreadFactoryBuilder.create()
+                        .setNamePrefix("memory_load_executor_")
+                        .build(),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        return decorate("memoryLoadThreadPoolExecutor", executor);
     }
 
     /**
@@ -170,7 +228,7 @@ public class ThreadPoolExecutorConfig {
                         .build(),
                 new ThreadPoolExecutor.AbortPolicy()
         );
-        return TtlExecutors.getTtlExecutor(executor);
+        return decorate("modelStreamExecutor", executor);
     }
 
     /**
@@ -189,7 +247,7 @@ public class ThreadPoolExecutorConfig {
                         .build(),
                 new ThreadPoolExecutor.AbortPolicy()
         );
-        return TtlExecutors.getTtlExecutor(executor);
+        return decorate("chatEntryExecutor", executor);
     }
 
     /**
@@ -208,6 +266,91 @@ public class ThreadPoolExecutorConfig {
                         .build(),
                 new ThreadPoolExecutor.CallerRunsPolicy()
         );
-        return TtlExecutors.getTtlExecutor(executor);
+        return decorate("knowledgeChunkExecutor", executor);
+    }
+
+    /**
+     * 摄取流水线向量化阶段线程池
+     */
+    @Bean
+    public Executor ingestionEmbeddingExecutor(IngestionPipelineProperties properties) {
+        return buildIngestionStageExecutor(properties.getEmbeddingParallelism(), "ingestionEmbeddingExecutor", "ingest_embedding_executor_");
+    }
+
+    /**
+     * 摄取流水线分块增强阶段线程池
+     */
+    @Bean
+    public Executor ingestionEnricherExecutor(IngestionPipelineProperties properties) {
+        return buildIngestionStageExecutor(properties.getEnricherParallelism(), "ingestionEnricherExecutor", "ingest_enricher_executor_");
+    }
+
+    /**
+     * 摄取流水线索引阶段线程池
+     */
+    @Bean
+    public Executor ingestionIndexerExecutor(IngestionPipelineProperties properties) {
+        return buildIngestionStageExecutor(properties.getIndexerParallelism(), "ingestionIndexerExecutor", "ingest_indexer_executor_");
+    }
+
+    /**
+     * 摄取作业队列执行线程池
+     * 线程数与作业领取上限一致，领取前已按空闲槽位控制数量，因此队列不会堆积
+     */
+    @Bean
+    public Executor ingestionJobExecutor(IngestionQueueProperties properties) {
+        int size = Math.max(1, properties.getWorkerThreads());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                size,
+                size,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                ThreadFactoryBuilder.create()
+                        .setNamePrefix("ingest_job_executor_")
+                        .build(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        return decorate("ingestionJobExecutor", executor);
+    }
+
+    /**
+     * 阶段线程数即并行度；队列不设上限，排队长度由流水线各阶段的背压控制
+     */
+    private Executor buildIngestionStageExecutor(int parallelism, String name, String namePrefix) {
+        int size = Math.max(1, parallelism);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                size,
+                size,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                ThreadFactoryBuilder.create()
+                        .setNamePrefix(namePrefix)
+                        .build(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        return decorate(name, executor);
+    }
+
+    /**
+     * TTL 包装线程池；虚拟线程模式下以线程池参数构建虚拟线程执行器并替换原线程池：
+     * 最大线程数作为并发上限，排队上限保留“并发上限 + 队列容量”，避免无限堆积挂起的虚拟线程；
+     * 超出上限时 AbortPolicy 的线程池直接拒绝，CallerRunsPolicy 的线程池让调用方阻塞等待空位
+     */
+    private Executor decorate(String name, ThreadPoolExecutor executor) {
+        if (!virtualThreads) {
+            return TtlExecutors.getTtlExecutor(executor);
+        }
+        int maxConcurrency = executorProperties.getVirtualMaxConcurrency()
+                .getOrDefault(name, executor.getMaximumPoolSize());
+        long capacity = (long) maxConcurrency + executor.getQueue().remainingCapacity();
+        int maxPending = (int) Math.min(Integer.MAX_VALUE, capacity);
+        VirtualThreadExecutor.Admission admission = executor.getRejectedExecutionHandler() instanceof ThreadPoolExecutor.CallerRunsPolicy
+                ? VirtualThreadExecutor.Admission.BLOCK
+                : VirtualThreadExecutor.Admission.REJECT;
+        // 平台线程池尚未启动任何线程，直接关闭
+        executor.shutdown();
+        return TtlExecutors.getTtlExecutor(new VirtualThreadExecutor(name, maxConcurrency, maxPending, admission));
     }
 }
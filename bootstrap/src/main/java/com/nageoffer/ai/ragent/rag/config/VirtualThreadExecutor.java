@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.config;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按用途限流的虚拟线程执行器
+ * <p>
+ * 每个任务启动一个虚拟线程，先在虚拟线程内获取并发许可再执行，超出并发上限的任务挂起等待，
+ * 不占用平台线程。maxPending 限制运行与等待的任务总数，超出时按 {@link Admission} 处理：
+ * REJECT 抛出 {@link RejectedExecutionException}，对应原线程池的 AbortPolicy；
+ * BLOCK 让调用方等待空位，对应原线程池的 CallerRunsPolicy 的背压效果，
+ * 本执行器的任务再向自身提交时直接在当前线程执行，避免互相等待
+ * <p>
+ * 项目按 JDK 17 编译，虚拟线程 API 通过反射获取，运行时不支持时 {@link #isSupported()} 返回 false
+ */
+final class VirtualThreadExecutor implements Executor {
+
+    /**
+     * 超出排队上限时的处理方式
+     */
+    enum Admission {
+        REJECT,
+        BLOCK
+    }
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builderType.getMethod("name", String.class, long.class);
+            factory = builderType.getMethod("factory");
+            // JDK 19/20 未开启预览特性时调用会抛出异常，此处探测一次
+            factory.invoke(ofVirtual.invoke(null));
+        } catch (Throwable ignored) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    private final String name;
+    private final String threadNamePrefix;
+    private final ThreadFactory threadFactory;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final Semaphore admission;
+    private final Admission admissionMode;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+
+    /**
+     * @param name           用途名称，同时作为线程名前缀
+     * @param maxConcurrency 同时运行的任务上限
+     * @param maxPending     运行与等待的任务总数上限，{@link Integer#MAX_VALUE} 表示不限制
+     * @param admissionMode  超出排队上限时拒绝还是阻塞调用方
+     */
+    VirtualThreadExecutor(String name, int maxConcurrency, int maxPending, Admission admissionMode) {
+        if (!isSupported()) {
+            throw new IllegalStateException("当前运行时不支持虚拟线程");
+        }
+        this.name = name;
+        this.threadNamePrefix = name + "_vt_";
+        this.threadFactory = newThreadFactory(threadNamePrefix);
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        // 公平许可：等待中的任务按提交顺序执行，与线程池的 FIFO 队列一致
+        this.permits = new Semaphore(this.maxConcurrency, true);
+        this.admission = maxPending == Integer.MAX_VALUE ? null : new Semaphore(Math.max(this.maxConcurrency, maxPending));
+        this.admissionMode = admissionMode;
+    }
+
+    static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Objects.requireNonNull(command, "command");
+        if (admission != null && !admission.tryAcquire()) {
+            if (admissionMode == Admission.REJECT) {
+                throw new RejectedExecutionException("执行器 " + name + " 已满，并发上限: " + maxConcurrency);
+            }
+            if (Thread.currentThread().getName().startsWith(threadNamePrefix)) {
+                // 任务内再向本执行器提交，阻塞等待可能与持有名额的父任务互相等待，直接在当前线程执行
+                command.run();
+                return;
+            }
+            try {
+                admission.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("等待执行器 " + name + " 空位时被中断", e);
+            }
+        }
+        queued.incrementAndGet();
+        try {
+            threadFactory.newThread(() -> runWithPermit(command)).start();
+        } catch (RuntimeException | Error e) {
+            queued.decrementAndGet();
+            if (admission != null) {
+                admission.release();
+            }
+            throw e;
+        }
+    }
+
+    int activeCount() {
+        return active.get();
+    }
+
+    int queuedCount() {
+        return queued.get();
+    }
+
+    int maxConcurrency() {
+        return maxConcurrency;
+    }
+
+    long completedTaskCount() {
+        return completed.sum();
+    }
+
+    private void runWithPermit(Runnable command) {
+        try {
+            permits.acquireUninterruptibly();
+            queued.decrementAndGet();
+            active.incrementAndGet();
+            try {
+                command.run();
+            } finally {
+                active.decrementAndGet();
+                completed.increment();
+                permits.release();
+            }
+        } finally {
+            if (admission != null) {
+                admission.release();
+            }
+        }
+    }
+
+    private static ThreadFactory newThreadFactory(String namePrefix) {
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("创建虚拟线程工厂失败", e);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.cache;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.nageoffer.ai.ragent.infra.chat.StreamCallback;
+import com.nageoffer.ai.ragent.knowledge.event.KnowledgeBaseChangedEvent;
+import com.nageoffer.ai.ragent.rag.config.SearchChannelProperties;
+import com.nageoffer.ai.ragent.rag.config.SemanticCacheProperties;
+import com.nageoffer.ai.ragent.rag.core.intent.NodeScore;
+import com.nageoffer.ai.ragent.rag.core.retrieve.QueryEmbedding;
+import com.nageoffer.ai.ragent.rag.core.retrieve.RetrieverService;
+import com.nageoffer.ai.ragent.rag.dto.SubQuestionIntent;
+import com.nageoffer.ai.ragent.rag.util.VectorUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * 语义答案缓存
+ * <p>
+ * 位于检索引擎与大模型流式输出之前：
+ * 1. 以改写后问题的归一化向量为键，在内存扁平索引中做余弦相似度（点积）检索
+ * 2. 命中且未过期时直接返回缓存答案，由调用方通过 StreamCallback 回放，SSE 协议保持不变
+ * 3. 未命中时记录本次完整回答，正常结束后写入缓存
+ * <p>
+ * 答案受对话历史影响，调用方只对没有历史的首轮对话使用缓存
+ * <p>
+ * 失效策略：
+ * - 条目按 TTL 过期，超过最大条目数时按 LRU 淘汰
+ * - 监听知识库变更事件（事务提交后触发，每次文档操作一次），通过 Redis Topic 通知所有节点清理依赖该知识库的条目
+ * - 依赖全局检索（未命中明确 KB 意图）的条目，任一知识库变更都会被清理
+ * - 查找时记录变更代次，生成回答期间发生过知识库变更的答案不写入缓存，避免基于旧文档的答案在清理后写回
+ */
+@Slf4j
+@Component
+public class SemanticAnswerCache {
+
+    private static final String INVALIDATE_TOPIC = "ragent:semantic-cache:invalidate";
+
+    private final SemanticCacheProperties properties;
+    private final SearchChannelProperties searchChannelProperties;
+    private final RetrieverService retrieverService;
+    private final RedissonClient redissonClient;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LinkedHashMap<Long, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong idGenerator = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+    private int listenerId = -1;
+
+    public SemanticAnswerCache(SemanticCacheProperties properties,
+                               SearchChannelProperties searchChannelProperties,
+                               RetrieverService retrieverService,
+                               RedissonClient redissonClient) {
+        this.properties = properties;
+        this.searchChannelProperties = searchChannelProperties;
+        this.retrieverService = retrieverService;
+        this.redissonClient = redissonClient;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        RTopic topic = redissonClient.getTopic(INVALIDATE_TOPIC);
+        listenerId = topic.addListener(String.class, (channel, kbId) -> {
+            if (StrUtil.isBlank(kbId)) {
+                return;
+            }
+            invalidateLocal(kbId);
+        });
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (listenerId == -1) {
+            return;
+        }
+        redissonClient.getTopic(INVALIDATE_TOPIC).removeListener(listenerId);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 按问题查找语义相近的缓存答案
+     *
+     * @param question 改写后的问题
+     * @return 查找结果，包含问题向量（未命中时供写入复用）；向量化失败时返回 null
+     */
+    public Lookup lookup(String question) {
+        if (!isEnabled() || StrUtil.isBlank(question)) {
+            return null;
+        }
+
+        // 先于向量化读取代次，此后到写入前的任何知识库变更都会使本次答案不被缓存
+        long lookupGeneration = generation.get();
+        float[] vector;
+        try {
+            vector = retrieverService.embedQuery(question);
+        } catch (Exception e) {
+            log.warn("语义缓存向量化失败，跳过缓存：{}", e.getMessage());
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        Long bestId = null;
+        double bestScore = -1D;
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Long, CacheEntry> each : entries.entrySet()) {
+                CacheEntry entry = each.getValue();
+                if (entry.expireAt() <= now) {
+                    continue;
+                }
+                double score = VectorUtil.dot(vector, entry.vector());
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestId = each.getKey();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (bestId == null || bestScore < properties.getSimilarityThreshold()) {
+            return new Lookup(question, vector, null, lookupGeneration);
+        }
+
+        lock.writeLock().lock();
+        try {
+            // 访问顺序模式下 get 会刷新 LRU 位置
+            CacheEntry hit = entries.get(bestId);
+            if (hit == null) {
+                return new Lookup(question, vector, null, lookupGeneration);
+            }
+            log.info("语义缓存命中，相似度：{}，问题：{}，缓存问题：{}", bestScore, question, hit.question());
+            return new Lookup(question, vector, hit.answer(), lookupGeneration);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 包装回调：透传所有事件，并在正常结束时把完整回答写入缓存
+     *
+     * @param delegate   原始回调
+     * @param lookup     未命中的查找结果
+     * @param subIntents 子问题意图，用于计算答案依赖的知识库
+     * @param cancelled  任务是否已取消（取消的回答不写入缓存）
+     * @return 包装后的回调
+     */
+    public StreamCallback recording(StreamCallback delegate,
+                                    Lookup lookup,
+                                    List<SubQuestionIntent> subIntents,
+                                    BooleanSupplier cancelled) {
+        if (lookup == null || lookup.isHit()) {
+            return delegate;
+        }
+        Dependencies dependencies = resolveDependencies(subIntents);
+        return new SemanticCacheRecordingCallback(delegate, cancelled,
+                answer -> put(lookup, answer, dependencies));
+    }
+
+    /**
+     * 知识库内容变更后清理缓存；在事务中发布时于提交后执行，无事务时立即执行
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onKnowledgeBaseChanged(KnowledgeBaseChangedEvent event) {
+        invalidateKnowledgeBase(event.kbId());
+    }
+
+    /**
+     * 清理依赖指定知识库的缓存条目（广播到所有节点）
+     *
+     * @param kbId 知识库 ID
+     */
+    public void invalidateKnowledgeBase(String kbId) {
+        if (!isEnabled() || StrUtil.isBlank(kbId)) {
+            return;
+        }
+        redissonClient.getTopic(INVALIDATE_TOPIC).publishAsync(kbId);
+    }
+
+    private void put(Lookup lookup, String answer, Dependencies dependencies) {
+        if (StrUtil.isBlank(answer)) {
+            return;
+        }
+        long expireAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(properties.getTtlMinutes());
+        CacheEntry entry = new CacheEntry(lookup.question(), lookup.vector(), answer,
+                dependencies.kbIds(), dependencies.global(), expireAt);
+
+        lock.writeLock().lock();
+        try {
+            if (generation.get() != lookup.generation()) {
+                log.debug("生成回答期间知识库发生变更，跳过写入语义缓存，问题：{}", lookup.question());
+                return;
+            }
+            entries.put(idGenerator.incrementAndGet(), entry);
+            evictIfNecessary();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void invalidateLocal(String kbId) {
+        int removed = 0;
+        lock.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            Iterator<CacheEntry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                CacheEntry entry = iterator.next();
+                if (entry.global() || entry.kbIds().contains(kbId)) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (removed > 0) {
+            log.info("知识库 {} 发生变更，清理语义缓存 {} 条", kbId, removed);
+        }
+    }
+
+    /**
+     * 先清理过期条目，再按 LRU 淘汰至容量上限（需持有写锁）
+     */
+    private void evictIfNecessary() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expireAt() <= now);
+
+        int maxEntries = Math.max(1, properties.getMaxEntries());
+        Iterator<Long> iterator = entries.keySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 计算答案依赖的知识库
+     * <p>
+     * 没有 KB 意图或意图置信度低于全局检索阈值时，全局检索通道会参与召回，答案视为依赖全部知识库
+     */
+    private Dependencies resolveDependencies(List<SubQuestionIntent> subIntents) {
+        List<NodeScore> kbScores = CollUtil.emptyIfNull(subIntents).stream()
+                .flatMap(si -> si.nodeScores().stream())
+                .filter(ns -> ns.getNode() != null && ns.getNode().isKB())
+                .toList();
+        Set<String> kbIds = kbScores.stream()
+                .map(ns -> ns.getNode().getKbId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet());
+
+        double maxScore = kbScores.stream()
+                .mapToDouble(NodeScore::getScore)
+                .max()
+                .orElse(0D);
+        double threshold = searchChannelProperties.getChannels().getVectorGlobal().getConfidenceThreshold();
+        boolean global = kbIds.isEmpty() || maxScore < threshold;
+        return new Dependencies(kbIds, global);
+    }
+
+    /**
+     * 缓存查找结果
+     *
+     * @param question   查询问题
+     * @param vector     问题的归一化向量
+     * @param answer     命中的缓存答案，未命中时为 null
+     * @param generation 查找时的知识库变更代次
+     */
+    public record Lookup(String question, float[] vector, String answer, long generation) {
+
+        public boolean isHit() {
+            return answer != null;
+        }
+
+        /**
+         * 供检索阶段复用的问题向量
+         */
+        public QueryEmbedding queryEmbedding() {
+            return new QueryEmbedding(question, vector);
+        }
+    }
+
+    private record Dependencies(Set<String> kbIds, boolean global) {
+    }
+
+    private record CacheEntry(String question,
+                              float[] vector,
+                              String answer,
+                              Set<String> kbIds,
+                              boolean global,
+                              long expireAt) {
+    }
+}
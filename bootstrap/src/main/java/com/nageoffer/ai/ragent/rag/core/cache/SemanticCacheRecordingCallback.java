@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.cache;
+
+import com.nageoffer.ai.ragent.infra.chat.StreamCallback;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * 语义缓存记录回调
+ * <p>
+ * 透传所有流式事件给原始回调，同时累积回答内容；
+ * 仅在正常结束且未被取消时把完整回答交给缓存，异常或取消的回答不会被缓存
+ */
+class SemanticCacheRecordingCallback implements StreamCallback {
+
+    private final StreamCallback delegate;
+    private final BooleanSupplier cancelled;
+    private final Consumer<String> onAnswer;
+    private final StringBuilder answer = new StringBuilder();
+    private volatile boolean failed;
+
+    SemanticCacheRecordingCallback(StreamCallback delegate, BooleanSupplier cancelled, Consumer<String> onAnswer) {
+        this.delegate = delegate;
+        this.cancelled = cancelled;
+        this.onAnswer = onAnswer;
+    }
+
+    @Override
+    public void onContent(String content) {
+        if (content != null) {
+            answer.append(content);
+        }
+        delegate.onContent(content);
+    }
+
+    @Override
+    public void onThinking(String content) {
+        delegate.onThinking(content);
+    }
+
+    @Override
+    public void onComplete() {
+        // 需在委托之前判断，委托的 onComplete 会注销任务导致取消状态丢失
+        boolean cacheable = !failed && !cancelled.getAsBoolean();
+        delegate.onComplete();
+        if (cacheable) {
+            onAnswer.accept(answer.toString());
+        }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        failed = true;
+        delegate.onError(error);
+    }
+}
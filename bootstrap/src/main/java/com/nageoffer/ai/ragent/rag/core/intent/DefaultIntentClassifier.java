@@ -25,14 +25,18 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.nageoffer.ai.ragent.infra.embedding.EmbeddingService;
 import com.nageoffer.ai.ragent.infra.util.LLMResponseCleaner;
+import com.nageoffer.ai.ragent.rag.config.IntentClassifierProperties;
 import com.nageoffer.ai.ragent.rag.dao.entity.IntentNodeDO;
 import com.nageoffer.ai.ragent.rag.dao.mapper.IntentNodeMapper;
 import com.nageoffer.ai.ragent.framework.convention.ChatMessage;
 import com.nageoffer.ai.ragent.framework.convention.ChatRequest;
 import com.nageoffer.ai.ragent.infra.chat.LLMService;
 import com.nageoffer.ai.ragent.rag.core.prompt.PromptTemplateLoader;
+import com.nageoffer.ai.ragent.rag.util.VectorUtil;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -44,6 +48,8 @@ import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static com.nageoffer.ai.ragent.rag.constant.RAGConstant.INTENT_CLASSIFIER_PROMPT_PATH;
@@ -52,6 +58,9 @@ import static com.nageoffer.ai.ragent.rag.constant.RAGConstant.INTENT_CLASSIFIER
  * LLM 树形意图分类器（串行实现）
  * <p>
  * 将所有意图节点一次性发送给 LLM 进行识别打分，适用于意图数量较少的场景
+ * <p>
+ * 启用向量预分类时，先在本地按余弦相似度打分，结果明确（最高分足够高且与第二名拉开差距）时直接返回，
+ * 只有歧义问题才调用 LLM
  */
 @Slf4j
 @Service
@@ -62,14 +71,50 @@ public class DefaultIntentClassifier implements IntentClassifier, IntentNodeRegi
     private final IntentNodeMapper intentNodeMapper;
     private final PromptTemplateLoader promptTemplateLoader;
     private final IntentTreeCacheManager intentTreeCacheManager;
+    private final IntentEmbeddingIndex intentEmbeddingIndex;
+    private final IntentClassifierProperties intentClassifierProperties;
+    private final EmbeddingService embeddingService;
+
+    /**
+     * 本地快照版本号校验间隔，作为 Topic 通知丢失时的兜底
+     */
+    private static final long VERSION_CHECK_INTERVAL_MS = 30_000L;
+
+    /**
+     * 当前生效的意图树快照，为空表示需要重新加载
+     */
+    private final AtomicReference<IntentTreeSnapshot> snapshotRef = new AtomicReference<>();
+
+    /**
+     * 失效通知计数，用于避免加载过程中收到的通知被旧快照覆盖
+     */
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    private final AtomicLong lastVersionCheckAt = new AtomicLong();
+
+    private int invalidationListenerId = -1;
 
     @PostConstruct
     public void init() {
         // 初始化时确保Redis缓存存在
         ensureIntentTreeCached();
+        // 意图节点变更时丢弃本地快照，下次访问重新加载
+        invalidationListenerId = intentTreeCacheManager.subscribeInvalidation(() -> {
+            invalidationCount.incrementAndGet();
+            snapshotRef.set(null);
+            log.info("收到意图树变更通知，本地快照已失效");
+        });
+        currentSnapshot();
         log.info("意图分类器初始化完成");
     }
 
+    @PreDestroy
+    public void destroy() {
+        if (invalidationListenerId != -1) {
+            intentTreeCacheManager.unsubscribeInvalidation(invalidationListenerId);
+        }
+    }
+
     /**
      * 确保Redis缓存中有意图树数据
      * 如果缓存不存在，从数据库加载并保存到Redis
@@ -85,10 +130,51 @@ public class DefaultIntentClassifier implements IntentClassifier, IntentNodeRegi
     }
 
     /**
-     * 从Redis加载意图树并构建内存结构
-     * 每次调用都会重新从Redis读取，确保数据是最新的
+     * 获取当前意图树快照
+     * <p>
+     * 正常情况下直接返回内存快照，不访问 Redis；
+     * 仅在快照被变更通知置空，或到达版本号校验间隔且版本号变化时才重新加载
      */
-    private IntentTreeData loadIntentTreeData() {
+    private IntentTreeSnapshot currentSnapshot() {
+        IntentTreeSnapshot snapshot = snapshotRef.get();
+        if (snapshot != null && !isVersionCheckDue()) {
+            return snapshot;
+        }
+
+        synchronized (this) {
+            snapshot = snapshotRef.get();
+            if (snapshot != null) {
+                if (!isVersionCheckDue()) {
+                    return snapshot;
+                }
+                lastVersionCheckAt.set(System.currentTimeMillis());
+                if (intentTreeCacheManager.getVersion() == snapshot.version()) {
+                    return snapshot;
+                }
+                log.info("意图树版本号变化，重新加载本地快照，旧版本：{}", snapshot.version());
+            }
+
+            long stamp = invalidationCount.get();
+            IntentTreeSnapshot loaded = loadIntentTreeSnapshot();
+            lastVersionCheckAt.set(System.currentTimeMillis());
+            if (invalidationCount.get() == stamp) {
+                snapshotRef.set(loaded);
+            }
+            return loaded;
+        }
+    }
+
+    private boolean isVersionCheckDue() {
+        return System.currentTimeMillis() - lastVersionCheckAt.get() >= VERSION_CHECK_INTERVAL_MS;
+    }
+
+    /**
+     * 从Redis加载意图树并构建不可变快照（预建索引与 Prompt）
+     */
+    private IntentTreeSnapshot loadIntentTreeSnapshot() {
+        // 先读版本号再读数据，数据若比版本号新，下次校验时会多加载一次，不会读到旧数据却标记新版本
+        long version = intentTreeCacheManager.getVersion();
+
         // 1. 从Redis读取（如果不存在会自动从数据库加载）
         List<IntentNode> roots = intentTreeCacheManager.getIntentTreeFromCache();
 
@@ -100,21 +186,28 @@ public class DefaultIntentClassifier implements IntentClassifier, IntentNodeRegi
             }
         }
 
-        // 3. 构建内存结构（临时使用）
+        // 3. 构建内存快照
         if (CollUtil.isEmpty(roots)) {
-            return new IntentTreeData(List.of(), List.of(), Map.of());
+            return new IntentTreeSnapshot(version, List.of(), List.of(), Map.of(), "", "");
         }
 
         List<IntentNode> allNodes = flatten(roots);
         List<IntentNode> leafNodes = allNodes.stream()
                 .filter(IntentNode::isLeaf)
-                .collect(Collectors.toList());
+                .toList();
         Map<String, IntentNode> id2Node = allNodes.stream()
-                .collect(Collectors.toMap(IntentNode::getId, n -> n));
+                .collect(Collectors.toUnmodifiableMap(IntentNode::getId, n -> n, (a, b) -> a));
+        String systemPrompt = buildPrompt(leafNodes);
+        String fingerprint = IntentEmbeddingIndex.fingerprint(leafNodes);
 
-        log.debug("意图树数据加载完成, 总节点数: {}, 叶子节点数: {}", allNodes.size(), leafNodes.size());
+        // 意图树刷新时预计算叶子节点向量
+        if (intentClassifierProperties.getEmbedding().isEnabled()) {
+            intentEmbeddingIndex.refreshAsync(leafNodes, fingerprint);
+        }
+
+        log.info("意图树快照加载完成, 版本: {}, 总节点数: {}, 叶子节点数: {}", version, allNodes.size(), leafNodes.size());
 
-        return new IntentTreeData(allNodes, leafNodes, id2Node);
+        return new IntentTreeSnapshot(version, List.copyOf(roots), leafNodes, id2Node, systemPrompt, fingerprint);
     }
 
     @Override
@@ -122,17 +215,26 @@ public class DefaultIntentClassifier implements IntentClassifier, IntentNodeRegi
         if (id == null || id.isBlank()) {
             return null;
         }
-        IntentTreeData data = loadIntentTreeData();
-        return data.id2Node.get(id);
+        return currentSnapshot().id2Node().get(id);
     }
 
     /**
-     * 意图树数据结构（临时对象，不持久化）
+     * 意图树快照（不可变，整体替换）
+     *
+     * @param version      Redis 中的意图树版本号
+     * @param roots        根节点
+     * @param leafNodes    叶子节点
+     * @param id2Node      节点 ID 索引（包含所有层级）
+     * @param systemPrompt 预渲染的意图识别系统 Prompt
+     * @param fingerprint  叶子节点内容指纹，用于校验向量索引
      */
-    private record IntentTreeData(
-            List<IntentNode> allNodes,
+    private record IntentTreeSnapshot(
+            long version,
+            List<IntentNode> roots,
             List<IntentNode> leafNodes,
-            Map<String, IntentNode> id2Node
+            Map<String, IntentNode> id2Node,
+            String systemPrompt,
+            String fingerprint
     ) {
     }
 
@@ -157,10 +259,16 @@ public class DefaultIntentClassifier implements IntentClassifier, IntentNodeRegi
      */
     @Override
     public List<NodeScore> classifyTargets(String question) {
-        // 每次都从Redis读取最新数据
-        IntentTreeData data = loadIntentTreeData();
+        // 使用本地快照，无需每次访问 Redis 与反序列化
+        IntentTreeSnapshot data = currentSnapshot();
+
+        // 向量预分类结果明确时跳过 LLM 调用
+        List<NodeScore> embeddingScores = classifyByEmbedding(question, data);
+        if (embeddingScores != null) {
+            return embeddingScores;
+        }
 
-        String systemPrompt = buildPrompt(data.leafNodes);
+        String systemPrompt = data.systemPrompt;
         ChatRequest request = ChatRequest.builder()
                 .messages(List.of(
                         ChatMessage.system(systemPrompt),
@@ -212,13 +320,16 @@ public class DefaultIntentClassifier implements IntentClassifier, IntentNodeRegi
             // 降序排序
             scores.sort(Comparator.comparingDouble(NodeScore::getScore).reversed());
 
-            log.info("当前问题：{}\n意图识别树如下所示：{}\n",
+            // 快照中的节点是共享对象，日志只输出摘要，避免修改节点
+            log.info("当前问题：{}\n意图识别结果如下所示：{}\n",
                     question,
                     JSONUtil.toJsonPrettyStr(
-                            scores.stream().peek(each -> {
-                                IntentNode node = each.getNode();
-                                node.setChildren(null);
-                            }).collect(Collectors.toList())
+                            scores.stream()
+                                    .map(each -> Map.of(
+                                            "id", each.getNode().getId(),
+                                            "path", String.valueOf(each.getNode().getFullPath()),
+                                            "score", each.getScore()))
+                                    .collect(Collectors.toList())
                     )
             );
             return scores;
@@ -228,6 +339,69 @@ public class DefaultIntentClassifier implements IntentClassifier, IntentNodeRegi
         }
     }
 
+    /**
+     * 向量预分类
+     * <p>
+     * 得分不低于 acceptScore 的节点全部入选，多意图问题不会只保留最高分节点；
+     * 入选节点最低分与未入选节点最高分的分差不足 minMargin 时，说明边界附近存在歧义
+     *
+     * @return 结果明确时返回全部入选节点（按得分降序）；未启用、索引未就绪或存在歧义时返回 null，由调用方回退 LLM
+     */
+    private List<NodeScore> classifyByEmbedding(String question, IntentTreeSnapshot data) {
+        IntentClassifierProperties.Embedding config = intentClassifierProperties.getEmbedding();
+        if (!config.isEnabled() || data.leafNodes.isEmpty()) {
+            return null;
+        }
+
+        String fingerprint = data.fingerprint;
+        if (!intentEmbeddingIndex.isReady(fingerprint)) {
+            intentEmbeddingIndex.refreshAsync(data.leafNodes, fingerprint);
+            return null;
+        }
+
+        float[] queryVector;
+        try {
+            queryVector = VectorUtil.normalize(embeddingService.embedVector(question));
+        } catch (Exception e) {
+            log.warn("意图向量预分类失败，回退 LLM 识别：{}", e.getMessage());
+            return null;
+        }
+
+        List<IntentEmbeddingIndex.Scored> scored = intentEmbeddingIndex.score(queryVector, fingerprint);
+        if (CollUtil.isEmpty(scored)) {
+            return null;
+        }
+
+        // 得分已降序，统计达到采纳分的节点数
+        int accepted = 0;
+        while (accepted < scored.size() && scored.get(accepted).score() >= config.getAcceptScore()) {
+            accepted++;
+        }
+        double lowestAccepted = accepted > 0 ? scored.get(accepted - 1).score() : 0D;
+        double bestRejected = accepted < scored.size() ? scored.get(accepted).score() : 0D;
+        if (accepted == 0 || lowestAccepted - bestRejected < config.getMinMargin()) {
+            log.info("意图向量预分类结果存在歧义，回退 LLM 识别，问题：{}，Top1：{}，入选数：{}，边界分差：{}",
+                    question, scored.get(0).score(), accepted, lowestAccepted - bestRejected);
+            return null;
+        }
+
+        List<NodeScore> scores = new ArrayList<>(accepted);
+        for (IntentEmbeddingIndex.Scored each : scored.subList(0, accepted)) {
+            IntentNode node = data.id2Node.get(each.nodeId());
+            if (node != null) {
+                scores.add(new NodeScore(node, each.score()));
+            }
+        }
+        if (scores.isEmpty()) {
+            return null;
+        }
+        log.info("意图向量预分类命中，问题：{}，意图：{}，边界分差：{}",
+                question,
+                scores.stream().map(each -> each.getNode().getFullPath() + "=" + each.getScore()).toList(),
+                lowestAccepted - bestRejected);
+        return scores;
+    }
+
     /**
      * 方便使用：
      * - 只取前 topN
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.intent;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.nageoffer.ai.ragent.infra.embedding.EmbeddingService;
+import com.nageoffer.ai.ragent.rag.util.VectorUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 意图叶子节点向量索引
+ * <p>
+ * 为每个叶子节点的「路径 + 描述」以及每条示例问题预计算归一化向量，
+ * 节点得分取问题向量与该节点所有向量的最大余弦相似度
+ * <p>
+ * 索引按叶子节点内容指纹构建，意图树变化后异步重建，重建期间返回未就绪，由调用方回退 LLM 识别
+ */
+@Slf4j
+@Component
+public class IntentEmbeddingIndex {
+
+    private final EmbeddingService embeddingService;
+    private final Executor rebuildExecutor;
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private volatile IndexSnapshot snapshot = new IndexSnapshot("", List.of());
+
+    public IntentEmbeddingIndex(EmbeddingService embeddingService,
+                                @Qualifier("intentClassifyThreadPoolExecutor") Executor rebuildExecutor) {
+        this.embeddingService = embeddingService;
+        this.rebuildExecutor = rebuildExecutor;
+    }
+
+    /**
+     * 计算叶子节点的内容指纹，节点 ID、类型、路径、描述、示例任一变化都会改变指纹
+     */
+    public static String fingerprint(List<IntentNode> leafNodes) {
+        StringBuilder sb = new StringBuilder();
+        leafNodes.stream()
+                .sorted(Comparator.comparing(IntentNode::getId))
+                .forEach(node -> {
+                    sb.append(node.getId()).append('|')
+                            .append(node.getKind()).append('|')
+                            .append(node.getFullPath()).append('|')
+                            .append(node.getDescription()).append('|');
+                    CollUtil.emptyIfNull(node.getExamples()).forEach(ex -> sb.append(ex).append('|'));
+                    sb.append('\n');
+                });
+        return DigestUtil.md5Hex(sb.toString());
+    }
+
+    /**
+     * 索引是否与指定指纹一致
+     */
+    public boolean isReady(String fingerprint) {
+        return StrUtil.isNotBlank(fingerprint) && fingerprint.equals(snapshot.fingerprint());
+    }
+
+    /**
+     * 索引与叶子节点不一致时触发异步重建（同一时刻只有一个重建任务）
+     */
+    public void refreshAsync(List<IntentNode> leafNodes, String fingerprint) {
+        if (isReady(fingerprint) || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuildExecutor.execute(() -> {
+                try {
+                    refresh(leafNodes, fingerprint);
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        } catch (Exception e) {
+            rebuilding.set(false);
+            log.warn("提交意图向量索引重建任务失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 同步重建索引
+     */
+    public void refresh(List<IntentNode> leafNodes, String fingerprint) {
+        long start = System.currentTimeMillis();
+        List<String> owners = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        for (IntentNode node : leafNodes) {
+            owners.add(node.getId());
+            texts.add(buildNodeText(node));
+            for (String example : CollUtil.emptyIfNull(node.getExamples())) {
+                if (StrUtil.isNotBlank(example)) {
+                    owners.add(node.getId());
+                    texts.add(example);
+                }
+            }
+        }
+
+        try {
+            List<float[]> vectors = texts.isEmpty() ? List.of() : embeddingService.embedVectorBatch(texts);
+            Map<String, List<float[]>> nodeVectors = new HashMap<>();
+            for (int i = 0; i < vectors.size(); i++) {
+                nodeVectors.computeIfAbsent(owners.get(i), k -> new ArrayList<>())
+                        .add(VectorUtil.normalize(vectors.get(i)));
+            }
+            List<NodeVectors> entries = nodeVectors.entrySet().stream()
+                    .map(e -> new NodeVectors(e.getKey(), List.copyOf(e.getValue())))
+                    .toList();
+            snapshot = new IndexSnapshot(fingerprint, entries);
+            log.info("意图向量索引重建完成，叶子节点数：{}，向量数：{}，耗时：{}ms",
+                    entries.size(), vectors.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("意图向量索引重建失败，继续使用 LLM 识别", e);
+        }
+    }
+
+    /**
+     * 对所有叶子节点打分
+     *
+     * @param queryVector 归一化后的问题向量
+     * @param fingerprint 当前意图树指纹，与索引不一致时返回 null
+     * @return 按得分从高到低排序的（节点 ID, 得分）列表
+     */
+    public List<Scored> score(float[] queryVector, String fingerprint) {
+        IndexSnapshot current = snapshot;
+        if (!fingerprint.equals(current.fingerprint())) {
+            return null;
+        }
+        List<Scored> result = new ArrayList<>(current.entries().size());
+        for (NodeVectors entry : current.entries()) {
+            double best = -1D;
+            for (float[] vector : entry.vectors()) {
+                best = Math.max(best, VectorUtil.dot(queryVector, vector));
+            }
+            result.add(new Scored(entry.nodeId(), best));
+        }
+        result.sort(Comparator.comparingDouble(Scored::score).reversed());
+        return result;
+    }
+
+    private String buildNodeText(IntentNode node) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("路径: ").append(node.getFullPath()).append("\n");
+        if (StrUtil.isNotBlank(node.getDescription())) {
+            sb.append("说明: ").append(node.getDescription());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 节点得分
+     *
+     * @param nodeId 意图节点 ID
+     * @param score  余弦相似度
+     */
+    public record Scored(String nodeId, double score) {
+    }
+
+    private record NodeVectors(String nodeId, List<float[]> vectors) {
+    }
+
+    private record IndexSnapshot(String fingerprint, List<NodeVectors> entries) {
+    }
+}
@@ -17,10 +17,12 @@
 
 package com.nageoffer.ai.ragent.rag.core.intent;
 
+import cn.hutool.core.util.NumberUtil;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
@@ -30,6 +32,9 @@ import java.util.concurrent.TimeUnit;
 /**
  * 意图树缓存管理器
  * 负责意图树在Redis中的缓存管理
+ * <p>
+ * 除意图树 JSON 外还维护一个版本号 Key，意图节点增删改清除缓存时版本号自增，
+ * 并通过 Redis Topic 通知所有节点丢弃本地快照
  */
 @Slf4j
 @Component
@@ -38,12 +43,23 @@ public class IntentTreeCacheManager {
 
     private final StringRedisTemplate stringRedisTemplate;
     private final ObjectMapper objectMapper;
+    private final RedissonClient redissonClient;
 
     /**
      * Redis缓存Key
      */
     private static final String INTENT_TREE_CACHE_KEY = "ragent:intent:tree";
 
+    /**
+     * 意图树版本号Key
+     */
+    private static final String INTENT_TREE_VERSION_KEY = "ragent:intent:tree:version";
+
+    /**
+     * 意图树变更通知Topic
+     */
+    private static final String INTENT_TREE_INVALIDATE_TOPIC = "ragent:intent:tree:invalidate";
+
     /**
      * 缓存过期时间：7天
      */
@@ -108,6 +124,50 @@ public class IntentTreeCacheManager {
         } catch (Exception e) {
             log.error("清除意图树缓存失败", e);
         }
+
+        // 无论缓存是否存在，都推进版本号并通知各节点丢弃本地快照
+        try {
+            Long version = stringRedisTemplate.opsForValue().increment(INTENT_TREE_VERSION_KEY);
+            redissonClient.getTopic(INTENT_TREE_INVALIDATE_TOPIC).publish(String.valueOf(version));
+            log.info("意图树版本号已更新：{}", version);
+        } catch (Exception e) {
+            log.error("更新意图树版本号失败", e);
+        }
+    }
+
+    /**
+     * 获取意图树当前版本号
+     *
+     * @return 版本号，不存在或读取失败时返回 0
+     */
+    public long getVersion() {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(INTENT_TREE_VERSION_KEY);
+            return NumberUtil.isLong(value) ? Long.parseLong(value) : 0L;
+        } catch (Exception e) {
+            log.error("读取意图树版本号失败", e);
+            return 0L;
+        }
+    }
+
+    /**
+     * 订阅意图树变更通知
+     *
+     * @param listener 收到通知时执行的回调
+     * @return 监听器 ID，用于取消订阅
+     */
+    public int subscribeInvalidation(Runnable listener) {
+        return redissonClient.getTopic(INTENT_TREE_INVALIDATE_TOPIC)
+                .addListener(String.class, (channel, version) -> listener.run());
+    }
+
+    /**
+     * 取消订阅意图树变更通知
+     *
+     * @param listenerId 监听器 ID
+     */
+    public void unsubscribeInvalidation(int listenerId) {
+        redissonClient.getTopic(INTENT_TREE_INVALIDATE_TOPIC).removeListener(listenerId);
     }
 
     /**
@@ -0,0 +1,332 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.memory;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.Gson;
+import com.nageoffer.ai.ragent.framework.convention.ChatMessage;
+import com.nageoffer.ai.ragent.rag.config.MemoryProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 热会话记忆缓存
+ * <p>
+ * 两级缓存：进程内 Guava Cache + Redis，过期时间取 {@code rag.memory.ttl-minutes}
+ * <ul>
+ *     <li>历史消息：Redis List 作为环形缓冲，只保留最近 historyKeepTurns * 2 条；
+ *     首元素为装载标记，存在即表示已从 MySQL 装载（空会话同样缓存）</li>
+ *     <li>摘要：Redis String，空串表示该会话暂无摘要</li>
+ * </ul>
+ * 追加只作用于已装载的缓存，并在同一脚本中写入 {@link ConversationMessageWriteBehind} 的共享待落库队列；
+ * 未装载时由调用方直接写 MySQL，保证“存在待落库消息的会话一定在缓存中”，缓存未命中时读 MySQL 即是完整历史。
+ * 任一节点修改后通过 Redisson Topic 通知其他节点失效本地缓存
+ */
+@Slf4j
+@Component
+public class ConversationMemoryCache {
+
+    private static final String HISTORY_KEY_PREFIX = "ragent:memory:history:";
+    private static final String SUMMARY_KEY_PREFIX = "ragent:memory:summary:";
+    private static final String INVALIDATE_TOPIC = "ragent:memory:invalidate";
+    private static final String SEED_LUA_PATH = "lua/memory_history_seed.lua";
+    private static final String APPEND_LUA_PATH = "lua/memory_history_append.lua";
+
+    /**
+     * 历史列表首元素标记，消息均为 JSON 对象，不会与之混淆
+     */
+    private static final String HISTORY_HEAD = "~";
+    private static final String NO_SUMMARY = "";
+
+    private final RedissonClient redissonClient;
+    private final MemoryProperties memoryProperties;
+    private final Gson gson = new Gson();
+    private final String nodeId = IdUtil.fastSimpleUUID();
+    private final String seedLua = loadLuaScript(SEED_LUA_PATH);
+    private final String appendLua = loadLuaScript(APPEND_LUA_PATH);
+    private final Cache<String, List<ChatMessage>> localHistories;
+    private final Cache<String, String> localSummaries;
+
+    private volatile int listenerId = -1;
+
+    public ConversationMemoryCache(RedissonClient redissonClient, MemoryProperties memoryProperties) {
+        this.redissonClient = redissonClient;
+        this.memoryProperties = memoryProperties;
+        Duration ttl = Duration.ofMinutes(memoryProperties.getTtlMinutes());
+        this.localHistories = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(memoryProperties.getLocalCacheMaxSize())
+                .build();
+        this.localSummaries = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(memoryProperties.getLocalCacheMaxSize())
+                .build();
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerId = redissonClient.getTopic(INVALIDATE_TOPIC, StringCodec.INSTANCE)
+                .addListener(String.class, (channel, msg) -> onInvalidate(msg));
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (listenerId != -1) {
+            redissonClient.getTopic(INVALIDATE_TOPIC, StringCodec.INSTANCE).removeListener(listenerId);
+        }
+    }
+
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(memoryProperties.getCacheEnabled());
+    }
+
+    /**
+     * 读取缓存的历史消息（时间正序）
+     *
+     * @return 未命中时返回 null；已装载的空会话返回空列表
+     */
+    public List<ChatMessage> getHistory(String conversationId, String userId) {
+        if (!isEnabled()) {
+            return null;
+        }
+        String key = conversationKey(conversationId, userId);
+        List<ChatMessage> local = localHistories.getIfPresent(key);
+        if (local != null) {
+            return local;
+        }
+        try {
+            List<String> entries = redissonClient.<String>getList(HISTORY_KEY_PREFIX + key, StringCodec.INSTANCE).readAll();
+            if (CollUtil.isEmpty(entries)) {
+                return null;
+            }
+            List<ChatMessage> messages = new ArrayList<>(entries.size());
+            for (int i = 1; i < entries.size(); i++) {
+                messages.add(gson.fromJson(entries.get(i), ChatMessage.class));
+            }
+            List<ChatMessage> history = List.copyOf(tail(messages));
+            localHistories.put(key, history);
+            return history;
+        } catch (Exception e) {
+            log.warn("读取对话历史缓存失败，回退 MySQL - conversationId: {}, userId: {}", conversationId, userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * 用 MySQL 中的最近消息装载缓存；缓存已存在时不覆盖
+     */
+    public void seedHistory(String conversationId, String userId, List<ChatMessage> messages) {
+        if (!isEnabled()) {
+            return;
+        }
+        String key = conversationKey(conversationId, userId);
+        List<ChatMessage> history = List.copyOf(tail(messages));
+        List<Object> args = new ArrayList<>(history.size() + 2);
+        args.add(String.valueOf(ttlMillis()));
+        args.add(HISTORY_HEAD);
+        history.forEach(message -> args.add(gson.toJson(message)));
+        try {
+            Long seeded = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                    RScript.Mode.READ_WRITE,
+                    seedLua,
+                    RScript.ReturnType.INTEGER,
+                    List.of(HISTORY_KEY_PREFIX + key),
+                    args.toArray()
+            );
+            if (seeded != null && seeded == 1L) {
+                localHistories.put(key, history);
+            }
+        } catch (Exception e) {
+            log.warn("装载对话历史缓存失败 - conversationId: {}, userId: {}", conversationId, userId, e);
+        }
+    }
+
+    /**
+     * 追加消息到已装载的缓存，同时写入共享待落库队列
+     *
+     * @param pendingRecord {@link ConversationMessageWriteBehind#prepare} 生成的待落库记录
+     * @return 缓存未装载或写入失败时返回 false，调用方需直接写 MySQL
+     */
+    public boolean appendHistory(String conversationId, String userId, ChatMessage message, String pendingRecord) {
+        if (!isEnabled()) {
+            return false;
+        }
+        String key = conversationKey(conversationId, userId);
+        try {
+            Long appended = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                    RScript.Mode.READ_WRITE,
+                    appendLua,
+                    RScript.ReturnType.INTEGER,
+                    List.of(HISTORY_KEY_PREFIX + key,
+                            ConversationMessageWriteBehind.pendingKey(key),
+                            ConversationMessageWriteBehind.PENDING_INDEX_KEY),
+                    gson.toJson(message),
+                    String.valueOf(capacity()),
+                    String.valueOf(ttlMillis()),
+                    pendingRecord,
+                    key,
+                    String.valueOf(System.currentTimeMillis())
+            );
+            if (appended == null || appended != 1L) {
+                localHistories.invalidate(key);
+                return false;
+            }
+        } catch (Exception e) {
+            log.warn("追加对话历史缓存失败 - conversationId: {}, userId: {}", conversationId, userId, e);
+            localHistories.invalidate(key);
+            return false;
+        }
+
+        localHistories.asMap().computeIfPresent(key, (k, current) -> {
+            List<ChatMessage> next = new ArrayList<>(current.size() + 1);
+            next.addAll(current);
+            next.add(message);
+            return List.copyOf(tail(next));
+        });
+        publishInvalidate(key);
+        return true;
+    }
+
+    /**
+     * 读取缓存的摘要内容
+     *
+     * @return 未命中时返回 null；已缓存但无摘要时返回空串
+     */
+    public String getSummary(String conversationId, String userId) {
+        if (!isEnabled()) {
+            return null;
+        }
+        String key = conversationKey(conversationId, userId);
+        String local = localSummaries.getIfPresent(key);
+        if (local != null) {
+            return local;
+        }
+        try {
+            String content = redissonClient.<String>getBucket(SUMMARY_KEY_PREFIX + key, StringCodec.INSTANCE).get();
+            if (content != null) {
+                localSummaries.put(key, content);
+            }
+            return content;
+        } catch (Exception e) {
+            log.warn("读取对话摘要缓存失败，回退 MySQL - conversationId: {}, userId: {}", conversationId, userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * 写入摘要缓存，content 为空表示暂无摘要
+     */
+    public void putSummary(String conversationId, String userId, String content) {
+        if (!isEnabled()) {
+            return;
+        }
+        String key = conversationKey(conversationId, userId);
+        String value = StrUtil.blankToDefault(content, NO_SUMMARY);
+        try {
+            redissonClient.<String>getBucket(SUMMARY_KEY_PREFIX + key, StringCodec.INSTANCE)
+                    .set(value, Duration.ofMillis(ttlMillis()));
+            localSummaries.put(key, value);
+        } catch (Exception e) {
+            log.warn("写入对话摘要缓存失败 - conversationId: {}, userId: {}", conversationId, userId, e);
+            localSummaries.invalidate(key);
+        }
+        publishInvalidate(key);
+    }
+
+    /**
+     * 清除会话的历史与摘要缓存
+     */
+    public void evict(String conversationId, String userId) {
+        String key = conversationKey(conversationId, userId);
+        localHistories.invalidate(key);
+        localSummaries.invalidate(key);
+        try {
+            redissonClient.getKeys().delete(HISTORY_KEY_PREFIX + key, SUMMARY_KEY_PREFIX + key);
+        } catch (Exception e) {
+            log.warn("清除对话记忆缓存失败 - conversationId: {}, userId: {}", conversationId, userId, e);
+        }
+        publishInvalidate(key);
+    }
+
+    private void publishInvalidate(String key) {
+        try {
+            redissonClient.getTopic(INVALIDATE_TOPIC, StringCodec.INSTANCE).publish(nodeId + "|" + key);
+        } catch (Exception e) {
+            log.warn("广播对话记忆缓存失效失败 - key: {}", key, e);
+        }
+    }
+
+    private void onInvalidate(String msg) {
+        int idx = msg == null ? -1 : msg.indexOf('|');
+        if (idx <= 0) {
+            return;
+        }
+        // 本节点的修改已同步更新本地缓存，只处理其他节点的通知
+        if (nodeId.equals(msg.substring(0, idx))) {
+            return;
+        }
+        String key = msg.substring(idx + 1);
+        localHistories.invalidate(key);
+        localSummaries.invalidate(key);
+    }
+
+    private List<ChatMessage> tail(List<ChatMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return List.of();
+        }
+        int capacity = capacity();
+        return messages.size() <= capacity ? messages : messages.subList(messages.size() - capacity, messages.size());
+    }
+
+    private int capacity() {
+        return memoryProperties.getHistoryKeepTurns() * 2;
+    }
+
+    private long ttlMillis() {
+        return Duration.ofMinutes(memoryProperties.getTtlMinutes()).toMillis();
+    }
+
+    static String conversationKey(String conversationId, String userId) {
+        return userId.trim() + ":" + conversationId.trim();
+    }
+
+    private String loadLuaScript(String path) {
+        try {
+            ClassPathResource resource = new ClassPathResource(path);
+            return StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Failed to load lua script: " + path, ex);
+        }
+    }
+}
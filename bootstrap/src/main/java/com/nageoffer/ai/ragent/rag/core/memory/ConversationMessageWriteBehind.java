@@ -0,0 +1,354 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.memory;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.collection.CollUtil;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.google.gson.Gson;
+import com.nageoffer.ai.ragent.rag.config.MemoryProperties;
+import com.nageoffer.ai.ragent.rag.dao.entity.ConversationMessageDO;
+import com.nageoffer.ai.ragent.rag.dao.mapper.ConversationMessageMapper;
+import com.nageoffer.ai.ragent.rag.service.bo.ConversationMessageBO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对话消息写回器
+ * <p>
+ * 热会话的消息与历史缓存在同一 Lua 脚本中写入 Redis 共享待落库队列（每个会话一个 List，
+ * 另有一个 ZSET 索引记录有待落库消息的会话），任一节点都可以领取并按批写入 t_message，
+ * 对话链路不再同步等待 INSERT，节点宕机也不会丢失已返回给前端的消息。
+ * 入队前即分配雪花 ID 与创建时间，返回给前端的消息 ID、按 ID / 创建时间排序的查询与同步写入时一致
+ * <p>
+ * 记录在 INSERT 成功后才从队列移除，重复写入按主键冲突跳过；写入与删除会话在同一会话锁内串行，
+ * 直接读 t_message 的链路（消息列表、反馈、摘要）在查询前调用 flush，若有其他节点正在写入同一会话，
+ * 会等待其完成，从而在集群内读到自己刚写入的消息
+ */
+@Slf4j
+@Component
+public class ConversationMessageWriteBehind {
+
+    static final String PENDING_INDEX_KEY = "ragent:memory:pending";
+    private static final String PENDING_KEY_PREFIX = "ragent:memory:pending:";
+    private static final String LOCK_KEY_PREFIX = "ragent:memory:pending:lock:";
+    private static final String CLAIM_LUA_PATH = "lua/memory_pending_claim.lua";
+    private static final String ACK_LUA_PATH = "lua/memory_pending_ack.lua";
+
+    /**
+     * 领取会话的租约时长，持有节点宕机后由其他节点重新领取
+     */
+    private static final long CLAIM_LEASE_MS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * 查询前等待其他节点写入同一会话的最长时间
+     */
+    private static final long READ_WAIT_MS = TimeUnit.SECONDS.toMillis(3);
+
+    private final ConversationMessageMapper conversationMessageMapper;
+    private final MemoryProperties memoryProperties;
+    private final RedissonClient redissonClient;
+    private final Gson gson = new Gson();
+    private final String claimLua = loadLuaScript(CLAIM_LUA_PATH);
+    private final String ackLua = loadLuaScript(ACK_LUA_PATH);
+    private final ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(
+            1,
+            r -> {
+                Thread thread = new Thread(r);
+                thread.setName("memory_write_behind");
+                thread.setDaemon(true);
+                return thread;
+            }
+    );
+
+    public ConversationMessageWriteBehind(ConversationMessageMapper conversationMessageMapper,
+                                          MemoryProperties memoryProperties,
+                                          RedissonClient redissonClient) {
+        this.conversationMessageMapper = conversationMessageMapper;
+        this.memoryProperties = memoryProperties;
+        this.redissonClient = redissonClient;
+    }
+
+    @PostConstruct
+    public void start() {
+        long intervalMs = memoryProperties.getWriteBehindIntervalMs();
+        scheduler.scheduleWithFixedDelay(this::drainQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 为待落库消息分配 ID 与创建时间
+     */
+    public ConversationMessageDO prepare(ConversationMessageBO conversationMessage) {
+        ConversationMessageDO messageDO = BeanUtil.toBean(conversationMessage, ConversationMessageDO.class);
+        messageDO.setId(IdWorker.getId());
+        messageDO.setCreateTime(new Date());
+        return messageDO;
+    }
+
+    /**
+     * 序列化为待落库记录，由 {@link ConversationMemoryCache#appendHistory} 写入共享队列
+     */
+    public String serialize(ConversationMessageDO messageDO) {
+        PendingRecord record = new PendingRecord();
+        record.id = messageDO.getId();
+        record.conversationId = messageDO.getConversationId();
+        record.userId = messageDO.getUserId();
+        record.role = messageDO.getRole();
+        record.content = messageDO.getContent();
+        record.createTime = messageDO.getCreateTime().getTime();
+        return gson.toJson(record);
+    }
+
+    /**
+     * 落库指定会话的待写入消息（含其他节点写入的），其他节点正在写入该会话时等待其完成
+     *
+     * @return 本次写入的消息数
+     */
+    public int flushConversation(String conversationId, String userId) {
+        return flushMember(ConversationMemoryCache.conversationKey(conversationId, userId), READ_WAIT_MS);
+    }
+
+    /**
+     * 落库全部会话的待写入消息，用于只知道消息 ID 的查询
+     *
+     * @return 本次写入的消息数
+     */
+    public int flushAll() {
+        int total = 0;
+        for (String member : redissonClient.<String>getScoredSortedSet(PENDING_INDEX_KEY, StringCodec.INSTANCE).readAll()) {
+            total += flushMember(member, READ_WAIT_MS);
+        }
+        return total;
+    }
+
+    /**
+     * 丢弃会话的待落库消息，用于会话删除（事务提交后调用）
+     * <p>
+     * 在会话锁内执行：等待进行中的写入结束后清空队列，并再次逻辑删除删除事务提交后才写入的消息
+     */
+    public void discard(String conversationId, String userId) {
+        String member = ConversationMemoryCache.conversationKey(conversationId, userId);
+        RLock lock = redissonClient.getLock(LOCK_KEY_PREFIX + member);
+        boolean locked = tryLock(lock, READ_WAIT_MS);
+        try {
+            redissonClient.getKeys().delete(pendingKey(member));
+            redissonClient.getScoredSortedSet(PENDING_INDEX_KEY, StringCodec.INSTANCE).remove(member);
+            conversationMessageMapper.delete(
+                    Wrappers.lambdaQuery(ConversationMessageDO.class)
+                            .eq(ConversationMessageDO::getConversationId, conversationId)
+                            .eq(ConversationMessageDO::getUserId, userId)
+                            .eq(ConversationMessageDO::getDeleted, 0)
+            );
+        } finally {
+            if (locked && lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 待落库消息在 Redis 中，停机后由其他节点或重启后继续写入
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(3, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static String pendingKey(String member) {
+        return PENDING_KEY_PREFIX + member;
+    }
+
+    private void drainQuietly() {
+        try {
+            List<String> members = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                    RScript.Mode.READ_WRITE,
+                    claimLua,
+                    RScript.ReturnType.MULTI,
+                    List.of(PENDING_INDEX_KEY),
+                    String.valueOf(System.currentTimeMillis()),
+                    String.valueOf(CLAIM_LEASE_MS),
+                    String.valueOf(memoryProperties.getWriteBehindBatchSize())
+            );
+            if (CollUtil.isEmpty(members)) {
+                return;
+            }
+            for (String member : members) {
+                if (flushMember(member, 0L) == 0 && redissonClient.getList(pendingKey(member), StringCodec.INSTANCE).size() == 0) {
+                    // 队列已空（如会话删除与追加交错），移除残留的索引成员
+                    ack(member, List.of());
+                }
+            }
+        } catch (Exception e) {
+            log.error("对话消息写回失败", e);
+        }
+    }
+
+    private int flushMember(String member, long waitMs) {
+        String pendingKey = pendingKey(member);
+        // 记录在写入成功后才移除，队列为空说明此前的消息均已落库，无需加锁
+        if (redissonClient.getList(pendingKey, StringCodec.INSTANCE).size() == 0) {
+            return 0;
+        }
+
+        RLock lock = redissonClient.getLock(LOCK_KEY_PREFIX + member);
+        if (!tryLock(lock, waitMs)) {
+            if (waitMs > 0) {
+                log.warn("等待会话消息写回超时，查询可能缺少最新消息 - member: {}", member);
+            }
+            return 0;
+        }
+        try {
+            int total = 0;
+            int batchSize = memoryProperties.getWriteBehindBatchSize();
+            while (true) {
+                List<String> rows = redissonClient.<String>getList(pendingKey, StringCodec.INSTANCE).range(0, batchSize - 1);
+                if (CollUtil.isEmpty(rows)) {
+                    return total;
+                }
+                List<String> written = write(rows);
+                if (!written.isEmpty()) {
+                    total += written.size();
+                    ack(member, written);
+                }
+                if (written.size() < rows.size()) {
+                    // 部分写入失败，剩余记录留在队列由下一轮调度重试
+                    return total;
+                }
+            }
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 移除已落库的记录，队列清空时同时移除索引成员
+     */
+    private void ack(String member, List<String> written) {
+        List<Object> args = new ArrayList<>(written.size() + 2);
+        args.add(member);
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.addAll(written);
+        redissonClient.getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE,
+                ackLua,
+                RScript.ReturnType.INTEGER,
+                List.of(pendingKey(member), PENDING_INDEX_KEY),
+                args.toArray()
+        );
+    }
+
+    /**
+     * 写入一批记录
+     *
+     * @return 已落库（含主键冲突即已存在）的记录
+     */
+    private List<String> write(List<String> rows) {
+        List<ConversationMessageDO> batch = new ArrayList<>(rows.size());
+        rows.forEach(row -> batch.add(toMessageDO(row)));
+        try {
+            conversationMessageMapper.insert(batch);
+            return rows;
+        } catch (Exception e) {
+            log.warn("对话消息批量写回失败，改为逐条写入 - 数量: {}", batch.size(), e);
+        }
+
+        // 批量失败时部分记录可能已落库，逐条写入并跳过主键冲突；仍失败的留在队列等待重试
+        List<String> written = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                conversationMessageMapper.insert(batch.get(i));
+                written.add(rows.get(i));
+            } catch (DuplicateKeyException ignored) {
+                written.add(rows.get(i));
+            } catch (Exception e) {
+                log.error("对话消息写回失败，稍后重试 - messageId: {}", batch.get(i).getId(), e);
+                break;
+            }
+        }
+        return written;
+    }
+
+    private ConversationMessageDO toMessageDO(String row) {
+        PendingRecord record = gson.fromJson(row, PendingRecord.class);
+        return ConversationMessageDO.builder()
+                .id(record.id)
+                .conversationId(record.conversationId)
+                .userId(record.userId)
+                .role(record.role)
+                .content(record.content)
+                .createTime(new Date(record.createTime))
+                .build();
+    }
+
+    private boolean tryLock(RLock lock, long waitMs) {
+        try {
+            return lock.tryLock(waitMs, CLAIM_LEASE_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private String loadLuaScript(String path) {
+        try {
+            ClassPathResource resource = new ClassPathResource(path);
+            return StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Failed to load lua script: " + path, ex);
+        }
+    }
+
+    /**
+     * 待落库记录，创建时间以毫秒时间戳保存，避免日期格式受时区与语言环境影响
+     */
+    private static final class PendingRecord {
+
+        private Long id;
+        private String conversationId;
+        private String userId;
+        private String role;
+        private String content;
+        private long createTime;
+    }
+}
@@ -26,6 +26,7 @@ import com.nageoffer.ai.ragent.framework.convention.ChatMessage;
 import com.nageoffer.ai.ragent.rag.enums.ConversationMessageOrder;
 import com.nageoffer.ai.ragent.rag.service.ConversationMessageService;
 import com.nageoffer.ai.ragent.rag.service.ConversationService;
+import com.nageoffer.ai.ragent.rag.dao.entity.ConversationMessageDO;
 import com.nageoffer.ai.ragent.rag.service.bo.ConversationMessageBO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -34,6 +35,12 @@ import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * 基于 MySQL 的对话记忆存储
+ * <p>
+ * 热会话的历史由 {@link ConversationMemoryCache} 提供，消息追加写入缓存后交给
+ * {@link ConversationMessageWriteBehind} 批量落库；缓存未装载或关闭时直接读写 MySQL
+ */
 @Slf4j
 @Service
 public class MySQLConversationMemoryStore implements ConversationMemoryStore {
@@ -41,17 +48,34 @@ public class MySQLConversationMemoryStore implements ConversationMemoryStore {
     private final ConversationService conversationService;
     private final ConversationMessageService conversationMessageService;
     private final MemoryProperties memoryProperties;
+    private final ConversationMemoryCache memoryCache;
+    private final ConversationMessageWriteBehind messageWriteBehind;
 
     public MySQLConversationMemoryStore(ConversationService conversationService,
                                         ConversationMessageService conversationMessageService,
-                                        MemoryProperties memoryProperties) {
+                                        MemoryProperties memoryProperties,
+                                        ConversationMemoryCache memoryCache,
+                                        ConversationMessageWriteBehind messageWriteBehind) {
         this.conversationService = conversationService;
         this.conversationMessageService = conversationMessageService;
         this.memoryProperties = memoryProperties;
+        this.memoryCache = memoryCache;
+        this.messageWriteBehind = messageWriteBehind;
     }
 
     @Override
     public List<ChatMessage> loadHistory(String conversationId, String userId) {
+        List<ChatMessage> cached = memoryCache.getHistory(conversationId, userId);
+        if (cached != null) {
+            return normalizeHistory(cached);
+        }
+
+        List<ChatMessage> history = loadRecentMessages(conversationId);
+        memoryCache.seedHistory(conversationId, userId, history);
+        return normalizeHistory(history);
+    }
+
+    private List<ChatMessage> loadRecentMessages(String conversationId) {
         int maxMessages = resolveMaxHistoryMessages();
         List<ConversationMessageVO> dbMessages = conversationMessageService.listMessages(
                 conversationId,
@@ -62,12 +86,10 @@ public class MySQLConversationMemoryStore implements ConversationMemoryStore {
             return List.of();
         }
 
-        List<ChatMessage> result = dbMessages.stream()
+        return dbMessages.stream()
                 .map(this::toChatMessage)
                 .filter(this::isHistoryMessage)
                 .collect(Collectors.toList());
-
-        return normalizeHistory(result);
     }
 
     @Override
@@ -78,7 +100,17 @@ public class MySQLConversationMemoryStore implements ConversationMemoryStore {
                 .role(message.getRole().name().toLowerCase())
                 .content(message.getContent())
                 .build();
-        Long messageId = conversationMessageService.addMessage(conversationMessage);
+        Long messageId = null;
+        if (isHistoryMessage(message)) {
+            // 热会话：消息与待落库记录原子写入 Redis，由写回器批量落库
+            ConversationMessageDO pending = messageWriteBehind.prepare(conversationMessage);
+            if (memoryCache.appendHistory(conversationId, userId, message, messageWriteBehind.serialize(pending))) {
+                messageId = pending.getId();
+            }
+        }
+        if (messageId == null) {
+            messageId = conversationMessageService.addMessage(conversationMessage);
+        }
 
         if (message.getRole() == ChatMessage.Role.USER) {
             ConversationCreateRequest conversation = ConversationCreateRequest.builder()
@@ -94,7 +126,9 @@ public class MySQLConversationMemoryStore implements ConversationMemoryStore {
 
     @Override
     public void refreshCache(String conversationId, String userId) {
-        // MySQL 直读模式，无需刷新缓存
+        // 先落库待写回消息再清除缓存，下次加载时从 MySQL 重新装载
+        messageWriteBehind.flushConversation(conversationId, userId);
+        memoryCache.evict(conversationId, userId);
     }
 
     private ChatMessage toChatMessage(ConversationMessageVO record) {
@@ -64,6 +64,8 @@ public class MySQLConversationMemorySummaryService implements ConversationMemory
     private final LLMService llmService;
     private final PromptTemplateLoader promptTemplateLoader;
     private final RedissonClient redissonClient;
+    private final ConversationMemoryCache memoryCache;
+    private final ConversationMessageWriteBehind messageWriteBehind;
 
     @Qualifier("memorySummaryThreadPoolExecutor")
     private final Executor memorySummaryExecutor;
@@ -86,7 +88,13 @@ public class MySQLConversationMemorySummaryService implements ConversationMemory
 
     @Override
     public ChatMessage loadLatestSummary(String conversationId, String userId) {
+        String cached = memoryCache.getSummary(conversationId, userId);
+        if (cached != null) {
+            return StrUtil.isBlank(cached) ? null : new ChatMessage(ChatMessage.Role.SYSTEM, cached);
+        }
+
         ConversationSummaryDO summary = conversationGroupService.findLatestSummary(conversationId, userId);
+        memoryCache.putSummary(conversationId, userId, summary == null ? null : summary.getContent());
         return toChatMessage(summary);
     }
 
@@ -117,6 +125,9 @@ public class MySQLConversationMemorySummaryService implements ConversationMemory
             return;
         }
         try {
+            // 摘要基于 MySQL 中的消息计算，先落库本会话待写回的消息
+            messageWriteBehind.flushConversation(conversationId, userId);
+
             long total = conversationGroupService.countUserMessages(conversationId, userId);
             if (total < triggerTurns) {
                 return;
@@ -300,6 +311,7 @@ public class MySQLConversationMemorySummaryService implements ConversationMemory
                 .lastMessageId(lastMessageId)
                 .build();
         conversationMessageService.addMessageSummary(summaryRecord);
+        memoryCache.putSummary(conversationId, userId, content);
     }
 
     private String buildLockKey(String conversationId, String userId) {
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RAG 请求链路监控指标
+ * <p>
+ * 指标清单：
+ * <ul>
+ *   <li>{@code ragent.rag.stage}：链路节点耗时（改写、意图识别、检索、MCP 等 {@code @RagTraceNode} 标注的方法）</li>
+ *   <li>{@code ragent.rag.retrieval.channel}：单个检索通道耗时</li>
+ *   <li>{@code ragent.rag.retrieval.channel.chunks}：单个检索通道返回的 Chunk 数</li>
+ *   <li>{@code ragent.rag.postprocessor}：单个后置处理器（去重、Rerank 等）耗时</li>
+ *   <li>{@code ragent.rag.retrieval.speculative}：推测检索结果的复用情况</li>
+ *   <li>{@code ragent.rag.stream.events}：单条流式回答实际发送的 SSE 消息事件数</li>
+ *   <li>{@code ragent.rag.stream.flush.delay}：模型增量从进入合并缓冲到发送的等待时间</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class RagMetrics {
+
+    private final MeterRegistry registry;
+
+    /**
+     * 记录链路节点耗时
+     */
+    public void recordStage(String stage, String type, long elapsedNanos, boolean success) {
+        Timer.builder("ragent.rag.stage")
+                .description("RAG 链路节点耗时")
+                .tag("stage", stage)
+                .tag("type", type)
+                .tag("outcome", outcome(success))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录单个检索通道耗时与结果数
+     */
+    public void recordChannel(String channel, long elapsedNanos, int chunkCount, boolean success) {
+        Timer.builder("ragent.rag.retrieval.channel")
+                .description("检索通道耗时")
+                .tag("channel", channel)
+                .tag("outcome", outcome(success))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("ragent.rag.retrieval.channel.chunks")
+                .description("检索通道返回的 Chunk 数")
+                .tag("channel", channel)
+                .register(registry)
+                .record(chunkCount);
+    }
+
+    /**
+     * 记录单个后置处理器耗时
+     */
+    public void recordPostProcessor(String processor, long elapsedNanos, boolean success) {
+        Timer.builder("ragent.rag.postprocessor")
+                .description("检索后置处理器耗时")
+                .tag("processor", processor)
+                .tag("outcome", outcome(success))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录推测检索复用结果
+     *
+     * @param result full（复用查询向量与检索结果）、result（仅复用检索结果）、miss（丢弃）、unavailable（推测未完成或失败）
+     */
+    public void recordSpeculation(String result) {
+        Counter.builder("ragent.rag.retrieval.speculative")
+                .description("推测检索复用情况")
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * 记录一条流式回答合并后发送的 SSE 消息事件数
+     */
+    public void recordStreamEvents(long events) {
+        DistributionSummary.builder("ragent.rag.stream.events")
+                .description("单条流式回答发送的 SSE 消息事件数")
+                .register(registry)
+                .record(events);
+    }
+
+    /**
+     * 记录一次合并发送的缓冲等待时间
+     */
+    public void recordStreamFlushDelay(long delayNanos) {
+        Timer.builder("ragent.rag.stream.flush.delay")
+                .description("模型增量在合并缓冲中的等待时间")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String outcome(boolean success) {
+        return success ? "success" : "error";
+    }
+}
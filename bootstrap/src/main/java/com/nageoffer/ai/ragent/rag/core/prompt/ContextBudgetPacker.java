@@ -0,0 +1,339 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.prompt;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.nageoffer.ai.ragent.framework.convention.ChatMessage;
+import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
+import com.nageoffer.ai.ragent.infra.model.ModelSelector;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import com.nageoffer.ai.ragent.infra.token.TokenCounterService;
+import com.nageoffer.ai.ragent.rag.config.PromptBudgetProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prompt Token 预算打包器
+ * <p>
+ * 系统提示词与问题必须保留，其余内容（知识库分块、MCP 数据、历史对话）按价值从高到低装入剩余预算：
+ * 知识库分块按分数排名归一化到 (0, kbPriority]（原始分数的量纲随检索方式变化，如 RRF 融合分数约为 0.016，不能直接与配置的优先级比较），
+ * MCP 数据与历史对话取配置的优先级，历史对话按轮次衰减且只保留连续的最近几轮。
+ * 装不下的内容被剔除，价值最低的内容最先被裁掉；为保持 Prompt 场景不变，MCP 数据与最相关的一个分块
+ * 在预算不足时截断保留而不是整体剔除，空间不足 minEvidenceTokens 时先腾出最早的历史对话，始终不超出预算
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ContextBudgetPacker {
+
+    /**
+     * 每条消息的角色、分隔符等额外开销
+     */
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private static final String TRUNCATED_SUFFIX = "…";
+
+    private final TokenCounterService tokenCounterService;
+    private final ContextFormatter contextFormatter;
+    private final ModelSelector modelSelector;
+    private final PromptBudgetProperties properties;
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 按 Token 预算裁剪证据与历史对话
+     *
+     * @param context    Prompt 上下文
+     * @param history    历史对话
+     * @param fixedTexts 必须保留的文本（系统提示词、问题、证据标题）
+     * @return 裁剪后的 MCP 上下文、知识库上下文与历史对话
+     */
+    public PackedPrompt pack(PromptContext context, List<ChatMessage> history, List<String> fixedTexts) {
+        int budget = resolveBudget(context.isDeepThinking());
+        List<ChatMessage> safeHistory = history == null ? List.of() : history;
+        String mcp = StrUtil.emptyIfNull(context.getMcpContext());
+        String kb = StrUtil.emptyIfNull(context.getKbContext());
+
+        int fixedTokens = 0;
+        for (String text : fixedTexts) {
+            fixedTokens += count(text) + MESSAGE_OVERHEAD_TOKENS;
+        }
+        int mcpTokens = count(mcp);
+        int kbTokens = count(kb);
+        List<HistoryTurn> turns = splitTurns(safeHistory);
+        int historyTokens = turns.stream().mapToInt(HistoryTurn::tokens).sum();
+        int totalTokens = fixedTokens + mcpTokens + kbTokens + historyTokens;
+        if (totalTokens <= budget) {
+            return new PackedPrompt(mcp, kb, safeHistory, budget, totalTokens);
+        }
+
+        // 1. 知识库按分块拆分，标题、回答规则等格式开销计入固定部分
+        List<KbEvidenceSection> sections = context.getKbSections();
+        boolean kbSplittable = StrUtil.isNotBlank(kb) && CollUtil.isNotEmpty(sections);
+        Map<String, ChunkCandidate> chunkCandidates = new LinkedHashMap<>();
+        int kbFixedTokens = kbTokens;
+        if (kbSplittable) {
+            for (KbEvidenceSection section : sections) {
+                for (RetrievedChunk chunk : contextFormatter.selectKbChunks(section.kbIntents(), section.intentChunks(), section.topK())) {
+                    chunkCandidates.computeIfAbsent(chunkKey(chunk), key -> new ChunkCandidate(key, chunk, count(chunk.getText()) + 1))
+                            .occurrences++;
+                }
+            }
+            int chunkTokens = chunkCandidates.values().stream().mapToInt(ChunkCandidate::totalTokens).sum();
+            kbFixedTokens = Math.max(0, kbTokens - chunkTokens);
+        }
+
+        // 2. 按价值排序后贪心装入
+        List<Unit> units = new ArrayList<>();
+        if (StrUtil.isNotBlank(mcp)) {
+            units.add(new Unit(properties.getMcpPriority(), mcpTokens, null, null));
+        }
+        List<ChunkCandidate> rankedChunks = new ArrayList<>(chunkCandidates.values());
+        rankedChunks.sort(Comparator.comparingDouble(ContextBudgetPacker::rawScore).reversed());
+        for (int rank = 0; rank < rankedChunks.size(); rank++) {
+            double normalized = properties.getKbPriority() * (rankedChunks.size() - rank) / rankedChunks.size();
+            units.add(new Unit(normalized, rankedChunks.get(rank).totalTokens(), rankedChunks.get(rank), null));
+        }
+        int age = 0;
+        for (int i = turns.size() - 1; i >= 0; i--) {
+            HistoryTurn turn = turns.get(i);
+            double score = turn.summary()
+                    ? properties.getHistoryPriority()
+                    : properties.getHistoryPriority() * Math.pow(properties.getHistoryDecay(), age++);
+            units.add(new Unit(score, turn.tokens(), null, turn));
+        }
+        units.sort(Comparator.comparingDouble(Unit::score).reversed());
+
+        int remaining = budget - fixedTokens - kbFixedTokens;
+        String packedMcp = mcp;
+        Map<String, RetrievedChunk> keptChunks = new LinkedHashMap<>();
+        Set<HistoryTurn> keptTurns = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean historyCut = false;
+        for (Unit unit : units) {
+            if (unit.turn() != null) {
+                boolean eligible = unit.turn().summary() || !historyCut;
+                if (eligible && unit.tokens() <= remaining) {
+                    keptTurns.add(unit.turn());
+                    remaining -= unit.tokens();
+                } else if (!unit.turn().summary()) {
+                    // 历史对话只保留连续的最近几轮
+                    historyCut = true;
+                }
+            } else if (unit.chunk() != null) {
+                if (unit.tokens() <= remaining) {
+                    keptChunks.put(unit.chunk().key, unit.chunk().chunk);
+                    remaining -= unit.tokens();
+                }
+            } else if (unit.tokens() > remaining) {
+                if (remaining < properties.getMinEvidenceTokens()) {
+                    int freed = reclaimHistory(turns, keptTurns, properties.getMinEvidenceTokens() - remaining);
+                    historyCut |= freed > 0;
+                    remaining += freed;
+                }
+                int allowed = Math.max(0, remaining);
+                packedMcp = allowed == 0 ? "" : truncate(mcp, mcpTokens, allowed);
+                remaining -= allowed;
+            } else {
+                remaining -= unit.tokens();
+            }
+        }
+
+        // 3. 知识库至少保留最相关的一个分块
+        boolean chunkTruncated = false;
+        if (kbSplittable && keptChunks.isEmpty() && !rankedChunks.isEmpty()) {
+            ChunkCandidate best = rankedChunks.get(0);
+            if (remaining < properties.getMinEvidenceTokens()) {
+                remaining += reclaimHistory(turns, keptTurns, properties.getMinEvidenceTokens() - remaining);
+            }
+            int allowed = Math.max(0, remaining) / best.occurrences;
+            if (allowed > 0) {
+                RetrievedChunk truncated = RetrievedChunk.builder()
+                        .id(best.chunk.getId())
+                        .text(truncate(best.chunk.getText(), best.tokens, allowed))
+                        .score(best.chunk.getScore())
+                        .build();
+                keptChunks.put(best.key, truncated);
+                remaining -= allowed * best.occurrences;
+            }
+            chunkTruncated = true;
+        }
+
+        String packedKb = kb;
+        if (kbSplittable && (chunkTruncated || keptChunks.size() < chunkCandidates.size())) {
+            packedKb = contextFormatter.formatKbSections(sections, chunk -> keptChunks.get(chunkKey(chunk)));
+        }
+        List<ChatMessage> packedHistory = new ArrayList<>();
+        for (HistoryTurn turn : turns) {
+            if (keptTurns.contains(turn)) {
+                packedHistory.addAll(turn.messages());
+            }
+        }
+
+        int packedTokens = budget - remaining;
+        log.info("Prompt 超出 Token 预算已裁剪: budget={}, before={}, after={}, kbChunks={}/{}, historyTurns={}/{}, mcpTruncated={}",
+                budget, totalTokens, packedTokens, keptChunks.size(), chunkCandidates.size(),
+                keptTurns.size(), turns.size(), !packedMcp.equals(mcp));
+        return new PackedPrompt(packedMcp, packedKb, packedHistory, budget, packedTokens);
+    }
+
+    /**
+     * 从最早的一轮开始剔除已保留的历史对话，直到腾出 needed 个 Token 或没有可剔除的对话，保证最近的对话连续
+     *
+     * @return 腾出的 Token 数
+     */
+    private int reclaimHistory(List<HistoryTurn> turns, Set<HistoryTurn> keptTurns, int needed) {
+        int freed = 0;
+        for (HistoryTurn turn : turns) {
+            if (freed >= needed) {
+                break;
+            }
+            if (keptTurns.remove(turn)) {
+                freed += turn.tokens();
+            }
+        }
+        return freed;
+    }
+
+    private static double rawScore(ChunkCandidate candidate) {
+        Float score = candidate.chunk.getScore();
+        return score == null ? 0D : score;
+    }
+
+    /**
+     * 候选 chat 模型中最小的 Token 预算，保证降级到任一候选模型时 Prompt 都不超限
+     */
+    private int resolveBudget(boolean deepThinking) {
+        int defaultBudget = properties.getDefaultTokenBudget();
+        List<ModelTarget> candidates = modelSelector.selectChatCandidates(deepThinking);
+        if (CollUtil.isEmpty(candidates)) {
+            return defaultBudget;
+        }
+        int budget = Integer.MAX_VALUE;
+        for (ModelTarget target : candidates) {
+            Integer modelBudget = target.candidate().getPromptTokenBudget();
+            budget = Math.min(budget, modelBudget != null && modelBudget > 0 ? modelBudget : defaultBudget);
+        }
+        return budget;
+    }
+
+    /**
+     * 将历史对话拆分为轮次：摘要（system 消息）单独成轮，其余以 user 消息开启新的一轮
+     */
+    private List<HistoryTurn> splitTurns(List<ChatMessage> history) {
+        List<HistoryTurn> turns = new ArrayList<>();
+        List<ChatMessage> current = new ArrayList<>();
+        for (ChatMessage message : history) {
+            if (message.getRole() == ChatMessage.Role.SYSTEM) {
+                addTurn(turns, current, false);
+                current = new ArrayList<>();
+                addTurn(turns, List.of(message), true);
+                continue;
+            }
+            if (message.getRole() == ChatMessage.Role.USER && !current.isEmpty()) {
+                addTurn(turns, current, false);
+                current = new ArrayList<>();
+            }
+            current.add(message);
+        }
+        addTurn(turns, current, false);
+        return turns;
+    }
+
+    private void addTurn(List<HistoryTurn> turns, List<ChatMessage> messages, boolean summary) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        int tokens = 0;
+        for (ChatMessage message : messages) {
+            tokens += count(message.getContent()) + MESSAGE_OVERHEAD_TOKENS;
+        }
+        turns.add(new HistoryTurn(List.copyOf(messages), summary, tokens));
+    }
+
+    private String truncate(String text, int tokens, int allowedTokens) {
+        if (tokens <= 0 || allowedTokens >= tokens) {
+            return text;
+        }
+        int chars = (int) ((long) text.length() * Math.max(0, allowedTokens) / tokens);
+        if (chars > 0 && Character.isHighSurrogate(text.charAt(chars - 1))) {
+            chars--;
+        }
+        return text.substring(0, chars) + TRUNCATED_SUFFIX;
+    }
+
+    private int count(String text) {
+        if (StrUtil.isBlank(text)) {
+            return 0;
+        }
+        Integer tokens = tokenCounterService.countTokens(text);
+        return tokens == null ? 0 : tokens;
+    }
+
+    private static String chunkKey(RetrievedChunk chunk) {
+        return StrUtil.isNotBlank(chunk.getId()) ? chunk.getId() : "text:" + chunk.getText();
+    }
+
+    private static final class ChunkCandidate {
+
+        private final String key;
+        private final RetrievedChunk chunk;
+        private final int tokens;
+        private int occurrences;
+
+        private ChunkCandidate(String key, RetrievedChunk chunk, int tokens) {
+            this.key = key;
+            this.chunk = chunk;
+            this.tokens = tokens;
+        }
+
+        private int totalTokens() {
+            return tokens * occurrences;
+        }
+    }
+
+    private record HistoryTurn(List<ChatMessage> messages, boolean summary, int tokens) {
+    }
+
+    private record Unit(double score, int tokens, ChunkCandidate chunk, HistoryTurn turn) {
+    }
+
+    /**
+     * 裁剪结果
+     *
+     * @param mcpContext MCP 上下文
+     * @param kbContext  知识库上下文
+     * @param history    保留的历史对话
+     * @param budget     Token 预算
+     * @param tokens     裁剪后的预估 Token 数
+     */
+    public record PackedPrompt(String mcpContext, String kbContext, List<ChatMessage> history, int budget, int tokens) {
+    }
+}
@@ -23,10 +23,24 @@ import com.nageoffer.ai.ragent.rag.core.mcp.MCPResponse;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 
 public interface ContextFormatter {
 
     String formatKbContext(List<NodeScore> kbIntents, Map<String, List<RetrievedChunk>> rerankedByIntent, int topK);
 
+    /**
+     * 选出格式化知识库上下文时实际写入的分块，顺序与格式化结果一致
+     */
+    List<RetrievedChunk> selectKbChunks(List<NodeScore> kbIntents, Map<String, List<RetrievedChunk>> rerankedByIntent, int topK);
+
+    /**
+     * 按子问题格式化知识库上下文
+     *
+     * @param sections    子问题证据列表
+     * @param chunkMapper 分块映射，可替换分块内容，返回 null 表示剔除该分块
+     */
+    String formatKbSections(List<KbEvidenceSection> sections, UnaryOperator<RetrievedChunk> chunkMapper);
+
     String formatMcpContext(List<MCPResponse> responses, List<NodeScore> mcpIntents);
 }
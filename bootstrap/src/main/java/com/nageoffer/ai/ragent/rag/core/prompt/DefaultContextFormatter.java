@@ -31,6 +31,8 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,35 +43,71 @@ public class DefaultContextFormatter implements ContextFormatter {
 
     @Override
     public String formatKbContext(List<NodeScore> kbIntents, Map<String, List<RetrievedChunk>> rerankedByIntent, int topK) {
+        return formatKbContext(kbIntents, rerankedByIntent, topK, UnaryOperator.identity());
+    }
+
+    @Override
+    public List<RetrievedChunk> selectKbChunks(List<NodeScore> kbIntents, Map<String, List<RetrievedChunk>> rerankedByIntent, int topK) {
+        if (rerankedByIntent == null || rerankedByIntent.isEmpty()) {
+            return List.of();
+        }
+        if (CollUtil.isEmpty(kbIntents)) {
+            return selectChunksWithoutIntent(rerankedByIntent, topK);
+        }
+        if (kbIntents.size() > 1) {
+            return selectMultiIntentChunks(rerankedByIntent, topK);
+        }
+        return selectSingleIntentChunks(kbIntents.get(0), rerankedByIntent, topK);
+    }
+
+    @Override
+    public String formatKbSections(List<KbEvidenceSection> sections, UnaryOperator<RetrievedChunk> chunkMapper) {
+        if (CollUtil.isEmpty(sections)) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (KbEvidenceSection section : sections) {
+            String context = formatKbContext(section.kbIntents(), section.intentChunks(), section.topK(), chunkMapper);
+            if (StrUtil.isNotBlank(context)) {
+                builder.append("---\n")
+                        .append("**子问题**：").append(section.question()).append("\n\n")
+                        .append("**相关文档**：\n")
+                        .append(context).append("\n\n");
+            }
+        }
+        return builder.toString().trim();
+    }
+
+    private String formatKbContext(List<NodeScore> kbIntents,
+                                   Map<String, List<RetrievedChunk>> rerankedByIntent,
+                                   int topK,
+                                   UnaryOperator<RetrievedChunk> chunkMapper) {
         if (rerankedByIntent == null || rerankedByIntent.isEmpty()) {
             return "";
         }
         if (CollUtil.isEmpty(kbIntents)) {
-            return formatChunksWithoutIntent(rerankedByIntent, topK);
+            return formatChunksWithoutIntent(rerankedByIntent, topK, chunkMapper);
         }
 
         // 多意图场景：合并所有规则和文档
         if (kbIntents.size() > 1) {
-            return formatMultiIntentContext(kbIntents, rerankedByIntent, topK);
+            return formatMultiIntentContext(kbIntents, rerankedByIntent, topK, chunkMapper);
         }
 
         // 单意图场景：保持原有逻辑
-        return formatSingleIntentContext(kbIntents.get(0), rerankedByIntent, topK);
+        return formatSingleIntentContext(kbIntents.get(0), rerankedByIntent, topK, chunkMapper);
     }
 
     /**
      * 格式化单意图上下文
      */
-    private String formatSingleIntentContext(NodeScore nodeScore, Map<String, List<RetrievedChunk>> rerankedByIntent, int topK) {
-        List<RetrievedChunk> chunks = rerankedByIntent.get(nodeScore.getNode().getId());
-        if (CollUtil.isEmpty(chunks)) {
+    private String formatSingleIntentContext(NodeScore nodeScore, Map<String, List<RetrievedChunk>> rerankedByIntent,
+                                             int topK, UnaryOperator<RetrievedChunk> chunkMapper) {
+        String body = joinChunks(selectSingleIntentChunks(nodeScore, rerankedByIntent, topK), chunkMapper);
+        if (body.isEmpty()) {
             return "";
         }
         String snippet = StrUtil.emptyIfNull(nodeScore.getNode().getPromptSnippet()).trim();
-        String body = chunks.stream()
-                .limit(topK)
-                .map(RetrievedChunk::getText)
-                .collect(Collectors.joining("\n"));
         StringBuilder block = new StringBuilder();
         if (StrUtil.isNotBlank(snippet)) {
             block.append("#### 回答规则\n").append(snippet).append("\n\n");
@@ -81,7 +119,8 @@ public class DefaultContextFormatter implements ContextFormatter {
     /**
      * 格式化多意图上下文
      */
-    private String formatMultiIntentContext(List<NodeScore> kbIntents, Map<String, List<RetrievedChunk>> rerankedByIntent, int topK) {
+    private String formatMultiIntentContext(List<NodeScore> kbIntents, Map<String, List<RetrievedChunk>> rerankedByIntent,
+                                            int topK, UnaryOperator<RetrievedChunk> chunkMapper) {
         StringBuilder result = new StringBuilder();
 
         // 1. 合并所有意图的回答规则
@@ -101,23 +140,42 @@ public class DefaultContextFormatter implements ContextFormatter {
         }
 
         // 2. 合并所有意图的文档片段（去重）
-        List<RetrievedChunk> allChunks = rerankedByIntent.values().stream()
-                .flatMap(List::stream)
-                .distinct()
-                .limit(topK)
-                .toList();
-
-        if (!allChunks.isEmpty()) {
-            String body = allChunks.stream()
-                    .map(RetrievedChunk::getText)
-                    .collect(Collectors.joining("\n"));
+        String body = joinChunks(selectMultiIntentChunks(rerankedByIntent, topK), chunkMapper);
+        if (!body.isEmpty()) {
             result.append("#### 知识库片段\n````text\n").append(body).append("\n````");
         }
 
         return result.toString();
     }
 
-    private String formatChunksWithoutIntent(Map<String, List<RetrievedChunk>> rerankedByIntent, int topK) {
+    private String formatChunksWithoutIntent(Map<String, List<RetrievedChunk>> rerankedByIntent, int topK,
+                                             UnaryOperator<RetrievedChunk> chunkMapper) {
+        String body = joinChunks(selectChunksWithoutIntent(rerankedByIntent, topK), chunkMapper);
+        if (body.isEmpty()) {
+            return "";
+        }
+        return "#### 知识库片段\n````text\n" + body + "\n````";
+    }
+
+    private List<RetrievedChunk> selectSingleIntentChunks(NodeScore nodeScore, Map<String, List<RetrievedChunk>> rerankedByIntent, int topK) {
+        List<RetrievedChunk> chunks = rerankedByIntent.get(nodeScore.getNode().getId());
+        if (CollUtil.isEmpty(chunks)) {
+            return List.of();
+        }
+        return chunks.stream()
+                .limit(topK)
+                .toList();
+    }
+
+    private List<RetrievedChunk> selectMultiIntentChunks(Map<String, List<RetrievedChunk>> rerankedByIntent, int topK) {
+        return rerankedByIntent.values().stream()
+                .flatMap(List::stream)
+                .distinct()
+                .limit(topK)
+                .toList();
+    }
+
+    private List<RetrievedChunk> selectChunksWithoutIntent(Map<String, List<RetrievedChunk>> rerankedByIntent, int topK) {
         int limit = topK > 0 ? topK : Integer.MAX_VALUE;
         List<RetrievedChunk> chunks = new ArrayList<>();
         for (List<RetrievedChunk> list : rerankedByIntent.values()) {
@@ -134,14 +192,15 @@ public class DefaultContextFormatter implements ContextFormatter {
                 break;
             }
         }
-        if (chunks.isEmpty()) {
-            return "";
-        }
+        return chunks;
+    }
 
-        String body = chunks.stream()
+    private String joinChunks(List<RetrievedChunk> chunks, UnaryOperator<RetrievedChunk> chunkMapper) {
+        return chunks.stream()
+                .map(chunkMapper)
+                .filter(Objects::nonNull)
                 .map(RetrievedChunk::getText)
                 .collect(Collectors.joining("\n"));
-        return "#### 知识库片段\n````text\n" + body + "\n````";
     }
 
     @Override
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.prompt;
+
+import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
+import com.nageoffer.ai.ragent.rag.core.intent.NodeScore;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单个子问题的知识库证据
+ * 保留格式化前的结构，Prompt 组装阶段按 Token 预算裁剪分块后可重新格式化
+ *
+ * @param question     子问题
+ * @param kbIntents    命中的知识库意图
+ * @param intentChunks 意图 ID -> 重排后的分块
+ * @param topK         格式化时每个子问题保留的分块数
+ */
+public record KbEvidenceSection(String question,
+                                List<NodeScore> kbIntents,
+                                Map<String, List<RetrievedChunk>> intentChunks,
+                                int topK) {
+}
@@ -42,6 +42,16 @@ public class PromptContext {
 
     private Map<String, List<RetrievedChunk>> intentChunks;
 
+    /**
+     * 按子问题保留的知识库证据，Token 预算裁剪后据此重新格式化 kbContext
+     */
+    private List<KbEvidenceSection> kbSections;
+
+    /**
+     * 是否深度思考，决定候选 chat 模型及其 Token 预算
+     */
+    private boolean deepThinking;
+
     public boolean hasMcp() {
         return StrUtil.isNotBlank(mcpContext);
     }
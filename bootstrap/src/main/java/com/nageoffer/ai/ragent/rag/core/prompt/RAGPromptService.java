@@ -48,6 +48,7 @@ public class RAGPromptService {
     private static final String KB_CONTEXT_HEADER = "## 文档内容";
 
     private final PromptTemplateLoader promptTemplateLoader;
+    private final ContextBudgetPacker contextBudgetPacker;
 
     /**
      * 生成系统提示词，并对模板格式做清理
@@ -62,26 +63,57 @@ public class RAGPromptService {
 
     /**
      * 构造发送给 LLM 的完整消息列表（system + evidence + history + user）
+     * <p>
+     * 超出模型 Token 预算时，由 {@link ContextBudgetPacker} 按价值裁剪证据与历史对话
      */
     public List<ChatMessage> buildStructuredMessages(PromptContext context,
                                                      List<ChatMessage> history,
                                                      String question,
                                                      List<String> subQuestions) {
-        List<ChatMessage> messages = new ArrayList<>();
         String systemPrompt = buildSystemPrompt(context);
+        ChatMessage questionMessage = buildQuestionMessage(question, subQuestions);
+        String mcpContext = context.getMcpContext();
+        String kbContext = context.getKbContext();
+        List<ChatMessage> packedHistory = history;
+        if (contextBudgetPacker.isEnabled()) {
+            List<String> fixedTexts = new ArrayList<>();
+            fixedTexts.add(systemPrompt);
+            if (questionMessage != null) {
+                fixedTexts.add(questionMessage.getContent());
+            }
+            if (StrUtil.isNotBlank(mcpContext)) {
+                fixedTexts.add(MCP_CONTEXT_HEADER);
+            }
+            if (StrUtil.isNotBlank(kbContext)) {
+                fixedTexts.add(KB_CONTEXT_HEADER);
+            }
+            ContextBudgetPacker.PackedPrompt packed = contextBudgetPacker.pack(context, history, fixedTexts);
+            mcpContext = packed.mcpContext();
+            kbContext = packed.kbContext();
+            packedHistory = packed.history();
+        }
+
+        List<ChatMessage> messages = new ArrayList<>();
         if (StrUtil.isNotBlank(systemPrompt)) {
             messages.add(ChatMessage.system(systemPrompt));
         }
-        if (StrUtil.isNotBlank(context.getMcpContext())) {
-            messages.add(ChatMessage.system(formatEvidence(MCP_CONTEXT_HEADER, context.getMcpContext())));
+        if (StrUtil.isNotBlank(mcpContext)) {
+            messages.add(ChatMessage.system(formatEvidence(MCP_CONTEXT_HEADER, mcpContext)));
         }
-        if (StrUtil.isNotBlank(context.getKbContext())) {
-            messages.add(ChatMessage.user(formatEvidence(KB_CONTEXT_HEADER, context.getKbContext())));
+        if (StrUtil.isNotBlank(kbContext)) {
+            messages.add(ChatMessage.user(formatEvidence(KB_CONTEXT_HEADER, kbContext)));
         }
-        if (CollUtil.isNotEmpty(history)) {
-            messages.addAll(history);
+        if (CollUtil.isNotEmpty(packedHistory)) {
+            messages.addAll(packedHistory);
         }
+        if (questionMessage != null) {
+            messages.add(questionMessage);
+        }
+
+        return messages;
+    }
 
+    private ChatMessage buildQuestionMessage(String question, List<String> subQuestions) {
         // 多子问题场景下，显式编号以降低模型漏答风险
         if (CollUtil.isNotEmpty(subQuestions) && subQuestions.size() > 1) {
             StringBuilder userMessage = new StringBuilder();
@@ -89,12 +121,12 @@ public class RAGPromptService {
             for (int i = 0; i < subQuestions.size(); i++) {
                 userMessage.append(i + 1).append(". ").append(subQuestions.get(i)).append("\n");
             }
-            messages.add(ChatMessage.user(userMessage.toString().trim()));
-        } else if (StrUtil.isNotBlank(question)) {
-            messages.add(ChatMessage.user(question));
+            return ChatMessage.user(userMessage.toString().trim());
         }
-
-        return messages;
+        if (StrUtil.isNotBlank(question)) {
+            return ChatMessage.user(question);
+        }
+        return null;
     }
 
     private PromptPlan planPrompt(List<NodeScore> intents, Map<String, List<RetrievedChunk>> intentChunks) {
@@ -21,6 +21,7 @@ import cn.hutool.core.util.StrUtil;
 import com.nageoffer.ai.ragent.rag.config.RAGDefaultProperties;
 import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
 import com.nageoffer.ai.ragent.infra.embedding.EmbeddingService;
+import com.nageoffer.ai.ragent.rag.util.VectorUtil;
 import io.milvus.v2.client.MilvusClientV2;
 import io.milvus.v2.service.vector.request.SearchReq;
 import io.milvus.v2.service.vector.request.data.BaseVector;
@@ -47,12 +48,13 @@ public class MilvusRetrieverService implements RetrieverService {
 
     @Override
     public List<RetrievedChunk> retrieve(RetrieveRequest retrieveParam) {
-        List<Float> emb = embeddingService.embed(retrieveParam.getQuery());
-        float[] vec = toArray(emb);
-
-        float[] norm = normalize(vec);
+        return retrieveByVector(embedQuery(retrieveParam.getQuery()), retrieveParam);
+    }
 
-        return retrieveByVector(norm, retrieveParam);
+    @Override
+    public float[] embedQuery(String query) {
+        float[] vec = embeddingService.embedVector(query);
+        return VectorUtil.normalize(vec);
     }
 
     @Override
@@ -90,19 +92,4 @@ public class MilvusRetrieverService implements RetrieverService {
                         r.getScore()))
                 .collect(Collectors.toList());
     }
-
-    private static float[] toArray(List<Float> list) {
-        float[] arr = new float[list.size()];
-        for (int i = 0; i < list.size(); i++) arr[i] = list.get(i);
-        return arr;
-    }
-
-    private static float[] normalize(float[] v) {
-        double sum = 0.0;
-        for (float x : v) sum += x * x;
-        double len = Math.sqrt(sum);
-        float[] nv = new float[v.length];
-        for (int i = 0; i < v.length; i++) nv[i] = (float) (v[i] / len);
-        return nv;
-    }
 }
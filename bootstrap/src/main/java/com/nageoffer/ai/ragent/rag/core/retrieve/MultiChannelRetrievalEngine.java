@@ -20,8 +20,10 @@ package com.nageoffer.ai.ragent.rag.core.retrieve;
 import cn.hutool.core.collection.CollUtil;
 import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
 import com.nageoffer.ai.ragent.framework.trace.RagTraceNode;
+import com.nageoffer.ai.ragent.rag.core.metrics.RagMetrics;
 import com.nageoffer.ai.ragent.rag.core.retrieve.channel.SearchChannel;
 import com.nageoffer.ai.ragent.rag.core.retrieve.channel.SearchChannelResult;
+import com.nageoffer.ai.ragent.rag.core.retrieve.channel.SearchChannelType;
 import com.nageoffer.ai.ragent.rag.core.retrieve.channel.SearchContext;
 import com.nageoffer.ai.ragent.rag.core.retrieve.postprocessor.SearchResultPostProcessor;
 import com.nageoffer.ai.ragent.rag.dto.SubQuestionIntent;
@@ -30,6 +32,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
@@ -52,6 +55,9 @@ public class MultiChannelRetrievalEngine {
 
     private final List<SearchChannel> searchChannels;
     private final List<SearchResultPostProcessor> postProcessors;
+    private final RetrieverService retrieverService;
+    private final RagMetrics ragMetrics;
+    private final SpeculativeRetrievalService speculativeRetrievalService;
     @Qualifier("ragRetrievalThreadPoolExecutor")
     private final Executor ragRetrievalExecutor;
 
@@ -60,15 +66,19 @@ public class MultiChannelRetrievalEngine {
      *
      * @param subIntents 子问题意图列表
      * @param topK       期望返回的结果数量
+     * @param speculation 推测检索句柄，可为 null
+     * @param queryEmbedding 检索前已计算好的查询向量，可为 null
      * @return 检索到的 Chunk 列表
      */
     @RagTraceNode(name = "multi-channel-retrieval", type = "RETRIEVE_CHANNEL")
-    public List<RetrievedChunk> retrieveKnowledgeChannels(List<SubQuestionIntent> subIntents, int topK) {
+    public List<RetrievedChunk> retrieveKnowledgeChannels(List<SubQuestionIntent> subIntents, int topK,
+                                                          SpeculativeRetrieval speculation,
+                                                          QueryEmbedding queryEmbedding) {
         // 构建检索上下文
         SearchContext context = buildSearchContext(subIntents, topK);
 
         // 【阶段1：多通道并行检索】
-        List<SearchChannelResult> channelResults = executeSearchChannels(context);
+        List<SearchChannelResult> channelResults = executeSearchChannels(context, speculation, queryEmbedding);
         if (CollUtil.isEmpty(channelResults)) {
             return List.of();
         }
@@ -80,7 +90,8 @@ public class MultiChannelRetrievalEngine {
     /**
      * 执行所有启用的检索通道
      */
-    private List<SearchChannelResult> executeSearchChannels(SearchContext context) {
+    private List<SearchChannelResult> executeSearchChannels(SearchContext context, SpeculativeRetrieval speculation,
+                                                            QueryEmbedding queryEmbedding) {
         // 过滤启用的通道
         List<SearchChannel> enabledChannels = searchChannels.stream()
                 .filter(channel -> channel.isEnabled(context))
@@ -91,6 +102,36 @@ public class MultiChannelRetrievalEngine {
             return List.of();
         }
 
+        // 查询向量在本次请求内只计算一次，所有向量通道、所有 collection 共享
+        if (enabledChannels.stream().anyMatch(SearchChannel::requiresQueryVector)) {
+            if (queryEmbedding != null && context.getQueryVector() == null) {
+                context.setQueryVector(queryEmbedding.vectorFor(context.getMainQuestion()));
+            }
+            if (speculation != null && context.getQueryVector() == null) {
+                context.setQueryVector(speculativeRetrievalService.reuseQueryVector(speculation, context));
+            }
+            if (!prepareQueryVector(context)) {
+                enabledChannels = enabledChannels.stream()
+                        .filter(channel -> !channel.requiresQueryVector())
+                        .toList();
+            }
+            if (enabledChannels.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        // 推测阶段已完成全局向量检索且可复用时，不再重复执行该通道
+        SearchChannelResult speculativeResult = null;
+        if (speculation != null && enabledChannels.stream().anyMatch(channel -> channel.getType() == SearchChannelType.VECTOR_GLOBAL)) {
+            speculativeResult = speculativeRetrievalService.reuseGlobalResult(speculation, context);
+            if (speculativeResult != null) {
+                enabledChannels = enabledChannels.stream()
+                        .filter(channel -> channel.getType() != SearchChannelType.VECTOR_GLOBAL)
+                        .toList();
+            }
+        }
+        int channelCount = enabledChannels.size() + (speculativeResult == null ? 0 : 1);
+
         log.info("启用的检索通道：{}",
                 enabledChannels.stream().map(SearchChannel::getName).toList());
 
@@ -98,10 +139,15 @@ public class MultiChannelRetrievalEngine {
         List<CompletableFuture<SearchChannelResult>> futures = enabledChannels.stream()
                 .map(channel -> CompletableFuture.supplyAsync(
                         () -> {
+                            long startNanos = System.nanoTime();
                             try {
                                 log.info("执行检索通道：{}", channel.getName());
-                                return channel.search(context);
+                                SearchChannelResult result = channel.search(context);
+                                ragMetrics.recordChannel(channel.getName(), System.nanoTime() - startNanos,
+                                        result == null || result.getChunks() == null ? 0 : result.getChunks().size(), true);
+                                return result;
                             } catch (Exception e) {
+                                ragMetrics.recordChannel(channel.getName(), System.nanoTime() - startNanos, 0, false);
                                 log.error("检索通道 {} 执行失败", channel.getName(), e);
                                 return SearchChannelResult.builder()
                                         .channelType(channel.getType())
@@ -130,7 +176,10 @@ public class MultiChannelRetrievalEngine {
                     }
                 })
                 .filter(Objects::nonNull)
-                .toList();
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (speculativeResult != null) {
+            results.add(speculativeResult);
+        }
 
         // 打印详细统计信息
         for (SearchChannelResult result : results) {
@@ -156,11 +205,31 @@ public class MultiChannelRetrievalEngine {
         }
 
         log.info("多通道检索统计 - 总通道数: {}, 有结果: {}, 无结果: {}, Chunk 总数: {}",
-                enabledChannels.size(), successCount, failureCount, totalChunks);
+                channelCount, successCount, failureCount, totalChunks);
 
         return results;
     }
 
+    /**
+     * 计算查询向量并写入上下文
+     *
+     * @return 是否计算成功，失败时依赖向量的通道将被跳过
+     */
+    private boolean prepareQueryVector(SearchContext context) {
+        if (context.getQueryVector() != null) {
+            return true;
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            context.setQueryVector(retrieverService.embedQuery(context.getMainQuestion()));
+            log.info("查询向量计算完成，耗时：{}ms", System.currentTimeMillis() - startTime);
+            return true;
+        } catch (Exception e) {
+            log.error("查询向量计算失败，跳过向量检索通道，问题：{}", context.getMainQuestion(), e);
+            return false;
+        }
+    }
+
     /**
      * 执行后置处理器链
      */
@@ -188,10 +257,12 @@ public class MultiChannelRetrievalEngine {
 
         // 依次执行处理器
         for (SearchResultPostProcessor processor : enabledProcessors) {
+            long startNanos = System.nanoTime();
             try {
                 int beforeSize = chunks.size();
                 chunks = processor.process(chunks, results, context);
                 int afterSize = chunks.size();
+                ragMetrics.recordPostProcessor(processor.getName(), System.nanoTime() - startNanos, true);
 
                 log.info("后置处理器 {} 完成 - 输入: {} 个 Chunk, 输出: {} 个 Chunk, 变化: {}",
                         processor.getName(),
@@ -200,6 +271,7 @@ public class MultiChannelRetrievalEngine {
                         (afterSize - beforeSize > 0 ? "+" : "") + (afterSize - beforeSize)
                 );
             } catch (Exception e) {
+                ragMetrics.recordPostProcessor(processor.getName(), System.nanoTime() - startNanos, false);
                 log.error("后置处理器 {} 执行失败，跳过该处理器", processor.getName(), e);
                 // 继续执行下一个处理器，不中断整个链
             }
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.retrieve;
+
+/**
+ * 检索前已计算好的查询向量
+ * <p>
+ * 语义缓存查找等环节已为同一问题计算过向量时，检索阶段直接复用，避免重复调用向量模型
+ *
+ * @param question 向量对应的问题
+ * @param vector   问题的查询向量
+ */
+public record QueryEmbedding(String question, float[] vector) {
+
+    /**
+     * 返回指定问题可复用的向量，问题不一致时返回 null
+     */
+    public float[] vectorFor(String text) {
+        return vector != null && question != null && question.equals(text) ? vector : null;
+    }
+}
@@ -35,11 +35,13 @@ import com.nageoffer.ai.ragent.rag.core.mcp.MCPTool;
 import com.nageoffer.ai.ragent.rag.core.mcp.MCPToolExecutor;
 import com.nageoffer.ai.ragent.rag.core.mcp.MCPToolRegistry;
 import com.nageoffer.ai.ragent.rag.core.prompt.ContextFormatter;
+import com.nageoffer.ai.ragent.rag.core.prompt.KbEvidenceSection;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -74,15 +76,19 @@ public class RetrievalEngine {
      *
      * @param subIntents 子问题意图列表，包含每个子问题及其相关的意图节点和评分
      * @param topK       需要返回的最相关结果数量，若 ≤0 则使用默认值
+     * @param speculation 推测检索句柄，可为 null；子问题与原问题足够接近时复用其查询向量与全局检索结果
+     * @param queryEmbedding 检索前已计算好的查询向量，可为 null；子问题与其问题一致时直接复用
      * @return RetrievalContext 检索上下文，包含知识库上下文、MCP上下文和分组的检索块
      */
     @RagTraceNode(name = "retrieval-engine", type = "RETRIEVE")
-    public RetrievalContext retrieve(List<SubQuestionIntent> subIntents, int topK) {
+    public RetrievalContext retrieve(List<SubQuestionIntent> subIntents, int topK, SpeculativeRetrieval speculation,
+                                     QueryEmbedding queryEmbedding) {
         if (CollUtil.isEmpty(subIntents)) {
             return RetrievalContext.builder()
                     .mcpContext("")
                     .kbContext("")
                     .intentChunks(Map.of())
+                    .kbSections(List.of())
                     .build();
         }
 
@@ -91,7 +97,9 @@ public class RetrievalEngine {
                 .map(si -> CompletableFuture.supplyAsync(
                         () -> buildSubQuestionContext(
                                 si,
-                                resolveSubQuestionTopK(si, finalTopK)
+                                resolveSubQuestionTopK(si, finalTopK),
+                                speculation,
+                                queryEmbedding
                         ),
                         ragContextExecutor
                 ))
@@ -103,10 +111,12 @@ public class RetrievalEngine {
         StringBuilder kbBuilder = new StringBuilder();
         StringBuilder mcpBuilder = new StringBuilder();
         Map<String, List<RetrievedChunk>> mergedIntentChunks = new ConcurrentHashMap<>();
+        List<KbEvidenceSection> kbSections = new ArrayList<>();
 
         for (SubQuestionContext context : contexts) {
             if (StrUtil.isNotBlank(context.kbContext())) {
                 appendSection(kbBuilder, context.question(), context.kbContext());
+                kbSections.add(context.kbSection());
             }
             if (StrUtil.isNotBlank(context.mcpContext())) {
                 appendSection(mcpBuilder, context.question(), context.mcpContext());
@@ -120,20 +130,23 @@ public class RetrievalEngine {
                 .mcpContext(mcpBuilder.toString().trim())
                 .kbContext(kbBuilder.toString().trim())
                 .intentChunks(mergedIntentChunks)
+                .kbSections(kbSections)
                 .build();
     }
 
-    private SubQuestionContext buildSubQuestionContext(SubQuestionIntent intent, int topK) {
+    private SubQuestionContext buildSubQuestionContext(SubQuestionIntent intent, int topK, SpeculativeRetrieval speculation,
+                                                       QueryEmbedding queryEmbedding) {
         List<NodeScore> kbIntents = filterKbIntents(intent.nodeScores());
         List<NodeScore> mcpIntents = filterMCPIntents(intent.nodeScores());
 
-        KbResult kbResult = retrieveAndRerank(intent, kbIntents, topK);
+        KbResult kbResult = retrieveAndRerank(intent, kbIntents, topK, speculation, queryEmbedding);
 
         String mcpContext = CollUtil.isNotEmpty(mcpIntents)
                 ? executeMcpAndMerge(intent.subQuestion(), mcpIntents)
                 : "";
 
-        return new SubQuestionContext(intent.subQuestion(), kbResult.groupedContext(), mcpContext, kbResult.intentChunks());
+        KbEvidenceSection kbSection = new KbEvidenceSection(intent.subQuestion(), kbIntents, kbResult.intentChunks(), topK);
+        return new SubQuestionContext(intent.subQuestion(), kbResult.groupedContext(), mcpContext, kbResult.intentChunks(), kbSection);
     }
 
     /**
@@ -193,10 +206,11 @@ public class RetrievalEngine {
         return contextFormatter.formatMcpContext(responses, mcpIntents);
     }
 
-    private KbResult retrieveAndRerank(SubQuestionIntent intent, List<NodeScore> kbIntents, int topK) {
+    private KbResult retrieveAndRerank(SubQuestionIntent intent, List<NodeScore> kbIntents, int topK,
+                                       SpeculativeRetrieval speculation, QueryEmbedding queryEmbedding) {
         // 使用多通道检索引擎（是否启用全局检索由置信度阈值决定）
         List<SubQuestionIntent> subIntents = List.of(intent);
-        List<RetrievedChunk> chunks = multiChannelRetrievalEngine.retrieveKnowledgeChannels(subIntents, topK);
+        List<RetrievedChunk> chunks = multiChannelRetrievalEngine.retrieveKnowledgeChannels(subIntents, topK, speculation, queryEmbedding);
 
         if (CollUtil.isEmpty(chunks)) {
             return KbResult.empty();
@@ -254,6 +268,7 @@ public class RetrievalEngine {
     private record SubQuestionContext(String question,
                                       String kbContext,
                                       String mcpContext,
-                                      Map<String, List<RetrievedChunk>> intentChunks) {
+                                      Map<String, List<RetrievedChunk>> intentChunks,
+                                      KbEvidenceSection kbSection) {
     }
 }
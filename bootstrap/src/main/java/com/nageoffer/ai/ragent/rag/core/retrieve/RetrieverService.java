@@ -48,7 +48,7 @@ public interface RetrieverService {
      * 根据自然语言 Query 进行检索
      * <p>
      * 说明：
-     * - 内部通常会先调用 EmbeddingService.embed(query) 获取向量
+     * - 内部通常会先调用 EmbeddingService.embedVector(query) 获取向量
      * - 然后在向量库中执行相似度搜索
      * - 返回命中文档 Chunk 的列表，已按相似度倒序排序
      * <p>
@@ -71,7 +71,7 @@ public interface RetrieverService {
      * 根据自然语言 Query 进行检索，支持扩展参数
      * <p>
      * 说明：
-     * - 内部通常会先调用 EmbeddingService.embed(query) 获取向量
+     * - 内部通常会先调用 EmbeddingService.embedVector(query) 获取向量
      * - 然后在向量库中执行相似度搜索
      * - 返回命中文档 Chunk 的列表，已按相似度倒序排序
      * <p>
@@ -97,5 +97,18 @@ public interface RetrieverService {
      * @return RetrievedChunk 列表（按相似度排序）
      */
     List<RetrievedChunk> retrieveByVector(float[] vector, RetrieveRequest retrieveParam);
+
+    /**
+     * 生成查询向量（已按向量库度量方式归一化）
+     * <p>
+     * 说明：
+     * - 与 {@link #retrieve(RetrieveRequest)} 内部使用的向量化逻辑保持一致
+     * - 适用于同一问题需要在多个 Collection / 通道中检索的场景，
+     *   由调用方计算一次后通过 {@link #retrieveByVector(float[], RetrieveRequest)} 复用
+     *
+     * @param query 用户自然语言问题
+     * @return 归一化后的查询向量
+     */
+    float[] embedQuery(String query);
 }
 
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.retrieve;
+
+import com.nageoffer.ai.ragent.rag.core.retrieve.channel.SearchChannelResult;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 推测检索句柄
+ * <p>
+ * 由 {@link SpeculativeRetrievalService#start(String)} 在改写、意图识别之前发起，
+ * 持有归一化后的原问题、其查询向量以及全局向量检索结果的异步计算过程
+ *
+ * @param question     归一化后的原问题
+ * @param topK         推测检索使用的 TopK（不含通道倍数）
+ * @param queryVector  原问题的查询向量
+ * @param globalResult 原问题的全局向量检索结果
+ */
+public record SpeculativeRetrieval(String question,
+                                   int topK,
+                                   CompletableFuture<float[]> queryVector,
+                                   CompletableFuture<SearchChannelResult> globalResult) {
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.retrieve;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.text.TextSimilarity;
+import cn.hutool.core.util.StrUtil;
+import com.nageoffer.ai.ragent.rag.config.SearchChannelProperties;
+import com.nageoffer.ai.ragent.rag.core.metrics.RagMetrics;
+import com.nageoffer.ai.ragent.rag.core.retrieve.channel.SearchChannelResult;
+import com.nageoffer.ai.ragent.rag.core.retrieve.channel.SearchContext;
+import com.nageoffer.ai.ragent.rag.core.retrieve.channel.VectorGlobalSearchChannel;
+import com.nageoffer.ai.ragent.rag.core.rewrite.QueryTermMappingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.nageoffer.ai.ragent.rag.constant.RAGConstant.DEFAULT_TOP_K;
+
+/**
+ * 推测检索服务
+ * <p>
+ * 改写与意图识别是两次串行的 LLM 调用，而大多数单问题对话改写前后语义基本不变。
+ * 推测检索在这两次调用开始前，先用术语归一化后的原问题计算查询向量并执行全局向量检索；
+ * 进入检索阶段后按子问题逐个判断能否复用：
+ * <ol>
+ *   <li>子问题与原问题文本相似度达到阈值：复用查询向量和全局检索结果</li>
+ *   <li>文本不够接近但查询向量余弦相似度达到阈值：仅复用全局检索结果</li>
+ *   <li>否则丢弃推测结果，按常规流程检索</li>
+ * </ol>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SpeculativeRetrievalService {
+
+    private static final String RESULT_FULL = "full";
+    private static final String RESULT_ONLY = "result";
+    private static final String RESULT_MISS = "miss";
+    private static final String RESULT_UNAVAILABLE = "unavailable";
+
+    private final SearchChannelProperties properties;
+    private final RetrieverService retrieverService;
+    private final VectorGlobalSearchChannel vectorGlobalSearchChannel;
+    private final QueryTermMappingService queryTermMappingService;
+    private final RagMetrics ragMetrics;
+    @Qualifier("ragSpeculativeThreadPoolExecutor")
+    private final Executor speculativeExecutor;
+
+    /**
+     * 发起推测检索
+     *
+     * @param question 用户原始问题
+     * @return 推测检索句柄，未启用或线程池繁忙时返回 null
+     */
+    public SpeculativeRetrieval start(String question) {
+        if (!properties.getSpeculative().isEnabled()
+                || !properties.getChannels().getVectorGlobal().isEnabled()
+                || StrUtil.isBlank(question)) {
+            return null;
+        }
+        String normalized = queryTermMappingService.normalize(question);
+        try {
+            CompletableFuture<float[]> queryVector = CompletableFuture.supplyAsync(
+                    () -> retrieverService.embedQuery(normalized), speculativeExecutor);
+            CompletableFuture<SearchChannelResult> globalResult = queryVector.thenApplyAsync(
+                    vector -> vectorGlobalSearchChannel.search(buildContext(normalized, vector)), speculativeExecutor);
+            return new SpeculativeRetrieval(normalized, DEFAULT_TOP_K, queryVector, globalResult);
+        } catch (RejectedExecutionException e) {
+            log.debug("推测检索线程池繁忙，跳过推测检索");
+            return null;
+        }
+    }
+
+    /**
+     * 子问题与原问题文本足够接近时，返回推测阶段计算好的查询向量
+     *
+     * @return 可复用的查询向量，不可复用时返回 null
+     */
+    public float[] reuseQueryVector(SpeculativeRetrieval speculation, SearchContext context) {
+        if (speculation == null || !textMatches(speculation, context)) {
+            return null;
+        }
+        return await(speculation.queryVector());
+    }
+
+    /**
+     * 判断推测阶段的全局向量检索结果能否用于当前子问题
+     * <p>
+     * 调用前上下文中的查询向量应已就绪，文本不够接近时按向量相似度判断
+     *
+     * @return 可复用的全局检索结果，不可复用时返回 null
+     */
+    public SearchChannelResult reuseGlobalResult(SpeculativeRetrieval speculation, SearchContext context) {
+        if (speculation == null) {
+            return null;
+        }
+        if (context.getTopK() > speculation.topK()) {
+            ragMetrics.recordSpeculation(RESULT_MISS);
+            return null;
+        }
+
+        boolean textMatched = textMatches(speculation, context);
+        if (!textMatched) {
+            float[] speculativeVector = await(speculation.queryVector());
+            if (speculativeVector == null) {
+                ragMetrics.recordSpeculation(RESULT_UNAVAILABLE);
+                return null;
+            }
+            double similarity = cosine(speculativeVector, context.getQueryVector());
+            if (similarity < properties.getSpeculative().getVectorSimilarityThreshold()) {
+                log.info("推测检索未命中，子问题：{}，原问题：{}，向量相似度：{}",
+                        context.getMainQuestion(), speculation.question(), similarity);
+                ragMetrics.recordSpeculation(RESULT_MISS);
+                return null;
+            }
+        }
+
+        SearchChannelResult result = await(speculation.globalResult());
+        // 通道内部失败时返回空结果，此时交给常规流程重新检索
+        if (result == null || CollUtil.isEmpty(result.getChunks())) {
+            ragMetrics.recordSpeculation(RESULT_UNAVAILABLE);
+            return null;
+        }
+        ragMetrics.recordSpeculation(textMatched ? RESULT_FULL : RESULT_ONLY);
+        log.info("复用推测检索结果，子问题：{}，原问题：{}，Chunk 数：{}",
+                context.getMainQuestion(), speculation.question(), result.getChunks().size());
+        return SearchChannelResult.builder()
+                .channelType(result.getChannelType())
+                .channelName(result.getChannelName())
+                .chunks(new ArrayList<>(result.getChunks()))
+                .confidence(result.getConfidence())
+                .latencyMs(result.getLatencyMs())
+                .build();
+    }
+
+    private boolean textMatches(SpeculativeRetrieval speculation, SearchContext context) {
+        String question = context.getMainQuestion();
+        if (StrUtil.isBlank(question) || StrUtil.isBlank(speculation.question())) {
+            return false;
+        }
+        if (question.equals(speculation.question())) {
+            return true;
+        }
+        return TextSimilarity.similar(speculation.question(), question)
+                >= properties.getSpeculative().getTextSimilarityThreshold();
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(properties.getSpeculative().getAwaitTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("推测检索结果不可用：{}", e.toString());
+            return null;
+        }
+    }
+
+    private SearchContext buildContext(String question, float[] queryVector) {
+        return SearchContext.builder()
+                .originalQuestion(question)
+                .rewrittenQuestion(question)
+                .intents(List.of())
+                .topK(DEFAULT_TOP_K)
+                .queryVector(queryVector)
+                .build();
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        if (a == null || b == null || a.length != b.length || a.length == 0) {
+            return 0D;
+        }
+        double dot = 0D;
+        double normA = 0D;
+        double normB = 0D;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        if (normA == 0D || normB == 0D) {
+            return 0D;
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+}
@@ -21,17 +21,23 @@ import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 并行检索抽象模板类
  * <p>
  * 封装通用的并行检索逻辑：
- * 1. 创建 Future 列表
- * 2. 并行提交到线程池
- * 3. 收集结果并统计成功/失败数
+ * 1. 在节点级并发许可内逐个提交检索任务（超过上限的目标排队等待许可）
+ * 2. 按完成顺序流式合并结果，通过容量为 TopK 的最小堆保留得分最高的 Chunk
+ * 3. 超过通道时延预算后不再等待剩余目标（慢 collection 的结果直接丢弃）
  * 4. 打印统计日志
  * <p>
  * 子类只需实现：
@@ -44,70 +50,144 @@ import java.util.concurrent.Executor;
 @Slf4j
 public abstract class AbstractParallelRetriever<T> {
 
+    private static final Comparator<RetrievedChunk> SCORE_ASC =
+            Comparator.comparing(chunk -> chunk.getScore() == null ? Float.NEGATIVE_INFINITY : chunk.getScore());
+
     private final Executor executor;
+    private final VectorSearchLimiter searchLimiter;
 
-    protected AbstractParallelRetriever(Executor executor) {
+    protected AbstractParallelRetriever(Executor executor, VectorSearchLimiter searchLimiter) {
         this.executor = executor;
+        this.searchLimiter = searchLimiter;
     }
 
     /**
      * 并行检索模板方法
      *
-     * @param question 查询问题
-     * @param targets  检索目标列表
-     * @param topK     每个目标的 TopK
-     * @return 合并后的检索结果
+     * @param queryVector     查询向量（同一请求内所有目标共享）
+     * @param targets         检索目标列表
+     * @param topK            每个目标的 TopK
+     * @param latencyBudgetMs 通道时延预算（毫秒），小于等于 0 表示不限制
+     * @return 合并后的检索结果（按得分倒序）
      */
-    public final List<RetrievedChunk> executeParallelRetrieval(String question,
+    public final List<RetrievedChunk> executeParallelRetrieval(float[] queryVector,
                                                                List<T> targets,
-                                                               int topK) {
-        // 1. 创建 Future 列表
-        record RetrievalFuture<T>(T target, CompletableFuture<List<RetrievedChunk>> future) {
+                                                               int topK,
+                                                               long latencyBudgetMs) {
+        record Completion<T>(T target, List<RetrievedChunk> chunks, Throwable error) {
         }
 
-        List<RetrievalFuture<T>> futures = targets.stream()
-                .map(target -> {
-                    CompletableFuture<List<RetrievedChunk>> future = CompletableFuture.supplyAsync(
-                            () -> createRetrievalTask(question, target, topK),
-                            executor
-                    );
-                    return new RetrievalFuture<>(target, future);
-                })
-                .toList();
-
-        // 2. 收集结果并统计成功/失败数
-        List<RetrievedChunk> allChunks = new ArrayList<>();
+        long deadline = latencyBudgetMs > 0
+                ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(latencyBudgetMs)
+                : Long.MAX_VALUE;
+        int mergeLimit = getMergeLimit(targets, topK);
+        BlockingQueue<Completion<T>> completions = new LinkedBlockingQueue<>();
+        PriorityQueue<RetrievedChunk> topHeap = new PriorityQueue<>(SCORE_ASC);
+
+        int submitted = 0;
+        int completed = 0;
         int successCount = 0;
         int failureCount = 0;
+        int mergedCount = 0;
+
+        try {
+            while (completed < targets.size()) {
+                // 1. 在许可范围内尽可能多地提交任务
+                while (submitted < targets.size() && searchLimiter.tryAcquire()) {
+                    T target = targets.get(submitted++);
+                    try {
+                        CompletableFuture
+                                .supplyAsync(() -> createRetrievalTask(queryVector, target, topK), executor)
+                                .whenComplete((chunks, error) -> {
+                                    searchLimiter.release();
+                                    completions.offer(new Completion<>(target, chunks, error));
+                                });
+                    } catch (RejectedExecutionException e) {
+                        searchLimiter.release();
+                        completions.offer(new Completion<>(target, null, e));
+                    }
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+
+                // 2. 没有在途任务且拿不到许可时，等待许可而不是空转
+                if (completed == submitted) {
+                    if (!searchLimiter.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+                        break;
+                    }
+                    searchLimiter.release();
+                    continue;
+                }
+
+                // 3. 按完成顺序合并结果
+                Completion<T> completion = completions.poll(remaining, TimeUnit.NANOSECONDS);
+                if (completion == null) {
+                    break;
+                }
+                completed++;
+                if (completion.error() != null) {
+                    failureCount++;
+                    log.error("{} 获取检索结果失败 - 目标: {}",
+                            getStatisticsName(), getTargetIdentifier(completion.target()), completion.error());
+                    continue;
+                }
 
-        for (RetrievalFuture<T> future : futures) {
-            try {
-                List<RetrievedChunk> chunks = future.future.join();
-                allChunks.addAll(chunks);
                 successCount++;
-            } catch (Exception e) {
-                failureCount++;
-                log.error("{} 获取检索结果失败 - 目标: {}", getStatisticsName(), getTargetIdentifier(future.target), e);
+                for (RetrievedChunk chunk : completion.chunks()) {
+                    mergedCount++;
+                    topHeap.offer(chunk);
+                    if (topHeap.size() > mergeLimit) {
+                        topHeap.poll();
+                    }
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("{} 等待检索结果被中断，返回已合并结果", getStatisticsName());
+        }
+
+        List<RetrievedChunk> allChunks = new ArrayList<>(topHeap);
+        allChunks.sort(SCORE_ASC.reversed());
+
+        int timeoutCount = targets.size() - completed;
+        if (timeoutCount > 0) {
+            log.warn("{} 超出时延预算 {}ms，忽略 {} 个未完成目标（其中 {} 个未提交）",
+                    getStatisticsName(), latencyBudgetMs, timeoutCount, targets.size() - submitted);
         }
 
-        // 3. 打印统计日志
-        log.info("{} 检索统计 - 总目标数: {}, 成功: {}, 失败: {}, 检索到 Chunk 总数: {}",
-                getStatisticsName(), targets.size(), successCount, failureCount, allChunks.size());
+        // 4. 打印统计日志
+        log.info("{} 检索统计 - 总目标数: {}, 成功: {}, 失败: {}, 超时: {}, 召回 Chunk 数: {}, 合并后 Chunk 数: {}",
+                getStatisticsName(), targets.size(), successCount, failureCount, timeoutCount, mergedCount, allChunks.size());
 
         return allChunks;
     }
 
+    /**
+     * 合并结果保留的最大 Chunk 数
+     * <p>
+     * 默认保留全部结果，子类可以覆盖以限制为全局 TopK
+     *
+     * @param targets 检索目标列表
+     * @param topK    每个目标的 TopK
+     * @return 合并后最多保留的 Chunk 数
+     */
+    protected int getMergeLimit(List<T> targets, int topK) {
+        return Integer.MAX_VALUE;
+    }
+
     /**
      * 创建单个检索任务（子类实现）
      * 注意：此方法内部应包含异常处理，失败时返回空列表
      *
-     * @param question 查询问题
-     * @param target   检索目标
-     * @param topK     TopK
+     * @param queryVector 查询向量
+     * @param target      检索目标
+     * @param topK        TopK
      * @return 检索结果列表
      */
-    protected abstract List<RetrievedChunk> createRetrievalTask(String question, T target, int topK);
+    protected abstract List<RetrievedChunk> createRetrievalTask(float[] queryVector, T target, int topK);
 
     /**
      * 获取目标标识（用于日志）
@@ -46,9 +46,10 @@ public class IntentDirectedSearchChannel implements SearchChannel {
 
     public IntentDirectedSearchChannel(RetrieverService retrieverService,
                                        SearchChannelProperties properties,
+                                       VectorSearchLimiter searchLimiter,
                                        @Qualifier("ragInnerRetrievalThreadPoolExecutor") Executor ragInnerRetrievalExecutor) {
         this.properties = properties;
-        this.parallelRetriever = new IntentParallelRetriever(retrieverService, ragInnerRetrievalExecutor);
+        this.parallelRetriever = new IntentParallelRetriever(retrieverService, ragInnerRetrievalExecutor, searchLimiter);
     }
 
     @Override
@@ -102,7 +103,7 @@ public class IntentDirectedSearchChannel implements SearchChannel {
             // 并行检索所有意图对应的知识库
             int topKMultiplier = properties.getChannels().getIntentDirected().getTopKMultiplier();
             List<RetrievedChunk> allChunks = retrieveByIntents(
-                    context.getMainQuestion(),
+                    context.getQueryVector(),
                     kbIntents,
                     context.getTopK(),
                     topKMultiplier
@@ -160,11 +161,12 @@ public class IntentDirectedSearchChannel implements SearchChannel {
     /**
      * 根据意图列表并行检索
      */
-    private List<RetrievedChunk> retrieveByIntents(String question,
+    private List<RetrievedChunk> retrieveByIntents(float[] queryVector,
                                                    List<NodeScore> kbIntents,
                                                    int fallbackTopK,
                                                    int topKMultiplier) {
         // 使用模板方法执行并行检索
-        return parallelRetriever.executeParallelRetrieval(question, kbIntents, fallbackTopK, topKMultiplier);
+        long latencyBudgetMs = properties.getChannels().getIntentDirected().getLatencyBudgetMs();
+        return parallelRetriever.executeParallelRetrieval(queryVector, kbIntents, fallbackTopK, topKMultiplier, latencyBudgetMs);
     }
 }
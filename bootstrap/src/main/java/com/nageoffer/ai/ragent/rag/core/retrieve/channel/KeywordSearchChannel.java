@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.retrieve.channel;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.NumberUtil;
+import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
+import com.nageoffer.ai.ragent.rag.config.SearchChannelProperties;
+import com.nageoffer.ai.ragent.rag.core.intent.NodeScore;
+import com.nageoffer.ai.ragent.rag.core.retrieve.keyword.KeywordIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 关键词检索通道
+ * <p>
+ * 基于进程内 BM25 倒排索引检索，不依赖查询向量，与向量通道并行执行。
+ * 错误码、SKU、保单号等标识符在向量空间中区分度很低，字面匹配可以补足这部分召回。
+ * 意图置信度足够高（不启用全局检索）时只检索意图命中的知识库，否则检索全部知识库
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KeywordSearchChannel implements SearchChannel {
+
+    private final SearchChannelProperties properties;
+    private final KeywordIndexService keywordIndexService;
+
+    @Override
+    public String getName() {
+        return "KeywordSearch";
+    }
+
+    @Override
+    public int getPriority() {
+        return 5;
+    }
+
+    @Override
+    public boolean isEnabled(SearchContext context) {
+        return properties.getChannels().getKeyword().isEnabled() && keywordIndexService.isReady();
+    }
+
+    @Override
+    public boolean requiresQueryVector() {
+        return false;
+    }
+
+    @Override
+    public SearchChannelResult search(SearchContext context) {
+        long startTime = System.currentTimeMillis();
+        int topK = context.getTopK() * properties.getChannels().getKeyword().getTopKMultiplier();
+        Set<Long> kbIds = resolveKbScope(context);
+        List<RetrievedChunk> chunks = keywordIndexService.search(context.getMainQuestion(), kbIds, topK);
+        long latency = System.currentTimeMillis() - startTime;
+
+        log.info("关键词检索完成，检索到 {} 个 Chunk，限定知识库：{}，耗时 {}ms",
+                chunks.size(), kbIds.isEmpty() ? "全部" : kbIds, latency);
+
+        return SearchChannelResult.builder()
+                .channelType(SearchChannelType.KEYWORD_ES)
+                .channelName(getName())
+                .chunks(chunks)
+                .confidence(chunks.isEmpty() ? 0.0 : 0.8)
+                .latencyMs(latency)
+                .build();
+    }
+
+    @Override
+    public SearchChannelType getType() {
+        return SearchChannelType.KEYWORD_ES;
+    }
+
+    /**
+     * 与向量通道的启用条件保持一致：意图最高分达到全局检索阈值时只查意图知识库
+     */
+    private Set<Long> resolveKbScope(SearchContext context) {
+        Set<Long> kbIds = new HashSet<>();
+        if (CollUtil.isEmpty(context.getIntents())) {
+            return kbIds;
+        }
+        double minScore = properties.getChannels().getIntentDirected().getMinIntentScore();
+        List<NodeScore> kbIntents = context.getIntents().stream()
+                .flatMap(si -> si.nodeScores().stream())
+                .filter(ns -> ns.getNode() != null && ns.getNode().isKB())
+                .filter(ns -> ns.getScore() >= minScore)
+                .toList();
+        double maxScore = kbIntents.stream().mapToDouble(NodeScore::getScore).max().orElse(0.0);
+        if (maxScore < properties.getChannels().getVectorGlobal().getConfidenceThreshold()) {
+            return kbIds;
+        }
+        for (NodeScore ns : kbIntents) {
+            String kbId = ns.getNode().getKbId();
+            if (NumberUtil.isLong(kbId)) {
+                kbIds.add(Long.parseLong(kbId));
+            }
+        }
+        return kbIds;
+    }
+}
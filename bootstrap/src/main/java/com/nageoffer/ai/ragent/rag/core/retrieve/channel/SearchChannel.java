@@ -23,7 +23,7 @@ package com.nageoffer.ai.ragent.rag.core.retrieve.channel;
  * 每个通道负责一种检索策略，例如：
  * - 向量全局检索
  * - 意图定向检索
- * - ES 关键词检索
+ * - 关键词检索
  * <p>
  * 多个通道可以并行执行，最后统一合并结果
  */
@@ -56,6 +56,15 @@ public interface SearchChannel {
      */
     SearchChannelResult search(SearchContext context);
 
+    /**
+     * 是否依赖查询向量
+     * <p>
+     * 返回 true 时，检索引擎会在执行通道前预先计算 {@link SearchContext#getQueryVector()}
+     */
+    default boolean requiresQueryVector() {
+        return true;
+    }
+
     /**
      * 通道类型
      */
@@ -35,8 +35,8 @@ public enum SearchChannelType {
     INTENT_DIRECTED,
 
     /**
-     * ES 关键词检索
-     * 基于 Elasticsearch 的关键词分词检索
+     * 关键词检索
+     * 基于进程内 BM25 倒排索引的关键词分词检索
      */
     KEYWORD_ES,
 
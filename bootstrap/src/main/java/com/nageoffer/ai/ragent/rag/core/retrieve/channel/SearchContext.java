@@ -59,6 +59,13 @@ public class SearchContext {
      */
     private int topK;
 
+    /**
+     * 主问题的查询向量（已归一化）
+     * <p>
+     * 由检索引擎在一次请求内计算一次，供所有向量通道复用，避免重复调用 Embedding 模型
+     */
+    private float[] queryVector;
+
     /**
      * 扩展元数据
      */
@@ -53,10 +53,11 @@ public class VectorGlobalSearchChannel implements SearchChannel {
     public VectorGlobalSearchChannel(RetrieverService retrieverService,
                                      SearchChannelProperties properties,
                                      KnowledgeBaseMapper knowledgeBaseMapper,
+                                     VectorSearchLimiter searchLimiter,
                                      @Qualifier("ragInnerRetrievalThreadPoolExecutor") Executor innerRetrievalExecutor) {
         this.properties = properties;
         this.knowledgeBaseMapper = knowledgeBaseMapper;
-        this.parallelRetriever = new CollectionParallelRetriever(retrieverService, innerRetrievalExecutor);
+        this.parallelRetriever = new CollectionParallelRetriever(retrieverService, innerRetrievalExecutor, searchLimiter);
     }
 
     @Override
@@ -124,7 +125,7 @@ public class VectorGlobalSearchChannel implements SearchChannel {
             // 并行在所有 collection 中检索
             int topKMultiplier = properties.getChannels().getVectorGlobal().getTopKMultiplier();
             List<RetrievedChunk> allChunks = retrieveFromAllCollections(
-                    context.getMainQuestion(),
+                    context.getQueryVector(),
                     collections,
                     context.getTopK() * topKMultiplier
             );
@@ -178,11 +179,12 @@ public class VectorGlobalSearchChannel implements SearchChannel {
     /**
      * 并行在所有 collection 中检索
      */
-    private List<RetrievedChunk> retrieveFromAllCollections(String question,
+    private List<RetrievedChunk> retrieveFromAllCollections(float[] queryVector,
                                                             List<String> collections,
                                                             int topK) {
-        // 使用模板方法执行并行检索
-        return parallelRetriever.executeParallelRetrieval(question, collections, topK);
+        // 使用模板方法执行并行检索，所有 collection 复用同一个查询向量，结果流式合并为全局 TopK
+        long latencyBudgetMs = properties.getChannels().getVectorGlobal().getLatencyBudgetMs();
+        return parallelRetriever.executeParallelRetrieval(queryVector, collections, topK, latencyBudgetMs);
     }
 
     @Override
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.retrieve.channel;
+
+import com.nageoffer.ai.ragent.rag.config.SearchChannelProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static com.nageoffer.ai.ragent.rag.config.ThreadPoolExecutorConfig.CPU_COUNT;
+
+/**
+ * 向量检索在途并发限制器
+ * <p>
+ * 节点级别（JVM 内全局共享）限制同时在途的向量库检索请求数，
+ * 所有检索通道、所有并发请求共用同一组许可，避免大量 collection 扇出时
+ * 把内部检索线程池打满，进而触发 CallerRunsPolicy 在请求线程上执行检索
+ */
+@Slf4j
+@Component
+public class VectorSearchLimiter {
+
+    private final Semaphore permits;
+
+    public VectorSearchLimiter(SearchChannelProperties properties) {
+        int maxInFlight = properties.getFanOut().getMaxInFlight();
+        if (maxInFlight <= 0) {
+            // 与 ragInnerRetrievalThreadPoolExecutor 的最大线程数保持一致
+            maxInFlight = CPU_COUNT << 2;
+        }
+        this.permits = new Semaphore(maxInFlight, true);
+        log.info("向量检索在途并发上限：{}", maxInFlight);
+    }
+
+    /**
+     * 尝试立即获取一个许可
+     */
+    public boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    /**
+     * 在指定时间内等待获取一个许可
+     */
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        return permits.tryAcquire(timeout, unit);
+    }
+
+    /**
+     * 释放许可
+     */
+    public void release() {
+        permits.release();
+    }
+}
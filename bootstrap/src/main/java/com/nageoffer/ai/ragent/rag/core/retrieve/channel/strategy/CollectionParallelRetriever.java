@@ -21,6 +21,7 @@ import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
 import com.nageoffer.ai.ragent.rag.core.retrieve.RetrieveRequest;
 import com.nageoffer.ai.ragent.rag.core.retrieve.RetrieverService;
 import com.nageoffer.ai.ragent.rag.core.retrieve.channel.AbstractParallelRetriever;
+import com.nageoffer.ai.ragent.rag.core.retrieve.channel.VectorSearchLimiter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
@@ -29,24 +30,27 @@ import java.util.concurrent.Executor;
 /**
  * Collection 并行检索器
  * 继承模板类，实现 Collection 特定的检索逻辑
+ * 多个 collection 的结果按得分流式合并，只保留全局 TopK
  */
 @Slf4j
 public class CollectionParallelRetriever extends AbstractParallelRetriever<String> {
 
     private final RetrieverService retrieverService;
 
-    public CollectionParallelRetriever(RetrieverService retrieverService, Executor executor) {
-        super(executor);
+    public CollectionParallelRetriever(RetrieverService retrieverService,
+                                       Executor executor,
+                                       VectorSearchLimiter searchLimiter) {
+        super(executor, searchLimiter);
         this.retrieverService = retrieverService;
     }
 
     @Override
-    protected List<RetrievedChunk> createRetrievalTask(String question, String collectionName, int topK) {
+    protected List<RetrievedChunk> createRetrievalTask(float[] queryVector, String collectionName, int topK) {
         try {
-            return retrieverService.retrieve(
+            return retrieverService.retrieveByVector(
+                    queryVector,
                     RetrieveRequest.builder()
                             .collectionName(collectionName)
-                            .query(question)
                             .topK(topK)
                             .build()
             );
@@ -56,6 +60,11 @@ public class CollectionParallelRetriever extends AbstractParallelRetriever<Strin
         }
     }
 
+    @Override
+    protected int getMergeLimit(List<String> collectionNames, int topK) {
+        return topK;
+    }
+
     @Override
     protected String getTargetIdentifier(String collectionName) {
         return "Collection: " + collectionName;
@@ -23,6 +23,7 @@ import com.nageoffer.ai.ragent.rag.core.intent.NodeScore;
 import com.nageoffer.ai.ragent.rag.core.retrieve.RetrieveRequest;
 import com.nageoffer.ai.ragent.rag.core.retrieve.RetrieverService;
 import com.nageoffer.ai.ragent.rag.core.retrieve.channel.AbstractParallelRetriever;
+import com.nageoffer.ai.ragent.rag.core.retrieve.channel.VectorSearchLimiter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
@@ -41,36 +42,38 @@ public class IntentParallelRetriever extends AbstractParallelRetriever<IntentPar
     }
 
     public IntentParallelRetriever(RetrieverService retrieverService,
-                                   Executor executor) {
-        super(executor);
+                                   Executor executor,
+                                   VectorSearchLimiter searchLimiter) {
+        super(executor, searchLimiter);
         this.retrieverService = retrieverService;
     }
 
     /**
      * 执行并行检索（重载方法，支持动态 TopK 计算）
      */
-    public List<RetrievedChunk> executeParallelRetrieval(String question,
+    public List<RetrievedChunk> executeParallelRetrieval(float[] queryVector,
                                                          List<NodeScore> targets,
                                                          int fallbackTopK,
-                                                         int topKMultiplier) {
+                                                         int topKMultiplier,
+                                                         long latencyBudgetMs) {
         List<IntentTask> intentTasks = targets.stream()
                 .map(nodeScore -> new IntentTask(
                         nodeScore,
                         resolveIntentTopK(nodeScore, fallbackTopK, topKMultiplier)
                 ))
                 .toList();
-        return super.executeParallelRetrieval(question, intentTasks, fallbackTopK);
+        return super.executeParallelRetrieval(queryVector, intentTasks, fallbackTopK, latencyBudgetMs);
     }
 
     @Override
-    protected List<RetrievedChunk> createRetrievalTask(String question, IntentTask task, int ignoredTopK) {
+    protected List<RetrievedChunk> createRetrievalTask(float[] queryVector, IntentTask task, int ignoredTopK) {
         NodeScore nodeScore = task.nodeScore();
         IntentNode node = nodeScore.getNode();
         try {
-            return retrieverService.retrieve(
+            return retrieverService.retrieveByVector(
+                    queryVector,
                     RetrieveRequest.builder()
                             .collectionName(node.getCollectionName())
-                            .query(question)
                             .topK(task.intentTopK())
                             .build()
             );
@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.retrieve.keyword;
+
+import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 进程内 BM25 倒排索引
+ * <p>
+ * 每个 Chunk 占用一个槽位，倒排表按词项记录（槽位, 词频）的紧凑数组。
+ * 更新与删除不改动倒排表，只把旧槽位置空并维护词项的存活文档数，失效槽位占比过高时由调用方通过 {@link #compact()} 重建。
+ * 读写通过读写锁隔离，检索之间互不阻塞
+ */
+public final class KeywordIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> slotByChunkId = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private long totalLength;
+
+    /**
+     * 写入或覆盖一个 Chunk，未启用的 Chunk 视为删除
+     */
+    public void upsert(long chunkId, long kbId, long docId, String text, boolean enabled) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(chunkId);
+            if (enabled && text != null && !text.isBlank()) {
+                addLocked(chunkId, kbId, docId, text);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Collection<Long> chunkIds) {
+        lock.writeLock().lock();
+        try {
+            chunkIds.forEach(this::removeLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeDocument(long docId) {
+        lock.writeLock().lock();
+        try {
+            List<Long> chunkIds = new ArrayList<>();
+            for (Entry entry : entries) {
+                if (entry != null && entry.docId == docId) {
+                    chunkIds.add(entry.chunkId);
+                }
+            }
+            chunkIds.forEach(this::removeLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 存活的 Chunk 数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotByChunkId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 失效槽位占比
+     */
+    public double deadRatio() {
+        lock.readLock().lock();
+        try {
+            return entries.isEmpty() ? 0D : 1D - (slotByChunkId.size() / (double) entries.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 仅用存活的 Chunk 重建一个新索引
+     */
+    public KeywordIndex compact() {
+        KeywordIndex compacted = new KeywordIndex();
+        lock.readLock().lock();
+        try {
+            for (Entry entry : entries) {
+                if (entry != null) {
+                    compacted.addLocked(entry.chunkId, entry.kbId, entry.docId, entry.text);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return compacted;
+    }
+
+    /**
+     * BM25 检索
+     *
+     * @param query 查询文本
+     * @param kbIds 限定的知识库，为空表示不限
+     * @param topK  返回数量
+     * @param k1    词频饱和参数
+     * @param b     文档长度归一化参数
+     * @return 按得分倒序的 Chunk
+     */
+    public List<RetrievedChunk> search(String query, Set<Long> kbIds, int topK, double k1, double b) {
+        Set<String> terms = new LinkedHashSet<>(KeywordTokenizer.tokenize(query));
+        if (terms.isEmpty() || topK <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int liveCount = slotByChunkId.size();
+            if (liveCount == 0) {
+                return List.of();
+            }
+            double avgLength = totalLength / (double) liveCount;
+            float[] scores = new float[entries.size()];
+            int[] touched = new int[16];
+            int touchedCount = 0;
+
+            // 出现在半数以上 Chunk 中的词项区分度接近 0，查询中还有更稀有的词项时直接跳过，避免遍历超长倒排表
+            List<Postings> matched = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings posting = postings.get(term);
+                if (posting != null && posting.live > 0) {
+                    matched.add(posting);
+                }
+            }
+            boolean hasSelectiveTerm = matched.stream().anyMatch(posting -> posting.live <= liveCount / 2);
+
+            for (Postings posting : matched) {
+                if (hasSelectiveTerm && posting.live > liveCount / 2) {
+                    continue;
+                }
+                double idf = Math.log(1D + (liveCount - posting.live + 0.5D) / (posting.live + 0.5D));
+                for (int i = 0; i < posting.size; i++) {
+                    int slot = posting.slots[i];
+                    Entry entry = entries.get(slot);
+                    if (entry == null || (kbIds != null && !kbIds.isEmpty() && !kbIds.contains(entry.kbId))) {
+                        continue;
+                    }
+                    int tf = posting.tfs[i];
+                    double norm = tf * (k1 + 1D) / (tf + k1 * (1D - b + b * entry.length / avgLength));
+                    if (scores[slot] == 0F) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount << 1);
+                        }
+                        touched[touchedCount++] = slot;
+                    }
+                    scores[slot] += (float) (idf * norm);
+                }
+            }
+
+            PriorityQueue<Integer> heap = new PriorityQueue<>(Comparator.comparingDouble(slot -> scores[slot]));
+            for (int i = 0; i < touchedCount; i++) {
+                heap.offer(touched[i]);
+                if (heap.size() > topK) {
+                    heap.poll();
+                }
+            }
+            List<RetrievedChunk> result = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                int slot = heap.poll();
+                Entry entry = entries.get(slot);
+                result.add(RetrievedChunk.builder()
+                        .id(String.valueOf(entry.chunkId))
+                        .text(entry.text)
+                        .score(scores[slot])
+                        .build());
+            }
+            result.sort(Comparator.comparing(RetrievedChunk::getScore).reversed());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addLocked(long chunkId, long kbId, long docId, String text) {
+        List<String> tokens = KeywordTokenizer.tokenize(text);
+        if (tokens.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+
+        int slot = entries.size();
+        String[] terms = new String[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+            Postings posting = postings.computeIfAbsent(frequency.getKey(), key -> new Postings());
+            posting.add(slot, frequency.getValue());
+            // 复用倒排表中的词项字符串，避免每个 Chunk 各持有一份
+            if (posting.term == null) {
+                posting.term = frequency.getKey();
+            }
+            terms[i++] = posting.term;
+        }
+        entries.add(new Entry(chunkId, kbId, docId, text, tokens.size(), terms));
+        slotByChunkId.put(chunkId, slot);
+        totalLength += tokens.size();
+    }
+
+    private void removeLocked(long chunkId) {
+        Integer slot = slotByChunkId.remove(chunkId);
+        if (slot == null) {
+            return;
+        }
+        Entry entry = entries.set(slot, null);
+        totalLength -= entry.length;
+        for (String term : entry.terms) {
+            Postings posting = postings.get(term);
+            if (posting != null && --posting.live == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private record Entry(long chunkId, long kbId, long docId, String text, int length, String[] terms) {
+    }
+
+    private static final class Postings {
+
+        private String term;
+        private int[] slots = new int[4];
+        private int[] tfs = new int[4];
+        private int size;
+        private int live;
+
+        void add(int slot, int tf) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size << 1);
+                tfs = Arrays.copyOf(tfs, size << 1);
+            }
+            slots[size] = slot;
+            tfs[size] = tf;
+            size++;
+            live++;
+        }
+    }
+}
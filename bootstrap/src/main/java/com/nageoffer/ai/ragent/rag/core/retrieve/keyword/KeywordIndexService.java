@@ -0,0 +1,345 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.retrieve.keyword;
+
+import cn.hutool.core.collection.CollUtil;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
+import com.nageoffer.ai.ragent.knowledge.dao.entity.KnowledgeChunkDO;
+import com.nageoffer.ai.ragent.knowledge.dao.mapper.KnowledgeChunkMapper;
+import com.nageoffer.ai.ragent.rag.config.SearchChannelProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 关键词索引维护服务
+ * <p>
+ * 索引由 {@code t_knowledge_chunk} 中启用的 Chunk 构建，同步分两条路径：
+ * <ul>
+ *   <li>本实例的 Chunk 写操作在事务提交后直接更新索引，保证写后即可检索</li>
+ *   <li>定时任务按 update_time 水位线增量拉取其他实例的新增、修改与启停变更；
+ *   逻辑删除不会推进 update_time，因此再比对启用 Chunk 总数，不一致时全量重建</li>
+ * </ul>
+ * 索引构建完成前关键词通道保持关闭，不影响向量检索。
+ * <p>
+ * 同步任务运行在独立的调度线程上，全量重建耗时较长也不会占用 Spring 共享调度线程；
+ * 重建与压缩期间发生的写操作会记入日志，换入新索引前在同一把锁内重放，保证不丢更新
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class KeywordIndexService {
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final double COMPACT_DEAD_RATIO = 0.3D;
+
+    private final KnowledgeChunkMapper chunkMapper;
+    private final SearchChannelProperties properties;
+
+    private final ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(
+            1,
+            r -> {
+                Thread thread = new Thread(r);
+                thread.setName("keyword_index_refresh");
+                thread.setDaemon(true);
+                return thread;
+            }
+    );
+
+    /**
+     * 保护索引的写入与换入：写操作与换入互斥，新索引构建期间的写操作记入 {@link #journal}
+     */
+    private final Object swapLock = new Object();
+
+    private volatile KeywordIndex index;
+    private volatile Date watermark;
+
+    /**
+     * 新索引构建期间的写操作日志，非 null 表示有构建在进行；仅在 {@link #swapLock} 内读写
+     */
+    private List<Consumer<KeywordIndex>> journal;
+
+    @PostConstruct
+    public void init() {
+        long interval = Math.max(1000L, properties.getChannels().getKeyword().getRefreshMs());
+        scheduler.scheduleWithFixedDelay(this::refresh, 0L, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(3, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    /**
+     * BM25 检索
+     *
+     * @param query 查询文本
+     * @param kbIds 限定的知识库，为空表示全部
+     * @param topK  返回数量
+     */
+    public List<RetrievedChunk> search(String query, Set<Long> kbIds, int topK) {
+        KeywordIndex current = index;
+        if (current == null) {
+            return List.of();
+        }
+        SearchChannelProperties.Keyword config = properties.getChannels().getKeyword();
+        return current.search(query, kbIds, topK, config.getK1(), config.getB());
+    }
+
+    /**
+     * Chunk 新增、修改或启停后同步到索引（事务提交后生效）
+     */
+    public void upsert(Collection<KnowledgeChunkDO> chunks) {
+        if (CollUtil.isEmpty(chunks)) {
+            return;
+        }
+        afterCommit(() -> apply(target -> chunks.forEach(chunk -> upsert(target, chunk))));
+    }
+
+    /**
+     * Chunk 删除后从索引移除（事务提交后生效）
+     */
+    public void remove(Collection<Long> chunkIds) {
+        if (CollUtil.isEmpty(chunkIds)) {
+            return;
+        }
+        afterCommit(() -> apply(target -> target.remove(chunkIds)));
+    }
+
+    /**
+     * 按文档重新加载索引（事务提交后生效），用于整篇文档的启停与删除
+     */
+    public void refreshDocument(Long docId) {
+        if (docId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            if (index == null && !building()) {
+                return;
+            }
+            List<KnowledgeChunkDO> chunks = chunkMapper.selectList(Wrappers.lambdaQuery(KnowledgeChunkDO.class)
+                    .select(KnowledgeChunkDO::getId, KnowledgeChunkDO::getKbId, KnowledgeChunkDO::getDocId,
+                            KnowledgeChunkDO::getContent, KnowledgeChunkDO::getEnabled)
+                    .eq(KnowledgeChunkDO::getDocId, docId)
+                    .eq(KnowledgeChunkDO::getEnabled, 1));
+            apply(target -> {
+                target.removeDocument(docId);
+                chunks.forEach(chunk -> upsert(target, chunk));
+            });
+        });
+    }
+
+    public void refresh() {
+        if (!properties.getChannels().getKeyword().isEnabled()) {
+            synchronized (swapLock) {
+                index = null;
+            }
+            return;
+        }
+        try {
+            KeywordIndex current = index;
+            if (current == null) {
+                rebuild();
+                return;
+            }
+            applyIncrementalChanges();
+
+            long expected = chunkMapper.selectCount(Wrappers.lambdaQuery(KnowledgeChunkDO.class)
+                    .eq(KnowledgeChunkDO::getEnabled, 1));
+            if (expected != current.size()) {
+                log.info("关键词索引与数据库不一致（索引 {}，数据库 {}），全量重建", current.size(), expected);
+                rebuild();
+            } else if (current.deadRatio() > COMPACT_DEAD_RATIO) {
+                swap(current::compact);
+            }
+        } catch (Exception e) {
+            log.error("关键词索引同步失败", e);
+        }
+    }
+
+    private void rebuild() {
+        long total = chunkMapper.selectCount(Wrappers.lambdaQuery(KnowledgeChunkDO.class)
+                .eq(KnowledgeChunkDO::getEnabled, 1));
+        int maxIndexedChunks = properties.getChannels().getKeyword().getMaxIndexedChunks();
+        if (total > maxIndexedChunks) {
+            log.warn("启用的 Chunk 数 {} 超过关键词索引上限 {}，关键词检索通道关闭", total, maxIndexedChunks);
+            synchronized (swapLock) {
+                index = null;
+            }
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        KeywordIndex rebuilt = swap(this::load);
+        log.info("关键词索引构建完成，Chunk 数：{}，耗时：{}ms", rebuilt.size(), System.currentTimeMillis() - startTime);
+    }
+
+    private KeywordIndex load() {
+        KeywordIndex rebuilt = new KeywordIndex();
+        Date latest = null;
+        Long lastId = null;
+        while (true) {
+            List<KnowledgeChunkDO> batch = chunkMapper.selectList(Wrappers.lambdaQuery(KnowledgeChunkDO.class)
+                    .select(KnowledgeChunkDO::getId, KnowledgeChunkDO::getKbId, KnowledgeChunkDO::getDocId,
+                            KnowledgeChunkDO::getContent, KnowledgeChunkDO::getEnabled, KnowledgeChunkDO::getUpdateTime)
+                    .eq(KnowledgeChunkDO::getEnabled, 1)
+                    .gt(lastId != null, KnowledgeChunkDO::getId, lastId)
+                    .orderByAsc(KnowledgeChunkDO::getId)
+                    .last("LIMIT " + LOAD_BATCH_SIZE));
+            for (KnowledgeChunkDO chunk : batch) {
+                upsert(rebuilt, chunk);
+                latest = later(latest, chunk.getUpdateTime());
+            }
+            if (batch.size() < LOAD_BATCH_SIZE) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+        watermark = latest;
+        return rebuilt;
+    }
+
+    /**
+     * 在锁外构建新索引，构建期间的写操作记入日志；换入前在锁内把日志重放到新索引上。
+     * 重放的写操作都是幂等的整体覆盖，与构建时读到的数据重叠也不影响结果
+     */
+    private KeywordIndex swap(Supplier<KeywordIndex> builder) {
+        synchronized (swapLock) {
+            journal = new ArrayList<>();
+        }
+        try {
+            KeywordIndex next = builder.get();
+            synchronized (swapLock) {
+                journal.forEach(op -> op.accept(next));
+                index = next;
+            }
+            return next;
+        } finally {
+            synchronized (swapLock) {
+                journal = null;
+            }
+        }
+    }
+
+    /**
+     * 对当前索引执行写操作；有新索引在构建时同时记入日志，换入时重放（首次构建期间同样记录）
+     */
+    private void apply(Consumer<KeywordIndex> op) {
+        synchronized (swapLock) {
+            KeywordIndex current = index;
+            if (current != null) {
+                op.accept(current);
+            }
+            if (journal != null) {
+                journal.add(op);
+            }
+        }
+    }
+
+    private boolean building() {
+        synchronized (swapLock) {
+            return journal != null;
+        }
+    }
+
+    private void applyIncrementalChanges() {
+        Date since = watermark;
+        List<KnowledgeChunkDO> changed = chunkMapper.selectList(Wrappers.lambdaQuery(KnowledgeChunkDO.class)
+                .select(KnowledgeChunkDO::getId, KnowledgeChunkDO::getKbId, KnowledgeChunkDO::getDocId,
+                        KnowledgeChunkDO::getContent, KnowledgeChunkDO::getEnabled, KnowledgeChunkDO::getUpdateTime)
+                .ge(since != null, KnowledgeChunkDO::getUpdateTime, since));
+        Date latest = since;
+        for (KnowledgeChunkDO chunk : changed) {
+            latest = later(latest, chunk.getUpdateTime());
+        }
+        apply(target -> changed.forEach(chunk -> upsert(target, chunk)));
+        watermark = latest;
+    }
+
+    private void upsert(KeywordIndex target, KnowledgeChunkDO chunk) {
+        if (chunk == null || chunk.getId() == null) {
+            return;
+        }
+        target.upsert(
+                chunk.getId(),
+                chunk.getKbId() == null ? 0L : chunk.getKbId(),
+                chunk.getDocId() == null ? 0L : chunk.getDocId(),
+                chunk.getContent(),
+                Objects.equals(chunk.getEnabled(), 1)
+        );
+    }
+
+    private Date later(Date current, Date candidate) {
+        if (candidate == null) {
+            return current;
+        }
+        return current == null || candidate.after(current) ? candidate : current;
+    }
+
+    /**
+     * 有事务时推迟到提交之后执行，回滚的写操作不会进入索引；索引更新失败只记录日志，不影响业务写入
+     */
+    private void afterCommit(Runnable action) {
+        Runnable guarded = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.warn("关键词索引更新失败，等待定时同步修正", e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    guarded.run();
+                }
+            });
+        } else {
+            guarded.run();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.retrieve.keyword;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 关键词检索分词器
+ * <p>
+ * 面向中英文混排的知识库内容：
+ * <ul>
+ *   <li>中日韩文字按相邻二元组切分，单个孤立的汉字保留为单字词</li>
+ *   <li>字母数字串整体作为一个词，内部的 {@code - _ . / : #} 连接符不切断，
+ *   保证错误码、SKU、保单号等标识符可以精确命中；同时补充连接符拆开后的各段，兼顾部分匹配</li>
+ *   <li>先做 NFKC 归一化并转小写，全角字母数字与半角等价</li>
+ * </ul>
+ */
+public final class KeywordTokenizer {
+
+    private KeywordTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        int length = normalized.length();
+        int i = 0;
+        while (i < length) {
+            int cp = normalized.codePointAt(i);
+            if (isCjk(cp)) {
+                i = readCjkRun(normalized, i, tokens);
+            } else if (Character.isLetterOrDigit(cp)) {
+                i = readWord(normalized, i, tokens);
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        return tokens;
+    }
+
+    private static int readCjkRun(String text, int start, List<String> tokens) {
+        int i = start;
+        int previous = -1;
+        int count = 0;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            if (!isCjk(cp)) {
+                break;
+            }
+            if (previous >= 0) {
+                tokens.add(new StringBuilder(4).appendCodePoint(previous).appendCodePoint(cp).toString());
+            }
+            previous = cp;
+            count++;
+            i += Character.charCount(cp);
+        }
+        if (count == 1) {
+            tokens.add(new String(Character.toChars(previous)));
+        }
+        return i;
+    }
+
+    private static int readWord(String text, int start, List<String> tokens) {
+        int i = start;
+        boolean hasConnector = false;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            int next = i + Character.charCount(cp);
+            if (Character.isLetterOrDigit(cp) && !isCjk(cp)) {
+                i = next;
+                continue;
+            }
+            // 连接符两侧都是字母数字时才视为标识符的一部分
+            if (isConnector(cp) && next < text.length()) {
+                int following = text.codePointAt(next);
+                if (Character.isLetterOrDigit(following) && !isCjk(following)) {
+                    hasConnector = true;
+                    i = next;
+                    continue;
+                }
+            }
+            break;
+        }
+        String word = text.substring(start, i);
+        tokens.add(word);
+        if (hasConnector) {
+            int partStart = 0;
+            for (int j = 0; j <= word.length(); j++) {
+                if (j == word.length() || isConnector(word.charAt(j))) {
+                    if (j > partStart) {
+                        tokens.add(word.substring(partStart, j));
+                    }
+                    partStart = j + 1;
+                }
+            }
+        }
+        return i;
+    }
+
+    private static boolean isConnector(int cp) {
+        return cp == '-' || cp == '_' || cp == '.' || cp == '/' || cp == ':' || cp == '#';
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
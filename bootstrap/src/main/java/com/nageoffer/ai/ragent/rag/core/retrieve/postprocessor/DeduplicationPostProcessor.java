@@ -18,27 +18,36 @@
 package com.nageoffer.ai.ragent.rag.core.retrieve.postprocessor;
 
 import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
+import com.nageoffer.ai.ragent.rag.config.SearchChannelProperties;
 import com.nageoffer.ai.ragent.rag.core.retrieve.channel.SearchChannelResult;
 import com.nageoffer.ai.ragent.rag.core.retrieve.channel.SearchChannelType;
 import com.nageoffer.ai.ragent.rag.core.retrieve.channel.SearchContext;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * 去重后置处理器
  * <p>
  * 合并多个通道的结果并去重
- * 当同一个 Chunk 在多个通道中出现时，保留分数最高的
+ * 当同一个 Chunk 在多个通道中出现时，保留分数最高的；
+ * 关键词通道参与时 BM25 得分与向量相似度不可比较，改为按各通道内排名做 RRF（倒数排名融合）
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class DeduplicationPostProcessor implements SearchResultPostProcessor {
 
+    private final SearchChannelProperties properties;
+
     @Override
     public String getName() {
         return "Deduplication";
@@ -58,6 +67,13 @@ public class DeduplicationPostProcessor implements SearchResultPostProcessor {
     public List<RetrievedChunk> process(List<RetrievedChunk> chunks,
                                         List<SearchChannelResult> results,
                                         SearchContext context) {
+        boolean hasKeywordResult = results.stream()
+                .anyMatch(result -> result.getChannelType() == SearchChannelType.KEYWORD_ES
+                        && !result.getChunks().isEmpty());
+        if (hasKeywordResult) {
+            return fuseByReciprocalRank(results);
+        }
+
         // 使用 LinkedHashMap 保持顺序并去重
         Map<String, RetrievedChunk> chunkMap = new LinkedHashMap<>();
 
@@ -87,6 +103,43 @@ public class DeduplicationPostProcessor implements SearchResultPostProcessor {
         return new ArrayList<>(chunkMap.values());
     }
 
+    /**
+     * RRF 融合：score = Σ 1 / (k + rank)，rank 为 Chunk 在各通道结果中按得分排序后的名次（从 1 开始）
+     * <p>
+     * 同一 Chunk 保留优先级最高通道中的那一份，得分替换为融合得分
+     */
+    private List<RetrievedChunk> fuseByReciprocalRank(List<SearchChannelResult> results) {
+        int rrfK = properties.getChannels().getKeyword().getRrfK();
+        Map<String, RetrievedChunk> chunkMap = new LinkedHashMap<>();
+        Map<String, Double> fusedScores = new HashMap<>();
+
+        results.stream()
+                .sorted(Comparator.comparingInt(result -> getChannelPriority(result.getChannelType())))
+                .forEach(result -> {
+                    List<RetrievedChunk> ranked = result.getChunks().stream()
+                            .sorted(Comparator.comparing(
+                                    (RetrievedChunk chunk) -> chunk.getScore() == null ? Float.NEGATIVE_INFINITY : chunk.getScore())
+                                    .reversed())
+                            .toList();
+                    for (int rank = 0; rank < ranked.size(); rank++) {
+                        RetrievedChunk chunk = ranked.get(rank);
+                        String key = generateChunkKey(chunk);
+                        chunkMap.putIfAbsent(key, chunk);
+                        fusedScores.merge(key, 1.0 / (rrfK + rank + 1), Double::sum);
+                    }
+                });
+
+        return chunkMap.entrySet().stream()
+                .sorted(Comparator.comparingDouble((Map.Entry<String, RetrievedChunk> entry) -> fusedScores.get(entry.getKey()))
+                        .reversed())
+                .map(entry -> RetrievedChunk.builder()
+                        .id(entry.getValue().getId())
+                        .text(entry.getValue().getText())
+                        .score(fusedScores.get(entry.getKey()).floatValue())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
     /**
      * 生成 Chunk 唯一键
      */
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.retrieve.postprocessor;
+
+import cn.hutool.core.util.StrUtil;
+import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
+import com.nageoffer.ai.ragent.rag.config.RAGDefaultProperties;
+import com.nageoffer.ai.ragent.rag.config.SearchChannelProperties;
+import com.nageoffer.ai.ragent.rag.core.retrieve.channel.SearchChannelResult;
+import com.nageoffer.ai.ragent.rag.core.retrieve.channel.SearchChannelType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 本地重排打分器
+ * <p>
+ * 打分 = 向量相似度 × vectorWeight + 字面重合度 × (1 - vectorWeight)：
+ * <ul>
+ *   <li>向量相似度：查询向量已归一化且度量为 COSINE/IP 时，向量通道返回的分数即查询向量与库中 Chunk 向量的余弦相似度，
+ *   直接复用，无需再从 Milvus 取回向量；非向量通道的 Chunk 取已知相似度的均值作为中性先验</li>
+ *   <li>字面重合度：查询的字符二元组在 Chunk 文本中出现的比例</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class LocalRerankScorer {
+
+    private static final Set<SearchChannelType> VECTOR_CHANNELS = Set.of(
+            SearchChannelType.VECTOR_GLOBAL,
+            SearchChannelType.INTENT_DIRECTED
+    );
+
+    private static final Set<String> COSINE_METRICS = Set.of("COSINE", "IP");
+
+    private final SearchChannelProperties searchProperties;
+    private final RAGDefaultProperties ragDefaultProperties;
+
+    /**
+     * 对候选打分并按分数降序返回新的 Chunk 列表（不修改入参）
+     */
+    public List<RetrievedChunk> rank(String query, List<RetrievedChunk> chunks, List<SearchChannelResult> results) {
+        Map<String, Float> vectorScores = collectVectorScores(results);
+        double prior = vectorScores.isEmpty()
+                ? 0D
+                : vectorScores.values().stream().mapToDouble(Float::doubleValue).average().orElse(0D);
+        double vectorWeight = vectorScores.isEmpty()
+                ? 0D
+                : Math.max(0D, Math.min(1D, searchProperties.getRerank().getVectorWeight()));
+        List<String> queryGrams = bigrams(normalize(query));
+
+        List<RetrievedChunk> ranked = new ArrayList<>(chunks.size());
+        for (RetrievedChunk chunk : chunks) {
+            Float cosine = chunk.getId() == null ? null : vectorScores.get(chunk.getId());
+            double vector = cosine == null ? prior : cosine;
+            double lexical = lexicalOverlap(queryGrams, normalize(chunk.getText()));
+            double score = vector * vectorWeight + lexical * (1D - vectorWeight);
+            ranked.add(RetrievedChunk.builder()
+                    .id(chunk.getId())
+                    .text(chunk.getText())
+                    .score((float) score)
+                    .build());
+        }
+        ranked.sort(Comparator.comparing(RetrievedChunk::getScore).reversed());
+        return ranked;
+    }
+
+    /**
+     * 收集向量通道返回的余弦相似度，同一 Chunk 取最高分
+     */
+    private Map<String, Float> collectVectorScores(List<SearchChannelResult> results) {
+        Map<String, Float> scores = new HashMap<>();
+        String metricType = StrUtil.blankToDefault(ragDefaultProperties.getMetricType(), "").toUpperCase();
+        if (results == null || !COSINE_METRICS.contains(metricType)) {
+            return scores;
+        }
+        for (SearchChannelResult result : results) {
+            if (!VECTOR_CHANNELS.contains(result.getChannelType()) || result.getChunks() == null) {
+                continue;
+            }
+            for (RetrievedChunk chunk : result.getChunks()) {
+                if (chunk.getId() != null && chunk.getScore() != null) {
+                    scores.merge(chunk.getId(), chunk.getScore(), Math::max);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private double lexicalOverlap(List<String> queryGrams, String text) {
+        if (queryGrams.isEmpty() || text.isEmpty()) {
+            return 0D;
+        }
+        int hits = 0;
+        for (String gram : queryGrams) {
+            if (text.contains(gram)) {
+                hits++;
+            }
+        }
+        return (double) hits / queryGrams.size();
+    }
+
+    /**
+     * 查询的去重字符二元组；单字查询退化为单字
+     */
+    private List<String> bigrams(String text) {
+        if (text.length() < 2) {
+            return text.isEmpty() ? List.of() : List.of(text);
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 1 < text.length(); i++) {
+            grams.add(text.substring(i, i + 2));
+        }
+        return new ArrayList<>(grams);
+    }
+
+    /**
+     * 仅保留字母与数字并转小写，消除标点与空白对重合度的影响
+     */
+    private String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -19,12 +19,14 @@ package com.nageoffer.ai.ragent.rag.core.retrieve.postprocessor;
 
 import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
 import com.nageoffer.ai.ragent.infra.rerank.RerankService;
+import com.nageoffer.ai.ragent.rag.config.SearchChannelProperties;
 import com.nageoffer.ai.ragent.rag.core.retrieve.channel.SearchChannelResult;
 import com.nageoffer.ai.ragent.rag.core.retrieve.channel.SearchContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -32,6 +34,9 @@ import java.util.List;
  * <p>
  * 使用 Rerank 模型对结果进行重排序
  * 这是最后一个处理器，输出最终的 Top-K 结果
+ * <p>
+ * 启用本地重排层时先由 {@link LocalRerankScorer} 对全部候选打分，只把前 remoteTopM 个送入远程 Rerank 模型；
+ * 远程模型失败或全部熔断时直接返回本地排序的 Top-K
  */
 @Slf4j
 @Component
@@ -39,6 +44,8 @@ import java.util.List;
 public class RerankPostProcessor implements SearchResultPostProcessor {
 
     private final RerankService rerankService;
+    private final LocalRerankScorer localRerankScorer;
+    private final SearchChannelProperties searchProperties;
 
     @Override
     public String getName() {
@@ -64,10 +71,27 @@ public class RerankPostProcessor implements SearchResultPostProcessor {
             return chunks;
         }
 
-        return rerankService.rerank(
-                context.getMainQuestion(),
-                chunks,
-                context.getTopK()
-        );
+        SearchChannelProperties.Rerank rerank = searchProperties.getRerank();
+        if (!rerank.isLocalEnabled()) {
+            return rerankService.rerank(
+                    context.getMainQuestion(),
+                    chunks,
+                    context.getTopK()
+            );
+        }
+
+        int topK = context.getTopK();
+        List<RetrievedChunk> ranked = localRerankScorer.rank(context.getMainQuestion(), chunks, results);
+        int remoteTopM = Math.max(topK, rerank.getRemoteTopM());
+        List<RetrievedChunk> remoteCandidates = ranked.size() > remoteTopM
+                ? new ArrayList<>(ranked.subList(0, remoteTopM))
+                : ranked;
+
+        try {
+            return rerankService.rerank(context.getMainQuestion(), remoteCandidates, topK);
+        } catch (Exception e) {
+            log.warn("远程 Rerank 不可用，使用本地排序结果，候选数：{}", ranked.size(), e);
+            return topK <= 0 || ranked.size() <= topK ? ranked : new ArrayList<>(ranked.subList(0, topK));
+        }
     }
 }
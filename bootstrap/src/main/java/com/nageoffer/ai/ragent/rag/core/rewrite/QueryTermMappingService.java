@@ -17,16 +17,19 @@
 
 package com.nageoffer.ai.ragent.rag.core.rewrite;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.nageoffer.ai.ragent.rag.dao.entity.QueryTermMappingDO;
 import com.nageoffer.ai.ragent.rag.dao.mapper.QueryTermMappingMapper;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Slf4j
@@ -36,52 +39,73 @@ public class QueryTermMappingService {
 
     private final QueryTermMappingMapper mappingMapper;
 
-    // 按优先级、长度缓存好的映射规则
-    private volatile List<QueryTermMappingDO> cachedMappings = List.of();
+    // 按优先级、长度编译好的匹配器，规则变更时整体替换
+    private volatile QueryTermMatcher matcher = QueryTermMatcher.empty();
+
+    // 当前匹配器对应的规则表版本（行数 + 最近修改时间）
+    private volatile String loadedSignature;
 
     @PostConstruct
     public void loadMappings() {
-        List<QueryTermMappingDO> dbList = mappingMapper.selectList(
-                Wrappers.lambdaQuery(QueryTermMappingDO.class)
-                        .eq(QueryTermMappingDO::getEnabled, 1)
-        );
-        // 建议：优先级高的在前，sourceTerm 更长的在前，避免短词先替换把长词打断
-        dbList.sort(Comparator
-                .comparing(QueryTermMappingDO::getPriority, Comparator.nullsLast(Integer::compareTo)).reversed()
-                .thenComparing(m -> m.getSourceTerm() == null ? 0 : m.getSourceTerm().length(), Comparator.reverseOrder())
-        );
-        cachedMappings = dbList;
+        rebuild(loadSignature());
+    }
 
-        log.info("查询归一化映射规则加载完成, 共加载 {} 条规则", cachedMappings.size());
+    /**
+     * 定时检查映射表是否变更，有变更时在调度线程上重新编译并替换匹配器，请求线程不受影响
+     */
+    @Scheduled(fixedDelayString = "${rag.query-rewrite.term-mapping-refresh-ms:60000}",
+            initialDelayString = "${rag.query-rewrite.term-mapping-refresh-ms:60000}")
+    public void refreshMappings() {
+        try {
+            String signature = loadSignature();
+            if (!Objects.equals(signature, loadedSignature)) {
+                rebuild(signature);
+            }
+        } catch (Exception ex) {
+            log.warn("查询归一化映射规则刷新失败，继续使用当前规则", ex);
+        }
     }
 
     /**
      * 对用户问题做术语归一化
      */
     public String normalize(String text) {
-        if (text == null || text.isEmpty() || cachedMappings.isEmpty()) {
+        if (text == null || text.isEmpty()) {
             return text;
         }
-        String result = text;
-        for (QueryTermMappingDO mapping : cachedMappings) {
-            if (Boolean.FALSE.equals(mapping.getEnabled())) {
-                continue;
-            }
-            if (mapping.getMatchType() != null && mapping.getMatchType() != 1) {
-                // 这里只示例 match_type = 1 的简单子串匹配，其他类型可以自己扩展
-                continue;
-            }
-            String source = mapping.getSourceTerm();
-            String target = mapping.getTargetTerm();
-            if (source == null || source.isEmpty() || target == null || target.isEmpty()) {
-                continue;
-            }
-            result = QueryTermMappingUtil.applyMapping(result, source, target);
-        }
+        String result = matcher.apply(text);
 
         if (!Objects.equals(text, result)) {
             log.info("查询归一化：original='{}', normalized='{}'", text, result);
         }
         return result;
     }
+
+    private synchronized void rebuild(String signature) {
+        List<QueryTermMappingDO> dbList = mappingMapper.selectList(
+                Wrappers.lambdaQuery(QueryTermMappingDO.class)
+                        .eq(QueryTermMappingDO::getEnabled, 1)
+        );
+        // 建议：优先级高的在前，sourceTerm 更长的在前，避免短词先替换把长词打断
+        dbList.sort(Comparator
+                .comparing(QueryTermMappingDO::getPriority, Comparator.nullsLast(Integer::compareTo)).reversed()
+                .thenComparing(m -> m.getSourceTerm() == null ? 0 : m.getSourceTerm().length(), Comparator.reverseOrder())
+        );
+        QueryTermMatcher compiled = QueryTermMatcher.compile(dbList);
+        matcher = compiled;
+        loadedSignature = signature;
+
+        log.info("查询归一化映射规则加载完成, 共加载 {} 条规则, 生效 {} 条", dbList.size(), compiled.size());
+    }
+
+    private String loadSignature() {
+        QueryWrapper<QueryTermMappingDO> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("COUNT(*) AS rule_count", "MAX(update_time) AS last_update");
+        List<Map<String, Object>> rows = mappingMapper.selectMaps(queryWrapper);
+        if (rows.isEmpty() || rows.get(0) == null) {
+            return "0";
+        }
+        Map<String, Object> row = rows.get(0);
+        return row.get("rule_count") + "|" + row.get("last_update");
+    }
 }
@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.rewrite;
+
+import com.nageoffer.ai.ragent.rag.dao.entity.QueryTermMappingDO;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 查询归一化多模式匹配器（Aho-Corasick 自动机）
+ * <p>
+ * 将全部映射规则编译为一个自动机，单次扫描完成替换，代价与规则数量无关：
+ * <ul>
+ *   <li>从左到右扫描，优先替换起始位置最靠左的命中</li>
+ *   <li>同一起始位置命中多条规则时，取规则列表中排序靠前的一条（即优先级高、sourceTerm 更长者）</li>
+ *   <li>命中位置本身已经是 targetTerm 开头时原样保留，语义与 {@link QueryTermMappingUtil#applyMapping} 一致</li>
+ * </ul>
+ * 实例不可变，可在多线程间共享，规则变更时整体重建后替换引用
+ */
+public final class QueryTermMatcher {
+
+    private static final QueryTermMatcher EMPTY = compile(List.of());
+
+    private static final int ROOT = 0;
+
+    private static final int NO_RULE = -1;
+
+    /**
+     * 每个节点的出边字符（升序），与 {@link #edgeTargets} 一一对应
+     */
+    private final char[][] edgeChars;
+
+    private final int[][] edgeTargets;
+
+    private final int[] fail;
+
+    private final int[] depth;
+
+    /**
+     * 以该节点结尾的规则序号，{@link #NO_RULE} 表示无
+     */
+    private final int[] ruleAt;
+
+    /**
+     * 沿失败链最近的一个带规则节点，{@link #ROOT} 表示无
+     */
+    private final int[] outputLink;
+
+    private final String[] sources;
+
+    private final String[] targets;
+
+    private QueryTermMatcher(char[][] edgeChars, int[][] edgeTargets, int[] fail, int[] depth,
+                             int[] ruleAt, int[] outputLink, String[] sources, String[] targets) {
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.depth = depth;
+        this.ruleAt = ruleAt;
+        this.outputLink = outputLink;
+        this.sources = sources;
+        this.targets = targets;
+    }
+
+    public static QueryTermMatcher empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 编译映射规则
+     *
+     * @param orderedRules 已按优先级排好序的规则，越靠前优先级越高
+     */
+    public static QueryTermMatcher compile(List<QueryTermMappingDO> orderedRules) {
+        List<String> sourceList = new ArrayList<>();
+        List<String> targetList = new ArrayList<>();
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<Integer> depthList = new ArrayList<>();
+        List<Integer> ruleList = new ArrayList<>();
+        children.add(new HashMap<>());
+        depthList.add(0);
+        ruleList.add(NO_RULE);
+
+        for (QueryTermMappingDO rule : orderedRules) {
+            if (!isApplicable(rule)) {
+                continue;
+            }
+            String source = rule.getSourceTerm();
+            int node = ROOT;
+            for (int i = 0; i < source.length(); i++) {
+                char c = source.charAt(i);
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new HashMap<>());
+                    depthList.add(depthList.get(node) + 1);
+                    ruleList.add(NO_RULE);
+                    children.get(node).put(c, next);
+                }
+                node = next;
+            }
+            // 同一 sourceTerm 只保留排序靠前的规则
+            if (ruleList.get(node) == NO_RULE) {
+                ruleList.set(node, sourceList.size());
+                sourceList.add(source);
+                targetList.add(rule.getTargetTerm());
+            }
+        }
+
+        int size = children.size();
+        char[][] edgeChars = new char[size][];
+        int[][] edgeTargets = new int[size][];
+        int[] depth = new int[size];
+        int[] ruleAt = new int[size];
+        for (int node = 0; node < size; node++) {
+            Map<Character, Integer> edges = children.get(node);
+            char[] chars = new char[edges.size()];
+            int idx = 0;
+            for (Character c : edges.keySet()) {
+                chars[idx++] = c;
+            }
+            Arrays.sort(chars);
+            int[] next = new int[chars.length];
+            for (int i = 0; i < chars.length; i++) {
+                next[i] = edges.get(chars[i]);
+            }
+            edgeChars[node] = chars;
+            edgeTargets[node] = next;
+            depth[node] = depthList.get(node);
+            ruleAt[node] = ruleList.get(node);
+        }
+
+        int[] fail = new int[size];
+        int[] outputLink = new int[size];
+        QueryTermMatcher matcher = new QueryTermMatcher(edgeChars, edgeTargets, fail, depth, ruleAt, outputLink,
+                sourceList.toArray(new String[0]), targetList.toArray(new String[0]));
+
+        // 广度优先构建失败链与输出链
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(ROOT);
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            char[] chars = edgeChars[node];
+            for (int i = 0; i < chars.length; i++) {
+                int child = edgeTargets[node][i];
+                int f = fail[node];
+                while (f != ROOT && matcher.step(f, chars[i]) < 0) {
+                    f = fail[f];
+                }
+                int candidate = matcher.step(f, chars[i]);
+                fail[child] = candidate >= 0 && candidate != child ? candidate : ROOT;
+                outputLink[child] = ruleAt[fail[child]] != NO_RULE ? fail[child] : outputLink[fail[child]];
+                queue.add(child);
+            }
+        }
+        return matcher;
+    }
+
+    /**
+     * 生效规则数量
+     */
+    public int size() {
+        return sources.length;
+    }
+
+    /**
+     * 单次扫描完成归一化替换，无命中时直接返回原字符串
+     */
+    public String apply(String text) {
+        if (text == null || text.isEmpty() || sources.length == 0) {
+            return text;
+        }
+        int len = text.length();
+        StringBuilder sb = null;
+        int copied = 0;
+        int state = ROOT;
+        int pos = 0;
+        int bestStart = -1;
+        int bestRule = NO_RULE;
+
+        while (true) {
+            if (pos < len) {
+                state = next(state, text.charAt(pos));
+                for (int node = ruleAt[state] != NO_RULE ? state : outputLink[state]; node != ROOT; node = outputLink[node]) {
+                    int start = pos - depth[node] + 1;
+                    int rule = ruleAt[node];
+                    if (bestRule == NO_RULE || start < bestStart || (start == bestStart && rule < bestRule)) {
+                        bestStart = start;
+                        bestRule = rule;
+                    }
+                }
+                pos++;
+                // 仍可能出现起始位置不晚于 bestStart 的命中，继续扫描
+                if (bestRule == NO_RULE || pos - depth[state] <= bestStart) {
+                    continue;
+                }
+            } else if (bestRule == NO_RULE) {
+                break;
+            }
+
+            if (sb == null) {
+                sb = new StringBuilder(len + 16);
+            }
+            sb.append(text, copied, bestStart);
+            String target = targets[bestRule];
+            sb.append(target);
+            copied = text.startsWith(target, bestStart)
+                    ? bestStart + target.length()
+                    : bestStart + sources[bestRule].length();
+
+            pos = copied;
+            state = ROOT;
+            bestStart = -1;
+            bestRule = NO_RULE;
+        }
+
+        if (sb == null) {
+            return text;
+        }
+        return sb.append(text, copied, len).toString();
+    }
+
+    private int next(int state, char c) {
+        while (true) {
+            int target = step(state, c);
+            if (target >= 0) {
+                return target;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = fail[state];
+        }
+    }
+
+    private int step(int node, char c) {
+        int idx = Arrays.binarySearch(edgeChars[node], c);
+        return idx >= 0 ? edgeTargets[node][idx] : -1;
+    }
+
+    private static boolean isApplicable(QueryTermMappingDO rule) {
+        if (Boolean.FALSE.equals(rule.getEnabled())) {
+            return false;
+        }
+        // 仅支持 match_type = 1 的简单子串匹配，其他类型可以自己扩展
+        if (rule.getMatchType() != null && rule.getMatchType() != 1) {
+            return false;
+        }
+        String source = rule.getSourceTerm();
+        String target = rule.getTargetTerm();
+        return source != null && !source.isEmpty() && target != null && !target.isEmpty();
+    }
+}
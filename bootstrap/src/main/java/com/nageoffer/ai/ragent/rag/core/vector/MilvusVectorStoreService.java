@@ -17,8 +17,10 @@
 
 package com.nageoffer.ai.ragent.rag.core.vector;
 
+import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.lang.Assert;
 import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.nageoffer.ai.ragent.core.chunk.VectorChunk;
@@ -37,13 +39,17 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MilvusVectorStoreService implements VectorStoreService {
 
+    private static final int DELETE_BATCH_SIZE = 1000;
+
     private final MilvusClientV2 milvusClient;
     private final KnowledgeBaseMapper kbMapper;
 
@@ -177,7 +183,6 @@ public class MilvusVectorStoreService implements VectorStoreService {
                 collection, kbId, docId, resp.getDeleteCnt());
     }
 
-
     @Override
     public void deleteChunkById(String kbId, String chunkId) {
         KnowledgeBaseDO kbDO = kbMapper.selectById(kbId);
@@ -198,6 +203,57 @@ public class MilvusVectorStoreService implements VectorStoreService {
                 collection, kbId, chunkId, resp.getDeleteCnt());
     }
 
+    @Override
+    public long deleteChunksByIds(String kbId, String docId, Collection<String> chunkIds) {
+        if (chunkIds == null || chunkIds.isEmpty()) {
+            return 0;
+        }
+        KnowledgeBaseDO kbDO = kbMapper.selectById(kbId);
+        Assert.isFalse(kbDO == null, () -> new ClientException("知识库不存在"));
+
+        String collection = kbDO.getCollectionName();
+        // 同时按文档过滤，删除数按实际命中的向量计算，用于识别主键与 chunk ID 不一致的历史数据
+        String docFilter = "metadata[\"kb_id\"] == \"" + kbId + "\" && " +
+                "metadata[\"doc_id\"] == \"" + docId + "\" && ";
+        long deleted = deleteByIds(collection, docFilter, chunkIds);
+        log.info("Milvus 批量删除 chunk 向量索引成功, collection={}, kbId={}, docId={}, requested={}, deleteCnt={}",
+                collection, kbId, docId, chunkIds.size(), deleted);
+        return deleted;
+    }
+
+    @Override
+    public long deleteChunksByIds(VectorSpaceId vectorSpaceId, Collection<String> chunkIds) {
+        if (chunkIds == null || chunkIds.isEmpty()) {
+            return 0;
+        }
+        Assert.isFalse(vectorSpaceId == null || StrUtil.isBlank(vectorSpaceId.getLogicalName()),
+                () -> new ClientException("向量空间不能为空"));
+
+        String collection = vectorSpaceId.getLogicalName();
+        long deleted = deleteByIds(collection, "", chunkIds);
+        log.info("Milvus 按主键批量删除向量成功, collection={}, requested={}, deleteCnt={}",
+                collection, chunkIds.size(), deleted);
+        return deleted;
+    }
+
+    /**
+     * 按主键分批删除，单条过滤表达式过长会被 Milvus 拒绝
+     */
+    private long deleteByIds(String collection, String filterPrefix, Collection<String> chunkIds) {
+        long deleted = 0;
+        for (List<String> batch : CollUtil.split(chunkIds, DELETE_BATCH_SIZE)) {
+            String filter = batch.stream()
+                    .map(id -> "\"" + id + "\"")
+                    .collect(Collectors.joining(",", filterPrefix + "doc_id in [", "]"));
+            DeleteReq deleteReq = DeleteReq.builder()
+                    .collectionName(collection)
+                    .filter(filter)
+                    .build();
+            deleted += milvusClient.delete(deleteReq).getDeleteCnt();
+        }
+        return deleted;
+    }
+
     private JsonArray toJsonArray(float[] v) {
         JsonArray arr = new JsonArray(v.length);
         for (float x : v) {
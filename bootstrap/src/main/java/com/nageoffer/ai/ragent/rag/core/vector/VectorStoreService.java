@@ -19,6 +19,7 @@ package com.nageoffer.ai.ragent.rag.core.vector;
 
 import com.nageoffer.ai.ragent.core.chunk.VectorChunk;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -63,4 +64,25 @@ public interface VectorStoreService {
      * @throws IllegalArgumentException 当参数为空或无效时抛出
      */
     void deleteChunkById(String kbId, String chunkId);
+
+    /**
+     * 按主键批量删除文档的 chunk 向量索引
+     *
+     * @param kbId     知识库唯一标识
+     * @param docId    文档唯一标识
+     * @param chunkIds chunk 的唯一标识集合
+     * @return 实际删除的向量数，小于 chunkIds 数量说明部分向量的主键与 chunk ID 不一致
+     * @throws IllegalArgumentException 当参数为空或无效时抛出
+     */
+    long deleteChunksByIds(String kbId, String docId, Collection<String> chunkIds);
+
+    /**
+     * 按主键批量删除向量空间中的 chunk 向量索引，不按知识库、文档过滤，用于数据摄取流水线失败后回滚已写入的向量
+     *
+     * @param vectorSpaceId 向量空间标识
+     * @param chunkIds      chunk 的唯一标识集合
+     * @return 实际删除的向量数
+     * @throws IllegalArgumentException 当参数为空或无效时抛出
+     */
+    long deleteChunksByIds(VectorSpaceId vectorSpaceId, Collection<String> chunkIds);
 }
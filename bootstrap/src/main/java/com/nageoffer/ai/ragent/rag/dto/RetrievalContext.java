@@ -19,6 +19,7 @@ package com.nageoffer.ai.ragent.rag.dto;
 
 import cn.hutool.core.util.StrUtil;
 import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
+import com.nageoffer.ai.ragent.rag.core.prompt.KbEvidenceSection;
 import lombok.Builder;
 import lombok.Data;
 
@@ -47,6 +48,11 @@ public class RetrievalContext {
      */
     private Map<String, List<RetrievedChunk>> intentChunks;
 
+    /**
+     * 按子问题保留的知识库证据结构，用于 Prompt 组装阶段按 Token 预算重新格式化
+     */
+    private List<KbEvidenceSection> kbSections;
+
     /**
      * 是否存在 MCP 上下文
      */
@@ -28,6 +28,18 @@ public interface FileStorageService {
 
     StoredFileDTO upload(String bucketName, byte[] content, String originalFilename, String contentType);
 
+    /**
+     * 以流的方式上传，调用方负责关闭输入流
+     *
+     * @param size 内容字节数，需与输入流的实际长度一致
+     */
+    StoredFileDTO upload(String bucketName, InputStream content, long size, String originalFilename, String contentType);
+
+    /**
+     * 确保存储桶存在，不存在时创建
+     */
+    void ensureBucket(String bucketName);
+
     InputStream openStream(String url);
 
     void deleteByUrl(String url);
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.rag.service.handler;
+
+import com.nageoffer.ai.ragent.framework.web.SseEmitterSender;
+import com.nageoffer.ai.ragent.rag.core.metrics.RagMetrics;
+import com.nageoffer.ai.ragent.rag.dto.MessageDelta;
+import com.nageoffer.ai.ragent.rag.enums.SSEEventType;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单条流的消息增量合并发送器
+ * <p>
+ * 模型增量先写入缓冲区，缓冲内容达到 maxBytes 或首个增量等待超过 maxDelayMs 时（先到者为准）
+ * 合并成一个 {@link MessageDelta} 事件发送，减少 Servlet 写入与 flush 次数；
+ * 增量类型（think/response）切换时先发送已缓冲内容，保证顺序与事件格式不变。
+ * 每次发送记录缓冲等待时间，流结束时记录发送的事件数（见 {@link RagMetrics}）
+ */
+@Slf4j
+final class MessageDeltaCoalescer {
+
+    private final SseEmitterSender sender;
+    private final ScheduledExecutorService scheduler;
+    private final int maxBytes;
+    private final long maxDelayMs;
+    private final RagMetrics ragMetrics;
+
+    private final StringBuilder pending = new StringBuilder();
+    private String pendingType;
+    private int pendingBytes;
+    private long pendingSinceNanos;
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+    private boolean reported;
+
+    private long deltaCount;
+    private long eventCount;
+    private long totalFlushDelayNanos;
+    private long maxFlushDelayNanos;
+
+    MessageDeltaCoalescer(SseEmitterSender sender, ScheduledExecutorService scheduler, int maxBytes, long maxDelayMs,
+                          RagMetrics ragMetrics) {
+        this.sender = sender;
+        this.scheduler = scheduler;
+        this.maxBytes = Math.max(1, maxBytes);
+        this.maxDelayMs = maxDelayMs;
+        this.ragMetrics = ragMetrics;
+    }
+
+    /**
+     * 追加一段增量内容
+     */
+    synchronized void append(String type, String content) {
+        if (closed) {
+            return;
+        }
+        deltaCount++;
+        if (pendingType != null && !pendingType.equals(type)) {
+            flushPending();
+        }
+        if (pending.isEmpty()) {
+            pendingType = type;
+            pendingSinceNanos = System.nanoTime();
+        }
+        pending.append(content);
+        pendingBytes += utf8Length(content);
+
+        if (pendingBytes >= maxBytes) {
+            flushPending();
+            return;
+        }
+        if (scheduledFlush == null) {
+            try {
+                scheduledFlush = scheduler.schedule(this::flush, maxDelayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ex) {
+                // 调度器已关闭（停机中），直接发送
+                flushPending();
+            }
+        }
+    }
+
+    /**
+     * 立即发送缓冲内容
+     */
+    synchronized void flush() {
+        if (closed) {
+            return;
+        }
+        flushPending();
+    }
+
+    /**
+     * 发送剩余内容并停止接收，用于完成、取消与异常场景
+     */
+    synchronized void close() {
+        if (!closed) {
+            flushPending();
+            closed = true;
+        }
+        // 连接断开时 closed 已在发送失败处置位，统计仍只上报一次
+        if (reported) {
+            return;
+        }
+        reported = true;
+        if (ragMetrics != null) {
+            ragMetrics.recordStreamEvents(eventCount);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("SSE 合并发送统计：{}", stats());
+        }
+    }
+
+    /**
+     * 当前流的发送统计
+     */
+    synchronized Stats stats() {
+        long avgMicros = eventCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalFlushDelayNanos / eventCount);
+        return new Stats(deltaCount, eventCount, avgMicros, TimeUnit.NANOSECONDS.toMicros(maxFlushDelayNanos));
+    }
+
+    private void flushPending() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        String content = pending.toString();
+        String type = pendingType;
+        long delay = System.nanoTime() - pendingSinceNanos;
+        pending.setLength(0);
+        pendingBytes = 0;
+        pendingType = null;
+
+        try {
+            sender.sendEvent(SSEEventType.MESSAGE.value(), new MessageDelta(type, content));
+        } catch (Exception ex) {
+            // 连接已关闭，后续增量无需再发送
+            closed = true;
+            log.debug("SSE 合并发送失败，连接已关闭", ex);
+            return;
+        }
+        eventCount++;
+        totalFlushDelayNanos += delay;
+        maxFlushDelayNanos = Math.max(maxFlushDelayNanos, delay);
+        if (ragMetrics != null) {
+            ragMetrics.recordStreamFlushDelay(delay);
+        }
+    }
+
+    private static int utf8Length(String s) {
+        int bytes = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isSurrogate(c)) {
+                // 代理对共 4 字节，每个 char 计 2
+                bytes += 2;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 发送统计
+     *
+     * @param deltas               收到的模型增量数
+     * @param events               实际发送的 SSE 事件数
+     * @param avgFlushDelayMicros  增量从进入缓冲到发送的平均等待（微秒）
+     * @param maxFlushDelayMicros  增量从进入缓冲到发送的最大等待（微秒）
+     */
+    record Stats(long deltas, long events, long avgFlushDelayMicros, long maxFlushDelayMicros) {
+    }
+}
@@ -20,11 +20,17 @@ package com.nageoffer.ai.ragent.rag.service.handler;
 import com.nageoffer.ai.ragent.infra.chat.StreamCallback;
 import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
 import com.nageoffer.ai.ragent.rag.core.memory.ConversationMemoryService;
+import com.nageoffer.ai.ragent.rag.core.metrics.RagMetrics;
 import com.nageoffer.ai.ragent.rag.service.ConversationGroupService;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 /**
  * StreamCallback 工厂
  * 负责创建各种类型的 StreamCallback 实例
@@ -37,6 +43,12 @@ public class StreamCallbackFactory {
     private final ConversationMemoryService memoryService;
     private final ConversationGroupService conversationGroupService;
     private final StreamTaskManager taskManager;
+    private final RagMetrics ragMetrics;
+
+    /**
+     * 所有流共享的合并发送刷新调度器，任务只做一次缓冲区发送，单线程足够
+     */
+    private final ScheduledExecutorService flushScheduler = createFlushScheduler();
 
     /**
      * 创建聊天事件处理器
@@ -57,8 +69,38 @@ public class StreamCallbackFactory {
                 .memoryService(memoryService)
                 .conversationGroupService(conversationGroupService)
                 .taskManager(taskManager)
+                .flushScheduler(flushScheduler)
+                .ragMetrics(ragMetrics)
                 .build();
 
         return new StreamChatEventHandler(params);
     }
+
+    @PreDestroy
+    public void shutdown() {
+        flushScheduler.shutdown();
+        try {
+            if (!flushScheduler.awaitTermination(2, TimeUnit.SECONDS)) {
+                flushScheduler.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            flushScheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ScheduledExecutorService createFlushScheduler() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                1,
+                r -> {
+                    Thread thread = new Thread(r);
+                    thread.setName("sse_coalesce_flusher");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        // 绝大多数刷新任务会因缓冲区写满而提前取消，及时移出队列
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
 }
@@ -30,7 +30,6 @@ import com.nageoffer.ai.ragent.infra.chat.StreamCallback;
 import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
 import com.nageoffer.ai.ragent.rag.core.memory.ConversationMemoryService;
 import com.nageoffer.ai.ragent.rag.service.ConversationGroupService;
-import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Optional;
 
@@ -50,6 +49,11 @@ public class StreamChatEventHandler implements StreamCallback {
     private final boolean sendTitleOnComplete;
     private final StringBuilder answer = new StringBuilder();
 
+    /**
+     * 消息增量合并发送器，为空表示按 messageChunkSize 逐块发送
+     */
+    private final MessageDeltaCoalescer coalescer;
+
     /**
      * 使用参数对象构造（推荐）
      *
@@ -66,6 +70,7 @@ public class StreamChatEventHandler implements StreamCallback {
 
         // 计算配置
         this.messageChunkSize = resolveMessageChunkSize(params.getModelProperties());
+        this.coalescer = createCoalescer(params);
         this.sendTitleOnComplete = shouldSendTitle();
 
         // 初始化（发送初始事件、注册任务）
@@ -89,6 +94,22 @@ public class StreamChatEventHandler implements StreamCallback {
                 .orElse(5));
     }
 
+    /**
+     * 创建合并发送器，未配置调度器或关闭合并时返回 null
+     */
+    private MessageDeltaCoalescer createCoalescer(StreamChatHandlerParams params) {
+        AIModelProperties.Stream stream = params.getModelProperties().getStream();
+        if (stream == null || params.getFlushScheduler() == null) {
+            return null;
+        }
+        long maxDelayMs = Optional.ofNullable(stream.getCoalesceMaxDelayMs()).orElse(0L);
+        if (maxDelayMs <= 0) {
+            return null;
+        }
+        int maxBytes = Optional.ofNullable(stream.getCoalesceMaxBytes()).orElse(256);
+        return new MessageDeltaCoalescer(sender, params.getFlushScheduler(), maxBytes, maxDelayMs, params.getRagMetrics());
+    }
+
     /**
      * 判断是否需要发送标题
      */
@@ -104,6 +125,8 @@ public class StreamChatEventHandler implements StreamCallback {
      * 构造取消时的完成载荷（如果有内容则先落库）
      */
     private CompletionPayload buildCompletionPayloadOnCancel() {
+        // 取消事件发出前先把已缓冲的增量发送出去
+        closeCoalescer();
         String content = answer.toString();
         Long messageId = null;
         if (StrUtil.isNotBlank(content)) {
@@ -141,6 +164,7 @@ public class StreamChatEventHandler implements StreamCallback {
         if (taskManager.isCancelled(taskId)) {
             return;
         }
+        closeCoalescer();
         Long messageId = memoryService.append(conversationId, UserContext.getUserId(),
                 ChatMessage.assistant(answer.toString()));
         String title = resolveTitleForEvent();
@@ -156,11 +180,16 @@ public class StreamChatEventHandler implements StreamCallback {
         if (taskManager.isCancelled(taskId)) {
             return;
         }
+        closeCoalescer();
         taskManager.unregister(taskId);
         sender.fail(t);
     }
 
     private void sendChunked(String type, String content) {
+        if (coalescer != null) {
+            coalescer.append(type, content);
+            return;
+        }
         int length = content.length();
         int idx = 0;
         int count = 0;
@@ -181,6 +210,12 @@ public class StreamChatEventHandler implements StreamCallback {
         }
     }
 
+    private void closeCoalescer() {
+        if (coalescer != null) {
+            coalescer.close();
+        }
+    }
+
     private String resolveTitleForEvent() {
         if (!sendTitleOnComplete) {
             return null;
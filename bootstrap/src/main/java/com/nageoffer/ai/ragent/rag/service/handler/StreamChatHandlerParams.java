@@ -19,11 +19,14 @@ package com.nageoffer.ai.ragent.rag.service.handler;
 
 import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
 import com.nageoffer.ai.ragent.rag.core.memory.ConversationMemoryService;
+import com.nageoffer.ai.ragent.rag.core.metrics.RagMetrics;
 import com.nageoffer.ai.ragent.rag.service.ConversationGroupService;
 import lombok.Builder;
 import lombok.Getter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.concurrent.ScheduledExecutorService;
+
 /**
  * StreamChatEventHandler 构建参数
  * 使用参数对象模式，将多个参数封装成一个对象
@@ -66,4 +69,14 @@ public class StreamChatHandlerParams {
      * 任务管理器
      */
     private final StreamTaskManager taskManager;
+
+    /**
+     * 消息合并发送的定时刷新调度器
+     */
+    private final ScheduledExecutorService flushScheduler;
+
+    /**
+     * 监控指标，为空时不记录合并发送指标
+     */
+    private final RagMetrics ragMetrics;
 }
@@ -21,6 +21,7 @@ import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.nageoffer.ai.ragent.rag.controller.vo.ConversationMessageVO;
+import com.nageoffer.ai.ragent.rag.core.memory.ConversationMessageWriteBehind;
 import com.nageoffer.ai.ragent.rag.dao.entity.ConversationDO;
 import com.nageoffer.ai.ragent.rag.dao.entity.ConversationMessageDO;
 import com.nageoffer.ai.ragent.rag.dao.entity.ConversationSummaryDO;
@@ -49,6 +50,7 @@ public class ConversationMessageServiceImpl implements ConversationMessageServic
     private final ConversationSummaryMapper conversationSummaryMapper;
     private final ConversationMapper conversationMapper;
     private final MessageFeedbackService feedbackService;
+    private final ConversationMessageWriteBehind messageWriteBehind;
 
     @Override
     public Long addMessage(ConversationMessageBO conversationMessage) {
@@ -74,6 +76,9 @@ public class ConversationMessageServiceImpl implements ConversationMessageServic
             return List.of();
         }
 
+        // 共享队列中尚未写回的消息先落库（含其他节点写入的），保证列表包含刚完成的对话
+        messageWriteBehind.flushConversation(conversationId, userId);
+
         boolean asc = order == null || order == ConversationMessageOrder.ASC;
         List<ConversationMessageDO> records = conversationMessageMapper.selectList(
                 Wrappers.lambdaQuery(ConversationMessageDO.class)
@@ -34,12 +34,16 @@ import com.nageoffer.ai.ragent.framework.convention.ChatMessage;
 import com.nageoffer.ai.ragent.framework.convention.ChatRequest;
 import com.nageoffer.ai.ragent.framework.exception.ClientException;
 import com.nageoffer.ai.ragent.infra.chat.LLMService;
+import com.nageoffer.ai.ragent.rag.core.memory.ConversationMemoryCache;
+import com.nageoffer.ai.ragent.rag.core.memory.ConversationMessageWriteBehind;
 import com.nageoffer.ai.ragent.rag.core.prompt.PromptTemplateLoader;
 import com.nageoffer.ai.ragent.rag.service.ConversationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Map;
@@ -62,6 +66,8 @@ public class ConversationServiceImpl implements ConversationService {
     private final MemoryProperties memoryProperties;
     private final PromptTemplateLoader promptTemplateLoader;
     private final LLMService llmService;
+    private final ConversationMemoryCache memoryCache;
+    private final ConversationMessageWriteBehind messageWriteBehind;
 
     @Override
     public List<ConversationVO> listByUserId(String userId) {
@@ -181,6 +187,15 @@ public class ConversationServiceImpl implements ConversationService {
                         .eq(ConversationSummaryDO::getUserId, userId)
                         .eq(ConversationSummaryDO::getDeleted, 0)
         );
+
+        // 删除提交后丢弃共享队列中未写回的消息并清除记忆缓存
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                messageWriteBehind.discard(conversationId, userId);
+                memoryCache.evict(conversationId, userId);
+            }
+        });
     }
 
     private String generateTitleFromQuestion(String question) {
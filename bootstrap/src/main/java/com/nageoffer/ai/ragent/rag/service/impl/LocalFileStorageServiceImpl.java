@@ -29,11 +29,16 @@ import org.springframework.util.FileSystemUtils;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.BucketAlreadyExistsException;
+import software.amazon.awssdk.services.s3.model.BucketAlreadyOwnedByYouException;
 
+import java.io.BufferedInputStream;
 import java.io.InputStream;
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
@@ -43,6 +48,8 @@ public class LocalFileStorageServiceImpl implements FileStorageService {
 
     private static final Tika TIKA = new Tika();
 
+    private final Set<String> ensuredBuckets = ConcurrentHashMap.newKeySet();
+
     @Override
     @SneakyThrows
     public StoredFileDTO upload(String bucketName, MultipartFile file) {
@@ -73,6 +80,33 @@ public class LocalFileStorageServiceImpl implements FileStorageService {
         return uploadInternal(bucketName, new java.io.ByteArrayInputStream(content), content.length, originalFilename, detected);
     }
 
+    @Override
+    @SneakyThrows
+    public StoredFileDTO upload(String bucketName, InputStream content, long size, String originalFilename, String contentType) {
+        Assert.notBlank(bucketName, "bucketName 不能为空");
+        Assert.notNull(content, "上传内容不能为空");
+        InputStream uploadIs = content.markSupported() ? content : new BufferedInputStream(content);
+        String detected = contentType;
+        if (detected == null || detected.isBlank()) {
+            detected = TIKA.detect(uploadIs, originalFilename);
+        }
+        return uploadInternal(bucketName, uploadIs, size, originalFilename, detected);
+    }
+
+    @Override
+    public void ensureBucket(String bucketName) {
+        Assert.notBlank(bucketName, "bucketName 不能为空");
+        if (ensuredBuckets.contains(bucketName)) {
+            return;
+        }
+        try {
+            s3Client.createBucket(builder -> builder.bucket(bucketName));
+        } catch (BucketAlreadyOwnedByYouException | BucketAlreadyExistsException ignored) {
+            // 已存在即可
+        }
+        ensuredBuckets.add(bucketName);
+    }
+
     @Override
     public InputStream openStream(String url) {
         S3Location loc = parseS3Url(url);
@@ -26,6 +26,7 @@ import com.nageoffer.ai.ragent.rag.dao.entity.ConversationMessageDO;
 import com.nageoffer.ai.ragent.rag.dao.entity.MessageFeedbackDO;
 import com.nageoffer.ai.ragent.rag.dao.mapper.MessageFeedbackMapper;
 import com.nageoffer.ai.ragent.rag.dao.mapper.ConversationMessageMapper;
+import com.nageoffer.ai.ragent.rag.core.memory.ConversationMessageWriteBehind;
 import com.nageoffer.ai.ragent.framework.context.UserContext;
 import com.nageoffer.ai.ragent.framework.exception.ClientException;
 import com.nageoffer.ai.ragent.rag.service.MessageFeedbackService;
@@ -43,6 +44,7 @@ public class MessageFeedbackServiceImpl implements MessageFeedbackService {
 
     private final MessageFeedbackMapper feedbackMapper;
     private final ConversationMessageMapper conversationMessageMapper;
+    private final ConversationMessageWriteBehind messageWriteBehind;
 
     @Override
     public void submitFeedback(String messageId, MessageFeedbackRequest request) {
@@ -106,14 +108,23 @@ public class MessageFeedbackServiceImpl implements MessageFeedbackService {
     }
 
     private ConversationMessageDO loadAssistantMessage(String messageId, String userId) {
-        ConversationMessageDO message = conversationMessageMapper.selectOne(
+        ConversationMessageDO message = selectMessage(messageId, userId);
+        if (message == null) {
+            // 刚生成的消息可能仍在写回队列中（含其他节点），落库后重查
+            messageWriteBehind.flushAll();
+            message = selectMessage(messageId, userId);
+        }
+        Assert.notNull(message, () -> new ClientException("消息不存在"));
+        Assert.isTrue("assistant".equalsIgnoreCase(message.getRole()), () -> new ClientException("仅支持对助手消息反馈"));
+        return message;
+    }
+
+    private ConversationMessageDO selectMessage(String messageId, String userId) {
+        return conversationMessageMapper.selectOne(
                 Wrappers.lambdaQuery(ConversationMessageDO.class)
                         .eq(ConversationMessageDO::getId, messageId)
                         .eq(ConversationMessageDO::getUserId, userId)
                         .eq(ConversationMessageDO::getDeleted, 0)
         );
-        Assert.notNull(message, () -> new ClientException("消息不存在"));
-        Assert.isTrue("assistant".equalsIgnoreCase(message.getRole()), () -> new ClientException("仅支持对助手消息反馈"));
-        return message;
     }
 }
@@ -17,6 +17,7 @@
 
 package com.nageoffer.ai.ragent.rag.service.impl;
 
+import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.StrUtil;
 import com.nageoffer.ai.ragent.framework.context.UserContext;
@@ -27,6 +28,7 @@ import com.nageoffer.ai.ragent.infra.chat.LLMService;
 import com.nageoffer.ai.ragent.infra.chat.StreamCallback;
 import com.nageoffer.ai.ragent.infra.chat.StreamCancellationHandle;
 import com.nageoffer.ai.ragent.rag.aop.ChatRateLimit;
+import com.nageoffer.ai.ragent.rag.core.cache.SemanticAnswerCache;
 import com.nageoffer.ai.ragent.rag.core.guidance.GuidanceDecision;
 import com.nageoffer.ai.ragent.rag.core.guidance.IntentGuidanceService;
 import com.nageoffer.ai.ragent.rag.core.intent.IntentResolver;
@@ -35,6 +37,8 @@ import com.nageoffer.ai.ragent.rag.core.prompt.PromptContext;
 import com.nageoffer.ai.ragent.rag.core.prompt.PromptTemplateLoader;
 import com.nageoffer.ai.ragent.rag.core.prompt.RAGPromptService;
 import com.nageoffer.ai.ragent.rag.core.retrieve.RetrievalEngine;
+import com.nageoffer.ai.ragent.rag.core.retrieve.SpeculativeRetrieval;
+import com.nageoffer.ai.ragent.rag.core.retrieve.SpeculativeRetrievalService;
 import com.nageoffer.ai.ragent.rag.core.rewrite.QueryRewriteService;
 import com.nageoffer.ai.ragent.rag.core.rewrite.RewriteResult;
 import com.nageoffer.ai.ragent.rag.dto.IntentGroup;
@@ -58,6 +62,7 @@ import static com.nageoffer.ai.ragent.rag.constant.RAGConstant.DEFAULT_TOP_K;
  * <p>
  * 核心流程：
  * 记忆加载 -> 改写拆分 -> 意图解析 -> 歧义引导 -> 检索(MCP+KB) -> Prompt 组装 -> 流式输出
+ * （启用推测检索时，原问题的查询向量与全局向量检索和前三步并行执行）
  */
 @Slf4j
 @Service
@@ -74,6 +79,8 @@ public class RAGChatServiceImpl implements RAGChatService {
     private final QueryRewriteService queryRewriteService;
     private final IntentResolver intentResolver;
     private final RetrievalEngine retrievalEngine;
+    private final SemanticAnswerCache semanticAnswerCache;
+    private final SpeculativeRetrievalService speculativeRetrievalService;
 
     @Override
     @ChatRateLimit
@@ -88,6 +95,8 @@ public class RAGChatServiceImpl implements RAGChatService {
         StreamCallback callback = callbackFactory.createChatEventHandler(emitter, actualConversationId, taskId);
 
         String userId = UserContext.getUserId();
+        // 推测检索：与记忆加载、改写、意图识别并行，改写结果与原问题足够接近时在检索阶段直接复用
+        SpeculativeRetrieval speculation = speculativeRetrievalService.start(question);
         List<ChatMessage> history = memoryService.loadAndAppend(actualConversationId, userId, ChatMessage.user(question));
 
         RewriteResult rewriteResult = queryRewriteService.rewriteWithSplit(question, history);
@@ -108,7 +117,19 @@ public class RAGChatServiceImpl implements RAGChatService {
             return;
         }
 
-        RetrievalContext ctx = retrievalEngine.retrieve(subIntents, DEFAULT_TOP_K);
+        // 语义缓存：相似问题直接回放缓存答案（深度思考需要完整推理过程、有历史的对话答案依赖上下文，均不走缓存）
+        SemanticAnswerCache.Lookup cacheLookup = thinkingEnabled || CollUtil.isNotEmpty(history)
+                ? null
+                : semanticAnswerCache.lookup(rewriteResult.rewrittenQuestion());
+        if (cacheLookup != null && cacheLookup.isHit()) {
+            callback.onContent(cacheLookup.answer());
+            callback.onComplete();
+            return;
+        }
+
+        // 缓存查找已计算的问题向量在检索阶段复用
+        RetrievalContext ctx = retrievalEngine.retrieve(subIntents, DEFAULT_TOP_K, speculation,
+                cacheLookup == null ? null : cacheLookup.queryEmbedding());
         if (ctx.isEmpty()) {
             String emptyReply = "未检索到与问题相关的文档内容。";
             callback.onContent(emptyReply);
@@ -116,6 +137,11 @@ public class RAGChatServiceImpl implements RAGChatService {
             return;
         }
 
+        // MCP 返回的是实时数据，不适合缓存
+        if (!ctx.hasMcp()) {
+            callback = semanticAnswerCache.recording(callback, cacheLookup, subIntents, () -> taskManager.isCancelled(taskId));
+        }
+
         // 聚合所有意图用于 prompt 规划
         IntentGroup mergedGroup = intentResolver.mergeIntentGroup(subIntents);
 
@@ -161,6 +187,8 @@ public class RAGChatServiceImpl implements RAGChatService {
                 .mcpIntents(intentGroup.mcpIntents())
                 .kbIntents(intentGroup.kbIntents())
                 .intentChunks(ctx.getIntentChunks())
+                .kbSections(ctx.getKbSections())
+                .deepThinking(deepThinking)
                 .build();
 
         List<ChatMessage> messages = promptBuilder.buildStructuredMessages(
@@ -18,58 +18,276 @@
 package com.nageoffer.ai.ragent.rag.service.impl;
 
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.nageoffer.ai.ragent.rag.config.RagTraceProperties;
 import com.nageoffer.ai.ragent.rag.dao.entity.RagTraceNodeDO;
 import com.nageoffer.ai.ragent.rag.dao.entity.RagTraceRunDO;
 import com.nageoffer.ai.ragent.rag.dao.mapper.RagTraceNodeMapper;
 import com.nageoffer.ai.ragent.rag.dao.mapper.RagTraceRunMapper;
 import com.nageoffer.ai.ragent.rag.service.RagTraceRecordService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * RAG Trace 记录服务实现
+ * <p>
+ * 异步批量落库：调用方只把事件放入有界缓冲区即返回，不在请求线程上访问数据库；
+ * 后台线程定时（或缓冲区积压达到批大小时）批量取出事件，同一节点的开始/结束事件先在内存中合并，
+ * 合并后的记录使用批量插入（JDBC URL 需开启 rewriteBatchedStatements，驱动才会改写为多行 INSERT），
+ * 只有开始事件已落库的结束事件才单独更新。
+ * 缓冲区满时直接丢弃新事件并计数，保证 Trace 不拖慢主链路
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class RagTraceRecordServiceImpl implements RagTraceRecordService {
 
     private final RagTraceRunMapper runMapper;
     private final RagTraceNodeMapper nodeMapper;
+    private final RagTraceProperties traceProperties;
+
+    private final ScheduledExecutorService flusher = new ScheduledThreadPoolExecutor(
+            1,
+            r -> {
+                Thread thread = new Thread(r);
+                thread.setName("rag_trace_flusher");
+                thread.setDaemon(true);
+                return thread;
+            }
+    );
+    private final AtomicBoolean flushTriggered = new AtomicBoolean(false);
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+    private final AtomicLong writtenEvents = new AtomicLong();
+
+    private BlockingQueue<TraceEvent> buffer;
+    private int batchSize;
+
+    @PostConstruct
+    public void init() {
+        RagTraceProperties.AsyncWrite config = traceProperties.getAsyncWrite();
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, config.getBufferCapacity()));
+        this.batchSize = Math.max(1, config.getBatchSize());
+        long interval = Math.max(10L, config.getFlushIntervalMs());
+        flusher.scheduleWithFixedDelay(this::flushSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(2, TimeUnit.SECONDS)) {
+                flusher.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            flusher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // 停机前把剩余事件写完
+        flushSafely();
+    }
 
     @Override
     public void startRun(RagTraceRunDO run) {
-        runMapper.insert(run);
+        publish(new TraceEvent(EventType.RUN_START, run.getTraceId(), null, run, null, null, null, null, 0L));
     }
 
     @Override
     public void finishRun(String traceId, String status, String errorMessage, Date endTime, long durationMs) {
-        RagTraceRunDO update = RagTraceRunDO.builder()
-                .status(status)
-                .errorMessage(errorMessage)
-                .endTime(endTime)
-                .durationMs(durationMs)
-                .build();
-        runMapper.update(update, Wrappers.lambdaUpdate(RagTraceRunDO.class)
-                .eq(RagTraceRunDO::getTraceId, traceId));
+        publish(new TraceEvent(EventType.RUN_FINISH, traceId, null, null, null, status, errorMessage, endTime, durationMs));
     }
 
     @Override
     public void startNode(RagTraceNodeDO node) {
-        nodeMapper.insert(node);
+        publish(new TraceEvent(EventType.NODE_START, node.getTraceId(), node.getNodeId(), null, node, null, null, null, 0L));
     }
 
     @Override
     public void finishNode(String traceId, String nodeId, String status, String errorMessage, Date endTime, long durationMs) {
+        publish(new TraceEvent(EventType.NODE_FINISH, traceId, nodeId, null, null, status, errorMessage, endTime, durationMs));
+    }
+
+    /**
+     * 缓冲区满丢弃的事件数
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * 落库失败的事件数
+     */
+    public long getFailedEvents() {
+        return failedEvents.get();
+    }
+
+    /**
+     * 已成功落库的事件数
+     */
+    public long getWrittenEvents() {
+        return writtenEvents.get();
+    }
+
+    /**
+     * 缓冲区中待落库的事件数
+     */
+    public int getBufferedEvents() {
+        return buffer == null ? 0 : buffer.size();
+    }
+
+    private void publish(TraceEvent event) {
+        if (!buffer.offer(event)) {
+            long dropped = droppedEvents.incrementAndGet();
+            // 避免日志刷屏，每 1000 次丢弃打印一次
+            if (dropped % 1000 == 1) {
+                log.warn("RAG Trace 缓冲区已满，事件被丢弃，累计丢弃数：{}", dropped);
+            }
+            return;
+        }
+        if (buffer.size() >= batchSize && flushTriggered.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushSafely);
+            } catch (RejectedExecutionException ignored) {
+                flushTriggered.set(false);
+            }
+        }
+    }
+
+    private void flushSafely() {
+        flushTriggered.set(false);
+        try {
+            flush();
+        } catch (Throwable ex) {
+            log.error("RAG Trace 批量落库异常", ex);
+        }
+    }
+
+    /**
+     * 按批次取出缓冲区事件并落库，直到缓冲区为空
+     */
+    private synchronized void flush() {
+        List<TraceEvent> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<TraceEvent> batch) {
+        // 同一批次内的开始/结束事件先合并，结束事件能合并进待插入记录时就不再单独更新
+        Map<String, RagTraceRunDO> runInserts = new LinkedHashMap<>();
+        Map<String, TraceEvent> runUpdates = new LinkedHashMap<>();
+        Map<String, RagTraceNodeDO> nodeInserts = new LinkedHashMap<>();
+        Map<String, TraceEvent> nodeUpdates = new LinkedHashMap<>();
+
+        for (TraceEvent event : batch) {
+            switch (event.type()) {
+                case RUN_START -> runInserts.put(event.traceId(), event.run());
+                case RUN_FINISH -> {
+                    RagTraceRunDO pending = runInserts.get(event.traceId());
+                    if (pending != null) {
+                        pending.setStatus(event.status());
+                        pending.setErrorMessage(event.errorMessage());
+                        pending.setEndTime(event.endTime());
+                        pending.setDurationMs(event.durationMs());
+                    } else {
+                        runUpdates.put(event.traceId(), event);
+                    }
+                }
+                case NODE_START -> nodeInserts.put(nodeKey(event), event.node());
+                case NODE_FINISH -> {
+                    RagTraceNodeDO pending = nodeInserts.get(nodeKey(event));
+                    if (pending != null) {
+                        pending.setStatus(event.status());
+                        pending.setErrorMessage(event.errorMessage());
+                        pending.setEndTime(event.endTime());
+                        pending.setDurationMs(event.durationMs());
+                    } else {
+                        nodeUpdates.put(nodeKey(event), event);
+                    }
+                }
+            }
+        }
+
+        // 先插入再更新，保证结束事件对应的记录已存在
+        if (!runInserts.isEmpty()) {
+            execute(runInserts.size(), () -> runMapper.insert(runInserts.values()));
+        }
+        if (!nodeInserts.isEmpty()) {
+            execute(nodeInserts.size(), () -> nodeMapper.insert(nodeInserts.values()));
+        }
+        runUpdates.values().forEach(event -> execute(1, () -> updateRun(event)));
+        nodeUpdates.values().forEach(event -> execute(1, () -> updateNode(event)));
+    }
+
+    private void updateRun(TraceEvent event) {
+        RagTraceRunDO update = RagTraceRunDO.builder()
+                .status(event.status())
+                .errorMessage(event.errorMessage())
+                .endTime(event.endTime())
+                .durationMs(event.durationMs())
+                .build();
+        runMapper.update(update, Wrappers.lambdaUpdate(RagTraceRunDO.class)
+                .eq(RagTraceRunDO::getTraceId, event.traceId()));
+    }
+
+    private void updateNode(TraceEvent event) {
         RagTraceNodeDO update = RagTraceNodeDO.builder()
-                .status(status)
-                .errorMessage(errorMessage)
-                .endTime(endTime)
-                .durationMs(durationMs)
+                .status(event.status())
+                .errorMessage(event.errorMessage())
+                .endTime(event.endTime())
+                .durationMs(event.durationMs())
                 .build();
         nodeMapper.update(update, Wrappers.lambdaUpdate(RagTraceNodeDO.class)
-                .eq(RagTraceNodeDO::getTraceId, traceId)
-                .eq(RagTraceNodeDO::getNodeId, nodeId));
+                .eq(RagTraceNodeDO::getTraceId, event.traceId())
+                .eq(RagTraceNodeDO::getNodeId, event.nodeId()));
+    }
+
+    private void execute(int eventCount, Runnable action) {
+        try {
+            action.run();
+            writtenEvents.addAndGet(eventCount);
+        } catch (Exception ex) {
+            failedEvents.addAndGet(eventCount);
+            log.warn("RAG Trace 落库失败，记录数：{}", eventCount, ex);
+        }
+    }
+
+    private static String nodeKey(TraceEvent event) {
+        return event.traceId() + ":" + event.nodeId();
+    }
+
+    private enum EventType {
+        RUN_START,
+        RUN_FINISH,
+        NODE_START,
+        NODE_FINISH
+    }
+
+    private record TraceEvent(EventType type,
+                              String traceId,
+                              String nodeId,
+                              RagTraceRunDO run,
+                              RagTraceNodeDO node,
+                              String status,
+                              String errorMessage,
+                              Date endTime,
+                              long durationMs) {
     }
 }
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.util;
+
+/**
+ * 向量计算工具类
+ * 提供 L2 归一化与相似度计算
+ */
+public final class VectorUtil {
+
+    private VectorUtil() {
+    }
+
+    /**
+     * L2 归一化，返回新数组；零向量原样返回副本
+     */
+    public static float[] normalize(float[] v) {
+        double sum = 0.0;
+        for (float x : v) {
+            sum += x * x;
+        }
+        float[] nv = new float[v.length];
+        if (sum == 0.0) {
+            System.arraycopy(v, 0, nv, 0, v.length);
+            return nv;
+        }
+        double len = Math.sqrt(sum);
+        for (int i = 0; i < v.length; i++) {
+            nv[i] = (float) (v[i] / len);
+        }
+        return nv;
+    }
+
+    /**
+     * 点积；两个向量均已归一化时即为余弦相似度
+     * 维度不一致时返回 -1
+     */
+    public static double dot(float[] a, float[] b) {
+        if (a == null || b == null || a.length != b.length) {
+            return -1D;
+        }
+        double sum = 0D;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
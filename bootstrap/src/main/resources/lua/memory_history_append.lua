@@ -0,0 +1,26 @@
+-- 对话历史缓存追加：环形缓冲，保留首元素标记与最近 N 条消息；同一脚本内写入待落库队列。
+-- KEYS[1]: 历史列表
+-- KEYS[2]: 会话待落库列表
+-- KEYS[3]: 待落库会话索引 ZSET（score 为可领取时间）
+-- ARGV[1]: 消息
+-- ARGV[2]: 保留的消息条数
+-- ARGV[3]: 过期时间（毫秒）
+-- ARGV[4]: 待落库记录
+-- ARGV[5]: 会话标识（索引成员）
+-- ARGV[6]: 当前时间戳（毫秒）
+-- 返回: 1 追加成功，0 缓存未装载（调用方需直接写入 MySQL）
+local key = KEYS[1]
+local capacity = tonumber(ARGV[2])
+if redis.call('EXISTS', key) == 0 then return 0 end
+
+redis.call('RPUSH', key, ARGV[1])
+if redis.call('LLEN', key) > capacity + 1 then
+  local head = redis.call('LINDEX', key, 0)
+  redis.call('LTRIM', key, -capacity, -1)
+  redis.call('LPUSH', key, head)
+end
+redis.call('PEXPIRE', key, ARGV[3])
+
+redis.call('RPUSH', KEYS[2], ARGV[4])
+redis.call('ZADD', KEYS[3], 'NX', ARGV[6], ARGV[5])
+return 1
@@ -0,0 +1,12 @@
+-- 对话历史缓存装载：仅在缓存不存在时写入，避免覆盖并发追加的新消息。
+-- KEYS[1]: 历史列表
+-- ARGV[1]: 过期时间（毫秒）
+-- ARGV[2]: 列表首元素标记（空会话也需占位，表示已从 MySQL 装载）
+-- ARGV[3..]: 按时间正序的消息
+-- 返回: 1 写入成功，0 缓存已存在
+local key = KEYS[1]
+if redis.call('EXISTS', key) == 1 then return 0 end
+
+redis.call('RPUSH', key, unpack(ARGV, 2))
+redis.call('PEXPIRE', key, ARGV[1])
+return 1
@@ -0,0 +1,18 @@
+-- 确认已落库的记录：从会话待落库列表移除，列表清空时移出索引，否则标记为立即可领取。
+-- KEYS[1]: 会话待落库列表
+-- KEYS[2]: 待落库会话索引 ZSET
+-- ARGV[1]: 会话标识（索引成员）
+-- ARGV[2]: 当前时间戳（毫秒）
+-- ARGV[3..]: 已落库的记录
+-- 返回: 剩余待落库记录数
+for i = 3, #ARGV do
+  redis.call('LREM', KEYS[1], 1, ARGV[i])
+end
+
+local remaining = redis.call('LLEN', KEYS[1])
+if remaining == 0 then
+  redis.call('ZREM', KEYS[2], ARGV[1])
+else
+  redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1])
+end
+return remaining
@@ -0,0 +1,12 @@
+-- 领取待落库会话：取出可领取时间已到的会话，并把可领取时间顺延一个租约，持有节点宕机后由其他节点重新领取。
+-- KEYS[1]: 待落库会话索引 ZSET
+-- ARGV[1]: 当前时间戳（毫秒）
+-- ARGV[2]: 租约时长（毫秒）
+-- ARGV[3]: 最多领取的会话数
+-- 返回: 领取到的会话标识列表
+local now = tonumber(ARGV[1])
+local members = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', now, 'LIMIT', 0, tonumber(ARGV[3]))
+for _, member in ipairs(members) do
+  redis.call('ZADD', KEYS[1], now + tonumber(ARGV[2]), member)
+end
+return members
@@ -1,23 +1,43 @@
--- 当请求位于允许的队头窗口内时，进行出队 claim。
--- KEYS[1]: 队列 ZSET Key
+-- 分布式公平队列：入队（可选）+ 清理过期许可 + 队头窗口内 claim 许可，一次调用完成。
+-- KEYS[1]: 排队 ZSET（member=请求ID，score=入队序号）
+-- KEYS[2]: 许可 ZSET（member=请求ID，score=许可过期时间戳）
+-- KEYS[3]: 入队序号计数器
 -- ARGV[1]: 请求 ID
--- ARGV[2]: 最大可进入的 rank（可用许可数）
+-- ARGV[2]: 最大并发数
+-- ARGV[3]: 当前时间戳（毫秒）
+-- ARGV[4]: 许可租期（毫秒）
+-- ARGV[5]: 是否先入队（1/0）
+-- 返回: {状态, 入队序号}，状态 1=已获得许可，0=继续等待，-1=不在队列中
 local queueKey = KEYS[1]
+local leaseKey = KEYS[2]
+local seqKey = KEYS[3]
 local requestId = ARGV[1]
-local maxRank = tonumber(ARGV[2])
+local maxConcurrent = tonumber(ARGV[2])
+local now = tonumber(ARGV[3])
+local leaseMs = tonumber(ARGV[4])
+local enqueue = ARGV[5] == '1'
 
--- 获取请求在队列中的排名
-local rank = redis.call('ZRANK', queueKey, requestId)
+local seq = 0
+if enqueue then
+    seq = redis.call('INCR', seqKey)
+    redis.call('ZADD', queueKey, seq, requestId)
+else
+    local score = redis.call('ZSCORE', queueKey, requestId)
+    if not score then return {-1, 0} end
+    seq = tonumber(score)
+end
 
--- 不在队列中或不在队头窗口
-if not rank then return {0} end
-if rank >= maxRank then return {0} end
+-- 清理过期许可（持有者异常退出时兜底）
+redis.call('ZREMRANGEBYSCORE', leaseKey, '-inf', now)
 
--- 获取原始 score，便于必要时重新入队
-local score = redis.call('ZSCORE', queueKey, requestId)
+local available = maxConcurrent - redis.call('ZCARD', leaseKey)
+if available <= 0 then return {0, seq} end
 
--- 从队列移除（已 claim）
-redis.call('ZREM', queueKey, requestId)
+-- 仅队头窗口（排名小于可用许可数）内的请求可以获得许可
+local rank = redis.call('ZRANK', queueKey, requestId)
+if not rank then return {-1, seq} end
+if rank >= available then return {0, seq} end
 
--- 返回是否 claim 以及原始 score
-return {1, score}
+redis.call('ZREM', queueKey, requestId)
+redis.call('ZADD', leaseKey, now + leaseMs, requestId)
+return {1, seq}
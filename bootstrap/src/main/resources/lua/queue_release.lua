@@ -0,0 +1,24 @@
+-- 分布式公平队列：离开队列并归还许可，有空闲许可且仍有排队请求时广播唤醒通知。
+-- KEYS[1]: 排队 ZSET
+-- KEYS[2]: 许可 ZSET
+-- ARGV[1]: 请求 ID
+-- ARGV[2]: 最大并发数
+-- ARGV[3]: 当前时间戳（毫秒）
+-- ARGV[4]: 唤醒通知频道
+-- 返回: 广播的可用许可数，未广播时返回 0
+local queueKey = KEYS[1]
+local leaseKey = KEYS[2]
+local requestId = ARGV[1]
+local maxConcurrent = tonumber(ARGV[2])
+local now = tonumber(ARGV[3])
+local channel = ARGV[4]
+
+local removed = redis.call('ZREM', queueKey, requestId) + redis.call('ZREM', leaseKey, requestId)
+if removed == 0 then return 0 end
+
+redis.call('ZREMRANGEBYSCORE', leaseKey, '-inf', now)
+local available = maxConcurrent - redis.call('ZCARD', leaseKey)
+if available <= 0 or redis.call('ZCARD', queueKey) == 0 then return 0 end
+
+redis.call('PUBLISH', channel, tostring(available))
+return available
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.Intent;
+
+import com.nageoffer.ai.ragent.rag.config.IntentClassifierProperties;
+import com.nageoffer.ai.ragent.rag.core.intent.DefaultIntentClassifier;
+import com.nageoffer.ai.ragent.rag.core.intent.IntentEmbeddingIndex;
+import com.nageoffer.ai.ragent.rag.core.intent.IntentNode;
+import com.nageoffer.ai.ragent.rag.core.intent.IntentTreeCacheManager;
+import com.nageoffer.ai.ragent.rag.core.intent.NodeScore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 意图识别基准：LLM 识别 vs 向量预分类（歧义时回退 LLM）
+ * <p>
+ * 以 LLM 识别的 Top1 作为参照，统计向量预分类的一致率与平均耗时
+ */
+@Slf4j
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class IntentClassifierBenchmarkTests {
+
+    private static final List<String> QUESTIONS = List.of(
+            "早上九点十分打卡，有什么处罚？",
+            "Mac电脑打印机怎么连？",
+            "测试环境 Redis 地址是多少？",
+            "OA系统主要提供哪些功能？",
+            "发票抬头写错了怎么重开？",
+            "保险系统的整体架构是怎样的？",
+            "年假一年有几天？",
+            "VPN 连不上怎么办？"
+    );
+
+    private final DefaultIntentClassifier intentClassifier;
+    private final IntentClassifierProperties intentClassifierProperties;
+    private final IntentEmbeddingIndex intentEmbeddingIndex;
+    private final IntentTreeCacheManager intentTreeCacheManager;
+
+    @Test
+    public void compareLlmAndEmbedding() {
+        IntentClassifierProperties.Embedding config = intentClassifierProperties.getEmbedding();
+        boolean originEnabled = config.isEnabled();
+        try {
+            // 1. LLM 基线
+            config.setEnabled(false);
+            List<String> llmTop = new ArrayList<>();
+            long llmNanos = 0;
+            for (String question : QUESTIONS) {
+                long start = System.nanoTime();
+                llmTop.add(topId(intentClassifier.classifyTargets(question)));
+                llmNanos += System.nanoTime() - start;
+            }
+
+            // 2. 同步构建向量索引，避免首次调用走异步重建
+            List<IntentNode> leafNodes = loadLeafNodes();
+            intentEmbeddingIndex.refresh(leafNodes, IntentEmbeddingIndex.fingerprint(leafNodes));
+
+            // 3. 向量预分类（歧义时回退 LLM）
+            config.setEnabled(true);
+            List<String> embeddingTop = new ArrayList<>();
+            long embeddingNanos = 0;
+            for (String question : QUESTIONS) {
+                long start = System.nanoTime();
+                embeddingTop.add(topId(intentClassifier.classifyTargets(question)));
+                embeddingNanos += System.nanoTime() - start;
+            }
+
+            int agree = 0;
+            System.out.println("==================================================");
+            for (int i = 0; i < QUESTIONS.size(); i++) {
+                boolean same = Objects.equals(llmTop.get(i), embeddingTop.get(i));
+                agree += same ? 1 : 0;
+                System.out.printf("%s  |  LLM=%s  |  Embedding=%s  %s%n",
+                        QUESTIONS.get(i), llmTop.get(i), embeddingTop.get(i), same ? "✓" : "✗");
+            }
+            System.out.println("--------------------------------------------------");
+            System.out.printf("一致率: %d/%d%n", agree, QUESTIONS.size());
+            System.out.printf("LLM 平均耗时: %.1f ms%n", llmNanos / 1_000_000.0 / QUESTIONS.size());
+            System.out.printf("向量预分类平均耗时: %.1f ms%n", embeddingNanos / 1_000_000.0 / QUESTIONS.size());
+            System.out.println("==================================================\n");
+        } finally {
+            config.setEnabled(originEnabled);
+        }
+    }
+
+    private String topId(List<NodeScore> scores) {
+        return scores.isEmpty() || scores.get(0).getNode() == null ? null : scores.get(0).getNode().getId();
+    }
+
+    private List<IntentNode> loadLeafNodes() {
+        List<IntentNode> roots = intentTreeCacheManager.getIntentTreeFromCache();
+        List<IntentNode> leafNodes = new ArrayList<>();
+        if (roots == null) {
+            return leafNodes;
+        }
+        Deque<IntentNode> stack = new ArrayDeque<>(roots);
+        while (!stack.isEmpty()) {
+            IntentNode node = stack.pop();
+            if (node.isLeaf()) {
+                leafNodes.add(node);
+            } else {
+                node.getChildren().forEach(stack::push);
+            }
+        }
+        return leafNodes;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.config;
+
+import com.alibaba.ttl.threadpool.TtlExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 业务线程池执行模式压测：平台线程池 vs 虚拟线程
+ * <p>
+ * 1000 个对话同时进入，每个对话按真实链路的线程池使用方式模拟阻塞 I/O：
+ * 入口线程上并行加载记忆（JDBC），多通道并行检索、每个通道再并行查询多个集合（Milvus），
+ * 最后在流式输出线程池中逐块输出（模型 HTTP）。统计完成数、拒绝数、吞吐、P50/P99 延迟，
+ * 以及检索任务因 CallerRunsPolicy 回落到调用方线程执行的次数
+ * <p>
+ * 虚拟线程场景需要 JDK 21+ 运行时，低版本只输出平台线程池结果
+ */
+@Slf4j
+public class ExecutorModeLoadTests {
+
+    private static final int CHATS = 1000;
+    private static final int MEMORY_IO_MS = 5;
+    private static final int CHANNELS = 3;
+    private static final int COLLECTIONS_PER_CHANNEL = 2;
+    private static final int MILVUS_IO_MS = 30;
+    private static final int STREAM_CHUNKS = 20;
+    private static final int STREAM_CHUNK_MS = 20;
+
+    @Test
+    public void platformVersusVirtualThreads() throws InterruptedException {
+        List<RunResult> results = new ArrayList<>();
+        results.add(run("平台线程池", new ExecutorProperties()));
+
+        if (!VirtualThreadExecutor.isSupported()) {
+            log.info(format(results));
+        }
+        Assumptions.assumeTrue(VirtualThreadExecutor.isSupported(), "当前运行时不支持虚拟线程，跳过虚拟线程场景");
+
+        ExecutorProperties virtual = new ExecutorProperties();
+        virtual.setMode(ExecutorProperties.Mode.VIRTUAL);
+        results.add(run("虚拟线程（默认并发上限）", virtual));
+
+        ExecutorProperties virtualRaised = new ExecutorProperties();
+        virtualRaised.setMode(ExecutorProperties.Mode.VIRTUAL);
+        virtualRaised.setVirtualMaxConcurrency(Map.of(
+                "chatEntryExecutor", CHATS,
+                "modelStreamExecutor", CHATS
+        ));
+        results.add(run("虚拟线程（入口/流式并发上限 " + CHATS + "）", virtualRaised));
+
+        log.info(format(results));
+    }
+
+    private RunResult run(String label, ExecutorProperties properties) throws InterruptedException {
+        ThreadPoolExecutorConfig config = new ThreadPoolExecutorConfig(properties);
+        Executor entry = config.chatEntryExecutor();
+        Executor memoryLoad = config.memoryLoadThreadPoolExecutor();
+        Executor retrieval = config.ragRetrievalThreadPoolExecutor();
+        Executor innerRetrieval = config.ragInnerRetrievalThreadPoolExecutor();
+        Executor modelStream = config.modelStreamExecutor();
+
+        long[] latencies = new long[CHATS];
+        Arrays.fill(latencies, -1L);
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger callerRuns = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(CHATS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < CHATS; i++) {
+            int chat = i;
+            long submitted = System.nanoTime();
+            Runnable onRejected = () -> {
+                rejected.incrementAndGet();
+                finished.countDown();
+            };
+            try {
+                entry.execute(() -> {
+                    try {
+                        simulateChat(memoryLoad, retrieval, innerRetrieval, modelStream, callerRuns, () -> {
+                            latencies[chat] = System.nanoTime() - submitted;
+                            finished.countDown();
+                        });
+                    } catch (RejectedExecutionException e) {
+                        onRejected.run();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                onRejected.run();
+            }
+        }
+        boolean allDone = finished.await(5, TimeUnit.MINUTES);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        shutdown(entry, memoryLoad, retrieval, innerRetrieval, modelStream);
+        long[] completed = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+        return new RunResult(label, allDone, completed.length, rejected.get(), callerRuns.get(), elapsedMs,
+                percentileMs(completed, 0.50), percentileMs(completed, 0.99));
+    }
+
+    private void simulateChat(Executor memoryLoad, Executor retrieval, Executor innerRetrieval, Executor modelStream,
+                              AtomicInteger callerRuns, Runnable onComplete) {
+        // 摘要与历史并行加载
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> blockingIo(MEMORY_IO_MS), memoryLoad),
+                CompletableFuture.runAsync(() -> blockingIo(MEMORY_IO_MS), memoryLoad)
+        ).join();
+
+        // 多通道检索，每个通道并行查询多个集合
+        Thread caller = Thread.currentThread();
+        List<CompletableFuture<Void>> channels = new ArrayList<>(CHANNELS);
+        for (int c = 0; c < CHANNELS; c++) {
+            channels.add(CompletableFuture.runAsync(() -> {
+                if (Thread.currentThread() == caller) {
+                    callerRuns.incrementAndGet();
+                }
+                List<CompletableFuture<Void>> collections = new ArrayList<>(COLLECTIONS_PER_CHANNEL);
+                for (int k = 0; k < COLLECTIONS_PER_CHANNEL; k++) {
+                    collections.add(CompletableFuture.runAsync(() -> blockingIo(MILVUS_IO_MS), innerRetrieval));
+                }
+                CompletableFuture.allOf(collections.toArray(CompletableFuture[]::new)).join();
+            }, retrieval));
+        }
+        CompletableFuture.allOf(channels.toArray(CompletableFuture[]::new)).join();
+
+        // 流式输出
+        modelStream.execute(() -> {
+            for (int k = 0; k < STREAM_CHUNKS; k++) {
+                blockingIo(STREAM_CHUNK_MS);
+            }
+            onComplete.run();
+        });
+    }
+
+    private void blockingIo(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void shutdown(Executor... executors) {
+        for (Executor executor : executors) {
+            if (TtlExecutors.unwrap(executor) instanceof ThreadPoolExecutor pool) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private long percentileMs(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return -1L;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sortedNanos[Math.max(0, index)]);
+    }
+
+    private String format(List<RunResult> results) {
+        StringBuilder sb = new StringBuilder("执行模式压测结果（" + CHATS + " 并发对话）：");
+        for (RunResult result : results) {
+            sb.append(String.format("%n%s：全部结束：%s，完成：%d，拒绝：%d，检索回落调用方：%d，耗时：%d ms，吞吐：%.1f 对话/秒，P50：%d ms，P99：%d ms",
+                    result.label(), result.allDone(), result.completed(), result.rejected(), result.callerRuns(),
+                    result.elapsedMs(), result.completed() * 1000.0 / Math.max(1, result.elapsedMs()),
+                    result.p50Ms(), result.p99Ms()));
+        }
+        return sb.toString();
+    }
+
+    private record RunResult(String label, boolean allDone, int completed, int rejected, int callerRuns,
+                             long elapsedMs, long p50Ms, long p99Ms) {
+    }
+}
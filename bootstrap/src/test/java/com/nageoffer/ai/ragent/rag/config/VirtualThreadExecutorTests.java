@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.config;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 虚拟线程执行器的准入控制
+ * <p>
+ * 运行时不支持虚拟线程（JDK 21 以下）时跳过
+ */
+public class VirtualThreadExecutorTests {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    @BeforeEach
+    public void requireVirtualThreads() {
+        Assumptions.assumeTrue(VirtualThreadExecutor.isSupported(), "当前运行时不支持虚拟线程");
+    }
+
+    @Test
+    public void rejectThrowsWhenPendingLimitReached() throws InterruptedException {
+        VirtualThreadExecutor executor = new VirtualThreadExecutor("reject", 1, 2, VirtualThreadExecutor.Admission.REJECT);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            executor.execute(() -> {
+                awaitQuietly(release);
+                finished.countDown();
+            });
+        }
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+        }));
+
+        release.countDown();
+        assertTrue(finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        // 名额在任务线程退出前归还，稍后可再次提交
+        CountDownLatch accepted = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (true) {
+            try {
+                executor.execute(accepted::countDown);
+                break;
+            } catch (RejectedExecutionException e) {
+                assertTrue(System.nanoTime() < deadline, "名额未归还");
+                Thread.sleep(10);
+            }
+        }
+        assertTrue(accepted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void blockHoldsCallerUntilSlotFrees() throws InterruptedException {
+        VirtualThreadExecutor executor = new VirtualThreadExecutor("block", 1, 1, VirtualThreadExecutor.Admission.BLOCK);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean firstDone = new AtomicBoolean();
+        executor.execute(() -> {
+            awaitQuietly(release);
+            firstDone.set(true);
+        });
+
+        AtomicBoolean submitted = new AtomicBoolean();
+        AtomicBoolean ranAfterFirst = new AtomicBoolean();
+        CountDownLatch secondRan = new CountDownLatch(1);
+        Thread caller = new Thread(() -> {
+            executor.execute(() -> {
+                ranAfterFirst.set(firstDone.get());
+                secondRan.countDown();
+            });
+            submitted.set(true);
+        }, "block-caller");
+        caller.start();
+
+        // 唯一的名额被占用，调用方阻塞在提交上
+        caller.join(200);
+        assertTrue(caller.isAlive());
+        assertFalse(submitted.get());
+
+        release.countDown();
+        caller.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+        assertTrue(submitted.get());
+        assertTrue(secondRan.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(ranAfterFirst.get());
+    }
+
+    @Test
+    public void selfSubmitRunsInlineWhenFull() throws InterruptedException {
+        VirtualThreadExecutor executor = new VirtualThreadExecutor("inline", 1, 1, VirtualThreadExecutor.Admission.BLOCK);
+        AtomicReference<Thread> outer = new AtomicReference<>();
+        AtomicReference<Thread> inner = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(1);
+        executor.execute(() -> {
+            outer.set(Thread.currentThread());
+            // 父任务占着唯一名额，阻塞等待会死锁，应直接在当前线程执行
+            executor.execute(() -> inner.set(Thread.currentThread()));
+            finished.countDown();
+        });
+
+        assertTrue(finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertSame(outer.get(), inner.get());
+        awaitCompleted(executor, 1);
+        assertEquals(1, executor.completedTaskCount());
+        assertEquals(0, executor.activeCount());
+        assertEquals(0, executor.queuedCount());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitCompleted(VirtualThreadExecutor executor, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (executor.completedTaskCount() < expected || executor.activeCount() > 0) {
+            assertTrue(System.nanoTime() < deadline, "等待任务完成超时");
+            Thread.sleep(10);
+        }
+    }
+}
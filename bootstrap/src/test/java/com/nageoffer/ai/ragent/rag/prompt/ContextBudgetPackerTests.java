@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.prompt;
+
+import com.nageoffer.ai.ragent.framework.convention.ChatMessage;
+import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
+import com.nageoffer.ai.ragent.infra.model.ModelSelector;
+import com.nageoffer.ai.ragent.rag.config.PromptBudgetProperties;
+import com.nageoffer.ai.ragent.rag.core.mcp.MCPService;
+import com.nageoffer.ai.ragent.rag.core.prompt.ContextBudgetPacker;
+import com.nageoffer.ai.ragent.rag.core.prompt.DefaultContextFormatter;
+import com.nageoffer.ai.ragent.rag.core.prompt.KbEvidenceSection;
+import com.nageoffer.ai.ragent.rag.core.prompt.PromptContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prompt Token 预算打包器：取舍顺序与预算上限
+ * <p>
+ * Token 数按字符数计，每条消息额外 4 个 Token，便于精确构造预算
+ */
+public class ContextBudgetPackerTests {
+
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+    private static final List<String> FIXED_TEXTS = List.of("system", "question");
+
+    private final DefaultContextFormatter formatter = new DefaultContextFormatter(mock(MCPService.class));
+    private final PromptBudgetProperties properties = new PromptBudgetProperties();
+    private ContextBudgetPacker packer;
+
+    @BeforeEach
+    public void setUp() {
+        ModelSelector modelSelector = mock(ModelSelector.class);
+        when(modelSelector.selectChatCandidates(anyBoolean())).thenReturn(List.of());
+        packer = new ContextBudgetPacker(text -> text == null ? 0 : text.length(), formatter, modelSelector, properties);
+    }
+
+    /**
+     * RRF 融合分数约为 0.016，按排名归一化后最相关的分块仍排在较早的历史对话之前
+     */
+    @Test
+    public void rrfScoredChunksOutrankOldHistory() {
+        String first = "A".repeat(100);
+        String second = "B".repeat(100);
+        List<KbEvidenceSection> sections = sections(chunk("c1", first, 0.016F), chunk("c2", second, 0.015F));
+        List<ChatMessage> history = history(5, 20);
+        // 分块 101 Token、每轮历史 48 Token：装下两个分块与最近两轮后还剩 10 个 Token
+        properties.setDefaultTokenBudget(fixedTokens() + kbFixedTokens(sections) + 2 * 101 + 2 * 48 + 10);
+
+        ContextBudgetPacker.PackedPrompt packed = packer.pack(context(sections, null), history, FIXED_TEXTS);
+
+        assertTrue(packed.kbContext().contains(first));
+        assertTrue(packed.kbContext().contains(second));
+        assertEquals(history.subList(history.size() - 4, history.size()), packed.history());
+        assertTrue(packed.tokens() <= packed.budget());
+    }
+
+    /**
+     * 预算不足时排名最低的分块最先被剔除
+     */
+    @Test
+    public void lowestRankedChunkDroppedFirst() {
+        String first = "A".repeat(100);
+        String second = "B".repeat(100);
+        String third = "C".repeat(100);
+        // 检索顺序与分数顺序不一致，取舍只看分数
+        List<KbEvidenceSection> sections = sections(
+                chunk("c3", third, 0.014F), chunk("c1", first, 0.016F), chunk("c2", second, 0.015F));
+        properties.setDefaultTokenBudget(fixedTokens() + kbFixedTokens(sections) + 2 * 101 + 50);
+
+        ContextBudgetPacker.PackedPrompt packed = packer.pack(context(sections, null), List.of(), FIXED_TEXTS);
+
+        assertTrue(packed.kbContext().contains(first));
+        assertTrue(packed.kbContext().contains(second));
+        assertFalse(packed.kbContext().contains(third));
+        assertTrue(packed.tokens() <= packed.budget());
+    }
+
+    /**
+     * 剩余空间不足 minEvidenceTokens 时截断保留最相关的分块，且不超出预算
+     */
+    @Test
+    public void truncatedBestChunkStaysWithinBudget() {
+        String first = "A".repeat(1000);
+        List<KbEvidenceSection> sections = sections(chunk("c1", first, 0.9F), chunk("c2", "B".repeat(1000), 0.5F));
+        int budget = fixedTokens() + kbFixedTokens(sections) + 20;
+        properties.setDefaultTokenBudget(budget);
+
+        ContextBudgetPacker.PackedPrompt packed = packer.pack(context(sections, null), history(3, 20), FIXED_TEXTS);
+
+        assertTrue(packed.kbContext().contains("A".repeat(19) + "…"));
+        assertFalse(packed.kbContext().contains("B"));
+        assertTrue(packed.history().isEmpty());
+        assertEquals(budget, packed.budget());
+        assertTrue(packed.tokens() <= budget);
+    }
+
+    /**
+     * MCP 数据截断前先腾出最早的历史对话，保留的历史仍是连续的最近几轮
+     */
+    @Test
+    public void truncatedMcpReclaimsOldestHistory() {
+        properties.setHistoryPriority(2.0);
+        properties.setHistoryDecay(1.0);
+        List<ChatMessage> history = history(3, 20);
+        // 三轮历史装入后只剩 90 个 Token，MCP 至少需要 128 个，剔除最早一轮后剩 138 个
+        int budget = fixedTokens() + 3 * 48 + 90;
+        properties.setDefaultTokenBudget(budget);
+
+        ContextBudgetPacker.PackedPrompt packed = packer.pack(context(List.of(), "M".repeat(300)), history, FIXED_TEXTS);
+
+        assertEquals(history.subList(2, history.size()), packed.history());
+        assertEquals("M".repeat(138) + "…", packed.mcpContext());
+        assertTrue(packed.tokens() <= budget);
+    }
+
+    /**
+     * 预算装得下全部内容时原样返回
+     */
+    @Test
+    public void withinBudgetKeepsEverything() {
+        List<KbEvidenceSection> sections = sections(chunk("c1", "A".repeat(100), 0.016F));
+        List<ChatMessage> history = history(2, 20);
+        PromptContext context = context(sections, "M".repeat(50));
+
+        ContextBudgetPacker.PackedPrompt packed = packer.pack(context, history, FIXED_TEXTS);
+
+        assertEquals(context.getKbContext(), packed.kbContext());
+        assertEquals(context.getMcpContext(), packed.mcpContext());
+        assertEquals(history, packed.history());
+    }
+
+    private int fixedTokens() {
+        return FIXED_TEXTS.stream().mapToInt(text -> text.length() + MESSAGE_OVERHEAD_TOKENS).sum();
+    }
+
+    private int kbFixedTokens(List<KbEvidenceSection> sections) {
+        int chunkTokens = sections.stream()
+                .flatMap(section -> section.intentChunks().values().stream())
+                .flatMap(List::stream)
+                .mapToInt(chunk -> chunk.getText().length() + 1)
+                .sum();
+        return formatter.formatKbSections(sections, UnaryOperator.identity()).length() - chunkTokens;
+    }
+
+    private PromptContext context(List<KbEvidenceSection> sections, String mcp) {
+        return PromptContext.builder()
+                .mcpContext(mcp)
+                .kbContext(formatter.formatKbSections(sections, UnaryOperator.identity()))
+                .kbSections(sections)
+                .build();
+    }
+
+    private static List<KbEvidenceSection> sections(RetrievedChunk... chunks) {
+        return List.of(new KbEvidenceSection("question", List.of(), Map.of("intent", List.of(chunks)), 0));
+    }
+
+    private static RetrievedChunk chunk(String id, String text, float score) {
+        return RetrievedChunk.builder().id(id).text(text).score(score).build();
+    }
+
+    /**
+     * 构造若干轮问答，每轮 2 条消息、每条 contentLength 个字符
+     */
+    private static List<ChatMessage> history(int turns, int contentLength) {
+        List<ChatMessage> history = new ArrayList<>();
+        for (int i = 0; i < turns; i++) {
+            history.add(ChatMessage.user(String.valueOf((char) ('a' + i)).repeat(contentLength)));
+            history.add(ChatMessage.assistant(String.valueOf((char) ('n' + i)).repeat(contentLength)));
+        }
+        return history;
+    }
+}
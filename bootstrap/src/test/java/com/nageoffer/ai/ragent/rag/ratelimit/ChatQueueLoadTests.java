@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.rag.ratelimit;
+
+import com.nageoffer.ai.ragent.rag.aop.ChatQueueLimiter;
+import com.nageoffer.ai.ragent.rag.config.RAGRateLimitProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.redisnode.RedisNode;
+import org.redisson.api.redisnode.RedisNodes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 全局排队压测：统计每个排队请求消耗的 Redis 命令数
+ * <p>
+ * 模拟大量请求同时进入有限并发的全局队列，每个请求获得许可后模拟一段处理耗时再结束连接，
+ * 对比压测前后 Redis total_commands_processed 与限流器自身的脚本调用计数，
+ * 并校验同时持有许可的请求数不超过最大并发、每个请求都获得许可或等待超时、结束后队列与许可全部清空
+ */
+@Slf4j
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class ChatQueueLoadTests {
+
+    private static final int REQUESTS = 1000;
+    private static final int MAX_CONCURRENT = 20;
+    private static final int MIN_WORK_MS = 20;
+    private static final int MAX_WORK_MS = 80;
+
+    private final ChatQueueLimiter chatQueueLimiter;
+    private final RAGRateLimitProperties rateLimitProperties;
+    private final RedissonClient redissonClient;
+
+    @Test
+    public void redisOpsPerQueuedRequest() throws InterruptedException {
+        Integer originConcurrent = rateLimitProperties.getGlobalMaxConcurrent();
+        Integer originWait = rateLimitProperties.getGlobalMaxWaitSeconds();
+        rateLimitProperties.setGlobalMaxConcurrent(MAX_CONCURRENT);
+        rateLimitProperties.setGlobalMaxWaitSeconds(120);
+        try {
+            ChatQueueLimiter.QueueStats before = chatQueueLimiter.stats();
+            long commandsBefore = totalCommands();
+            long start = System.currentTimeMillis();
+
+            CountDownLatch finished = new CountDownLatch(REQUESTS);
+            AtomicInteger active = new AtomicInteger();
+            AtomicInteger peakActive = new AtomicInteger();
+            List<TestEmitter> emitters = new ArrayList<>(REQUESTS);
+            for (int i = 0; i < REQUESTS; i++) {
+                TestEmitter emitter = new TestEmitter(finished);
+                emitters.add(emitter);
+                chatQueueLimiter.enqueue("压测问题-" + i, null, emitter, () -> {
+                    peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(ThreadLocalRandom.current().nextInt(MIN_WORK_MS, MAX_WORK_MS));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    // 先减计数再归还许可，避免下一个请求拿到许可时本请求仍被计入
+                    active.decrementAndGet();
+                    emitter.complete();
+                });
+            }
+
+            boolean allDone = finished.await(5, TimeUnit.MINUTES);
+            long elapsed = System.currentTimeMillis() - start;
+            long commandsAfter = totalCommands();
+            ChatQueueLimiter.QueueStats after = chatQueueLimiter.stats();
+
+            long claims = after.claimCalls() - before.claimCalls();
+            long releases = after.releaseCalls() - before.releaseCalls();
+            long commands = commandsAfter - commandsBefore;
+            log.info("""
+                            排队压测结果：
+                            全部完成：{}，请求数：{}，最大并发：{}，耗时：{} ms
+                            获得许可：{}，拒绝：{}，平均等待：{} ms，最大等待：{} ms
+                            claim 脚本：{}（{}/请求），release 脚本：{}（{}/请求）
+                            Redis 命令总数：{}（{}/请求，含 Redisson 自身心跳等噪声）""",
+                    allDone, REQUESTS, MAX_CONCURRENT, elapsed,
+                    after.acquired() - before.acquired(), after.rejected() - before.rejected(),
+                    after.avgWaitMillis(), after.maxWaitMillis(),
+                    claims, String.format("%.2f", claims / (double) REQUESTS),
+                    releases, String.format("%.2f", releases / (double) REQUESTS),
+                    commands, commands < 0 ? "-" : String.format("%.2f", commands / (double) REQUESTS));
+
+            assertTrue(allDone, "存在未结束的排队请求");
+            assertTrue(peakActive.get() <= MAX_CONCURRENT,
+                    "同时持有许可的请求数 " + peakActive.get() + " 超过最大并发 " + MAX_CONCURRENT);
+            assertEquals(REQUESTS, (after.acquired() - before.acquired()) + (after.rejected() - before.rejected()),
+                    "每个请求都应获得许可或等待超时");
+            assertEquals(0, after.localWaiting(), "本节点仍有排队请求");
+            assertEquals(0L, chatQueueLimiter.globalQueueDepth(), "全局排队集合未清空");
+            assertEquals(0L, chatQueueLimiter.globalLeaseCount(), "全局许可未全部归还");
+        } finally {
+            rateLimitProperties.setGlobalMaxConcurrent(originConcurrent);
+            rateLimitProperties.setGlobalMaxWaitSeconds(originWait);
+        }
+    }
+
+    private long totalCommands() {
+        try {
+            Map<String, String> stats = redissonClient.getRedisNodes(RedisNodes.SINGLE)
+                    .getInstance()
+                    .info(RedisNode.InfoSection.STATS);
+            return Long.parseLong(stats.getOrDefault("total_commands_processed", "-1"));
+        } catch (Exception e) {
+            log.warn("读取 Redis 命令统计失败（非单机模式？）", e);
+            return -1L;
+        }
+    }
+
+    /**
+     * 脱离 MVC 运行时的 SseEmitter：直接触发完成回调，便于压测归还许可
+     */
+    private static final class TestEmitter extends SseEmitter {
+
+        private final CountDownLatch finished;
+        private volatile Runnable completionCallback;
+
+        private TestEmitter(CountDownLatch finished) {
+            super(0L);
+            this.finished = finished;
+        }
+
+        @Override
+        public synchronized void onCompletion(Runnable callback) {
+            this.completionCallback = callback;
+        }
+
+        @Override
+        public synchronized void complete() {
+            Runnable callback = completionCallback;
+            if (callback != null) {
+                callback.run();
+            }
+            finished.countDown();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.rewrite;
+
+import com.nageoffer.ai.ragent.rag.core.rewrite.QueryTermMappingUtil;
+import com.nageoffer.ai.ragent.rag.core.rewrite.QueryTermMatcher;
+import com.nageoffer.ai.ragent.rag.dao.entity.QueryTermMappingDO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询归一化基准测试
+ * <p>
+ * 对比逐条规则 indexOf 替换（旧实现）与 Aho-Corasick 单次扫描（新实现）在大规模映射词典下的耗时与内存分配
+ * <p>
+ * 运行方式：直接执行 {@link #main(String[])}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryTermMappingBenchmark {
+
+    private static final String ALPHABET = "阿里巴巴淘宝天猫钉钉支付宝平安保险保司数据安全系统流程发票报销请假审批接口限流测试生产环境";
+
+    @Param({"1000", "10000"})
+    private int ruleCount;
+
+    @Param({"32", "256"})
+    private int textLength;
+
+    private List<QueryTermMappingDO> rules;
+
+    private QueryTermMatcher matcher;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            QueryTermMappingDO rule = new QueryTermMappingDO();
+            rule.setSourceTerm(randomTerm(random, 2 + random.nextInt(4)));
+            rule.setTargetTerm("术语" + i);
+            rule.setMatchType(1);
+            rule.setPriority(random.nextInt(100));
+            rule.setEnabled(Boolean.TRUE);
+            rules.add(rule);
+        }
+        rules.sort(Comparator
+                .comparing(QueryTermMappingDO::getPriority, Comparator.nullsLast(Integer::compareTo)).reversed()
+                .thenComparing(m -> m.getSourceTerm().length(), Comparator.reverseOrder())
+        );
+        matcher = QueryTermMatcher.compile(rules);
+        text = randomTerm(random, textLength);
+    }
+
+    /**
+     * 旧实现：按排序依次对每条规则做 indexOf 扫描替换
+     */
+    @Benchmark
+    public String perRuleScan() {
+        String result = text;
+        for (QueryTermMappingDO rule : rules) {
+            result = QueryTermMappingUtil.applyMapping(result, rule.getSourceTerm(), rule.getTargetTerm());
+        }
+        return result;
+    }
+
+    /**
+     * 新实现：预编译自动机，单次扫描完成替换
+     */
+    @Benchmark
+    public String automaton() {
+        return matcher.apply(text);
+    }
+
+    private static String randomTerm(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(QueryTermMappingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.infra.chat;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 模型首包耗时统计
+ * <p>
+ * 按模型保存最近若干次首包耗时的滑动窗口，用于计算对冲请求的触发延迟
+ */
+final class FirstPacketLatencyTracker {
+
+    private static final int WINDOW_SIZE = 128;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次首包耗时
+     */
+    void record(String modelId, long latencyMs) {
+        windows.computeIfAbsent(modelId, k -> new Window()).add(latencyMs);
+    }
+
+    /**
+     * 计算指定模型首包耗时的分位数
+     *
+     * @param modelId    模型ID
+     * @param percentile 分位数（0~1）
+     * @param minSamples 最少样本数
+     * @return 分位数耗时；样本不足时返回 -1
+     */
+    long percentile(String modelId, double percentile, int minSamples) {
+        Window window = windows.get(modelId);
+        if (window == null) {
+            return -1L;
+        }
+        long[] samples = window.snapshot();
+        if (samples.length == 0 || samples.length < minSamples) {
+            return -1L;
+        }
+        Arrays.sort(samples);
+        double p = Math.min(1D, Math.max(0D, percentile));
+        int index = (int) Math.ceil(p * samples.length) - 1;
+        return samples[Math.max(0, Math.min(samples.length - 1, index))];
+    }
+
+    private static final class Window {
+
+        private final long[] samples = new long[WINDOW_SIZE];
+        private int count;
+        private int next;
+
+        private synchronized void add(long value) {
+            samples[next] = value;
+            next = (next + 1) % WINDOW_SIZE;
+            if (count < WINDOW_SIZE) {
+                count++;
+            }
+        }
+
+        private synchronized long[] snapshot() {
+            return Arrays.copyOf(samples, count);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.chat;
+
+import com.nageoffer.ai.ragent.infra.metrics.ModelMetrics;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import com.nageoffer.ai.ragent.infra.token.TokenCounterService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 流式生成速率统计回调
+ * <p>
+ * 包装下游回调，累计胜出模型输出的正文与思考内容，完成时按 Token 数与首个事件到完成的耗时记录生成速率；
+ * 统计在下游 onComplete 之后执行，不影响用户感知的结束时间；输出文本不会复用，计数时直接读取缓冲区且不写入计数缓存
+ */
+@Slf4j
+final class GenerationMeteringCallback implements StreamCallback {
+
+    private final StreamCallback delegate;
+    private final ModelTarget target;
+    private final ModelMetrics modelMetrics;
+    private final TokenCounterService tokenCounterService;
+    private final StringBuilder output = new StringBuilder();
+
+    private long firstEventNanos;
+    private int chunkCount;
+
+    GenerationMeteringCallback(StreamCallback delegate,
+                               ModelTarget target,
+                               ModelMetrics modelMetrics,
+                               TokenCounterService tokenCounterService) {
+        this.delegate = delegate;
+        this.target = target;
+        this.modelMetrics = modelMetrics;
+        this.tokenCounterService = tokenCounterService;
+    }
+
+    @Override
+    public void onContent(String content) {
+        accumulate(content);
+        delegate.onContent(content);
+    }
+
+    @Override
+    public void onThinking(String content) {
+        accumulate(content);
+        delegate.onThinking(content);
+    }
+
+    @Override
+    public void onComplete() {
+        delegate.onComplete();
+        record();
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        delegate.onError(error);
+    }
+
+    private synchronized void accumulate(String content) {
+        if (firstEventNanos == 0L) {
+            firstEventNanos = System.nanoTime();
+        }
+        if (content != null) {
+            output.append(content);
+            chunkCount++;
+        }
+    }
+
+    private synchronized void record() {
+        if (firstEventNanos == 0L) {
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - firstEventNanos;
+        try {
+            Integer tokens = tokenCounterService.countTokensUncached(output);
+            // 无法计算 Token 数时以增量片段数近似
+            modelMetrics.recordGeneration(target, tokens == null ? chunkCount : tokens, elapsedNanos);
+        } catch (Exception ex) {
+            log.debug("记录流式生成速率失败，modelId：{}", target.id(), ex);
+        } finally {
+            output.setLength(0);
+        }
+    }
+}
@@ -22,11 +22,15 @@ import com.nageoffer.ai.ragent.framework.convention.ChatRequest;
 import com.nageoffer.ai.ragent.framework.errorcode.BaseErrorCode;
 import com.nageoffer.ai.ragent.framework.exception.RemoteException;
 import com.nageoffer.ai.ragent.framework.trace.RagTraceNode;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
 import com.nageoffer.ai.ragent.infra.enums.ModelCapability;
+import com.nageoffer.ai.ragent.infra.metrics.ModelMetrics;
 import com.nageoffer.ai.ragent.infra.model.ModelHealthStore;
 import com.nageoffer.ai.ragent.infra.model.ModelRoutingExecutor;
 import com.nageoffer.ai.ragent.infra.model.ModelSelector;
 import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import com.nageoffer.ai.ragent.infra.token.TokenCounterService;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
@@ -34,6 +38,11 @@ import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -46,14 +55,15 @@ import java.util.stream.Collectors;
  * 2. 支持多模型候选的自动降级和故障转移
  * 3. 维护模型健康状态，优化路由策略
  * 4. 支持同步和流式两种调用方式
+ * <p>
+ * 流式调用的故障转移完全异步：首包超时与对冲触发由定时器驱动，首包/失败由回调驱动，
+ * 调用线程在启动首个候选模型后立即返回，不会阻塞等待首包
  */
 @Slf4j
 @Service
 @Primary
 public class RoutingLLMService implements LLMService {
 
-    private static final int FIRST_PACKET_TIMEOUT_SECONDS = 60;
-    private static final String STREAM_INTERRUPTED_MESSAGE = "流式请求被中断";
     private static final String STREAM_NO_PROVIDER_MESSAGE = "无可用大模型提供者";
     private static final String STREAM_START_FAILED_MESSAGE = "流式请求启动失败";
     private static final String STREAM_TIMEOUT_MESSAGE = "流式首包超时";
@@ -63,20 +73,36 @@ public class RoutingLLMService implements LLMService {
     private final ModelSelector selector;
     private final ModelHealthStore healthStore;
     private final ModelRoutingExecutor executor;
+    private final AIModelProperties modelProperties;
+    private final ModelMetrics modelMetrics;
+    private final TokenCounterService tokenCounterService;
     private final Map<String, ChatClient> clientsByProvider;
+    private final FirstPacketLatencyTracker latencyTracker = new FirstPacketLatencyTracker();
+    private final ScheduledExecutorService streamTimer = createStreamTimer();
 
     public RoutingLLMService(
             ModelSelector selector,
             ModelHealthStore healthStore,
             ModelRoutingExecutor executor,
+            AIModelProperties modelProperties,
+            ModelMetrics modelMetrics,
+            TokenCounterService tokenCounterService,
             List<ChatClient> clients) {
         this.selector = selector;
         this.healthStore = healthStore;
         this.executor = executor;
+        this.modelProperties = modelProperties;
+        this.modelMetrics = modelMetrics;
+        this.tokenCounterService = tokenCounterService;
         this.clientsByProvider = clients.stream()
                 .collect(Collectors.toMap(ChatClient::provider, Function.identity()));
     }
 
+    @PreDestroy
+    public void shutdown() {
+        streamTimer.shutdownNow();
+    }
+
     @Override
     @RagTraceNode(name = "llm-chat-routing", type = "LLM_ROUTING")
     public String chat(ChatRequest request) {
@@ -96,161 +122,498 @@ public class RoutingLLMService implements LLMService {
             throw new RemoteException(STREAM_NO_PROVIDER_MESSAGE);
         }
 
-        String label = ModelCapability.CHAT.getDisplayName();
-        Throwable lastError = null;
+        StreamFailoverSession session = new StreamFailoverSession(request, callback, targets);
+        RemoteException startFailure = session.start();
+        if (startFailure != null) {
+            // 所有候选模型均无法启动，保持同步失败语义
+            throw startFailure;
+        }
+        return session;
+    }
+
+    private ChatClient resolveClient(ModelTarget target, String label) {
+        ChatClient client = clientsByProvider.get(target.candidate().getProvider());
+        if (client == null) {
+            log.warn("{} 提供商客户端缺失: provider：{}，modelId：{}",
+                    label, target.candidate().getProvider(), target.id());
+        }
+        return client;
+    }
+
+    private long resolveFirstPacketTimeoutMs() {
+        return Optional.ofNullable(modelProperties.getStream())
+                .map(AIModelProperties.Stream::getFirstPacketTimeoutMs)
+                .filter(timeout -> timeout > 0)
+                .orElse(60000L);
+    }
+
+    /**
+     * 计算对冲延迟：主模型首包耗时分位数，限制在 [minDelayMs, maxDelayMs]；未启用时返回 -1
+     */
+    private long resolveHedgeDelayMs(ModelTarget primary) {
+        AIModelProperties.Hedge hedge = Optional.ofNullable(modelProperties.getStream())
+                .map(AIModelProperties.Stream::getHedge)
+                .orElse(null);
+        if (hedge == null || !Boolean.TRUE.equals(hedge.getEnabled())) {
+            return -1L;
+        }
+        long min = Optional.ofNullable(hedge.getMinDelayMs()).orElse(300L);
+        long max = Math.max(min, Optional.ofNullable(hedge.getMaxDelayMs()).orElse(5000L));
+        long observed = latencyTracker.percentile(
+                primary.id(),
+                Optional.ofNullable(hedge.getPercentile()).orElse(0.95D),
+                Optional.ofNullable(hedge.getMinSamples()).orElse(20)
+        );
+        if (observed < 0) {
+            return max;
+        }
+        return Math.max(min, Math.min(max, observed));
+    }
+
+    private static ScheduledExecutorService createStreamTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(
+                1,
+                r -> {
+                    Thread thread = new Thread(r);
+                    thread.setName("llm_stream_failover_timer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        // 绝大多数首包超时任务会被取消，及时移出队列
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
 
-        for (ModelTarget target : targets) {
-            ChatClient client = resolveClient(target, label);
-            if (client == null) {
-                continue;
+    /**
+     * 单次流式请求的异步故障转移状态机
+     * <p>
+     * 状态转换：
+     * - 启动候选模型后登记首包超时定时器；启用对冲时额外登记对冲定时器
+     * - 首包到达：选定胜出者，提交其缓存事件并取消其余进行中的候选
+     * - 失败/超时/无内容：标记失败并取消该候选；若没有其他进行中的候选，启动下一个
+     * - 所有候选耗尽：通知下游错误
+     * <p>
+     * 状态字段均在 synchronized(this) 下修改；下游回调与取消底层请求在锁外执行
+     */
+    private final class StreamFailoverSession implements StreamCancellationHandle {
+
+        private final String label = ModelCapability.CHAT.getDisplayName();
+        private final ChatRequest request;
+        private final StreamCallback downstream;
+        private final List<ModelTarget> targets;
+        private final long firstPacketTimeoutMs;
+        private final List<Attempt> active = new ArrayList<>(2);
+
+        /**
+         * 持锁期间需要取消的候选句柄，释放锁后由 {@link #cancelDeferred()} 统一取消，避免在锁内执行取消回调
+         */
+        private final List<StreamCancellationHandle> deferredCancels = new ArrayList<>(1);
+
+        private int nextIndex;
+        private Attempt winner;
+        private boolean finished;
+        private boolean launching;
+        private Throwable lastError;
+        private ScheduledFuture<?> hedgeFuture;
+
+        private StreamFailoverSession(ChatRequest request, StreamCallback downstream, List<ModelTarget> targets) {
+            this.request = request;
+            this.downstream = downstream;
+            this.targets = targets;
+            this.firstPacketTimeoutMs = resolveFirstPacketTimeoutMs();
+        }
+
+        /**
+         * 启动首个可用候选模型
+         *
+         * @return 所有候选都无法启动时返回最终异常（已通知下游），否则返回 null
+         */
+        private RemoteException start() {
+            boolean allFailed;
+            synchronized (this) {
+                allFailed = !launchNext() && winner == null && !finished;
+                if (allFailed) {
+                    finished = true;
+                }
             }
+            cancelDeferred();
+            return allFailed ? notifyAllFailed() : null;
+        }
 
-            FirstPacketAwaiter awaiter = new FirstPacketAwaiter();
-            ProbeBufferingCallback wrapper = new ProbeBufferingCallback(callback, awaiter);
+        @Override
+        public void cancel() {
+            List<Attempt> toCancel;
+            synchronized (this) {
+                finished = true;
+                cancelHedgeTimer();
+                toCancel = new ArrayList<>(active);
+                if (winner != null) {
+                    toCancel.add(winner);
+                }
+                active.clear();
+            }
+            toCancel.forEach(attempt -> {
+                attempt.probe.discard();
+                attempt.cancel();
+            });
+        }
 
-            StreamCancellationHandle handle;
-            try {
-                handle = client.streamChat(request, wrapper, target);
-            } catch (Exception e) {
-                healthStore.markFailure(target.id());
-                lastError = e;
-                log.warn("{} 流式请求启动失败，切换下一个模型。modelId：{}，provider：{}",
-                        label, target.id(), target.candidate().getProvider(), e);
-                continue;
+        /**
+         * 按顺序启动下一个可用候选，调用方需持有锁
+         *
+         * @return 是否有候选成功启动
+         */
+        private boolean launchNext() {
+            while (!finished && winner == null && nextIndex < targets.size()) {
+                ModelTarget target = targets.get(nextIndex++);
+                ChatClient client = resolveClient(target, label);
+                if (client == null) {
+                    continue;
+                }
+
+                Attempt attempt = new Attempt(target);
+                active.add(attempt);
+                StreamCancellationHandle handle;
+                launching = true;
+                try {
+                    handle = client.streamChat(request, attempt.probe, target);
+                } catch (Exception e) {
+                    active.remove(attempt);
+                    attempt.done = true;
+                    attempt.probe.discard();
+                    healthStore.markFailure(target.id());
+                    lastError = e;
+                    log.warn("{} 流式请求启动失败，切换下一个模型。modelId：{}，provider：{}",
+                            label, target.id(), target.candidate().getProvider(), e);
+                    continue;
+                } finally {
+                    launching = false;
+                }
+                attempt.handle = handle;
+
+                if (winner == attempt) {
+                    // 启动过程中已同步收到首包
+                    return true;
+                }
+                if (attempt.done) {
+                    // 启动过程中已同步失败（如线程池拒绝），失败已在回调中登记
+                    if (handle != null) {
+                        deferredCancels.add(handle);
+                    }
+                    continue;
+                }
+                if (handle == null) {
+                    active.remove(attempt);
+                    attempt.done = true;
+                    attempt.probe.discard();
+                    healthStore.markFailure(target.id());
+                    lastError = new RemoteException(STREAM_START_FAILED_MESSAGE, BaseErrorCode.REMOTE_ERROR);
+                    log.warn("{} 流式请求未返回取消句柄，切换下一个模型。modelId：{}，provider：{}",
+                            label, target.id(), target.candidate().getProvider());
+                    continue;
+                }
+                attempt.timeoutFuture = schedule(() -> onAttemptTimeout(attempt), firstPacketTimeoutMs);
+                scheduleHedge(attempt);
+                return true;
             }
-            if (handle == null) {
-                healthStore.markFailure(target.id());
-                lastError = new RemoteException(STREAM_START_FAILED_MESSAGE, BaseErrorCode.REMOTE_ERROR);
-                log.warn("{} 流式请求未返回取消句柄，切换下一个模型。modelId：{}，provider：{}",
-                        label, target.id(), target.candidate().getProvider());
-                continue;
+            return false;
+        }
+
+        private void scheduleHedge(Attempt attempt) {
+            cancelHedgeTimer();
+            // 同时最多两个候选在途
+            if (nextIndex >= targets.size() || active.size() > 1) {
+                return;
+            }
+            long delay = resolveHedgeDelayMs(attempt.target);
+            if (delay < 0 || delay >= firstPacketTimeoutMs) {
+                return;
+            }
+            hedgeFuture = schedule(() -> onHedgeTimer(attempt), delay);
+        }
+
+        private void onHedgeTimer(Attempt attempt) {
+            RemoteException failure = null;
+            synchronized (this) {
+                hedgeFuture = null;
+                if (finished || winner != null || attempt.done) {
+                    return;
+                }
+                log.info("{} 首包等待超过对冲延迟，并行启动下一个模型。当前模型：{}", label, attempt.target.id());
+                if (!launchNext() && active.isEmpty() && winner == null) {
+                    finished = true;
+                    failure = new RemoteException(STREAM_ALL_FAILED_MESSAGE, lastError, BaseErrorCode.REMOTE_ERROR);
+                }
             }
+            cancelDeferred();
+            if (failure != null) {
+                downstream.onError(failure);
+            }
+        }
 
-            FirstPacketAwaiter.Result result = awaitFirstPacket(awaiter, handle, callback);
+        private void onAttemptTimeout(Attempt attempt) {
+            log.warn("{} 失败模型: modelId={}, provider={}，原因: 流式请求超时，切换下一个模型",
+                    label, attempt.target.id(), attempt.target.candidate().getProvider());
+            onAttemptFailed(attempt, new RemoteException(STREAM_TIMEOUT_MESSAGE, BaseErrorCode.REMOTE_ERROR));
+        }
 
-            // 判断结果
-            if (result.isSuccess()) {
-                wrapper.commit();
-                healthStore.markSuccess(target.id());
-                return handle;
+        /**
+         * 首包到达：选定胜出者，回放其缓存事件，取消其余候选
+         */
+        private void onFirstPacket(Attempt attempt) {
+            List<Attempt> losers;
+            synchronized (this) {
+                if (finished || winner != null || attempt.done) {
+                    return;
+                }
+                winner = attempt;
+                attempt.done = true;
+                cancelHedgeTimer();
+                attempt.cancelTimeout();
+                active.remove(attempt);
+                losers = new ArrayList<>(active);
+                active.clear();
+                losers.forEach(loser -> {
+                    loser.done = true;
+                    loser.cancelTimeout();
+                    loser.probe.discard();
+                });
             }
 
-            // 失败处理
-            healthStore.markFailure(target.id());
-            handle.cancel();
+            long latencyNanos = System.nanoTime() - attempt.startNanos;
+            latencyTracker.record(attempt.target.id(), TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+            modelMetrics.recordFirstToken(attempt.target, latencyNanos);
+            healthStore.markSuccess(attempt.target.id());
+            losers.forEach(loser -> {
+                log.info("{} 对冲请求落败，取消模型：{}", label, loser.target.id());
+                loser.cancel();
+            });
+            attempt.probe.commit();
+        }
 
-            lastError = buildLastErrorAndLog(result, target, label);
+        /**
+         * 候选失败：取消该候选；若已无进行中的候选，启动下一个或通知全部失败
+         */
+        private void onAttemptFailed(Attempt attempt, Throwable error) {
+            RemoteException failure = null;
+            synchronized (this) {
+                if (attempt.done) {
+                    return;
+                }
+                attempt.done = true;
+                attempt.cancelTimeout();
+                attempt.probe.discard();
+                active.remove(attempt);
+                healthStore.markFailure(attempt.target.id());
+                lastError = error;
+                if (attempt.handle != null) {
+                    deferredCancels.add(attempt.handle);
+                }
+                if (!finished && winner == null && !launching
+                        && active.isEmpty() && !launchNext()) {
+                    finished = true;
+                    failure = new RemoteException(STREAM_ALL_FAILED_MESSAGE, lastError, BaseErrorCode.REMOTE_ERROR);
+                }
+            }
+            cancelDeferred();
+            if (failure != null) {
+                downstream.onError(failure);
+            }
         }
 
-        // 所有模型都失败了，通知客户端错误
-        throw notifyAllFailed(callback, lastError);
-    }
+        /**
+         * 在锁外取消持锁期间登记的句柄；启动候选时同步回调的失败仍在外层锁内，由外层释放锁后取消
+         */
+        private void cancelDeferred() {
+            if (Thread.holdsLock(this)) {
+                return;
+            }
+            List<StreamCancellationHandle> handles;
+            synchronized (this) {
+                if (deferredCancels.isEmpty()) {
+                    return;
+                }
+                handles = new ArrayList<>(deferredCancels);
+                deferredCancels.clear();
+            }
+            handles.forEach(StreamCancellationHandle::cancel);
+        }
 
-    private ChatClient resolveClient(ModelTarget target, String label) {
-        ChatClient client = clientsByProvider.get(target.candidate().getProvider());
-        if (client == null) {
-            log.warn("{} 提供商客户端缺失: provider：{}，modelId：{}",
-                    label, target.candidate().getProvider(), target.id());
+        private void onProbeError(Attempt attempt, Throwable error) {
+            Throwable actual = error != null
+                    ? error
+                    : new RemoteException("流式请求失败", BaseErrorCode.REMOTE_ERROR);
+            log.warn("{} 失败模型: modelId={}, provider={}，原因: 流式请求失败，切换下一个模型",
+                    label, attempt.target.id(), attempt.target.candidate().getProvider(), actual);
+            onAttemptFailed(attempt, actual);
         }
-        return client;
-    }
 
-    private FirstPacketAwaiter.Result awaitFirstPacket(FirstPacketAwaiter awaiter,
-                                                       StreamCancellationHandle handle,
-                                                       StreamCallback callback) {
-        try {
-            return awaiter.await(FIRST_PACKET_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            handle.cancel();
-            RemoteException interruptedException = new RemoteException(STREAM_INTERRUPTED_MESSAGE, e, BaseErrorCode.REMOTE_ERROR);
-            callback.onError(interruptedException);
-            throw interruptedException;
+        private void onProbeNoContent(Attempt attempt) {
+            log.warn("{} 失败模型: modelId={}, provider={}，原因: 流式请求无内容完成，切换下一个模型",
+                    label, attempt.target.id(), attempt.target.candidate().getProvider());
+            onAttemptFailed(attempt, new RemoteException(STREAM_NO_CONTENT_MESSAGE, BaseErrorCode.REMOTE_ERROR));
         }
-    }
 
-    private Throwable buildLastErrorAndLog(FirstPacketAwaiter.Result result, ModelTarget target, String label) {
-        switch (result.getType()) {
-            case ERROR -> {
-                Throwable error = result.getError() != null
-                        ? result.getError()
-                        : new RemoteException("流式请求失败", BaseErrorCode.REMOTE_ERROR);
-                log.warn("{} 失败模型: modelId={}, provider={}，原因: 流式请求失败，切换下一个模型",
-                        label, target.id(), target.candidate().getProvider(), error);
-                return error;
-            }
-            case TIMEOUT -> {
-                RemoteException timeout = new RemoteException(STREAM_TIMEOUT_MESSAGE, BaseErrorCode.REMOTE_ERROR);
-                log.warn("{} 失败模型: modelId={}, provider={}，原因: 流式请求超时，切换下一个模型",
-                        label, target.id(), target.candidate().getProvider());
-                return timeout;
-            }
-            case NO_CONTENT -> {
-                RemoteException noContent = new RemoteException(STREAM_NO_CONTENT_MESSAGE, BaseErrorCode.REMOTE_ERROR);
-                log.warn("{} 失败模型: modelId={}, provider={}，原因: 流式请求无内容完成，切换下一个模型",
-                        label, target.id(), target.candidate().getProvider());
-                return noContent;
-            }
-            default -> {
-                RemoteException unknown = new RemoteException("流式请求失败", BaseErrorCode.REMOTE_ERROR);
-                log.warn("{} 失败模型: modelId={}, provider={}，原因: 流式请求失败（未知类型），切换下一个模型",
-                        label, target.id(), target.candidate().getProvider());
-                return unknown;
+        private RemoteException notifyAllFailed() {
+            RemoteException finalException = new RemoteException(
+                    STREAM_ALL_FAILED_MESSAGE,
+                    lastError,
+                    BaseErrorCode.REMOTE_ERROR
+            );
+            downstream.onError(finalException);
+            return finalException;
+        }
+
+        private void cancelHedgeTimer() {
+            if (hedgeFuture != null) {
+                hedgeFuture.cancel(false);
+                hedgeFuture = null;
+            }
+        }
+
+        private ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+            try {
+                return streamTimer.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // 停机中定时器不可用，不再做超时/对冲控制
+                log.warn("{} 流式定时器不可用，跳过首包超时控制", label);
+                return null;
+            }
+        }
+
+        /**
+         * 单个候选模型的一次调用
+         */
+        private final class Attempt {
+
+            private final ModelTarget target;
+            private final ProbeBufferingCallback probe;
+            private final long startNanos = System.nanoTime();
+            private volatile StreamCancellationHandle handle;
+            private ScheduledFuture<?> timeoutFuture;
+            private boolean done;
+
+            private Attempt(ModelTarget target) {
+                this.target = target;
+                StreamCallback metered = new GenerationMeteringCallback(downstream, target, modelMetrics, tokenCounterService);
+                this.probe = new ProbeBufferingCallback(metered, new ProbeListener() {
+                    @Override
+                    public void onFirstPacket() {
+                        StreamFailoverSession.this.onFirstPacket(Attempt.this);
+                    }
+
+                    @Override
+                    public void onNoContent() {
+                        onProbeNoContent(Attempt.this);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        onProbeError(Attempt.this, t);
+                    }
+                });
+            }
+
+            private void cancelTimeout() {
+                if (timeoutFuture != null) {
+                    timeoutFuture.cancel(false);
+                    timeoutFuture = null;
+                }
+            }
+
+            private void cancel() {
+                StreamCancellationHandle current = handle;
+                if (current != null) {
+                    current.cancel();
+                }
             }
         }
     }
 
-    private RemoteException notifyAllFailed(StreamCallback callback, Throwable lastError) {
-        RemoteException finalException = new RemoteException(
-                STREAM_ALL_FAILED_MESSAGE,
-                lastError,
-                BaseErrorCode.REMOTE_ERROR
-        );
-        callback.onError(finalException);
-        return finalException;
+    /**
+     * 首包探测事件监听
+     */
+    private interface ProbeListener {
+
+        /**
+         * 收到首个内容（正文或思考）
+         */
+        void onFirstPacket();
+
+        /**
+         * 未收到任何内容即完成
+         */
+        void onNoContent();
+
+        /**
+         * 提交前发生错误
+         */
+        void onError(Throwable t);
     }
 
     /**
      * 流式首包探测回调：
      * - 探测阶段先缓存事件，避免失败模型的内容污染下游输出
      * - 首包成功后 commit，按原始顺序回放缓存并转实时转发
+     * - 对冲落败或失败后 discard，丢弃缓存与后续事件
      */
     private static final class ProbeBufferingCallback implements StreamCallback {
 
         private final StreamCallback downstream;
-        private final FirstPacketAwaiter awaiter;
+        private final ProbeListener listener;
         private final Object lock = new Object();
         private final List<BufferedEvent> bufferedEvents = new ArrayList<>();
         private volatile boolean committed;
+        private volatile boolean discarded;
+        private boolean probeFired;
 
-        private ProbeBufferingCallback(StreamCallback downstream, FirstPacketAwaiter awaiter) {
+        private ProbeBufferingCallback(StreamCallback downstream, ProbeListener listener) {
             this.downstream = downstream;
-            this.awaiter = awaiter;
+            this.listener = listener;
             this.committed = false;
         }
 
         @Override
         public void onContent(String content) {
-            awaiter.markContent();
             bufferOrDispatch(BufferedEvent.content(content));
+            if (fireProbeOnce()) {
+                listener.onFirstPacket();
+            }
         }
 
         @Override
         public void onThinking(String content) {
-            awaiter.markContent();
             bufferOrDispatch(BufferedEvent.thinking(content));
+            if (fireProbeOnce()) {
+                listener.onFirstPacket();
+            }
         }
 
         @Override
         public void onComplete() {
-            awaiter.markComplete();
             bufferOrDispatch(BufferedEvent.complete());
+            if (fireProbeOnce()) {
+                listener.onNoContent();
+            }
         }
 
         @Override
         public void onError(Throwable t) {
-            awaiter.markError(t);
             bufferOrDispatch(BufferedEvent.error(t));
+            if (fireProbeOnce()) {
+                listener.onError(t);
+            }
+        }
+
+        private boolean fireProbeOnce() {
+            synchronized (lock) {
+                if (probeFired) {
+                    return false;
+                }
+                probeFired = true;
+                return true;
+            }
         }
 
         /**
@@ -261,7 +624,7 @@ public class RoutingLLMService implements LLMService {
         private void commit() {
             List<BufferedEvent> snapshot;
             synchronized (lock) {
-                if (committed) {
+                if (committed || discarded) {
                     return;
                 }
                 committed = true;
@@ -276,9 +639,25 @@ public class RoutingLLMService implements LLMService {
             }
         }
 
+        /**
+         * 丢弃缓存事件，之后的事件也不再转发
+         */
+        private void discard() {
+            synchronized (lock) {
+                if (committed) {
+                    return;
+                }
+                discarded = true;
+                bufferedEvents.clear();
+            }
+        }
+
         private void bufferOrDispatch(BufferedEvent event) {
             boolean dispatchNow;
             synchronized (lock) {
+                if (discarded) {
+                    return;
+                }
                 dispatchNow = committed;
                 if (!dispatchNow) {
                     bufferedEvents.add(event);
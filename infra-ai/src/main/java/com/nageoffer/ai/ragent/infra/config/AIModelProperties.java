@@ -66,6 +66,21 @@ public class AIModelProperties {
      */
     private Stream stream = new Stream();
 
+    /**
+     * 向量缓存配置
+     */
+    private EmbeddingCache embeddingCache = new EmbeddingCache();
+
+    /**
+     * 单条向量化微批配置
+     */
+    private EmbeddingBatch embeddingBatch = new EmbeddingBatch();
+
+    /**
+     * 分词器配置
+     */
+    private Tokenizer tokenizer = new Tokenizer();
+
     /**
      * 模型组配置类
      * 包含默认模型、深度思考模型以及候选模型列表
@@ -134,6 +149,11 @@ public class AIModelProperties {
          * 是否支持思考链功能
          */
         private Boolean supportsThinking = false;
+
+        /**
+         * 输入 Prompt 的 Token 预算（用于 chat 模型），为空时使用全局默认预算
+         */
+        private Integer promptTokenBudget;
     }
 
     /**
@@ -186,8 +206,148 @@ public class AIModelProperties {
     public static class Stream {
 
         /**
-         * 消息分块大小
+         * 消息分块大小（仅在关闭合并发送时生效）
          */
         private Integer messageChunkSize = 5;
+
+        /**
+         * 合并发送：缓冲内容达到该字节数（UTF-8）时立即发送
+         */
+        private Integer coalesceMaxBytes = 256;
+
+        /**
+         * 合并发送：首个增量进入缓冲后最长等待时间（毫秒），小于等于 0 表示关闭合并发送
+         */
+        private Long coalesceMaxDelayMs = 40L;
+
+        /**
+         * 首包超时时间（毫秒），超时未收到首包则切换下一个候选模型
+         */
+        private Long firstPacketTimeoutMs = 60000L;
+
+        /**
+         * 对冲请求配置
+         */
+        private Hedge hedge = new Hedge();
+    }
+
+    /**
+     * 流式对冲请求配置
+     * <p>
+     * 主模型在历史首包耗时的指定分位数内仍未返回首包时，并行启动下一个候选模型，
+     * 先返回首包者胜出，另一方被取消
+     */
+    @Data
+    public static class Hedge {
+
+        /**
+         * 是否启用对冲请求
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 对冲延迟取主模型首包耗时的分位数（0~1）
+         */
+        private Double percentile = 0.95D;
+
+        /**
+         * 计算分位数所需的最少样本数，不足时使用 maxDelayMs
+         */
+        private Integer minSamples = 20;
+
+        /**
+         * 对冲延迟下限（毫秒）
+         */
+        private Long minDelayMs = 300L;
+
+        /**
+         * 对冲延迟上限（毫秒）
+         */
+        private Long maxDelayMs = 5000L;
+    }
+
+    /**
+     * 向量缓存配置类
+     * <p>
+     * 以（模型ID, 内容哈希）为键缓存向量，内容未变化的文本不再重复调用 Embedding 模型
+     */
+    @Data
+    public static class EmbeddingCache {
+
+        /**
+         * 是否启用向量缓存
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 进程内 LRU 缓存最大条目数
+         */
+        private Integer localMaxEntries = 20000;
+
+        /**
+         * 进程内 LRU 缓存向量数据的最大字节数，默认 64 MB
+         * <p>
+         * 每条向量占用 维度 × 4 字节：1024 维约 4 KB（64 MB 约 1.6 万条），4096 维约 16 KB（64 MB 约 4 千条）；
+         * 与 localMaxEntries 同时生效，先达到的上限触发淘汰
+         */
+        private Long localMaxBytes = 64L * 1024 * 1024;
+
+        /**
+         * 是否启用持久化缓存层（需存在 EmbeddingCacheStore 实现）
+         */
+        private Boolean persistent = true;
+    }
+
+    /**
+     * 单条向量化微批配置类
+     * <p>
+     * 同一模型的并发单条向量化请求在短时间窗口内合并为一次批量请求
+     */
+    @Data
+    public static class EmbeddingBatch {
+
+        /**
+         * 是否启用微批合并
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 单批最大文本数，达到后立即发送
+         */
+        private Integer maxBatchSize = 32;
+
+        /**
+         * 首个请求进入批次后的最长等待时间（毫秒）
+         */
+        private Long maxWaitMs = 5L;
+
+        /**
+         * 跟随者在窗口之外等待批量结果的上限（毫秒），超时后改为自行单条请求
+         */
+        private Long followerTimeoutMs = 30000L;
+    }
+
+    /**
+     * 分词器配置类
+     * <p>
+     * 配置 HuggingFace tokenizer.json（byte-level BPE）后按真实分词统计 Token 数，未配置时使用启发式估算
+     */
+    @Data
+    public static class Tokenizer {
+
+        /**
+         * tokenizer.json 路径，支持 classpath: 前缀
+         */
+        private String path;
+
+        /**
+         * 预分词正则，默认与 Qwen2/Qwen3 系列一致
+         */
+        private String pattern = "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+";
+
+        /**
+         * Token 计数结果缓存的最大条目数（按内容哈希缓存）
+         */
+        private Integer cacheMaxEntries = 20000;
     }
 }
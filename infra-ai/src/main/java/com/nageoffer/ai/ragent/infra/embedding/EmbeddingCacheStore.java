@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.infra.embedding;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 向量缓存持久化层
+ * <p>
+ * 以（模型ID, 内容哈希）为键持久化保存向量，供 {@link EmbeddingVectorCache} 在进程内缓存未命中时回查。
+ * 实现方需保证并发写入同一键时幂等
+ */
+public interface EmbeddingCacheStore {
+
+    /**
+     * 批量读取向量
+     *
+     * @param modelId       Embedding 模型ID
+     * @param contentHashes 内容哈希集合
+     * @return 内容哈希到向量的映射，未命中的哈希不出现在结果中
+     */
+    Map<String, float[]> loadAll(String modelId, Collection<String> contentHashes);
+
+    /**
+     * 批量写入向量，已存在的键直接忽略
+     *
+     * @param modelId Embedding 模型ID
+     * @param vectors 内容哈希到向量的映射
+     */
+    void saveAll(String modelId, Map<String, float[]> vectors);
+}
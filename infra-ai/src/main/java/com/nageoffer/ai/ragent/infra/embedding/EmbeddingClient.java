@@ -34,14 +34,36 @@ public interface EmbeddingClient {
      */
     String provider();
 
+    /**
+     * 将单个文本转换为嵌入向量
+     *
+     * @param text   待嵌入的文本内容
+     * @param target 目标模型配置
+     * @return 文本的向量表示（原始 float 数组，无装箱开销）
+     */
+    float[] embedVector(String text, ModelTarget target);
+
+    /**
+     * 批量将多个文本转换为嵌入向量
+     *
+     * @param texts  待嵌入的文本列表
+     * @param target 目标模型配置
+     * @return 文本向量列表，与输入 texts 顺序一致
+     */
+    List<float[]> embedVectorBatch(List<String> texts, ModelTarget target);
+
     /**
      * 将单个文本转换为嵌入向量
      *
      * @param text   待嵌入的文本内容
      * @param target 目标模型配置
      * @return 文本的向量表示，以浮点数列表形式返回
+     * @deprecated 每个元素都会装箱，请使用 {@link #embedVector(String, ModelTarget)}
      */
-    List<Float> embed(String text, ModelTarget target);
+    @Deprecated
+    default List<Float> embed(String text, ModelTarget target) {
+        return EmbeddingVectors.toList(embedVector(text, target));
+    }
 
     /**
      * 批量将多个文本转换为嵌入向量
@@ -49,6 +71,10 @@ public interface EmbeddingClient {
      * @param texts  待嵌入的文本列表
      * @param target 目标模型配置
      * @return 文本向量列表，每个文本对应一个向量（浮点数列表）
+     * @deprecated 每个元素都会装箱，请使用 {@link #embedVectorBatch(List, ModelTarget)}
      */
-    List<List<Float>> embedBatch(List<String> texts, ModelTarget target);
+    @Deprecated
+    default List<List<Float>> embedBatch(List<String> texts, ModelTarget target) {
+        return EmbeddingVectors.toLists(embedVectorBatch(texts, target));
+    }
 }
@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.embedding;
+
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.infra.http.ModelClientErrorType;
+import com.nageoffer.ai.ragent.infra.http.ModelClientException;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 单条向量化微批合并器
+ * <p>
+ * 在线链路（查询向量化、分块编辑）逐条调用向量化接口，高并发时每条请求各占一次 HTTP 往返。
+ * 同一模型、同一调用路径的并发单条请求在 maxWaitMs 窗口内（或攒满 maxBatchSize 条）合并为一次批量请求，
+ * 结果按位置拆回给各调用方；批内相同文本只发送一次。没有其他并发请求时不等待窗口，直接发送
+ * <p>
+ * 不引入额外线程：每个批次的第一个调用方作为发起者，等待窗口结束后在自身线程发送请求，
+ * 其余调用方最多等待 followerTimeoutMs，超时后改为自行单条请求。批量请求失败时，批内所有调用方收到同一个异常；
+ * 批量函数只由发起者调用一次，健康状态等副作用也只记录一次
+ */
+@Slf4j
+@Component
+public class EmbeddingMicroBatcher {
+
+    private final AIModelProperties.EmbeddingBatch config;
+    private final Map<String, Batch> openBatches = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder sentTexts = new LongAdder();
+    private final LongAdder followerTimeouts = new LongAdder();
+
+    public EmbeddingMicroBatcher(AIModelProperties properties) {
+        this.config = properties.getEmbeddingBatch();
+    }
+
+    /**
+     * 单条向量化，与同一模型、同一调用路径的并发请求合并发送
+     *
+     * @param target    目标模型
+     * @param path      调用路径标识，批量函数行为不同（如是否记录健康状态）的调用方使用不同路径，不会合并到同一批次
+     * @param text      文本
+     * @param batchCall 批量向量化函数，返回结果需与入参一一对应；批次由发起者的函数发送
+     * @return 文本向量
+     */
+    public float[] embed(ModelTarget target, String path, String text, Function<List<String>, List<float[]>> batchCall) {
+        int maxBatchSize = config.getMaxBatchSize() == null ? 0 : config.getMaxBatchSize();
+        long maxWaitMs = config.getMaxWaitMs() == null ? 0 : config.getMaxWaitMs();
+        if (!Boolean.TRUE.equals(config.getEnabled()) || maxBatchSize <= 1 || maxWaitMs <= 0) {
+            return single(text, batchCall);
+        }
+        requests.increment();
+
+        String key = target.id() + ':' + path;
+        AtomicInteger callers = inFlight.computeIfAbsent(key, k -> new AtomicInteger());
+        callers.incrementAndGet();
+        try {
+            CompletableFuture<float[]> future = new CompletableFuture<>();
+            Batch[] joined = new Batch[1];
+            boolean[] leader = new boolean[1];
+            openBatches.compute(key, (k, current) -> {
+                Batch batch = current;
+                if (batch == null) {
+                    batch = new Batch(batchCall);
+                    leader[0] = true;
+                }
+                batch.add(text, future);
+                joined[0] = batch;
+                // 攒满或没有其他并发请求时从映射中摘除，后续请求进入新批次
+                if (batch.size() >= maxBatchSize || (leader[0] && callers.get() == 1)) {
+                    batch.full.countDown();
+                    return null;
+                }
+                return batch;
+            });
+
+            if (leader[0]) {
+                lead(key, joined[0], maxWaitMs);
+                return await(future, Long.MAX_VALUE, text, batchCall);
+            }
+            return await(future, maxWaitMs + followerTimeoutMs(), text, batchCall);
+        } finally {
+            callers.decrementAndGet();
+        }
+    }
+
+    /**
+     * 合并统计
+     */
+    public BatchStats stats() {
+        return new BatchStats(requests.sum(), batches.sum(), sentTexts.sum(), followerTimeouts.sum());
+    }
+
+    private void lead(String key, Batch batch, long maxWaitMs) {
+        try {
+            batch.full.await(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 摘除后不会再有请求加入该批次（加入与摘除在同一键上串行执行）
+        openBatches.remove(key, batch);
+        batch.flush();
+    }
+
+    /**
+     * 等待批次结果：发起者的 future 在 flush 返回前必定完成；跟随者最多等待 timeoutMs，超时后自行单条请求，
+     * 等待期间被中断时继续等待到超时并保留中断标记
+     */
+    private float[] await(CompletableFuture<float[]> future, long timeoutMs, String text,
+                          Function<List<String>, List<float[]>> batchCall) {
+        boolean interrupted = false;
+        long deadline = timeoutMs == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            while (true) {
+                try {
+                    if (deadline == Long.MAX_VALUE) {
+                        return future.get();
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new TimeoutException();
+                    }
+                    return future.get(remaining, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (TimeoutException e) {
+                    followerTimeouts.increment();
+                    log.warn("Embedding 微批等待超时（{}ms），改为单条请求", timeoutMs);
+                    return single(text, batchCall);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException runtime) {
+                        throw runtime;
+                    }
+                    if (cause instanceof Error error) {
+                        throw error;
+                    }
+                    throw new ModelClientException("Embedding 微批请求失败: " + cause, ModelClientErrorType.CLIENT_ERROR, null, cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private float[] single(String text, Function<List<String>, List<float[]>> batchCall) {
+        List<float[]> vectors = batchCall.apply(List.of(text));
+        if (vectors == null || vectors.size() != 1) {
+            throw new ModelClientException(
+                    "Embedding 结果数量不匹配: expected=1, actual=" + (vectors == null ? 0 : vectors.size()),
+                    ModelClientErrorType.INVALID_RESPONSE, null);
+        }
+        return vectors.get(0);
+    }
+
+    private long followerTimeoutMs() {
+        Long timeout = config.getFollowerTimeoutMs();
+        return timeout == null || timeout <= 0 ? 30_000L : timeout;
+    }
+
+    private final class Batch {
+
+        private final Function<List<String>, List<float[]>> batchCall;
+        private final Map<String, List<CompletableFuture<float[]>>> waiters = new LinkedHashMap<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+        private int size;
+
+        private Batch(Function<List<String>, List<float[]>> batchCall) {
+            this.batchCall = batchCall;
+        }
+
+        private synchronized void add(String text, CompletableFuture<float[]> future) {
+            waiters.computeIfAbsent(text, k -> new ArrayList<>(1)).add(future);
+            size++;
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private void flush() {
+            List<String> texts;
+            List<List<CompletableFuture<float[]>>> futures;
+            synchronized (this) {
+                texts = new ArrayList<>(waiters.keySet());
+                futures = new ArrayList<>(waiters.values());
+            }
+            batches.increment();
+            sentTexts.add(texts.size());
+            try {
+                List<float[]> vectors = batchCall.apply(texts);
+                if (vectors == null || vectors.size() != texts.size()) {
+                    throw new ModelClientException(
+                            "Embedding 微批结果数量不匹配: expected=" + texts.size()
+                                    + ", actual=" + (vectors == null ? 0 : vectors.size()),
+                            ModelClientErrorType.INVALID_RESPONSE, null);
+                }
+                for (int i = 0; i < texts.size(); i++) {
+                    float[] vector = vectors.get(i);
+                    List<CompletableFuture<float[]>> group = futures.get(i);
+                    for (int k = 0; k < group.size(); k++) {
+                        // 同一文本的多个调用方各持一份副本，互不影响
+                        group.get(k).complete(k == 0 || vector == null ? vector : vector.clone());
+                    }
+                }
+            } catch (Throwable e) {
+                if (texts.size() > 1) {
+                    log.warn("Embedding 微批请求失败, size={}", texts.size(), e);
+                }
+                futures.forEach(group -> group.forEach(future -> future.completeExceptionally(e)));
+            }
+        }
+    }
+
+    /**
+     * 微批统计
+     *
+     * @param requests  进入合并器的单条请求数
+     * @param batches   实际发送的批量请求数
+     * @param sentTexts        实际发送的文本数（批内去重后）
+     * @param followerTimeouts 跟随者等待超时后改为单条请求的次数
+     */
+    public record BatchStats(long requests, long batches, long sentTexts, long followerTimeouts) {
+    }
+}
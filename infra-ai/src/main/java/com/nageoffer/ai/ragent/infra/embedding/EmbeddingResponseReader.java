@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.infra.embedding;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import com.nageoffer.ai.ragent.infra.http.ModelClientErrorType;
+import com.nageoffer.ai.ragent.infra.http.ModelClientException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Embedding 响应流式解析器
+ * <p>
+ * 基于 Gson {@link JsonReader} 边读边解析，向量元素直接写入 float[]，
+ * 不构建 JsonObject/JsonArray 树，也不产生 Float 装箱对象
+ * <p>
+ * 支持两种响应格式：
+ * - OpenAI 兼容格式：{"data": [{"index": 0, "embedding": [...]}, ...]}
+ * - Ollama 格式：{"embeddings": [[...], ...]}
+ */
+final class EmbeddingResponseReader {
+
+    /**
+     * 未知维度时的初始缓冲区大小
+     */
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private EmbeddingResponseReader() {
+    }
+
+    /**
+     * 解析 OpenAI 兼容格式的 data[].embedding
+     *
+     * @param source        响应字符流
+     * @param expectedSize  期望的向量数量（即请求的文本数量）
+     * @param dimensionHint 向量维度提示，未知时传 0
+     * @return 按 index 排列的向量列表，每个位置都有向量，缺失或重复时抛出 {@link ModelClientException}
+     */
+    static List<float[]> readData(Reader source, int expectedSize, int dimensionHint) throws IOException {
+        float[][] slots = new float[expectedSize][];
+        boolean hasData = false;
+        try (JsonReader in = new JsonReader(source)) {
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                switch (name) {
+                    case "error" -> throwIfError(in);
+                    case "data" -> {
+                        hasData = true;
+                        readDataArray(in, slots, dimensionHint);
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+        } catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+            throw new ModelClientException("Embedding 响应格式错误: " + e.getMessage(), ModelClientErrorType.INVALID_RESPONSE, null, e);
+        }
+
+        if (!hasData) {
+            throw new ModelClientException("Embedding 响应中缺少 data 数组", ModelClientErrorType.INVALID_RESPONSE, null);
+        }
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] == null) {
+                throw new ModelClientException("Embedding 响应缺少 index=" + i + " 的向量，期望 " + expectedSize + " 条",
+                        ModelClientErrorType.INVALID_RESPONSE, null);
+            }
+        }
+        return Arrays.asList(slots);
+    }
+
+    /**
+     * 解析 Ollama 格式的 embeddings[][]
+     *
+     * @param source        响应字符流
+     * @param dimensionHint 向量维度提示，未知时传 0
+     * @return 向量列表
+     */
+    static List<float[]> readEmbeddings(Reader source, int dimensionHint) throws IOException {
+        List<float[]> vectors = null;
+        try (JsonReader in = new JsonReader(source)) {
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                switch (name) {
+                    case "error" -> throwIfError(in);
+                    case "embeddings" -> {
+                        vectors = new ArrayList<>();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            vectors.add(readVector(in, dimensionHint));
+                        }
+                        in.endArray();
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+        } catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+            throw new ModelClientException("Embedding 响应格式错误: " + e.getMessage(), ModelClientErrorType.INVALID_RESPONSE, null, e);
+        }
+
+        if (vectors == null || vectors.isEmpty()) {
+            throw new ModelClientException("Embedding 响应中缺少 embeddings 数组", ModelClientErrorType.INVALID_RESPONSE, null);
+        }
+        return vectors;
+    }
+
+    private static void readDataArray(JsonReader in, float[][] slots, int dimensionHint) throws IOException {
+        int position = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            int index = -1;
+            float[] vector = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                switch (name) {
+                    case "index" -> index = in.nextInt();
+                    case "embedding" -> vector = readVector(in, dimensionHint);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            if (vector == null) {
+                throw new ModelClientException("Embedding 响应中缺少 embedding 字段", ModelClientErrorType.INVALID_RESPONSE, null);
+            }
+            // 优先按 index 归位，缺失时按出现顺序
+            int slot = index >= 0 ? index : position;
+            if (slot >= slots.length) {
+                throw new ModelClientException("Embedding 响应 index 越界: " + slot, ModelClientErrorType.INVALID_RESPONSE, null);
+            }
+            if (slots[slot] != null) {
+                throw new ModelClientException("Embedding 响应 index 重复: " + slot, ModelClientErrorType.INVALID_RESPONSE, null);
+            }
+            slots[slot] = vector;
+            position++;
+        }
+        in.endArray();
+    }
+
+    private static float[] readVector(JsonReader in, int dimensionHint) throws IOException {
+        float[] buffer = new float[dimensionHint > 0 ? dimensionHint : DEFAULT_CAPACITY];
+        int size = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length << 1);
+            }
+            // 直接解析数值，避免为每个分量创建字符串
+            buffer[size++] = (float) in.nextDouble();
+        }
+        in.endArray();
+        // 维度提示准确时直接返回，避免二次拷贝
+        return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+    }
+
+    private static void throwIfError(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return;
+        }
+        String code = "unknown";
+        String message = "unknown";
+        if (in.peek() == JsonToken.BEGIN_OBJECT) {
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "code" -> code = readScalar(in);
+                    case "message" -> message = readScalar(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+        } else {
+            message = readScalar(in);
+        }
+        throw new ModelClientException("Embedding 服务返回错误: " + code + " - " + message, ModelClientErrorType.PROVIDER_ERROR, null);
+    }
+
+    private static String readScalar(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return in.nextString();
+        }
+        in.skipValue();
+        return "unknown";
+    }
+}
@@ -43,12 +43,12 @@ public interface EmbeddingService {
      * <p>
      * 说明：
      * - 通常用于查询向量生成（Query Embedding）
-     * - 输出为 Float 向量列表，例如：[0.123f, -0.078f, ...]
+     * - 输出为原始 float 数组，例如：[0.123f, -0.078f, ...]，避免 4096 维向量逐元素装箱
      *
      * @param text 待向量化文本
      * @return 文本对应的向量（长度固定，如 4096）
      */
-    List<Float> embed(String text);
+    float[] embedVector(String text);
 
     /**
      * 指定模型对单个文本进行向量化（不进行重试或降级）
@@ -57,20 +57,20 @@ public interface EmbeddingService {
      * @param modelId 指定的模型ID
      * @return 文本对应的向量
      */
-    List<Float> embed(String text, String modelId);
+    float[] embedVector(String text, String modelId);
 
     /**
      * 对多个文本进行批量向量化
      * <p>
      * 说明：
-     * - 常用于文档索引构建（Indexing），性能优于单次调用 embed()
+     * - 常用于文档索引构建（Indexing），性能优于单次调用 embedVector()
      * - 返回结果与输入 texts 顺序一致
      * - 实现类可利用模型的批量计算能力提升吞吐
      *
      * @param texts 文本列表
      * @return 向量列表，每项对应输入文本的向量
      */
-    List<List<Float>> embedBatch(List<String> texts);
+    List<float[]> embedVectorBatch(List<String> texts);
 
     /**
      * 指定模型对多个文本进行批量向量化（不进行重试或降级）
@@ -79,7 +79,47 @@ public interface EmbeddingService {
      * @param modelId 指定的模型ID
      * @return 向量列表
      */
-    List<List<Float>> embedBatch(List<String> texts, String modelId);
+    List<float[]> embedVectorBatch(List<String> texts, String modelId);
+
+    /**
+     * 对单个文本进行向量化，返回 Float 列表
+     *
+     * @deprecated 每个元素都会装箱，请使用 {@link #embedVector(String)}
+     */
+    @Deprecated
+    default List<Float> embed(String text) {
+        return EmbeddingVectors.toList(embedVector(text));
+    }
+
+    /**
+     * 指定模型对单个文本进行向量化，返回 Float 列表
+     *
+     * @deprecated 每个元素都会装箱，请使用 {@link #embedVector(String, String)}
+     */
+    @Deprecated
+    default List<Float> embed(String text, String modelId) {
+        return EmbeddingVectors.toList(embedVector(text, modelId));
+    }
+
+    /**
+     * 批量向量化，返回 Float 列表
+     *
+     * @deprecated 每个元素都会装箱，请使用 {@link #embedVectorBatch(List)}
+     */
+    @Deprecated
+    default List<List<Float>> embedBatch(List<String> texts) {
+        return EmbeddingVectors.toLists(embedVectorBatch(texts));
+    }
+
+    /**
+     * 指定模型批量向量化，返回 Float 列表
+     *
+     * @deprecated 每个元素都会装箱，请使用 {@link #embedVectorBatch(List, String)}
+     */
+    @Deprecated
+    default List<List<Float>> embedBatch(List<String> texts, String modelId) {
+        return EmbeddingVectors.toLists(embedVectorBatch(texts, modelId));
+    }
 
     /**
      * 返回向量维度（Embedding Dimension）
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.infra.embedding;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.infra.http.ModelClientErrorType;
+import com.nageoffer.ai.ragent.infra.http.ModelClientException;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 内容寻址的向量缓存
+ * <p>
+ * 以（模型ID, 内容 SHA-256）为键，进程内 LRU 为一级缓存，{@link EmbeddingCacheStore} 为持久化二级缓存。
+ * 批量向量化时仅将未命中的文本（批内去重后）发送给模型，文档重建、启用与定时刷新只为变化的分块付费。
+ * 单条向量化（在线查询）只使用进程内缓存，避免在对话链路上引入数据库往返。
+ * <p>
+ * 进程内缓存同时受条目数与向量字节数（条目数 × 维度 × 4）约束；命中时直接返回缓存中的数组，不做拷贝，
+ * 返回的向量可能与缓存及其他调用方共享，调用方只读不写
+ */
+@Slf4j
+@Component
+public class EmbeddingVectorCache {
+
+    private final AIModelProperties.EmbeddingCache config;
+    private final EmbeddingCacheStore store;
+    private final LinkedHashMap<String, float[]> local = new LinkedHashMap<>(256, 0.75F, true);
+    private final int localMaxEntries;
+    private final long localMaxBytes;
+    private long localBytes;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder storeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public EmbeddingVectorCache(AIModelProperties properties, ObjectProvider<EmbeddingCacheStore> storeProvider) {
+        this.config = properties.getEmbeddingCache();
+        this.store = Boolean.TRUE.equals(config.getPersistent()) ? storeProvider.getIfAvailable() : null;
+        this.localMaxEntries = Math.max(0, config.getLocalMaxEntries() == null ? 0 : config.getLocalMaxEntries());
+        this.localMaxBytes = Math.max(0L, config.getLocalMaxBytes() == null ? 0L : config.getLocalMaxBytes());
+    }
+
+    /**
+     * 计算内容哈希，与分块表 content_hash 的算法保持一致（SHA-256 十六进制小写）
+     */
+    public static String contentHash(String content) {
+        return DigestUtil.sha256Hex(content == null ? "" : content);
+    }
+
+    /**
+     * 单条向量化，仅使用进程内缓存
+     *
+     * @param target 目标模型
+     * @param text   文本
+     * @param loader 未命中时的向量化函数
+     */
+    public float[] get(ModelTarget target, String text, Function<String, float[]> loader) {
+        if (!enabled()) {
+            return loader.apply(text);
+        }
+        String key = localKey(target.id(), contentHash(text));
+        float[] cached = validate(target, localGet(key));
+        if (cached != null) {
+            localHits.increment();
+            return cached;
+        }
+        misses.increment();
+        float[] vector = loader.apply(text);
+        if (vector == null) {
+            throw new ModelClientException("Embedding 模型未返回向量, modelId=" + target.id(),
+                    ModelClientErrorType.INVALID_RESPONSE, null);
+        }
+        localPut(key, vector);
+        return vector;
+    }
+
+    /**
+     * 批量向量化：依次查询进程内缓存、持久化缓存，仅将未命中的文本交给 loader
+     *
+     * @param target 目标模型
+     * @param texts  文本列表
+     * @param loader 未命中时的批量向量化函数，返回结果需与入参一一对应
+     * @return 与 texts 一一对应的向量列表；loader 返回数量不符或含空向量时抛出 {@link ModelClientException}
+     */
+    public List<float[]> getAll(ModelTarget target, List<String> texts, Function<List<String>, List<float[]>> loader) {
+        if (!enabled() || texts.isEmpty()) {
+            return loader.apply(texts);
+        }
+        String modelId = target.id();
+        float[][] result = new float[texts.size()][];
+
+        // 1. 进程内缓存，未命中的按哈希去重并记录位置
+        Map<String, List<Integer>> missingPositions = new LinkedHashMap<>();
+        Map<String, String> missingTexts = new HashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            String hash = contentHash(text);
+            float[] cached = validate(target, localGet(localKey(modelId, hash)));
+            if (cached != null) {
+                result[i] = cached;
+                localHits.increment();
+                continue;
+            }
+            missingPositions.computeIfAbsent(hash, k -> new ArrayList<>(1)).add(i);
+            missingTexts.putIfAbsent(hash, text);
+        }
+
+        // 2. 持久化缓存
+        if (!missingPositions.isEmpty() && store != null) {
+            Map<String, float[]> loaded = loadFromStore(modelId, missingPositions.keySet());
+            for (Map.Entry<String, float[]> entry : loaded.entrySet()) {
+                float[] vector = validate(target, entry.getValue());
+                List<Integer> positions = vector == null ? null : missingPositions.remove(entry.getKey());
+                if (positions == null) {
+                    continue;
+                }
+                localPut(localKey(modelId, entry.getKey()), vector);
+                fill(result, positions, vector);
+                storeHits.add(positions.size());
+            }
+        }
+
+        // 3. 剩余未命中的文本交给模型
+        if (!missingPositions.isEmpty()) {
+            List<String> hashes = new ArrayList<>(missingPositions.keySet());
+            List<String> pending = new ArrayList<>(hashes.size());
+            for (String hash : hashes) {
+                pending.add(missingTexts.get(hash));
+            }
+            List<float[]> vectors = loader.apply(pending);
+            requireComplete(target, pending.size(), vectors);
+            Map<String, float[]> fresh = new LinkedHashMap<>(hashes.size() * 2);
+            for (int i = 0; i < hashes.size(); i++) {
+                String hash = hashes.get(i);
+                float[] vector = vectors.get(i);
+                List<Integer> positions = missingPositions.get(hash);
+                misses.add(positions.size());
+                localPut(localKey(modelId, hash), vector);
+                fresh.put(hash, vector);
+                fill(result, positions, vector);
+            }
+            if (store != null && !fresh.isEmpty()) {
+                saveToStore(modelId, fresh);
+            }
+        }
+
+        List<float[]> vectors = new ArrayList<>(result.length);
+        Collections.addAll(vectors, result);
+        return vectors;
+    }
+
+    /**
+     * 缓存统计
+     */
+    public CacheStats stats() {
+        synchronized (local) {
+            return new CacheStats(localHits.sum(), storeHits.sum(), misses.sum(), local.size(), localBytes);
+        }
+    }
+
+    private float[] localGet(String key) {
+        synchronized (local) {
+            return local.get(key);
+        }
+    }
+
+    /**
+     * 写入进程内缓存，超出条目数或字节数上限时从最久未访问的条目开始淘汰
+     */
+    private void localPut(String key, float[] vector) {
+        synchronized (local) {
+            float[] previous = local.put(key, vector);
+            localBytes += sizeOf(vector) - sizeOf(previous);
+            Iterator<float[]> eldest = local.values().iterator();
+            while ((local.size() > localMaxEntries || localBytes > localMaxBytes) && eldest.hasNext()) {
+                localBytes -= sizeOf(eldest.next());
+                eldest.remove();
+            }
+        }
+    }
+
+    private static long sizeOf(float[] vector) {
+        return vector == null ? 0L : (long) vector.length * Float.BYTES;
+    }
+
+    private boolean enabled() {
+        return Boolean.TRUE.equals(config.getEnabled());
+    }
+
+    private Map<String, float[]> loadFromStore(String modelId, Collection<String> hashes) {
+        try {
+            Map<String, float[]> loaded = store.loadAll(modelId, hashes);
+            return loaded == null ? Map.of() : loaded;
+        } catch (Exception e) {
+            log.warn("读取持久化向量缓存失败，回退为模型调用, modelId={}, size={}", modelId, hashes.size(), e);
+            return Map.of();
+        }
+    }
+
+    private void saveToStore(String modelId, Map<String, float[]> vectors) {
+        try {
+            store.saveAll(modelId, vectors);
+        } catch (Exception e) {
+            log.warn("写入持久化向量缓存失败, modelId={}, size={}", modelId, vectors.size(), e);
+        }
+    }
+
+    /**
+     * 模型维度配置变化后，旧维度的缓存向量视为未命中
+     */
+    private static float[] validate(ModelTarget target, float[] vector) {
+        if (vector == null) {
+            return null;
+        }
+        Integer dimension = target.candidate() == null ? null : target.candidate().getDimension();
+        if (dimension != null && dimension > 0 && vector.length != dimension) {
+            return null;
+        }
+        return vector;
+    }
+
+    /**
+     * 模型返回的向量必须与请求文本一一对应，缺失时整批失败，不写入缓存
+     */
+    private static void requireComplete(ModelTarget target, int expected, List<float[]> vectors) {
+        if (vectors == null || vectors.size() != expected) {
+            throw new ModelClientException("Embedding 返回数量不匹配, modelId=" + target.id() + ", 期望 " + expected
+                    + " 条, 实际 " + (vectors == null ? 0 : vectors.size()) + " 条",
+                    ModelClientErrorType.INVALID_RESPONSE, null);
+        }
+        for (int i = 0; i < expected; i++) {
+            if (vectors.get(i) == null) {
+                throw new ModelClientException("Embedding 返回第 " + i + " 条向量为空, modelId=" + target.id(),
+                        ModelClientErrorType.INVALID_RESPONSE, null);
+            }
+        }
+    }
+
+    private static void fill(float[][] result, List<Integer> positions, float[] vector) {
+        for (Integer position : positions) {
+            result[position] = vector;
+        }
+    }
+
+    private static String localKey(String modelId, String hash) {
+        return modelId + ':' + hash;
+    }
+
+    /**
+     * 向量缓存统计
+     *
+     * @param localHits  进程内缓存命中次数
+     * @param storeHits  持久化缓存命中次数
+     * @param misses     未命中（实际调用模型）次数
+     * @param localSize  进程内缓存当前条目数
+     * @param localBytes 进程内缓存向量占用的字节数
+     */
+    public record CacheStats(long localHits, long storeHits, long misses, int localSize, long localBytes) {
+    }
+}
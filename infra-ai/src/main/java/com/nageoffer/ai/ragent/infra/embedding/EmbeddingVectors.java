@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.infra.embedding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 向量格式转换工具
+ * <p>
+ * 客户端内部统一使用 float[]，仅在兼容旧的 List&lt;Float&gt; 接口时才进行装箱/拆箱
+ */
+public final class EmbeddingVectors {
+
+    private EmbeddingVectors() {
+    }
+
+    /**
+     * float[] 转 List&lt;Float&gt;（兼容旧接口使用）
+     */
+    public static List<Float> toList(float[] vector) {
+        if (vector == null) {
+            return null;
+        }
+        List<Float> list = new ArrayList<>(vector.length);
+        for (float v : vector) {
+            list.add(v);
+        }
+        return list;
+    }
+
+    /**
+     * 批量 float[] 转 List&lt;List&lt;Float&gt;&gt;（兼容旧接口使用）
+     */
+    public static List<List<Float>> toLists(List<float[]> vectors) {
+        if (vectors == null) {
+            return null;
+        }
+        List<List<Float>> lists = new ArrayList<>(vectors.size());
+        for (float[] vector : vectors) {
+            lists.add(toList(vector));
+        }
+        return lists;
+    }
+
+    /**
+     * List&lt;Float&gt; 转 float[]
+     */
+    public static float[] toArray(List<Float> list) {
+        if (list == null) {
+            return null;
+        }
+        float[] arr = new float[list.size()];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = list.get(i);
+        }
+        return arr;
+    }
+}
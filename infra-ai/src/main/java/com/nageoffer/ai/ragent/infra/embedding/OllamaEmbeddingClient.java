@@ -17,7 +17,7 @@
 
 package com.nageoffer.ai.ragent.infra.embedding;
 
-import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
 import com.nageoffer.ai.ragent.infra.enums.ModelProvider;
@@ -34,11 +34,13 @@ import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import org.apache.commons.collections4.CollectionUtils;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Service
@@ -46,8 +48,9 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OllamaEmbeddingClient implements EmbeddingClient {
 
+    private static final int MAX_BATCH = 32;
+
     private final OkHttpClient httpClient;
-    private final Gson gson = new Gson();
 
     @Override
     public String provider() {
@@ -55,13 +58,44 @@ public class OllamaEmbeddingClient implements EmbeddingClient {
     }
 
     @Override
-    public List<Float> embed(String text, ModelTarget target) {
+    public float[] embedVector(String text, ModelTarget target) {
+        return embedVectorBatch(List.of(text), target).get(0);
+    }
+
+    @Override
+    public List<float[]> embedVectorBatch(List<String> texts, ModelTarget target) {
+        if (CollectionUtils.isEmpty(texts)) {
+            return Collections.emptyList();
+        }
+        // /api/embed 的 input 支持数组，按批发送以减少请求次数
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (int i = 0, n = texts.size(); i < n; i += MAX_BATCH) {
+            List<String> slice = texts.subList(i, Math.min(i + MAX_BATCH, n));
+            List<float[]> part = doEmbedOnce(slice, target);
+            if (part.size() != slice.size()) {
+                throw new ModelClientException(
+                        "Ollama embeddings 返回数量不匹配: expected=" + slice.size() + ", actual=" + part.size(),
+                        ModelClientErrorType.INVALID_RESPONSE, null);
+            }
+            for (float[] vector : part) {
+                if (vector == null || vector.length == 0) {
+                    throw new ModelClientException("Ollama embeddings 返回为空数组", ModelClientErrorType.INVALID_RESPONSE, null);
+                }
+                vectors.add(vector);
+            }
+        }
+        return vectors;
+    }
+
+    private List<float[]> doEmbedOnce(List<String> slice, ModelTarget target) {
         AIModelProperties.ProviderConfig provider = requireProvider(target);
         String url = resolveUrl(provider, target);
 
+        JsonArray input = new JsonArray();
+        slice.forEach(input::add);
         JsonObject body = new JsonObject();
         body.addProperty("model", requireModel(target));
-        body.addProperty("input", text);
+        body.add("input", input);
 
         Request request = new Request.Builder()
                 .url(url)
@@ -69,7 +103,7 @@ public class OllamaEmbeddingClient implements EmbeddingClient {
                 .addHeader("Content-Type", HttpMediaTypes.JSON_UTF8_HEADER)
                 .build();
 
-        JsonObject json;
+        Integer dimension = target.candidate().getDimension();
         try (Response response = httpClient.newCall(request).execute()) {
             if (!response.isSuccessful()) {
                 String errBody = readBody(response.body());
@@ -80,35 +114,14 @@ public class OllamaEmbeddingClient implements EmbeddingClient {
                         response.code()
                 );
             }
-            json = parseJsonBody(response.body());
+            ResponseBody responseBody = response.body();
+            if (responseBody == null) {
+                throw new ModelClientException("Ollama embedding 响应为空", ModelClientErrorType.INVALID_RESPONSE, null);
+            }
+            return EmbeddingResponseReader.readEmbeddings(responseBody.charStream(), dimension == null ? 0 : dimension);
         } catch (IOException e) {
             throw new ModelClientException("Ollama embedding 请求失败: " + e.getMessage(), ModelClientErrorType.NETWORK_ERROR, null, e);
         }
-
-        var embeddings = json.getAsJsonArray("embeddings");
-
-        if (embeddings == null || embeddings.isEmpty()) {
-            throw new ModelClientException("Ollama embeddings 为空", ModelClientErrorType.INVALID_RESPONSE, null);
-        }
-
-        var first = embeddings.get(0).getAsJsonArray();
-        if (first == null || first.isEmpty()) {
-            throw new ModelClientException("Ollama embeddings 返回为空数组", ModelClientErrorType.INVALID_RESPONSE, null);
-        }
-
-        List<Float> vector = new ArrayList<>();
-        first.forEach(v -> vector.add(v.getAsFloat()));
-
-        return vector;
-    }
-
-    @Override
-    public List<List<Float>> embedBatch(List<String> texts, ModelTarget target) {
-        List<List<Float>> vectors = new ArrayList<>(texts.size());
-        for (String text : texts) {
-            vectors.add(embed(text, target));
-        }
-        return vectors;
     }
 
     private AIModelProperties.ProviderConfig requireProvider(ModelTarget target) {
@@ -129,14 +142,6 @@ public class OllamaEmbeddingClient implements EmbeddingClient {
         return ModelUrlResolver.resolveUrl(provider, target.candidate(), ModelCapability.EMBEDDING);
     }
 
-    private JsonObject parseJsonBody(ResponseBody body) throws IOException {
-        if (body == null) {
-            throw new ModelClientException("Ollama embedding 响应为空", ModelClientErrorType.INVALID_RESPONSE, null);
-        }
-        String content = body.string();
-        return gson.fromJson(content, JsonObject.class);
-    }
-
     private String readBody(ResponseBody body) throws IOException {
         if (body == null) {
             return "";
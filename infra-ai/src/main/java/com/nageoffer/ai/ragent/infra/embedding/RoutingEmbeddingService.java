@@ -31,87 +31,87 @@ import org.springframework.util.StringUtils;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * 路由式向量嵌入服务实现类
  * <p>
  * 该服务通过模型路由器选择合适的嵌入模型，并在执行失败时自动进行降级处理
- * 支持单文本和批量文本的向量化操作
+ * 支持单文本和批量文本的向量化操作，结果经 {@link EmbeddingVectorCache} 按（模型ID, 内容哈希）缓存，
+ * 缓存未命中的单文本请求经 {@link EmbeddingMicroBatcher} 与并发请求合并为批量请求
  */
 @Service
 @Primary
 public class RoutingEmbeddingService implements EmbeddingService {
 
+    /**
+     * 微批合并的调用路径：按候选路由与指定模型的请求分别成批，互不搭车
+     */
+    private static final String ROUTED_PATH = "routed";
+    private static final String PINNED_PATH = "pinned";
+
     private final ModelSelector selector;
     private final ModelHealthStore healthStore;
     private final ModelRoutingExecutor executor;
+    private final EmbeddingVectorCache cache;
+    private final EmbeddingMicroBatcher batcher;
     private final Map<String, EmbeddingClient> clientsByProvider;
 
     public RoutingEmbeddingService(
             ModelSelector selector,
             ModelHealthStore healthStore,
             ModelRoutingExecutor executor,
+            EmbeddingVectorCache cache,
+            EmbeddingMicroBatcher batcher,
             List<EmbeddingClient> clients) {
         this.selector = selector;
         this.healthStore = healthStore;
         this.executor = executor;
+        this.cache = cache;
+        this.batcher = batcher;
         this.clientsByProvider = clients.stream()
                 .collect(Collectors.toMap(EmbeddingClient::provider, Function.identity()));
     }
 
+    /**
+     * 单条向量化会与并发请求合并为一次模型调用，健康状态由合并后的实际调用记录一次，路由执行器只负责故障转移
+     */
     @Override
-    public List<Float> embed(String text) {
+    public float[] embedVector(String text) {
         return executor.executeWithFallback(
                 ModelCapability.EMBEDDING,
                 selector.selectEmbeddingCandidates(),
                 target -> clientsByProvider.get(target.candidate().getProvider()),
-                (client, target) -> client.embed(text, target)
+                (client, target) -> cache.get(target, text, t -> batcher.embed(target, ROUTED_PATH, t,
+                        pending -> callWithHealth(target, () -> client.embedVectorBatch(pending, target)))),
+                false
         );
     }
 
     @Override
-    public List<Float> embed(String text, String modelId) {
+    public float[] embedVector(String text, String modelId) {
         ModelTarget target = resolveTarget(modelId);
         EmbeddingClient client = resolveClient(target);
-        if (!healthStore.allowCall(target.id())) {
-            throw new RemoteException("Embedding 模型暂不可用: " + target.id());
-        }
-        try {
-            List<Float> vector = client.embed(text, target);
-            healthStore.markSuccess(target.id());
-            return vector;
-        } catch (Exception e) {
-            healthStore.markFailure(target.id());
-            throw new RemoteException("Embedding 模型调用失败: " + target.id(), e, BaseErrorCode.REMOTE_ERROR);
-        }
+        return cache.get(target, text, t -> batcher.embed(target, PINNED_PATH, t,
+                pending -> callWithHealth(target, () -> client.embedVectorBatch(pending, target))));
     }
 
     @Override
-    public List<List<Float>> embedBatch(List<String> texts) {
+    public List<float[]> embedVectorBatch(List<String> texts) {
         return executor.executeWithFallback(
                 ModelCapability.EMBEDDING,
                 selector.selectEmbeddingCandidates(),
                 target -> clientsByProvider.get(target.candidate().getProvider()),
-                (client, target) -> client.embedBatch(texts, target)
+                (client, target) -> cache.getAll(target, texts, pending -> client.embedVectorBatch(pending, target))
         );
     }
 
     @Override
-    public List<List<Float>> embedBatch(List<String> texts, String modelId) {
+    public List<float[]> embedVectorBatch(List<String> texts, String modelId) {
         ModelTarget target = resolveTarget(modelId);
         EmbeddingClient client = resolveClient(target);
-        if (!healthStore.allowCall(target.id())) {
-            throw new RemoteException("Embedding 模型暂不可用: " + target.id());
-        }
-        try {
-            List<List<Float>> vectors = client.embedBatch(texts, target);
-            healthStore.markSuccess(target.id());
-            return vectors;
-        } catch (Exception e) {
-            healthStore.markFailure(target.id());
-            throw new RemoteException("Embedding 模型调用失败: " + target.id(), e, BaseErrorCode.REMOTE_ERROR);
-        }
+        return cache.getAll(target, texts, pending -> callWithHealth(target, () -> client.embedVectorBatch(pending, target)));
     }
 
     @Override
@@ -133,6 +133,23 @@ public class RoutingEmbeddingService implements EmbeddingService {
                 .orElseThrow(() -> new RemoteException("Embedding 模型不可用: " + modelId));
     }
 
+    /**
+     * 指定模型调用：仅在缓存未命中、真正请求模型时检查并记录模型健康状态
+     */
+    private <T> T callWithHealth(ModelTarget target, Supplier<T> call) {
+        if (!healthStore.allowCall(target.id())) {
+            throw new RemoteException("Embedding 模型暂不可用: " + target.id());
+        }
+        try {
+            T result = call.get();
+            healthStore.markSuccess(target.id());
+            return result;
+        } catch (Exception e) {
+            healthStore.markFailure(target.id());
+            throw new RemoteException("Embedding 模型调用失败: " + target.id(), e, BaseErrorCode.REMOTE_ERROR);
+        }
+    }
+
     private EmbeddingClient resolveClient(ModelTarget target) {
         EmbeddingClient client = clientsByProvider.get(target.candidate().getProvider());
         if (client == null) {
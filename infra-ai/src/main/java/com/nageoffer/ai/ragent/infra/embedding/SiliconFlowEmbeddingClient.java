@@ -18,10 +18,6 @@
 package com.nageoffer.ai.ragent.infra.embedding;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
 import com.nageoffer.ai.ragent.infra.enums.ModelProvider;
 import com.nageoffer.ai.ragent.infra.enums.ModelCapability;
@@ -62,23 +58,23 @@ public class SiliconFlowEmbeddingClient implements EmbeddingClient {
     }
 
     @Override
-    public List<Float> embed(String text, ModelTarget target) {
-        return embedBatch(List.of(text), target).get(0);
+    public float[] embedVector(String text, ModelTarget target) {
+        return embedVectorBatch(List.of(text), target).get(0);
     }
 
     @Override
-    public List<List<Float>> embedBatch(List<String> texts, ModelTarget target) {
+    public List<float[]> embedVectorBatch(List<String> texts, ModelTarget target) {
         if (CollectionUtils.isEmpty(texts)) {
             return Collections.emptyList();
         }
 
         final int maxBatch = 32;
-        List<List<Float>> results = new ArrayList<>(Collections.nCopies(texts.size(), null));
+        List<float[]> results = new ArrayList<>(Collections.nCopies(texts.size(), null));
         for (int i = 0, n = texts.size(); i < n; i += maxBatch) {
             int end = Math.min(i + maxBatch, n);
             List<String> slice = texts.subList(i, end);
             try {
-                List<List<Float>> part = doEmbedOnce(slice, target);
+                List<float[]> part = doEmbedOnce(slice, target);
                 for (int k = 0; k < part.size(); k++) {
                     results.set(i + k, part.get(k));
                 }
@@ -96,13 +92,14 @@ public class SiliconFlowEmbeddingClient implements EmbeddingClient {
         return results;
     }
 
-    private List<List<Float>> doEmbedOnce(List<String> slice, ModelTarget target) {
+    private List<float[]> doEmbedOnce(List<String> slice, ModelTarget target) {
         AIModelProperties.ProviderConfig provider = requireProvider(target);
+        Integer dimension = target.candidate().getDimension();
         Map<String, Object> req = new HashMap<>();
         req.put("model", requireModel(target));
         req.put("input", slice);
-        if (target.candidate().getDimension() != null) {
-            req.put("dimensions", target.candidate().getDimension());
+        if (dimension != null) {
+            req.put("dimensions", dimension);
         }
         req.put("encoding_format", "float");
 
@@ -113,7 +110,6 @@ public class SiliconFlowEmbeddingClient implements EmbeddingClient {
                 .addHeader("Authorization", "Bearer " + provider.getApiKey())
                 .build();
 
-        JsonObject root;
         try (Response response = httpClient.newCall(request).execute()) {
             if (!response.isSuccessful()) {
                 String errBody = readBody(response.body());
@@ -124,37 +120,15 @@ public class SiliconFlowEmbeddingClient implements EmbeddingClient {
                         response.code()
                 );
             }
-            root = parseJsonBody(response.body());
+            ResponseBody body = response.body();
+            if (body == null) {
+                throw new ModelClientException("SiliconFlow Embedding 响应为空", ModelClientErrorType.INVALID_RESPONSE, null);
+            }
+            // 流式解析 data[].embedding，直接写入 float[]，不构建 JSON 树
+            return EmbeddingResponseReader.readData(body.charStream(), slice.size(), dimension == null ? 0 : dimension);
         } catch (IOException e) {
             throw new ModelClientException("调用 SiliconFlow Embedding 失败: " + e.getMessage(), ModelClientErrorType.NETWORK_ERROR, null, e);
         }
-
-        if (root.has("error")) {
-            JsonObject err = root.getAsJsonObject("error");
-            String code = err.has("code") ? err.get("code").getAsString() : "unknown";
-            String msg = err.has("message") ? err.get("message").getAsString() : "unknown";
-            throw new ModelClientException("SiliconFlow Embedding 错误: " + code + " - " + msg, ModelClientErrorType.PROVIDER_ERROR, null);
-        }
-
-        JsonArray data = root.getAsJsonArray("data");
-        if (data == null) {
-            throw new ModelClientException("SiliconFlow Embedding 响应中缺少 data 数组", ModelClientErrorType.INVALID_RESPONSE, null);
-        }
-
-        List<List<Float>> vectors = new ArrayList<>(data.size());
-        for (JsonElement el : data) {
-            JsonObject obj = el.getAsJsonObject();
-            JsonArray emb = obj.getAsJsonArray("embedding");
-            if (emb == null) {
-                throw new ModelClientException("SiliconFlow Embedding 响应中缺少 embedding 字段", ModelClientErrorType.INVALID_RESPONSE, null);
-            }
-
-            List<Float> v = new ArrayList<>(emb.size());
-            for (JsonElement num : emb) v.add(num.getAsFloat());
-            vectors.add(v);
-        }
-
-        return vectors;
     }
 
     private AIModelProperties.ProviderConfig requireProvider(ModelTarget target) {
@@ -175,14 +149,6 @@ public class SiliconFlowEmbeddingClient implements EmbeddingClient {
         return ModelUrlResolver.resolveUrl(provider, target.candidate(), ModelCapability.EMBEDDING);
     }
 
-    private JsonObject parseJsonBody(ResponseBody body) throws IOException {
-        if (body == null) {
-            throw new ModelClientException("SiliconFlow Embedding 响应为空", ModelClientErrorType.INVALID_RESPONSE, null);
-        }
-        String content = body.string();
-        return JsonParser.parseString(content).getAsJsonObject();
-    }
-
     private String readBody(ResponseBody body) throws IOException {
         if (body == null) {
             return "";
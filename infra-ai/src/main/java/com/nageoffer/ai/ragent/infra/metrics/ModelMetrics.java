@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.metrics;
+
+import cn.hutool.core.util.StrUtil;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.infra.enums.ModelCapability;
+import com.nageoffer.ai.ragent.infra.model.ModelHealthStore;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模型调用监控指标
+ * <p>
+ * 指标清单：
+ * <ul>
+ *   <li>{@code ragent.model.call}：单个候选模型的调用耗时，按能力、模型、结果区分</li>
+ *   <li>{@code ragent.llm.first.token}：流式对话首包耗时（TTFT），按模型区分</li>
+ *   <li>{@code ragent.llm.tokens.per.second}：首包之后的生成速率，按模型区分</li>
+ *   <li>{@code ragent.llm.output.tokens}：流式输出 Token 数，按模型区分</li>
+ *   <li>{@code ragent.model.circuit.state}：断路器状态，0 关闭，1 半开，2 打开</li>
+ * </ul>
+ * 未接入 Actuator 时记录到 Micrometer 全局注册表
+ */
+@Component
+public class ModelMetrics {
+
+    private final MeterRegistry registry;
+    private final ModelHealthStore healthStore;
+    private final AIModelProperties properties;
+
+    public ModelMetrics(ObjectProvider<MeterRegistry> registryProvider,
+                        ModelHealthStore healthStore,
+                        AIModelProperties properties) {
+        this.registry = registryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        this.healthStore = healthStore;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void bindCircuitGauges() {
+        Set<String> bound = new HashSet<>();
+        bindCircuitGauges(ModelCapability.CHAT, properties.getChat(), bound);
+        bindCircuitGauges(ModelCapability.EMBEDDING, properties.getEmbedding(), bound);
+        bindCircuitGauges(ModelCapability.RERANK, properties.getRerank(), bound);
+    }
+
+    /**
+     * 记录一次候选模型调用
+     */
+    public void recordCall(ModelCapability capability, ModelTarget target, long elapsedNanos, boolean success) {
+        Timer.builder("ragent.model.call")
+                .description("单个候选模型的调用耗时")
+                .tag("capability", capability.name().toLowerCase())
+                .tag("model", target.id())
+                .tag("provider", String.valueOf(target.candidate().getProvider()))
+                .tag("outcome", success ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录流式对话首包耗时
+     */
+    public void recordFirstToken(ModelTarget target, long elapsedNanos) {
+        Timer.builder("ragent.llm.first.token")
+                .description("流式对话首包耗时")
+                .tag("model", target.id())
+                .tag("provider", String.valueOf(target.candidate().getProvider()))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次流式生成的 Token 数与生成速率
+     *
+     * @param tokens       输出 Token 数
+     * @param elapsedNanos 首包到完成的耗时
+     */
+    public void recordGeneration(ModelTarget target, int tokens, long elapsedNanos) {
+        if (tokens <= 0) {
+            return;
+        }
+        String model = target.id();
+        String provider = String.valueOf(target.candidate().getProvider());
+        DistributionSummary.builder("ragent.llm.output.tokens")
+                .description("流式输出 Token 数")
+                .baseUnit("tokens")
+                .tag("model", model)
+                .tag("provider", provider)
+                .register(registry)
+                .record(tokens);
+        if (elapsedNanos <= 0) {
+            return;
+        }
+        double tokensPerSecond = tokens * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        DistributionSummary.builder("ragent.llm.tokens.per.second")
+                .description("首包之后的生成速率")
+                .baseUnit("tokens")
+                .tag("model", model)
+                .tag("provider", provider)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(tokensPerSecond);
+    }
+
+    private void bindCircuitGauges(ModelCapability capability, AIModelProperties.ModelGroup group, Set<String> bound) {
+        List<AIModelProperties.ModelCandidate> candidates = group == null ? List.of() : group.getCandidates();
+        for (AIModelProperties.ModelCandidate candidate : candidates) {
+            // 与 ModelSelector 的模型ID解析规则保持一致
+            String id = StrUtil.isNotBlank(candidate.getId())
+                    ? candidate.getId()
+                    : Objects.toString(candidate.getProvider(), "unknown") + "::" + Objects.toString(candidate.getModel(), "unknown");
+            if (!bound.add(capability.name() + ":" + id)) {
+                continue;
+            }
+            Gauge.builder("ragent.model.circuit.state", healthStore, store -> store.stateCode(id))
+                    .description("模型断路器状态：0 关闭，1 半开，2 打开")
+                    .tag("capability", capability.name().toLowerCase())
+                    .tag("model", id)
+                    .tag("provider", String.valueOf(candidate.getProvider()))
+                    .register(registry);
+        }
+    }
+}
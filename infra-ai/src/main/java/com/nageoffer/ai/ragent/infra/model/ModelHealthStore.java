@@ -44,6 +44,23 @@ public class ModelHealthStore {
         return health.state == State.OPEN && health.openUntil > System.currentTimeMillis();
     }
 
+    /**
+     * 断路器状态编码，用于监控指标：0 关闭，1 半开，2 打开
+     * <p>
+     * 打开状态已过期但尚未有探测请求时视为半开
+     */
+    public int stateCode(String id) {
+        ModelHealth health = id == null ? null : healthById.get(id);
+        if (health == null) {
+            return 0;
+        }
+        return switch (health.state) {
+            case CLOSED -> 0;
+            case HALF_OPEN -> 1;
+            case OPEN -> health.openUntil > System.currentTimeMillis() ? 2 : 1;
+        };
+    }
+
     public boolean allowCall(String id) {
         if (id == null) {
             return false;
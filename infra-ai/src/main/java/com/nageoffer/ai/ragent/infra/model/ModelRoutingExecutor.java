@@ -20,6 +20,7 @@ package com.nageoffer.ai.ragent.infra.model;
 import com.nageoffer.ai.ragent.framework.errorcode.BaseErrorCode;
 import com.nageoffer.ai.ragent.framework.exception.RemoteException;
 import com.nageoffer.ai.ragent.infra.enums.ModelCapability;
+import com.nageoffer.ai.ragent.infra.metrics.ModelMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -37,12 +38,28 @@ import java.util.function.Function;
 public class ModelRoutingExecutor {
 
     private final ModelHealthStore healthStore;
+    private final ModelMetrics modelMetrics;
 
     public <C, T> T executeWithFallback(
             ModelCapability capability,
             List<ModelTarget> targets,
             Function<ModelTarget, C> clientResolver,
             ModelCaller<C, T> caller) {
+        return executeWithFallback(capability, targets, clientResolver, caller, true);
+    }
+
+    /**
+     * 按候选顺序调用，失败时切换下一个候选
+     *
+     * @param recordHealth 是否由执行器记录健康状态；调用方自行记录时传 false（如多个请求合并为一次模型调用，
+     *                     只应按实际调用记录一次），此时执行器仍按熔断状态跳过不可用的候选
+     */
+    public <C, T> T executeWithFallback(
+            ModelCapability capability,
+            List<ModelTarget> targets,
+            Function<ModelTarget, C> clientResolver,
+            ModelCaller<C, T> caller,
+            boolean recordHealth) {
         String label = capability.getDisplayName();
         if (targets == null || targets.isEmpty()) {
             throw new RemoteException("No " + label + " model candidates available");
@@ -59,13 +76,20 @@ public class ModelRoutingExecutor {
                 continue;
             }
 
+            long startNanos = System.nanoTime();
             try {
                 T response = caller.call(client, target);
-                healthStore.markSuccess(target.id());
+                modelMetrics.recordCall(capability, target, System.nanoTime() - startNanos, true);
+                if (recordHealth) {
+                    healthStore.markSuccess(target.id());
+                }
                 return response;
             } catch (Exception e) {
                 last = e;
-                healthStore.markFailure(target.id());
+                modelMetrics.recordCall(capability, target, System.nanoTime() - startNanos, false);
+                if (recordHealth) {
+                    healthStore.markFailure(target.id());
+                }
                 log.warn("{} model failed, fallback to next. modelId={}, provider={}", label, target.id(), target.candidate().getProvider(), e);
             }
         }
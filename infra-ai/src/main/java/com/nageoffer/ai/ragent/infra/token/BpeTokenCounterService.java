@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.token;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 基于 BPE 分词的 Token 统计服务
+ * <p>
+ * 配置 ai.tokenizer.path 后按模型真实分词计数，并按内容哈希缓存计数结果，
+ * 同一分块在多次检索、多轮对话中只分词一次；未配置或加载失败时回退到 {@link HeuristicTokenCounterService}
+ */
+@Slf4j
+@Service
+@Primary
+public class BpeTokenCounterService implements TokenCounterService {
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    private final HeuristicTokenCounterService heuristic;
+    private final BpeTokenizer tokenizer;
+    private final Map<String, Integer> counts;
+
+    public BpeTokenCounterService(AIModelProperties properties, HeuristicTokenCounterService heuristic) {
+        AIModelProperties.Tokenizer config = properties.getTokenizer();
+        this.heuristic = heuristic;
+        this.tokenizer = loadTokenizer(config);
+        int maxEntries = Math.max(0, config.getCacheMaxEntries() == null ? 0 : config.getCacheMaxEntries());
+        this.counts = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    @Override
+    public Integer countTokens(String text) {
+        if (tokenizer == null) {
+            return heuristic.countTokens(text);
+        }
+        if (!StringUtils.hasText(text)) {
+            return 0;
+        }
+        String key = DigestUtil.sha256Hex(text);
+        Integer cached = counts.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        int count = tokenizer.count(text);
+        counts.put(key, count);
+        return count;
+    }
+
+    @Override
+    public Integer countTokensUncached(CharSequence text) {
+        if (tokenizer == null) {
+            return heuristic.countTokensUncached(text);
+        }
+        return tokenizer.count(text);
+    }
+
+    /**
+     * 是否使用真实分词器计数
+     */
+    public boolean isExact() {
+        return tokenizer != null;
+    }
+
+    private BpeTokenizer loadTokenizer(AIModelProperties.Tokenizer config) {
+        String path = config.getPath();
+        if (!StringUtils.hasText(path)) {
+            return null;
+        }
+        try (Reader reader = openReader(path.trim())) {
+            BpeTokenizer loaded = BpeTokenizer.load(reader, config.getPattern());
+            log.info("已加载 BPE 分词器: path={}, merges={}", path, loaded.mergeCount());
+            return loaded;
+        } catch (Exception e) {
+            log.warn("BPE 分词器加载失败，回退为启发式 Token 估算: path={}", path, e);
+            return null;
+        }
+    }
+
+    private Reader openReader(String path) throws Exception {
+        if (path.startsWith(CLASSPATH_PREFIX)) {
+            return new BufferedReader(new InputStreamReader(
+                    new DefaultResourceLoader().getResource(path).getInputStream(), StandardCharsets.UTF_8));
+        }
+        return Files.newBufferedReader(Path.of(path), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.token;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Byte-level BPE 分词器（仅计数）
+ * <p>
+ * 读取 HuggingFace tokenizer.json 中的 model.merges，按「预分词正则 → UTF-8 字节映射 → 按合并优先级合并」
+ * 的流程切分文本，统计 Token 数只需要最终符号个数，因此不加载词表。
+ * <p>
+ * UTF-8 编码不超过 {@value #MAX_PIECE_CHARS} 字节的预分词片段与 GPT-2 / Qwen 系列分词结果一致；
+ * 更长的片段按字节分段合并，段边界两侧不会再合并，计数是近似值，通常略大于真实 Token 数
+ */
+public final class BpeTokenizer {
+
+    /**
+     * 单次合并的最大字节数，超长片段（如 base64、长串符号）分段合并，避免合并过程退化为平方复杂度；
+     * 分段后的计数不再精确，见类注释
+     */
+    private static final int MAX_PIECE_CHARS = 512;
+
+    /**
+     * 片段计数缓存上限，超出后整体清空
+     */
+    private static final int PIECE_CACHE_MAX_ENTRIES = 100_000;
+
+    private static final char[] BYTE_TO_CHAR = buildByteToChar();
+
+    private final Pattern pattern;
+    private final Map<String, Integer> mergeRanks;
+    private final Map<String, Integer> pieceCache = new ConcurrentHashMap<>();
+
+    private BpeTokenizer(Pattern pattern, Map<String, Integer> mergeRanks) {
+        this.pattern = pattern;
+        this.mergeRanks = mergeRanks;
+    }
+
+    /**
+     * 从 tokenizer.json 加载分词器
+     *
+     * @param source  tokenizer.json 字符流，调用方负责关闭
+     * @param pattern 预分词正则
+     */
+    public static BpeTokenizer load(Reader source, String pattern) throws IOException {
+        Map<String, Integer> ranks = readMerges(source);
+        if (ranks.isEmpty()) {
+            throw new IllegalStateException("tokenizer.json 中缺少 model.merges");
+        }
+        return new BpeTokenizer(Pattern.compile(pattern), ranks);
+    }
+
+    /**
+     * 统计文本的 Token 数
+     */
+    public int count(CharSequence text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int total = 0;
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            total += countPiece(matcher.group());
+        }
+        return total;
+    }
+
+    /**
+     * 合并规则数量
+     */
+    public int mergeCount() {
+        return mergeRanks.size();
+    }
+
+    private int countPiece(String piece) {
+        Integer cached = pieceCache.get(piece);
+        if (cached != null) {
+            return cached;
+        }
+        String mapped = toByteLevel(piece);
+        int count = 0;
+        for (int start = 0; start < mapped.length(); start += MAX_PIECE_CHARS) {
+            count += bpe(mapped.substring(start, Math.min(start + MAX_PIECE_CHARS, mapped.length())));
+        }
+        if (pieceCache.size() >= PIECE_CACHE_MAX_ENTRIES) {
+            pieceCache.clear();
+        }
+        pieceCache.put(piece, count);
+        return count;
+    }
+
+    private int bpe(String word) {
+        if (word.length() <= 1) {
+            return word.length();
+        }
+        List<String> symbols = new ArrayList<>(word.length());
+        for (int i = 0; i < word.length(); i++) {
+            symbols.add(String.valueOf(word.charAt(i)));
+        }
+        while (symbols.size() > 1) {
+            int bestRank = Integer.MAX_VALUE;
+            String bestLeft = null;
+            String bestRight = null;
+            for (int i = 0; i < symbols.size() - 1; i++) {
+                Integer rank = mergeRanks.get(symbols.get(i) + ' ' + symbols.get(i + 1));
+                if (rank != null && rank < bestRank) {
+                    bestRank = rank;
+                    bestLeft = symbols.get(i);
+                    bestRight = symbols.get(i + 1);
+                }
+            }
+            if (bestLeft == null) {
+                break;
+            }
+            // 一次合并所有相同的相邻对
+            List<String> merged = new ArrayList<>(symbols.size());
+            for (int i = 0; i < symbols.size(); i++) {
+                if (i < symbols.size() - 1
+                        && symbols.get(i).equals(bestLeft)
+                        && symbols.get(i + 1).equals(bestRight)) {
+                    merged.add(bestLeft + bestRight);
+                    i++;
+                } else {
+                    merged.add(symbols.get(i));
+                }
+            }
+            symbols = merged;
+        }
+        return symbols.size();
+    }
+
+    private static String toByteLevel(String piece) {
+        byte[] bytes = piece.getBytes(StandardCharsets.UTF_8);
+        char[] chars = new char[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i] = BYTE_TO_CHAR[bytes[i] & 0xFF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * GPT-2 bytes_to_unicode：可打印字节映射为自身，其余字节映射到 256 之后的码位，保证合并规则中不含空白与控制符
+     */
+    private static char[] buildByteToChar() {
+        char[] table = new char[256];
+        boolean[] printable = new boolean[256];
+        for (int b = '!'; b <= '~'; b++) {
+            printable[b] = true;
+        }
+        for (int b = 0xA1; b <= 0xAC; b++) {
+            printable[b] = true;
+        }
+        for (int b = 0xAE; b <= 0xFF; b++) {
+            printable[b] = true;
+        }
+        int next = 0;
+        for (int b = 0; b < 256; b++) {
+            table[b] = printable[b] ? (char) b : (char) (256 + next++);
+        }
+        return table;
+    }
+
+    private static Map<String, Integer> readMerges(Reader source) throws IOException {
+        Map<String, Integer> ranks = new HashMap<>();
+        JsonReader in = new JsonReader(source);
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!"model".equals(in.nextName())) {
+                in.skipValue();
+                continue;
+            }
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!"merges".equals(in.nextName())) {
+                    in.skipValue();
+                    continue;
+                }
+                in.beginArray();
+                int rank = 0;
+                while (in.hasNext()) {
+                    String key = readMerge(in);
+                    if (key != null) {
+                        ranks.putIfAbsent(key, rank);
+                    }
+                    rank++;
+                }
+                in.endArray();
+            }
+            in.endObject();
+        }
+        in.endObject();
+        return ranks;
+    }
+
+    /**
+     * 兼容两种 merges 格式："a b" 与 ["a", "b"]
+     */
+    private static String readMerge(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.STRING) {
+            return in.nextString();
+        }
+        if (in.peek() == JsonToken.BEGIN_ARRAY) {
+            in.beginArray();
+            String left = in.nextString();
+            String right = in.nextString();
+            while (in.hasNext()) {
+                in.skipValue();
+            }
+            in.endArray();
+            return left + ' ' + right;
+        }
+        in.skipValue();
+        return null;
+    }
+}
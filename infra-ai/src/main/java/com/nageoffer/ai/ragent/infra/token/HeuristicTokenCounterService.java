@@ -28,6 +28,15 @@ public class HeuristicTokenCounterService implements TokenCounterService {
 
     @Override
     public Integer countTokens(String text) {
+        return estimate(text);
+    }
+
+    @Override
+    public Integer countTokensUncached(CharSequence text) {
+        return estimate(text);
+    }
+
+    private int estimate(CharSequence text) {
         if (!StringUtils.hasText(text)) {
             return 0;
         }
@@ -29,4 +29,16 @@ public interface TokenCounterService {
      * @return Token 数（无法计算时返回 null）
      */
     Integer countTokens(String text);
+
+    /**
+     * 统计一次性文本的 Token 数，不写入计数缓存
+     * <p>
+     * 用于模型输出等不会再次出现的文本，避免挤掉分块、提示词等可复用的计数
+     *
+     * @param text 文本内容
+     * @return Token 数（无法计算时返回 null）
+     */
+    default Integer countTokensUncached(CharSequence text) {
+        return countTokens(text == null ? null : text.toString());
+    }
 }
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.chat;
+
+import com.nageoffer.ai.ragent.framework.convention.ChatRequest;
+import com.nageoffer.ai.ragent.framework.exception.RemoteException;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.infra.metrics.ModelMetrics;
+import com.nageoffer.ai.ragent.infra.model.ModelHealthStore;
+import com.nageoffer.ai.ragent.infra.model.ModelRoutingExecutor;
+import com.nageoffer.ai.ragent.infra.model.ModelSelector;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import com.nageoffer.ai.ragent.infra.token.TokenCounterService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 流式对冲与故障转移
+ * <p>
+ * 两个候选模型均为手动驱动的假客户端；对冲延迟固定为 50ms，首包超时足够长，不会干扰用例
+ */
+public class RoutingLLMServiceStreamTests {
+
+    private static final long HEDGE_DELAY_MS = 50L;
+
+    private final ModelHealthStore healthStore = mock(ModelHealthStore.class);
+    private final FakeStreamClient primary = new FakeStreamClient("primary-provider");
+    private final FakeStreamClient hedge = new FakeStreamClient("hedge-provider");
+    private final RecordingCallback downstream = new RecordingCallback();
+
+    private RoutingLLMService service;
+
+    @BeforeEach
+    public void setUp() {
+        AIModelProperties properties = new AIModelProperties();
+        AIModelProperties.Stream stream = new AIModelProperties.Stream();
+        stream.setFirstPacketTimeoutMs(10000L);
+        AIModelProperties.Hedge hedgeConfig = new AIModelProperties.Hedge();
+        hedgeConfig.setEnabled(true);
+        hedgeConfig.setMinDelayMs(HEDGE_DELAY_MS);
+        hedgeConfig.setMaxDelayMs(HEDGE_DELAY_MS);
+        stream.setHedge(hedgeConfig);
+        properties.setStream(stream);
+
+        ModelSelector selector = mock(ModelSelector.class);
+        when(selector.selectChatCandidates(any())).thenReturn(List.of(
+                target("primary", primary.provider()),
+                target("hedge", hedge.provider())));
+
+        service = new RoutingLLMService(
+                selector,
+                healthStore,
+                mock(ModelRoutingExecutor.class),
+                properties,
+                mock(ModelMetrics.class),
+                mock(TokenCounterService.class),
+                List.of(primary, hedge));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void hedgeWinsAndPrimaryIsCancelled() throws InterruptedException {
+        service.streamChat(request(), downstream);
+        primary.awaitStarted();
+        StreamCallback hedgeCallback = hedge.awaitStarted();
+
+        hedgeCallback.onContent("hedge");
+        hedgeCallback.onComplete();
+
+        assertTrue(primary.cancelled.get());
+        assertFalse(hedge.cancelled.get());
+        assertEquals(List.of("hedge"), downstream.contents);
+        assertEquals(1, downstream.completes.get());
+        assertTrue(downstream.errors.isEmpty());
+        verify(healthStore).markSuccess("hedge");
+        verify(healthStore, never()).markFailure("primary");
+    }
+
+    @Test
+    public void bothFailReportsErrorOnce() throws InterruptedException {
+        service.streamChat(request(), downstream);
+        StreamCallback primaryCallback = primary.awaitStarted();
+        StreamCallback hedgeCallback = hedge.awaitStarted();
+
+        hedgeCallback.onError(new IllegalStateException("hedge down"));
+        // 主模型仍在途，不通知下游
+        assertTrue(downstream.errors.isEmpty());
+
+        primaryCallback.onError(new IllegalStateException("primary down"));
+        primaryCallback.onError(new IllegalStateException("primary down again"));
+
+        assertEquals(1, downstream.errors.size());
+        Throwable error = downstream.errors.get(0);
+        assertInstanceOf(RemoteException.class, error);
+        assertEquals("primary down", error.getCause().getMessage());
+        assertTrue(downstream.contents.isEmpty());
+        assertEquals(0, downstream.completes.get());
+        assertTrue(hedge.cancelled.get());
+        verify(healthStore).markFailure("primary");
+        verify(healthStore).markFailure("hedge");
+    }
+
+    @Test
+    public void lateEventsAfterCommitAreDropped() throws InterruptedException {
+        service.streamChat(request(), downstream);
+        StreamCallback primaryCallback = primary.awaitStarted();
+        StreamCallback hedgeCallback = hedge.awaitStarted();
+
+        primaryCallback.onContent("primary");
+        assertTrue(hedge.cancelled.get());
+
+        // 落败的对冲请求在取消生效前仍可能回调
+        hedgeCallback.onContent("late");
+        hedgeCallback.onError(new IllegalStateException("late"));
+        hedgeCallback.onComplete();
+        primaryCallback.onContent(" done");
+        primaryCallback.onComplete();
+
+        assertEquals(List.of("primary", " done"), downstream.contents);
+        assertEquals(1, downstream.completes.get());
+        assertTrue(downstream.errors.isEmpty());
+        assertFalse(primary.cancelled.get());
+        verify(healthStore, never()).markFailure("hedge");
+    }
+
+    private static ChatRequest request() {
+        return ChatRequest.builder().thinking(false).build();
+    }
+
+    private static ModelTarget target(String id, String provider) {
+        AIModelProperties.ModelCandidate candidate = new AIModelProperties.ModelCandidate();
+        candidate.setId(id);
+        candidate.setProvider(provider);
+        return new ModelTarget(id, candidate, null);
+    }
+
+    /**
+     * 手动驱动的流式客户端：记录回调供用例推送事件，取消时只打标记
+     */
+    private static final class FakeStreamClient implements ChatClient {
+
+        private final String provider;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private volatile StreamCallback callback;
+
+        private FakeStreamClient(String provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public String provider() {
+            return provider;
+        }
+
+        @Override
+        public String chat(ChatRequest request, ModelTarget target) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public StreamCancellationHandle streamChat(ChatRequest request, StreamCallback callback, ModelTarget target) {
+            this.callback = callback;
+            started.countDown();
+            return () -> cancelled.set(true);
+        }
+
+        private StreamCallback awaitStarted() throws InterruptedException {
+            assertTrue(started.await(HEDGE_DELAY_MS * 100, TimeUnit.MILLISECONDS), provider + " 未启动");
+            return callback;
+        }
+    }
+
+    private static final class RecordingCallback implements StreamCallback {
+
+        private final List<String> contents = new CopyOnWriteArrayList<>();
+        private final List<Throwable> errors = new CopyOnWriteArrayList<>();
+        private final AtomicInteger completes = new AtomicInteger();
+
+        @Override
+        public void onContent(String content) {
+            contents.add(content);
+        }
+
+        @Override
+        public void onComplete() {
+            completes.incrementAndGet();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            errors.add(error);
+        }
+    }
+}
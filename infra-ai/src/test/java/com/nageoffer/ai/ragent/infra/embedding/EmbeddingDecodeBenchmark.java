@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.infra.embedding;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedding 响应解码基准测试
+ * <p>
+ * 对比 Gson 树模型 + List&lt;Float&gt;（旧实现）与流式解析直接写入 float[]（新实现）的耗时与内存分配，
+ * 关注 GC Profiler 输出的 gc.alloc.rate.norm（每次操作分配字节数）
+ * <p>
+ * 运行方式：直接执行 {@link #main(String[])}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmbeddingDecodeBenchmark {
+
+    @Param({"1024", "4096"})
+    private int dimension;
+
+    @Param({"1", "32"})
+    private int batchSize;
+
+    private String payload;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(batchSize * dimension * 12);
+        sb.append("{\"object\":\"list\",\"model\":\"bench\",\"data\":[");
+        for (int i = 0; i < batchSize; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"object\":\"embedding\",\"index\":").append(i).append(",\"embedding\":[");
+            for (int j = 0; j < dimension; j++) {
+                if (j > 0) {
+                    sb.append(',');
+                }
+                sb.append(random.nextFloat() * 2 - 1);
+            }
+            sb.append("]}");
+        }
+        sb.append("],\"usage\":{\"prompt_tokens\":1,\"total_tokens\":1}}");
+        payload = sb.toString();
+    }
+
+    /**
+     * 旧实现：构建 JSON 树，逐元素装箱为 Float，调用方再拆箱为 float[]
+     */
+    @Benchmark
+    public List<float[]> treeModelBoxed() {
+        JsonObject root = JsonParser.parseString(payload).getAsJsonObject();
+        JsonArray data = root.getAsJsonArray("data");
+        List<List<Float>> vectors = new ArrayList<>(data.size());
+        for (JsonElement el : data) {
+            JsonArray emb = el.getAsJsonObject().getAsJsonArray("embedding");
+            List<Float> v = new ArrayList<>(emb.size());
+            for (JsonElement num : emb) {
+                v.add(num.getAsFloat());
+            }
+            vectors.add(v);
+        }
+        List<float[]> result = new ArrayList<>(vectors.size());
+        for (List<Float> v : vectors) {
+            result.add(EmbeddingVectors.toArray(v));
+        }
+        return result;
+    }
+
+    /**
+     * 新实现：流式解析直接写入 float[]
+     */
+    @Benchmark
+    public List<float[]> streamingPrimitive() throws IOException {
+        return EmbeddingResponseReader.readData(new StringReader(payload), batchSize, dimension);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EmbeddingDecodeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.token;
+
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Byte-level BPE 分词计数
+ * <p>
+ * test/resources/token/tokenizer.json 只包含少量合并规则，期望值按 GPT-2 合并流程手工推导
+ */
+public class BpeTokenizerTests {
+
+    private static BpeTokenizer tokenizer;
+
+    @BeforeAll
+    public static void load() throws IOException {
+        try (Reader reader = new InputStreamReader(Objects.requireNonNull(
+                BpeTokenizerTests.class.getResourceAsStream("/token/tokenizer.json")), StandardCharsets.UTF_8)) {
+            tokenizer = BpeTokenizer.load(reader, new AIModelProperties.Tokenizer().getPattern());
+        }
+    }
+
+    @Test
+    public void loadsBothMergeFormats() {
+        assertEquals(11, tokenizer.mergeCount());
+    }
+
+    @Test
+    public void mergesByRank() {
+        // hello → 1，" world" → Ġworld → 1
+        assertEquals(2, tokenizer.count("hello world"));
+        // hello / , / " world" / !
+        assertEquals(4, tokenizer.count("hello, world!"));
+        // 只命中部分合并规则：he l p
+        assertEquals(3, tokenizer.count("help"));
+        assertEquals(0, tokenizer.count(""));
+        assertEquals(0, tokenizer.count(null));
+    }
+
+    @Test
+    public void splitsDigitsAndUnmergedBytes() {
+        assertEquals(4, tokenizer.count("2024"));
+        // 每个汉字 3 个 UTF-8 字节
+        assertEquals(6, tokenizer.count("你好"));
+    }
+
+    @Test
+    public void cachedPieceCountsStable() {
+        // hello / Ġworld / Ġ hello / Ġworld
+        String text = "hello world hello world";
+        int first = tokenizer.count(text);
+        assertEquals(5, first);
+        assertEquals(first, tokenizer.count(text));
+    }
+
+    @Test
+    public void longPieceSplitAtMaxChars() {
+        // 2000 个字节的片段分段合并，512 是 4 的倍数，段边界不影响合并结果：a b → ab，ab ab → abab
+        assertEquals(500, tokenizer.count("ab".repeat(1000)));
+        // 601 个字节，第 512 个字节处的 a b 被拆到两段：真实值为 x + 150 × abab = 151，
+        // 分段后为 x + 127 × abab + ab + a 与 b + 22 × abab，共 153，计数偏大
+        assertEquals(153, tokenizer.count("x" + "ab".repeat(300)));
+    }
+
+    @Test
+    public void rejectsTokenizerWithoutMerges() {
+        assertThrows(IllegalStateException.class,
+                () -> BpeTokenizer.load(new StringReader("{\"model\":{\"type\":\"BPE\"}}"), "\\S+"));
+    }
+}
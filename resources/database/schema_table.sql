@@ -15,7 +15,8 @@ CREATE TABLE `t_conversation`
     `deleted`         tinyint(4) DEFAULT '0' COMMENT '是否删除 0：正常 1：删除',
     PRIMARY KEY (`id`),
     UNIQUE KEY `uk_conversation_user` (`conversation_id`,`user_id`),
-    KEY               `idx_user_time` (`user_id`,`last_time`)
+    KEY               `idx_user_time` (`user_id`,`last_time`),
+    KEY               `idx_create_time` (`create_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='会话列表';
 
 CREATE TABLE `t_conversation_summary`
@@ -32,6 +33,69 @@ CREATE TABLE `t_conversation_summary`
     KEY               `idx_conv_user` (`conversation_id`,`user_id`) USING BTREE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='会话摘要表（与消息表分离存储）';
 
+CREATE TABLE `t_dashboard_rollup`
+(
+    `id`                 bigint(20) NOT NULL COMMENT 'ID',
+    `bucket_type`        varchar(8) NOT NULL COMMENT '粒度：hour / day',
+    `bucket_start`       datetime   NOT NULL COMMENT '桶起始时间',
+    `new_users`          bigint(20) NOT NULL DEFAULT '0' COMMENT '新增用户数',
+    `sessions`           bigint(20) NOT NULL DEFAULT '0' COMMENT '新建会话数',
+    `messages`           bigint(20) NOT NULL DEFAULT '0' COMMENT '消息数',
+    `assistant_messages` bigint(20) NOT NULL DEFAULT '0' COMMENT '助手回复数',
+    `no_doc_messages`    bigint(20) NOT NULL DEFAULT '0' COMMENT '未检索到知识的回复数',
+    `active_users`       bigint(20) NOT NULL DEFAULT '0' COMMENT '活跃用户数（小时桶为精确值，日桶为草图估计值）',
+    `active_user_sketch` varbinary(1024)     DEFAULT NULL COMMENT '活跃用户去重草图（HyperLogLog）',
+    `trace_success`      bigint(20) NOT NULL DEFAULT '0' COMMENT '成功链路数',
+    `trace_error`        bigint(20) NOT NULL DEFAULT '0' COMMENT '失败链路数',
+    `latency_count`      bigint(20) NOT NULL DEFAULT '0' COMMENT '耗时样本数（成功链路）',
+    `latency_sum_ms`     bigint(20) NOT NULL DEFAULT '0' COMMENT '耗时总和（毫秒）',
+    `slow_count`         bigint(20) NOT NULL DEFAULT '0' COMMENT '慢请求数',
+    `latency_sketch`     blob                DEFAULT NULL COMMENT '耗时分位数草图',
+    `create_time`        datetime   NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time`        datetime   NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_bucket` (`bucket_type`,`bucket_start`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='运营看板预聚合表（按小时/天）';
+
+CREATE TABLE `t_embedding_cache`
+(
+    `id`           bigint(20) NOT NULL COMMENT 'ID',
+    `model_id`     varchar(128) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT 'Embedding 模型ID',
+    `content_hash` varchar(64) COLLATE utf8mb4_unicode_ci  NOT NULL COMMENT '内容哈希（SHA-256）',
+    `dimension`    int(11) NOT NULL COMMENT '向量维度',
+    `embedding`    mediumblob                              NOT NULL COMMENT '向量数据（float32 小端序）',
+    `create_time`  datetime                                NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_model_hash` (`model_id`,`content_hash`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='向量缓存表（按模型ID + 内容哈希寻址）';
+
+CREATE TABLE `t_ingestion_job`
+(
+    `id`            bigint(20) NOT NULL COMMENT 'ID',
+    `job_type`      varchar(32) NOT NULL COMMENT '作业类型：ingestion_task / knowledge_chunk',
+    `biz_id`        bigint(20) NOT NULL COMMENT '业务ID（摄取任务ID或文档ID）',
+    `kb_id`         bigint(20)           DEFAULT NULL COMMENT '知识库ID',
+    `tenant`        varchar(64) NOT NULL DEFAULT '' COMMENT '租户（提交人）',
+    `status`        varchar(20) NOT NULL COMMENT '状态：pending / running / completed / failed',
+    `attempts`      int(11) NOT NULL DEFAULT '0' COMMENT '已领取次数',
+    `max_attempts`  int(11) NOT NULL DEFAULT '3' COMMENT '最大领取次数',
+    `payload_json`  json                 DEFAULT NULL COMMENT '执行参数JSON',
+    `available_at`  datetime    NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '最早可领取时间',
+    `lock_owner`    varchar(128)         DEFAULT NULL COMMENT '租约持有者',
+    `lock_until`    datetime             DEFAULT NULL COMMENT '租约到期时间',
+    `error_message` text COMMENT '最近一次错误信息',
+    `started_at`    datetime             DEFAULT NULL COMMENT '最近一次开始时间',
+    `completed_at`  datetime             DEFAULT NULL COMMENT '完成时间',
+    `create_time`   datetime    NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time`   datetime    NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    `deleted`       tinyint(1) NOT NULL DEFAULT '0' COMMENT '是否删除 0：正常 1：删除',
+    PRIMARY KEY (`id`),
+    KEY             `idx_status_available` (`status`, `available_at`),
+    KEY             `idx_kb_status` (`kb_id`, `status`),
+    KEY             `idx_tenant_status` (`tenant`, `status`),
+    KEY             `idx_biz` (`job_type`, `biz_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='摄取作业队列（多实例按租约领取）';
+
 CREATE TABLE `t_ingestion_pipeline`
 (
     `id`          bigint(20) NOT NULL COMMENT 'ID',
@@ -283,7 +347,8 @@ CREATE TABLE `t_message`
     `deleted`         tinyint(4) DEFAULT '0' COMMENT '是否删除 0：正常 1：删除',
     PRIMARY KEY (`id`),
     KEY               `idx_conversation_user_time` (`conversation_id`,`user_id`,`create_time`),
-    KEY               `idx_conversation_summary` (`conversation_id`,`user_id`,`create_time`)
+    KEY               `idx_conversation_summary` (`conversation_id`,`user_id`,`create_time`),
+    KEY               `idx_create_time` (`create_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='会话消息记录表';
 
 CREATE TABLE `t_message_feedback`
@@ -369,7 +434,8 @@ CREATE TABLE `t_rag_trace_run`
     PRIMARY KEY (`id`),
     UNIQUE KEY `uk_run_id` (`trace_id`),
     KEY               `idx_task_id` (`task_id`),
-    KEY               `idx_user_id` (`user_id`)
+    KEY               `idx_user_id` (`user_id`),
+    KEY               `idx_start_time` (`start_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='RAG Trace 运行记录表';
 
 CREATE TABLE `t_sample_question`